@@ -309,6 +309,8 @@ public class CodeAnalyzer {
         metrics.codeLines = 0;
         metrics.commentLines = 0;
         metrics.blankLines = 0;
+        metrics.methodCount = 0;
+        metrics.classCount = 0;
 
         boolean inBlockComment = false;
         for (String line : lines) {
@@ -28,23 +28,46 @@ public class ASTAnalyzer {
     private final List<ASTIssue> issues = new ArrayList<>();
     private final ASTMetrics metrics = new ASTMetrics();
     private final JavaParser parser;
+    private final ParseCache parseCache;
 
     public ASTAnalyzer() {
+        this(null);
+    }
+
+    /**
+     * @param parseCache 여러 분석기가 함께 쓰는 파싱 결과 캐시 (null이면 매번 파싱)
+     */
+    public ASTAnalyzer(ParseCache parseCache) {
         // Java 17 지원 (Text Block, Record, Sealed Class 등)
         ParserConfiguration config = new ParserConfiguration();
         config.setLanguageLevel(ParserConfiguration.LanguageLevel.JAVA_17);
         this.parser = new JavaParser(config);
+        this.parseCache = parseCache;
     }
 
     /**
      * 코드 분석 실행
      */
     public ASTAnalysisResult analyze(String code) {
+        return analyzeParsed(parse(code));
+    }
+
+    /**
+     * 이 분석기의 설정으로 파싱 (캐시가 있으면 캐시에서)
+     */
+    public ParseResult<CompilationUnit> parse(String code) {
+        return parseCache != null ? parseCache.parse(code, parser) : parser.parse(code);
+    }
+
+    /**
+     * 이미 파싱한 결과로 분석 (AST는 읽기만 함)
+     *
+     * 주의: 결과의 metrics는 이 분석기의 객체 → 다음 분석 전에 사용하거나 복사
+     */
+    public ASTAnalysisResult analyzeParsed(ParseResult<CompilationUnit> parseResult) {
         issues.clear();
         metrics.reset();
 
-        ParseResult<CompilationUnit> parseResult = parser.parse(code);
-
         if (!parseResult.isSuccessful()) {
             issues.add(new ASTIssue(
                 Severity.ERROR,
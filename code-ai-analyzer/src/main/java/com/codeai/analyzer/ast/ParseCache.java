@@ -0,0 +1,93 @@
+package com.codeai.analyzer.ast;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ast.CompilationUnit;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 파싱 결과 캐시 (같은 소스는 한 번만 파싱)
+ *
+ * 분석 서버처럼 같은 파일을 반복해서 분석할 때:
+ * - JavaParser 파싱이 분석 시간의 대부분 → 소스가 같으면 AST를 재사용
+ * - 키는 소스 텍스트 자체 (한 글자라도 바뀌면 다시 파싱)
+ * - 소스 글자 수 합으로 크기 제한 (AST 메모리는 소스 길이에 비례), 가장 오래 안 쓴 것부터 제거
+ * - 여러 스레드가 같은 AST를 함께 읽음 → 분석기는 AST를 읽기만 해야 함
+ *   (Symbol Solver처럼 AST에 데이터를 붙이는 분석에는 쓰지 않음)
+ *
+ * 파싱은 호출한 분석기의 JavaParser로 lock 밖에서 (JavaParser는 스레드 안전하지 않음)
+ */
+public class ParseCache {
+
+    private final long maxSourceChars;
+    private final Map<String, ParseResult<CompilationUnit>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long sourceChars;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public ParseCache(long maxSourceChars) {
+        if (maxSourceChars < 1) {
+            throw new IllegalArgumentException("maxSourceChars는 1 이상이어야 합니다: " + maxSourceChars);
+        }
+        this.maxSourceChars = maxSourceChars;
+    }
+
+    /**
+     * 캐시된 파싱 결과 (없으면 parser로 파싱해서 저장)
+     */
+    public ParseResult<CompilationUnit> parse(String code, JavaParser parser) {
+        synchronized (this) {
+            ParseResult<CompilationUnit> cached = entries.get(code);
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+        }
+        misses.increment();
+        ParseResult<CompilationUnit> result = parser.parse(code);
+        if (code.length() <= maxSourceChars) {
+            put(code, result);
+        }
+        return result;
+    }
+
+    private synchronized void put(String code, ParseResult<CompilationUnit> result) {
+        if (entries.put(code, result) == null) {
+            sourceChars += code.length();
+        }
+        Iterator<String> eldest = entries.keySet().iterator();
+        while (sourceChars > maxSourceChars && eldest.hasNext()) {
+            String key = eldest.next();
+            if (key.equals(code)) {
+                continue;
+            }
+            eldest.remove();
+            sourceChars -= key.length();
+            evictions.increment();
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        sourceChars = 0;
+    }
+
+    public synchronized Map<String, Object> stats() {
+        long lookups = hits.sum() + misses.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("entries", entries.size());
+        stats.put("sourceChars", sourceChars);
+        stats.put("maxSourceChars", maxSourceChars);
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("hitRate", lookups > 0 ? (double) hits.sum() / lookups : 0.0);
+        stats.put("evictions", evictions.sum());
+        return stats;
+    }
+}
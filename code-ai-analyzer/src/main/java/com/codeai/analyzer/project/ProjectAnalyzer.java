@@ -4,9 +4,8 @@ import com.codeai.analyzer.ast.ASTAnalyzer;
 import com.codeai.analyzer.ast.ASTAnalyzer.ASTAnalysisResult;
 import com.codeai.analyzer.ast.ASTAnalyzer.ASTIssue;
 import com.codeai.analyzer.ast.ASTAnalyzer.Severity;
-import com.github.javaparser.JavaParser;
+import com.codeai.analyzer.ast.ParseCache;
 import com.github.javaparser.ParseResult;
-import com.github.javaparser.ParserConfiguration;
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.body.*;
 import com.github.javaparser.ast.expr.*;
@@ -29,7 +28,6 @@ import java.util.stream.Collectors;
  */
 public class ProjectAnalyzer {
 
-    private final JavaParser parser;
     private final ASTAnalyzer astAnalyzer;
     private final List<FileAnalysis> fileAnalyses = new ArrayList<>();
     private final List<ProjectIssue> projectIssues = new ArrayList<>();
@@ -41,10 +39,14 @@ public class ProjectAnalyzer {
     private final Map<String, Set<String>> classUsages = new HashMap<>();
 
     public ProjectAnalyzer() {
-        ParserConfiguration config = new ParserConfiguration();
-        config.setLanguageLevel(ParserConfiguration.LanguageLevel.JAVA_17);
-        this.parser = new JavaParser(config);
-        this.astAnalyzer = new ASTAnalyzer();
+        this(null);
+    }
+
+    /**
+     * @param parseCache 여러 분석기가 함께 쓰는 파싱 결과 캐시 (null이면 매번 파싱)
+     */
+    public ProjectAnalyzer(ParseCache parseCache) {
+        this.astAnalyzer = new ASTAnalyzer(parseCache);
     }
 
     /**
@@ -121,8 +123,8 @@ public class ProjectAnalyzer {
             String code = Files.readString(file);
             String relativePath = projectRoot.relativize(file).toString();
 
-            // AST 파싱
-            ParseResult<CompilationUnit> parseResult = parser.parse(code);
+            // AST 파싱 (한 번만: 같은 AST로 클래스 정보, 의존성, AST 분석)
+            ParseResult<CompilationUnit> parseResult = astAnalyzer.parse(code);
 
             if (!parseResult.isSuccessful()) {
                 fileAnalyses.add(new FileAnalysis(
@@ -137,7 +139,7 @@ public class ProjectAnalyzer {
             CompilationUnit cu = parseResult.getResult().orElseThrow();
 
             // AST 분석 실행
-            ASTAnalysisResult astResult = astAnalyzer.analyze(code);
+            ASTAnalysisResult astResult = astAnalyzer.analyzeParsed(parseResult);
 
             // 클래스 정보 수집
             collectClassInfo(cu, relativePath);
@@ -9,6 +9,9 @@ import com.codeai.analyzer.ai.AICodeReviewer;
 import com.codeai.analyzer.llm.*;
 import com.codeai.analyzer.fix.*;
 import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.reflect.TypeToken;
 import okhttp3.*;
 import picocli.CommandLine;
 import picocli.CommandLine.Command;
@@ -18,6 +21,8 @@ import picocli.CommandLine.Parameters;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
 
@@ -69,22 +74,92 @@ public class MiniAiCli implements Callable<Integer> {
         System.out.println("  code-ai ai-review src/MyClass.java");
         System.out.println("  code-ai auto-fix src/MyClass.java --write");
         System.out.println("  code-ai auto-fix src/MyClass.java --llm --provider claude");
+        System.out.println("  code-ai ast-review src/MyClass.java --server   (분석 서버의 데워 둔 분석기 사용)");
         return 0;
     }
 
+    /**
+     * 분석 서버 요청 (review/ast-review/project-review --server)
+     *
+     * 서버는 분석기를 데워 두고 재사용하므로 명령마다 JVM 시작 + JavaParser 워밍업을 하지 않음
+     * 프로젝트 분석은 오래 걸릴 수 있어서 읽기 제한 시간을 늘림
+     *
+     * @throws IOException 연결 실패, 서버 오류, 과부하(429)
+     */
+    private static JsonObject postAnalysis(String path, Map<String, Object> body) throws IOException {
+        Request request = new Request.Builder()
+            .url(API_BASE + path)
+            .post(RequestBody.create(gson.toJson(body), JSON))
+            .build();
+
+        OkHttpClient analysisClient = client.newBuilder().readTimeout(Duration.ofMinutes(5)).build();
+        try (Response response = analysisClient.newCall(request).execute()) {
+            JsonObject result = JsonParser.parseString(response.body().string()).getAsJsonObject();
+            String status = result.has("status") ? result.get("status").getAsString() : "";
+            if (!"ok".equals(status)) {
+                String message = result.has("message") ? result.get("message").getAsString() : "HTTP " + response.code();
+                throw new IOException("분석 서버 오류: " + message);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * 분석 서버에서 파일 하나 분석 (결과를 분석기 결과 클래스로 되돌려 같은 보고서 출력)
+     */
+    private static <T> T analyzeOnServer(String code, String analyzer, Class<T> resultType) throws IOException {
+        JsonObject result = postAnalysis("/analyze", Map.of("code", code, "analyzers", List.of(analyzer)));
+        System.out.printf("  서버 분석: %.1fms%n%n", result.get("latencyMs").getAsDouble());
+        return gson.fromJson(result.get(analyzer), resultType);
+    }
+
     /**
      * train 명령어 - Bigram/Trigram/N-gram, Code/Whitespace, Smoothing 선택 가능
      */
     @Command(name = "train", description = "모델 학습 (Bigram/Trigram/N-gram)")
     static class Train implements Callable<Integer> {
-        @Option(names = {"--corpus"}, required = true, description = "Corpus 파일 경로")
+        @Option(names = {"--corpus"}, required = true, description = "Corpus 파일 또는 디렉토리 경로")
         String corpusPath;
 
+        @Option(names = {"--glob"}, description = "디렉토리 학습 시 파일 필터 (예: *.java)")
+        String glob;
+
+        @Option(names = {"--base"}, description = "증분 학습: 기존 Artifact 경로 (새 corpus 카운트만 병합)")
+        String baseArtifactPath;
+
+        @Option(names = {"--prune-min-count"}, description = "가지치기: 최고 order N-gram 최소 카운트")
+        Integer pruneMinCount;
+
+        @Option(names = {"--prune-max-ngrams"}, description = "가지치기: 남길 N-gram 수")
+        Long pruneMaxNgrams;
+
+        @Option(names = {"--prune-ppl"}, description = "가지치기: 허용할 perplexity 증가율 (예: 0.05)")
+        Double prunePerplexity;
+
+        @Option(names = {"--quantize"}, description = "서빙 모델을 양자화된 log 확률로 컴파일 (8/16비트)")
+        Integer quantizeBits;
+
+        @Option(names = {"--approximate"}, description = "메모리 제한 근사 학습 (드문 문맥은 Count-Min Sketch)")
+        boolean approximate;
+
+        @Option(names = {"--approx-heavy-contexts"}, description = "근사 학습: order마다 정확히 셀 문맥 수 (기본 100000)")
+        Integer approxHeavyContexts;
+
+        @Option(names = {"--approx-sketch-mb"}, description = "근사 학습: sketch 메모리 예산 MB (기본 64)")
+        Long approxSketchMb;
+
+        @Option(names = {"--suffix-index"}, description = "코퍼스 suffix array를 만들어 긴 문맥 일치로 생성 (infini-gram)")
+        boolean suffixIndex;
+
+        @Option(names = {"--members"}, split = ",",
+                description = "앙상블 멤버 Artifact 경로 (--model ensemble, --corpus는 held-out 텍스트)")
+        java.util.List<String> members;
+
         @Option(names = {"--output"}, description = "Artifact 출력 경로",
                 defaultValue = "data/code-model.json")
         String outputPath;
 
-        @Option(names = {"--model"}, description = "모델 타입 (bigram/trigram/ngram)",
+        @Option(names = {"--model"}, description = "모델 타입 (bigram/trigram/ngram/ensemble)",
                 defaultValue = "ngram")
         String modelType;
 
@@ -96,7 +171,7 @@ public class MiniAiCli implements Callable<Integer> {
                 defaultValue = "code")
         String tokenizerType;
 
-        @Option(names = {"--smoothing"}, description = "Smoothing (simple/kneser-ney)",
+        @Option(names = {"--smoothing"}, description = "Smoothing (simple/kneser-ney/modified-kneser-ney/stupid-backoff)",
                 defaultValue = "kneser-ney")
         String smoothingType;
 
@@ -104,7 +179,7 @@ public class MiniAiCli implements Callable<Integer> {
         public Integer call() {
             try {
                 System.out.println("🚀 모델 학습 시작...");
-                System.out.println("  Corpus: " + corpusPath);
+                System.out.println("  Corpus: " + corpusPath + (glob != null ? " (" + glob + ")" : ""));
                 System.out.println("  Output: " + outputPath);
                 System.out.println("  Model: " + modelType + (modelType.equals("ngram") ? " (n=" + n + ")" : ""));
                 System.out.println("  Tokenizer: " + tokenizerType);
@@ -117,6 +192,42 @@ public class MiniAiCli implements Callable<Integer> {
                 requestMap.put("tokenizerType", tokenizerType);
                 requestMap.put("n", n);
                 requestMap.put("smoothingType", smoothingType);
+                if (glob != null) {
+                    requestMap.put("glob", glob);
+                }
+                if (baseArtifactPath != null) {
+                    requestMap.put("baseArtifactPath", baseArtifactPath);
+                    System.out.println("  Base: " + baseArtifactPath + " (증분 학습)");
+                }
+                if (pruneMinCount != null) {
+                    requestMap.put("pruneMinCount", pruneMinCount);
+                }
+                if (pruneMaxNgrams != null) {
+                    requestMap.put("pruneMaxNgrams", pruneMaxNgrams);
+                }
+                if (prunePerplexity != null) {
+                    requestMap.put("pruneMaxPerplexityIncrease", prunePerplexity);
+                }
+                if (quantizeBits != null) {
+                    requestMap.put("quantizeBits", quantizeBits);
+                }
+                if (approximate) {
+                    requestMap.put("approximate", true);
+                    if (approxHeavyContexts != null) {
+                        requestMap.put("approxHeavyContexts", approxHeavyContexts);
+                    }
+                    if (approxSketchMb != null) {
+                        requestMap.put("approxSketchBytes", approxSketchMb * 1024 * 1024);
+                    }
+                    System.out.println("  Approximate: heavy 문맥 + Count-Min Sketch");
+                }
+                if (suffixIndex) {
+                    requestMap.put("suffixIndex", true);
+                }
+                if (members != null) {
+                    requestMap.put("members", members);
+                    System.out.println("  Members: " + String.join(", ", members));
+                }
 
                 String json = gson.toJson(requestMap);
 
@@ -125,21 +236,45 @@ public class MiniAiCli implements Callable<Integer> {
                     .post(RequestBody.create(json, JSON))
                     .build();
 
+                String jobId;
                 try (Response response = client.newCall(request).execute()) {
                     String body = response.body().string();
-                    Map<String, Object> result = gson.fromJson(body, Map.class);
+                    Map<String, Object> submitted = gson.fromJson(body, Map.class);
 
-                    if ("success".equals(result.get("status"))) {
-                        System.out.println("\n✅ 학습 완료!");
-                        System.out.println("  Model: " + result.get("modelType"));
-                        System.out.println("  Tokenizer: " + result.get("tokenizer"));
-                        System.out.println("  Smoothing: " + result.get("smoothing"));
-                        System.out.println("  Vocabulary: " + result.get("vocabSize"));
-                        System.out.println("  Latency: " + result.get("latencyMs") + "ms");
-                    } else {
-                        System.err.println("❌ 학습 실패: " + result.get("message"));
+                    if (!"accepted".equals(submitted.get("status"))) {
+                        System.err.println("❌ 학습 실패: " + submitted.get("message"));
                         return 1;
                     }
+                    jobId = (String) submitted.get("jobId");
+                    System.out.println("  Job: " + jobId);
+                }
+
+                // 작업이 끝날 때까지 진행 상황 조회
+                Map<String, Object> status = waitForJob(jobId);
+
+                if ("SUCCEEDED".equals(status.get("state"))) {
+                    Map<String, Object> result = (Map<String, Object>) status.get("result");
+                    System.out.println("\n✅ 학습 완료!");
+                    System.out.println("  Model: " + result.get("modelType"));
+                    System.out.println("  Tokenizer: " + result.get("tokenizer"));
+                    System.out.println("  Smoothing: " + result.get("smoothing"));
+                    System.out.println("  Vocabulary: " + result.get("vocabSize"));
+                    System.out.println("  Latency: " + result.get("latencyMs") + "ms");
+                    if (result.get("files") != null) {
+                        System.out.println("  Files: " + ((Number) result.get("files")).intValue());
+                        System.out.println("  Throughput: " + ((Number) result.get("tokensPerSecond")).longValue() + " tokens/sec");
+                    }
+                    if (result.get("compiledArtifactPath") != null) {
+                        System.out.println("  Compiled: " + result.get("compiledArtifactPath")
+                            + " (" + ((Number) result.get("quantizeBits")).intValue() + "-bit)");
+                    }
+                    if (result.get("suffixIndexPath") != null) {
+                        System.out.println("  Suffix index: " + result.get("suffixIndexPath")
+                            + " (" + ((Number) result.get("suffixIndexTokens")).intValue() + " tokens)");
+                    }
+                } else {
+                    System.err.println("❌ 학습 실패 (" + status.get("state") + "): " + status.get("error"));
+                    return 1;
                 }
 
                 return 0;
@@ -148,6 +283,54 @@ public class MiniAiCli implements Callable<Integer> {
                 return 1;
             }
         }
+
+        /**
+         * /v1/jobs/{id}를 주기적으로 조회하며 진행 상황 출력
+         */
+        private Map<String, Object> waitForJob(String jobId) throws IOException, InterruptedException {
+            String lastLine = "";
+            while (true) {
+                Request request = new Request.Builder()
+                    .url(API_BASE + "/jobs/" + jobId)
+                    .get()
+                    .build();
+
+                Map<String, Object> status;
+                try (Response response = client.newCall(request).execute()) {
+                    status = gson.fromJson(response.body().string(), Map.class);
+                }
+
+                String state = String.valueOf(status.get("state"));
+                if (!state.equals("QUEUED") && !state.equals("RUNNING")) {
+                    return status;
+                }
+
+                String line = "  ⏳ " + status.get("phase");
+                Object filesTotal = status.get("filesTotal");
+                if (filesTotal instanceof Number && ((Number) filesTotal).intValue() > 0) {
+                    line += String.format(" (%d/%d files", ((Number) status.get("filesCompleted")).intValue(),
+                        ((Number) filesTotal).intValue());
+                    Object bytesTotal = status.get("bytesTotal");
+                    if (bytesTotal instanceof Number && ((Number) bytesTotal).longValue() > 0) {
+                        line += String.format(", %d%%", ((Number) status.get("bytesProcessed")).longValue() * 100
+                            / ((Number) bytesTotal).longValue());
+                    }
+                    if (status.get("tokensPerSecond") != null) {
+                        line += ", " + ((Number) status.get("tokensPerSecond")).longValue() + " tokens/sec";
+                    }
+                    if (status.get("etaMs") != null) {
+                        line += ", ETA " + ((Number) status.get("etaMs")).longValue() / 1000 + "s";
+                    }
+                    line += ")";
+                }
+                if (!line.equals(lastLine)) {
+                    System.out.println(line);
+                    lastLine = line;
+                }
+
+                Thread.sleep(500);
+            }
+        }
     }
 
     /**
@@ -300,6 +483,10 @@ public class MiniAiCli implements Callable<Integer> {
                 defaultValue = "INFO")
         String minSeverity;
 
+        @Option(names = {"--server"}, description = "분석 서버(/v1/analyze) 사용",
+                defaultValue = "false")
+        boolean useServer;
+
         @Override
         public Integer call() {
             try {
@@ -311,8 +498,9 @@ public class MiniAiCli implements Callable<Integer> {
                 String code = Files.readString(Path.of(filePath));
 
                 // 분석 실행
-                CodeAnalyzer analyzer = new CodeAnalyzer();
-                CodeAnalyzer.AnalysisResult result = analyzer.analyze(code);
+                CodeAnalyzer.AnalysisResult result = useServer
+                    ? analyzeOnServer(code, "review", CodeAnalyzer.AnalysisResult.class)
+                    : new CodeAnalyzer().analyze(code);
 
                 // 심각도 필터링
                 CodeAnalyzer.Severity minSev = CodeAnalyzer.Severity.valueOf(minSeverity.toUpperCase());
@@ -406,20 +594,25 @@ public class MiniAiCli implements Callable<Integer> {
                 defaultValue = "false")
         boolean showMetrics;
 
+        @Option(names = {"--server"}, description = "분석 서버(/v1/analyze) 사용",
+                defaultValue = "false")
+        boolean useServer;
+
         @Override
         public Integer call() {
             try {
                 System.out.println("🌳 AST 기반 코드 리뷰 시작...");
                 System.out.println("  파일: " + filePath);
-                System.out.println("  분석기: JavaParser (AST)");
+                System.out.println("  분석기: JavaParser (AST)" + (useServer ? " @ 분석 서버" : ""));
                 System.out.println();
 
                 // 파일 읽기
                 String code = Files.readString(Path.of(filePath));
 
                 // AST 분석 실행
-                ASTAnalyzer analyzer = new ASTAnalyzer();
-                ASTAnalyzer.ASTAnalysisResult result = analyzer.analyze(code);
+                ASTAnalyzer.ASTAnalysisResult result = useServer
+                    ? analyzeOnServer(code, "ast", ASTAnalyzer.ASTAnalysisResult.class)
+                    : new ASTAnalyzer().analyze(code);
 
                 // 심각도 필터링
                 ASTAnalyzer.Severity minSev = ASTAnalyzer.Severity.valueOf(minSeverity.toUpperCase());
@@ -470,6 +663,10 @@ public class MiniAiCli implements Callable<Integer> {
                 defaultValue = "5")
         int topN;
 
+        @Option(names = {"--server"}, description = "분석 서버(/v1/analyze/project) 사용 (같은 디스크의 로컬 서버 전용, 서버의 miniai.analysis.project-root 아래 경로만)",
+                defaultValue = "false")
+        boolean useServer;
+
         @Override
         public Integer call() {
             try {
@@ -485,8 +682,9 @@ public class MiniAiCli implements Callable<Integer> {
                 }
 
                 // 프로젝트 분석 실행
-                ProjectAnalyzer analyzer = new ProjectAnalyzer();
-                ProjectAnalyzer.ProjectAnalysisResult result = analyzer.analyze(path);
+                ProjectAnalyzer.ProjectAnalysisResult result = useServer
+                    ? analyzeProjectOnServer(path)
+                    : new ProjectAnalyzer().analyze(path);
 
                 // 심각도 필터링
                 ASTAnalyzer.Severity minSev = ASTAnalyzer.Severity.valueOf(minSeverity.toUpperCase());
@@ -512,6 +710,20 @@ public class MiniAiCli implements Callable<Integer> {
         }
     }
 
+    /**
+     * 분석 서버에서 프로젝트 분석 (결과를 ProjectAnalysisResult로 되돌림)
+     */
+    private static ProjectAnalyzer.ProjectAnalysisResult analyzeProjectOnServer(Path path) throws IOException {
+        JsonObject result = postAnalysis("/analyze/project", Map.of("path", path.toAbsolutePath().toString()));
+        System.out.printf("  서버 분석: %.1fms%n%n", result.get("latencyMs").getAsDouble());
+        List<ProjectAnalyzer.FileAnalysis> files = gson.fromJson(result.get("fileAnalyses"),
+            new TypeToken<List<ProjectAnalyzer.FileAnalysis>>() { }.getType());
+        List<ProjectAnalyzer.ProjectIssue> issues = gson.fromJson(result.get("projectIssues"),
+            new TypeToken<List<ProjectAnalyzer.ProjectIssue>>() { }.getType());
+        return new ProjectAnalyzer.ProjectAnalysisResult(path, files, issues,
+            gson.fromJson(result.get("metrics"), ProjectAnalyzer.ProjectMetrics.class));
+    }
+
     /**
      * type-check 명령어 - Symbol Solver 기반 타입 분석
      */
@@ -3,6 +3,9 @@ package com.miniai.core.model;
 import com.miniai.core.types.GenerateRequest;
 import com.miniai.core.types.GenerateResponse;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * 언어 모델 인터페이스
  *
@@ -20,6 +23,21 @@ public interface LanguageModel {
      */
     GenerateResponse generate(GenerateRequest request);
 
+    /**
+     * 여러 요청을 한 번에 생성 (서버의 micro-batching용)
+     *
+     * 기본 구현은 하나씩 generate. 같은 문맥의 조회를 요청끼리 나눠 쓸 수 있는 모델은 재정의
+     *
+     * @return 요청과 같은 순서의 응답
+     */
+    default List<GenerateResponse> generateBatch(List<GenerateRequest> requests) {
+        List<GenerateResponse> responses = new ArrayList<>(requests.size());
+        for (GenerateRequest request : requests) {
+            responses.add(generate(request));
+        }
+        return responses;
+    }
+
     /**
      * 모델 이름 반환
      *
@@ -12,6 +12,7 @@ import java.util.Optional;
  * - temperature: 창의성 조절 (높을수록 다양)
  * - topK: 후보 토큰 수 제한
  * - seed: 재현 가능성 보장
+ * - sessionId: 같은 세션(편집 중인 파일)의 요청끼리 캐시 공유 (선택)
  */
 public class GenerateRequest {
     private final String prompt;
@@ -20,6 +21,7 @@ public class GenerateRequest {
     private final int topK;
     private final Long seed;
     private final List<String> stopSequences;
+    private final String sessionId;
 
     private GenerateRequest(Builder builder) {
         this.prompt = builder.prompt;
@@ -28,6 +30,7 @@ public class GenerateRequest {
         this.topK = builder.topK;
         this.seed = builder.seed;
         this.stopSequences = builder.stopSequences;
+        this.sessionId = builder.sessionId;
     }
 
     public String getPrompt() {
@@ -54,6 +57,10 @@ public class GenerateRequest {
         return stopSequences != null ? stopSequences : List.of();
     }
 
+    public Optional<String> getSessionId() {
+        return Optional.ofNullable(sessionId);
+    }
+
     public static Builder builder(String prompt) {
         return new Builder(prompt);
     }
@@ -65,6 +72,7 @@ public class GenerateRequest {
         private int topK = 50;
         private Long seed = null;
         private List<String> stopSequences = List.of();
+        private String sessionId = null;
 
         public Builder(String prompt) {
             this.prompt = prompt;
@@ -95,6 +103,11 @@ public class GenerateRequest {
             return this;
         }
 
+        public Builder sessionId(String sessionId) {
+            this.sessionId = sessionId;
+            return this;
+        }
+
         public GenerateRequest build() {
             return new GenerateRequest(this);
         }
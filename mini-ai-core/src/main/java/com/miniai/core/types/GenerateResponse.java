@@ -1,5 +1,7 @@
 package com.miniai.core.types;
 
+import java.util.Map;
+
 /**
  * 텍스트 생성 응답
  *
@@ -8,18 +10,26 @@ package com.miniai.core.types;
  * - usage: 토큰 사용량 (비용 계산 기준)
  * - latencyMs: 성능 측정
  * - model: 어떤 모델이 생성했는지 추적
+ * - stageNanos: 단계별 시간 (tokenize, lookup, sampling, decode 등, 측정한 모델만)
  */
 public class GenerateResponse {
     private final String generatedText;
     private final Usage usage;
     private final long latencyMs;
     private final String model;
+    private final Map<String, Long> stageNanos;
 
     public GenerateResponse(String generatedText, Usage usage, long latencyMs, String model) {
+        this(generatedText, usage, latencyMs, model, Map.of());
+    }
+
+    public GenerateResponse(String generatedText, Usage usage, long latencyMs, String model,
+                            Map<String, Long> stageNanos) {
         this.generatedText = generatedText;
         this.usage = usage;
         this.latencyMs = latencyMs;
         this.model = model;
+        this.stageNanos = stageNanos;
     }
 
     public String getGeneratedText() {
@@ -38,6 +48,13 @@ public class GenerateResponse {
         return model;
     }
 
+    /**
+     * 단계별 누적 시간 (나노초, 측정하지 않은 모델은 빈 Map)
+     */
+    public Map<String, Long> getStageNanos() {
+        return stageNanos;
+    }
+
     @Override
     public String toString() {
         return String.format("GenerateResponse(model=%s, latency=%dms, %s, text='%s')",
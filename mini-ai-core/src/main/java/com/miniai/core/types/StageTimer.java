@@ -0,0 +1,69 @@
+package com.miniai.core.types;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 생성 단계별 시간 측정 (요청 하나용, 나노초)
+ *
+ * 학습 포인트:
+ * - latencyMs 하나로는 "어느 단계가 느려졌는지" 알 수 없음
+ * - 생성 루프는 토큰마다 같은 단계를 반복 → 단계별로 누적
+ * - System.nanoTime()은 단조 증가 (currentTimeMillis는 시계 조정에 흔들림)
+ *
+ * 사용법:
+ *   long t = timer.start();
+ *   ... 토큰화 ...
+ *   t = timer.lap(StageTimer.TOKENIZE, t);
+ *
+ * 요청 스레드 하나에서만 사용 (스레드 안전하지 않음)
+ */
+public final class StageTimer {
+
+    public static final String TOKENIZE = "tokenize";
+    /** 문맥의 다음 토큰 분포 (order별 조회와 smoothing 계산이 섞여 있어 함께 잼) */
+    public static final String DISTRIBUTION = "distribution";
+    /** 분포 보정 (세션 캐시 interpolation, 입력 중인 토큰 제한) */
+    public static final String SESSION = "session";
+    public static final String SAMPLING = "sampling";
+    public static final String DECODE = "decode";
+
+    private final Map<String, Long> nanos = new LinkedHashMap<>();
+    private long startNanos;
+
+    /**
+     * 측정 시작 (전체 시간의 기준점)
+     *
+     * @return 현재 시각 (첫 lap의 시작)
+     */
+    public long start() {
+        startNanos = System.nanoTime();
+        return startNanos;
+    }
+
+    /**
+     * since부터 지금까지를 stage에 더함
+     *
+     * @return 현재 시각 (다음 lap의 시작)
+     */
+    public long lap(String stage, long since) {
+        long now = System.nanoTime();
+        nanos.merge(stage, now - since, Long::sum);
+        return now;
+    }
+
+    /**
+     * start() 이후 경과 시간 (나노초)
+     */
+    public long elapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    /**
+     * 단계별 누적 시간 (처음 기록된 순서)
+     */
+    public Map<String, Long> toMap() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(nanos));
+    }
+}
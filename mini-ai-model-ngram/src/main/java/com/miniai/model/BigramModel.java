@@ -1,10 +1,10 @@
 package com.miniai.model;
 
 import com.codeai.tokenizer.CodeTokenizer;
-import com.miniai.core.model.LanguageModel;
 import com.miniai.core.tokenizer.Tokenizer;
 import com.miniai.core.types.GenerateRequest;
 import com.miniai.core.types.GenerateResponse;
+import com.miniai.core.types.StageTimer;
 import com.miniai.core.types.Usage;
 import com.miniai.tokenizer.WhitespaceTokenizer;
 
@@ -22,7 +22,7 @@ import java.util.Map;
  * - Bigram: prev 토큰 기반으로 next 예측
  * - 샘플링: 확률 분포에서 토큰 선택
  */
-public class BigramModel implements LanguageModel {
+public class BigramModel implements NextTokenPredictor {
 
     private final BigramArtifact artifact;
     private final Tokenizer tokenizer;
@@ -58,6 +58,8 @@ public class BigramModel implements LanguageModel {
     @Override
     public GenerateResponse generate(GenerateRequest request) {
         long startTime = System.currentTimeMillis();
+        StageTimer timer = new StageTimer();
+        long t = timer.start();
 
         // 1. Prompt 토큰화
         List<Integer> promptTokens = tokenizer.encode(request.getPrompt());
@@ -75,7 +77,9 @@ public class BigramModel implements LanguageModel {
         // 3. 생성 루프
         List<Integer> generatedTokens = new ArrayList<>(promptTokens);
         int maxTokens = request.getMaxTokens();
-        List<String> stopSequences = request.getStopSequences();
+        StopSequenceMatcher stops = StopSequenceMatcher.compile(
+            request.getStopSequences(), tokenizer, artifact.getVocabulary());
+        t = timer.lap(StageTimer.TOKENIZE, t);
 
         for (int i = 0; i < maxTokens; i++) {
             // 마지막 토큰 기반으로 다음 토큰 예측
@@ -83,6 +87,7 @@ public class BigramModel implements LanguageModel {
 
             // 다음 토큰 후보들
             Map<Integer, Integer> nextCounts = artifact.getNextTokenCounts(prevToken);
+            t = timer.lap(StageTimer.DISTRIBUTION, t);
 
             if (nextCounts.isEmpty()) {
                 // 더 이상 생성 불가 (dead end)
@@ -93,14 +98,17 @@ public class BigramModel implements LanguageModel {
             int nextToken = sampler.sample(nextCounts);
             generatedTokens.add(nextToken);
 
-            // Stop sequence 확인
-            if (shouldStop(generatedTokens, stopSequences)) {
+            // Stop sequence 확인 (토큰 automaton, 토큰 경계에 맞지 않는 stop은 끝 텍스트 비교, 결과에 포함)
+            if (stops.advance(nextToken) > 0 || stops.endsWithText(generatedTokens)) {
                 break;
             }
+            t = timer.lap(StageTimer.SAMPLING, t);
         }
+        t = timer.lap(StageTimer.SAMPLING, t);
 
         // 4. 토큰 → 텍스트
         String generatedText = tokenizer.decode(generatedTokens);
+        timer.lap(StageTimer.DECODE, t);
 
         // 5. Usage 계산
         Usage usage = new Usage(
@@ -111,26 +119,7 @@ public class BigramModel implements LanguageModel {
         // 6. Latency 계산
         long latency = System.currentTimeMillis() - startTime;
 
-        return new GenerateResponse(generatedText, usage, latency, modelName);
-    }
-
-    /**
-     * Stop sequence 확인
-     */
-    private boolean shouldStop(List<Integer> tokens, List<String> stopSequences) {
-        if (stopSequences.isEmpty()) {
-            return false;
-        }
-
-        String currentText = tokenizer.decode(tokens);
-
-        for (String stopSeq : stopSequences) {
-            if (currentText.endsWith(stopSeq)) {
-                return true;
-            }
-        }
-
-        return false;
+        return new GenerateResponse(generatedText, usage, latency, modelName, timer.toMap());
     }
 
     /**
@@ -162,6 +151,19 @@ public class BigramModel implements LanguageModel {
         return probs;
     }
 
+    @Override
+    public Map<Integer, Double> nextTokenProbabilities(List<Integer> context) {
+        if (context.isEmpty()) {
+            return Map.of();
+        }
+        return getNextTokenProbs(context.get(context.size() - 1));
+    }
+
+    @Override
+    public int contextLength() {
+        return 1;
+    }
+
     @Override
     public String modelName() {
         return modelName;
@@ -175,6 +177,10 @@ public class BigramModel implements LanguageModel {
         return tokenizer;
     }
 
+    public Map<String, Integer> getVocabulary() {
+        return artifact.getVocabulary();
+    }
+
     @Override
     public String toString() {
         return String.format("BigramModel(vocab=%d, bigrams=%d)",
@@ -5,6 +5,7 @@ import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.miniai.core.model.Trainer;
 import com.miniai.core.tokenizer.Tokenizer;
+import com.miniai.model.ngram.TrainingListener;
 import com.miniai.tokenizer.WhitespaceTokenizer;
 
 import java.io.IOException;
@@ -21,11 +22,18 @@ import java.util.Map;
  * - 학습 = 데이터에서 패턴 추출
  * - Bigram 학습 = "A 다음에 B가 몇 번 나왔는지" 세기
  * - 결과를 JSON으로 저장하여 재사용
+ * - 진행 상황은 TrainingListener로 보고, 스레드 interrupt로 중단 가능
  */
 public class BigramTrainer implements Trainer {
 
+    /**
+     * 진행 보고 / interrupt 확인 간격 (토큰 수, 2의 거듭제곱)
+     */
+    private static final int PROGRESS_INTERVAL = 1 << 16;
+
     private final Tokenizer tokenizer;
     private final Gson gson;
+    private TrainingListener listener = TrainingListener.NONE;
 
     public BigramTrainer(Tokenizer tokenizer) {
         this.tokenizer = tokenizer;
@@ -41,6 +49,13 @@ public class BigramTrainer implements Trainer {
         this(WhitespaceTokenizer.fromText(corpus));
     }
 
+    /**
+     * 진행 상황 리스너 지정 (학습 스레드에서 호출됨)
+     */
+    public void setListener(TrainingListener listener) {
+        this.listener = listener != null ? listener : TrainingListener.NONE;
+    }
+
     @Override
     public void train(Path corpusPath, Path outputPath) {
         try {
@@ -56,7 +71,10 @@ public class BigramTrainer implements Trainer {
             // 3. Bigram 카운트 생성
             BigramArtifact artifact = trainFromText(corpus, finalTokenizer);
 
-            // 4. JSON으로 저장
+            // 4. JSON으로 저장 (중단되었으면 파일을 건드리지 않음)
+            if (Thread.currentThread().isInterrupted()) {
+                throw new RuntimeException("학습 중단됨: " + outputPath + " 저장 안 함");
+            }
             String json = gson.toJson(artifact);
             Files.writeString(outputPath, json);
 
@@ -81,6 +99,9 @@ public class BigramTrainer implements Trainer {
         Map<Integer, Map<Integer, Integer>> counts = new HashMap<>();
 
         for (int i = 0; i < tokens.size() - 1; i++) {
+            if ((i & (PROGRESS_INTERVAL - 1)) == 0) {
+                checkpoint(i, tokens.size(), corpus.length());
+            }
             int prevToken = tokens.get(i);
             int nextToken = tokens.get(i + 1);
 
@@ -89,6 +110,7 @@ public class BigramTrainer implements Trainer {
             Map<Integer, Integer> nextCounts = counts.get(prevToken);
             nextCounts.put(nextToken, nextCounts.getOrDefault(nextToken, 0) + 1);
         }
+        checkpoint(tokens.size(), tokens.size(), corpus.length());
 
         // 3. Vocabulary 추출 및 토크나이저 타입 결정
         Map<String, Integer> vocabulary = new HashMap<>();
@@ -137,6 +159,17 @@ public class BigramTrainer implements Trainer {
         return "BigramTrainer";
     }
 
+    /**
+     * PROGRESS_INTERVAL 토큰마다: interrupt 확인 + 진행 보고 (코퍼스 하나 → 바이트 대신 문자 수 비율)
+     */
+    private void checkpoint(int processedTokens, int totalTokens, long corpusChars) {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new RuntimeException("학습 중단됨");
+        }
+        long processedChars = totalTokens > 0 ? corpusChars * processedTokens / totalTokens : corpusChars;
+        listener.onProgress(processedTokens, processedChars, corpusChars, processedTokens == totalTokens ? 1 : 0, 1);
+    }
+
     /**
      * 학습 결과 요약 출력
      */
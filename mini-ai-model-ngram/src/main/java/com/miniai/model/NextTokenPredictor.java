@@ -0,0 +1,42 @@
+package com.miniai.model;
+
+import com.miniai.core.model.LanguageModel;
+import com.miniai.core.tokenizer.Tokenizer;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 문맥이 주어졌을 때 다음 토큰 분포를 돌려주는 모델
+ *
+ * 학습 포인트:
+ * - generate()는 "분포 → 샘플링" 루프: 분포 부분만 꺼내면 여러 모델을 섞을 수 있음
+ * - 분포는 합이 1이 아닐 수 있음 (backoff 단계마다 다름) → 쓰는 쪽에서 정규화
+ * - 구현은 읽기 전용이어야 함 (여러 스레드가 동시에 조회)
+ */
+public interface NextTokenPredictor extends LanguageModel {
+
+    /**
+     * 다음 토큰 확률 분포 (문맥 끝에서 contextLength()개만 사용, 예측 불가면 빈 Map)
+     */
+    Map<Integer, Double> nextTokenProbabilities(List<Integer> context);
+
+    /**
+     * 예측에 쓰는 문맥 토큰 수 (Bigram=1, Trigram=2, N-gram=N-1)
+     */
+    int contextLength();
+
+    Tokenizer getTokenizer();
+
+    /**
+     * 단어 → 토큰 ID (stop sequence를 토큰 ID로 바꿀 때 사용)
+     */
+    Map<String, Integer> getVocabulary();
+
+    /**
+     * 모델 데이터 메모리 (바이트, 추정할 수 없으면 -1)
+     */
+    default long memoryBytes() {
+        return -1;
+    }
+}
@@ -39,6 +39,16 @@ public class Sampler {
      * @return 선택된 토큰 ID
      */
     public int sample(Map<Integer, Integer> counts) {
+        return sample(candidates(counts));
+    }
+
+    /**
+     * 샘플링 후보 준비 (확률 변환 → temperature → topK, 난수를 쓰지 않음)
+     *
+     * 결과는 카운트와 temperature/topK로만 정해지므로 같은 설정의 Sampler끼리 공유 가능
+     * (배치 생성에서 같은 문맥의 요청들이 정렬을 한 번만 하도록)
+     */
+    public Candidates candidates(Map<Integer, Integer> counts) {
         if (counts == null || counts.isEmpty()) {
             throw new IllegalArgumentException("카운트가 비어있습니다");
         }
@@ -56,8 +66,27 @@ public class Sampler {
             probs = applyTopK(probs, topK);
         }
 
+        return new Candidates(temperature, topK, probs);
+    }
+
+    /**
+     * 준비된 후보에서 샘플링
+     *
+     * @throws IllegalArgumentException 다른 temperature/topK로 준비된 후보인 경우
+     */
+    public int sample(Candidates candidates) {
+        if (!candidates.preparedBy(this)) {
+            throw new IllegalArgumentException("다른 설정으로 준비된 후보입니다: " + candidates + " / " + this);
+        }
         // 4. 확률 기반 샘플링
-        return sampleFromProbs(probs);
+        return sampleFromProbs(candidates.probs);
+    }
+
+    /**
+     * 같은 후보를 만드는 설정인지 (temperature, topK)
+     */
+    public boolean hasSameSettings(Sampler other) {
+        return other != null && Double.compare(temperature, other.temperature) == 0 && topK == other.topK;
     }
 
     /**
@@ -153,6 +182,34 @@ public class Sampler {
         return probs.get(0).tokenId;
     }
 
+    /**
+     * 샘플링 후보 (확률 높은 순, 읽기 전용이라 여러 요청이 공유해도 안전)
+     */
+    public static final class Candidates {
+        private final double temperature;
+        private final int topK;
+        private final List<TokenProb> probs;
+
+        private Candidates(double temperature, int topK, List<TokenProb> probs) {
+            this.temperature = temperature;
+            this.topK = topK;
+            this.probs = probs;
+        }
+
+        boolean preparedBy(Sampler sampler) {
+            return Double.compare(temperature, sampler.temperature) == 0 && topK == sampler.topK;
+        }
+
+        public int size() {
+            return probs.size();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Candidates(temp=%.2f, topK=%d, size=%d)", temperature, topK, probs.size());
+        }
+    }
+
     /**
      * 토큰-확률 쌍
      */
@@ -0,0 +1,238 @@
+package com.miniai.model;
+
+import com.codeai.tokenizer.CodeTokenizer;
+import com.miniai.core.tokenizer.Tokenizer;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 토큰 ID 위의 stop sequence 검출기 (Aho-Corasick)
+ *
+ * 학습 포인트:
+ * - stop sequence 여러 개를 하나의 trie로 묶고 failure link를 붙이면
+ *   생성된 토큰을 하나씩 넣기만 해도 "방금 끝난 stop sequence"를 알 수 있음
+ *   (매 단계 전체 텍스트를 decode해서 endsWith 비교할 필요 없음)
+ * - 여러 토큰짜리 stop sequence도 지원 (예: "} [NL] }" = 메서드/클래스 끝)
+ * - failure link를 따라간 결과는 상태에 기억 (DFA 전이 캐시)
+ *   → 같은 (상태, 토큰)은 다음부터 HashMap 조회 한 번: 토큰당 O(1)
+ * - automaton은 토큰 경계에 맞는 일치만 찾음
+ *   (예: WhitespaceTokenizer에서 stop ";"는 토큰 "x;"의 끝과 일치하지 않음, ";" 자체가 vocabulary에 없으면 아예 제외)
+ *   → 디코딩한 텍스트 끝과 비교하는 fallback(endsWithText)도 제공
+ *     마지막 (가장 긴 stop 글자 수)만큼의 토큰만 decode하므로 출력 길이와 무관
+ *
+ * 요청마다 compile해서 쓰고 버림 (상태를 가지므로 스레드 간 공유하지 않음)
+ */
+public final class StopSequenceMatcher {
+
+    private static final int ROOT = 0;
+
+    /**
+     * 상태별 전이 (trie 간선 + 캐시된 failure 전이)
+     */
+    private final List<Map<Integer, Integer>> transitions = new ArrayList<>();
+    private final List<Integer> failure = new ArrayList<>();
+
+    /**
+     * 상태에서 끝나는 가장 긴 stop sequence 길이 (없으면 0)
+     */
+    private final List<Integer> matchLength = new ArrayList<>();
+
+    private int state = ROOT;
+
+    /**
+     * 텍스트 fallback용 (compile로 만든 경우만, 아니면 null / 빈 목록)
+     */
+    private final Tokenizer tokenizer;
+    private final List<String> textStops;
+    private final int maxTextLength;
+
+    private StopSequenceMatcher(List<int[]> sequences, Tokenizer tokenizer, List<String> textStops) {
+        this.tokenizer = tokenizer;
+        this.textStops = textStops;
+        this.maxTextLength = textStops.stream().mapToInt(String::length).max().orElse(0);
+        newState();
+        for (int[] sequence : sequences) {
+            insert(sequence);
+        }
+        buildFailureLinks();
+    }
+
+    /**
+     * 토큰 ID 시퀀스로 생성 (빈 시퀀스는 무시)
+     */
+    public static StopSequenceMatcher of(List<int[]> sequences) {
+        return new StopSequenceMatcher(sequences, null, List.of());
+    }
+
+    /**
+     * 문자열 stop sequence를 토큰 ID 시퀀스로 변환해서 생성
+     *
+     * - 공백으로 나눈 조각이 vocabulary 단어면 그 ID (예: "[NL]", "INDENT_2")
+     * - 아니면 토크나이저로 인코딩 (예: "});" → ")", "}", ";")
+     * - 줄바꿈은 [NL] 토큰으로 (CodeTokenizer)
+     * - vocabulary에 없는 조각이 있으면 생성될 수 없으므로 제외
+     */
+    public static StopSequenceMatcher compile(List<String> stopSequences, Tokenizer tokenizer,
+                                              Map<String, Integer> vocabulary) {
+        List<int[]> sequences = new ArrayList<>();
+        List<String> textStops = new ArrayList<>();
+        for (String stop : stopSequences) {
+            int[] ids = toTokenIds(stop, tokenizer, vocabulary);
+            if (ids != null) {
+                sequences.add(ids);
+            }
+            if (stop != null && !stop.isEmpty()) {
+                textStops.add(stop);
+            }
+        }
+        return new StopSequenceMatcher(sequences, tokenizer, textStops);
+    }
+
+    private static int[] toTokenIds(String stop, Tokenizer tokenizer, Map<String, Integer> vocabulary) {
+        if (stop == null || stop.isEmpty()) {
+            return null;
+        }
+        Integer whole = vocabulary.get(stop);
+        if (whole != null) {
+            return new int[]{whole};
+        }
+        String text = vocabulary.containsKey(CodeTokenizer.NEWLINE_TOKEN)
+            ? stop.replace("\n", " " + CodeTokenizer.NEWLINE_TOKEN + " ")
+            : stop;
+
+        List<Integer> ids = new ArrayList<>();
+        for (String piece : text.trim().split("\\s+")) {
+            if (piece.isEmpty()) {
+                continue;
+            }
+            Integer id = vocabulary.get(piece);
+            if (id != null) {
+                ids.add(id);
+            } else {
+                ids.addAll(tokenizer.encode(piece));
+            }
+        }
+        if (ids.isEmpty() || ids.contains(CodeTokenizer.UNK_ID)) {
+            return null;
+        }
+        return ids.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private int newState() {
+        transitions.add(new HashMap<>(4));
+        failure.add(ROOT);
+        matchLength.add(0);
+        return transitions.size() - 1;
+    }
+
+    private void insert(int[] sequence) {
+        if (sequence.length == 0) {
+            return;
+        }
+        int current = ROOT;
+        for (int token : sequence) {
+            Integer next = transitions.get(current).get(token);
+            if (next == null) {
+                next = newState();
+                transitions.get(current).put(token, next);
+            }
+            current = next;
+        }
+        matchLength.set(current, Math.max(matchLength.get(current), sequence.length));
+    }
+
+    /**
+     * BFS로 failure link 계산 (깊이 1은 root로)
+     */
+    private void buildFailureLinks() {
+        ArrayDeque<Integer> queue = new ArrayDeque<>(transitions.get(ROOT).values());
+        while (!queue.isEmpty()) {
+            int current = queue.poll();
+            for (Map.Entry<Integer, Integer> edge : transitions.get(current).entrySet()) {
+                int child = edge.getValue();
+                int fallback = current == ROOT ? ROOT : step(failure.get(current), edge.getKey());
+                if (fallback == child) {
+                    fallback = ROOT;
+                }
+                failure.set(child, fallback);
+                // 더 짧은 stop sequence가 같은 위치에서 끝날 수도 있음
+                matchLength.set(child, Math.max(matchLength.get(child), matchLength.get(fallback)));
+                queue.add(child);
+            }
+        }
+    }
+
+    /**
+     * 상태 전이 (없으면 failure link를 따라가서 찾고 기억)
+     */
+    private int step(int from, int token) {
+        Integer next = transitions.get(from).get(token);
+        if (next != null) {
+            return next;
+        }
+        if (from == ROOT) {
+            return ROOT;
+        }
+        int target = step(failure.get(from), token);
+        transitions.get(from).put(token, target);
+        return target;
+    }
+
+    /**
+     * 생성된 토큰 하나 반영
+     *
+     * @return 이 토큰에서 끝난 stop sequence 길이 (토큰 수, 없으면 0)
+     */
+    public int advance(int token) {
+        state = step(state, token);
+        return matchLength.get(state);
+    }
+
+    /**
+     * 디코딩한 텍스트가 stop sequence 문자열로 끝나는지 (토큰 경계에 맞지 않는 stop용 fallback)
+     *
+     * 전체 텍스트 대신 끝 토큰 몇 개만 decode: 창 첫 토큰 앞의 공백만 전체 decode와 다를 수 있으므로
+     * 창 텍스트가 가장 긴 stop 이상이 될 때까지 창을 두 배씩 늘림 (보통 가장 긴 stop 글자 수 개 토큰이면 충분)
+     *
+     * @param tokens 지금까지의 토큰 (방금 생성한 토큰 포함)
+     */
+    public boolean endsWithText(List<Integer> tokens) {
+        if (textStops.isEmpty() || tokens.isEmpty()) {
+            return false;
+        }
+        int window = Math.min(tokens.size(), maxTextLength);
+        String text = tokenizer.decode(tokens.subList(tokens.size() - window, tokens.size()));
+        while (text.length() < maxTextLength && window < tokens.size()) {
+            window = Math.min(tokens.size(), window * 2);
+            text = tokenizer.decode(tokens.subList(tokens.size() - window, tokens.size()));
+        }
+        for (String stop : textStops) {
+            if (text.endsWith(stop)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 처음 상태로 (새 생성 시작)
+     */
+    public void reset() {
+        state = ROOT;
+    }
+
+    public boolean isEmpty() {
+        return transitions.get(ROOT).isEmpty();
+    }
+
+    /**
+     * 상태 수 (root 포함)
+     */
+    public int stateCount() {
+        return transitions.size();
+    }
+}
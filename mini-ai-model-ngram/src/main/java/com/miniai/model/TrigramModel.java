@@ -1,10 +1,10 @@
 package com.miniai.model;
 
 import com.codeai.tokenizer.CodeTokenizer;
-import com.miniai.core.model.LanguageModel;
 import com.miniai.core.tokenizer.Tokenizer;
 import com.miniai.core.types.GenerateRequest;
 import com.miniai.core.types.GenerateResponse;
+import com.miniai.core.types.StageTimer;
 import com.miniai.core.types.Usage;
 import com.miniai.tokenizer.WhitespaceTokenizer;
 
@@ -22,7 +22,7 @@ import java.util.Map;
  * - Backoff: Trigram이 없으면 Bigram으로 대체
  * - 더 긴 문맥 = 더 정확한 패턴 ("public static void")
  */
-public class TrigramModel implements LanguageModel {
+public class TrigramModel implements NextTokenPredictor {
 
     private final TrigramArtifact artifact;
     private final Tokenizer tokenizer;
@@ -64,6 +64,8 @@ public class TrigramModel implements LanguageModel {
     @Override
     public GenerateResponse generate(GenerateRequest request) {
         long startTime = System.currentTimeMillis();
+        StageTimer timer = new StageTimer();
+        long t = timer.start();
 
         // 1. Prompt 토큰화
         List<Integer> promptTokens = tokenizer.encode(request.getPrompt());
@@ -81,11 +83,14 @@ public class TrigramModel implements LanguageModel {
         // 3. 생성 루프
         List<Integer> generatedTokens = new ArrayList<>(promptTokens);
         int maxTokens = request.getMaxTokens();
-        List<String> stopSequences = request.getStopSequences();
+        StopSequenceMatcher stops = StopSequenceMatcher.compile(
+            request.getStopSequences(), tokenizer, artifact.getVocabulary());
+        t = timer.lap(StageTimer.TOKENIZE, t);
 
         for (int i = 0; i < maxTokens; i++) {
             // 다음 토큰 후보들 (Trigram + Backoff)
             Map<Integer, Integer> nextCounts = getNextTokenCountsWithBackoff(generatedTokens);
+            t = timer.lap(StageTimer.DISTRIBUTION, t);
 
             if (nextCounts.isEmpty()) {
                 // 더 이상 생성 불가 (dead end)
@@ -96,14 +101,17 @@ public class TrigramModel implements LanguageModel {
             int nextToken = sampler.sample(nextCounts);
             generatedTokens.add(nextToken);
 
-            // Stop sequence 확인
-            if (shouldStop(generatedTokens, stopSequences)) {
+            // Stop sequence 확인 (토큰 automaton, 토큰 경계에 맞지 않는 stop은 끝 텍스트 비교, 결과에 포함)
+            if (stops.advance(nextToken) > 0 || stops.endsWithText(generatedTokens)) {
                 break;
             }
+            t = timer.lap(StageTimer.SAMPLING, t);
         }
+        t = timer.lap(StageTimer.SAMPLING, t);
 
         // 4. 토큰 → 텍스트
         String generatedText = tokenizer.decode(generatedTokens);
+        timer.lap(StageTimer.DECODE, t);
 
         // 5. Usage 계산
         Usage usage = new Usage(
@@ -114,7 +122,7 @@ public class TrigramModel implements LanguageModel {
         // 6. Latency 계산
         long latency = System.currentTimeMillis() - startTime;
 
-        return new GenerateResponse(generatedText, usage, latency, modelName);
+        return new GenerateResponse(generatedText, usage, latency, modelName, timer.toMap());
     }
 
     /**
@@ -172,23 +180,24 @@ public class TrigramModel implements LanguageModel {
         return combined;
     }
 
-    /**
-     * Stop sequence 확인
-     */
-    private boolean shouldStop(List<Integer> tokens, List<String> stopSequences) {
-        if (stopSequences.isEmpty()) {
-            return false;
+    @Override
+    public Map<Integer, Double> nextTokenProbabilities(List<Integer> context) {
+        if (context.isEmpty()) {
+            return Map.of();
         }
+        Map<Integer, Integer> counts = getNextTokenCountsWithBackoff(context);
+        double total = counts.values().stream().mapToInt(Integer::intValue).sum();
 
-        String currentText = tokenizer.decode(tokens);
-
-        for (String stopSeq : stopSequences) {
-            if (currentText.endsWith(stopSeq)) {
-                return true;
-            }
+        Map<Integer, Double> probs = new HashMap<>();
+        for (Map.Entry<Integer, Integer> entry : counts.entrySet()) {
+            probs.put(entry.getKey(), entry.getValue() / total);
         }
+        return probs;
+    }
 
-        return false;
+    @Override
+    public int contextLength() {
+        return 2;
     }
 
     @Override
@@ -204,6 +213,10 @@ public class TrigramModel implements LanguageModel {
         return tokenizer;
     }
 
+    public Map<String, Integer> getVocabulary() {
+        return artifact.getVocabulary();
+    }
+
     public double getBackoffWeight() {
         return backoffWeight;
     }
@@ -5,6 +5,7 @@ import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.miniai.core.model.Trainer;
 import com.miniai.core.tokenizer.Tokenizer;
+import com.miniai.model.ngram.TrainingListener;
 import com.miniai.tokenizer.WhitespaceTokenizer;
 
 import java.io.IOException;
@@ -21,11 +22,18 @@ import java.util.Map;
  * - Trigram: "A, B 다음에 C가 몇 번 나왔는지" 세기
  * - Bigram도 함께 저장 (backoff용)
  * - 더 긴 문맥 = 더 정확한 예측 (but 희소성 증가)
+ * - 진행 상황은 TrainingListener로 보고, 스레드 interrupt로 중단 가능
  */
 public class TrigramTrainer implements Trainer {
 
+    /**
+     * 진행 보고 / interrupt 확인 간격 (토큰 수, 2의 거듭제곱)
+     */
+    private static final int PROGRESS_INTERVAL = 1 << 16;
+
     private final Tokenizer tokenizer;
     private final Gson gson;
+    private TrainingListener listener = TrainingListener.NONE;
 
     public TrigramTrainer(Tokenizer tokenizer) {
         this.tokenizer = tokenizer;
@@ -34,6 +42,13 @@ public class TrigramTrainer implements Trainer {
             .create();
     }
 
+    /**
+     * 진행 상황 리스너 지정 (학습 스레드에서 호출됨)
+     */
+    public void setListener(TrainingListener listener) {
+        this.listener = listener != null ? listener : TrainingListener.NONE;
+    }
+
     @Override
     public void train(Path corpusPath, Path outputPath) {
         try {
@@ -43,7 +58,10 @@ public class TrigramTrainer implements Trainer {
             // 2. Trigram 학습
             TrigramArtifact artifact = trainFromText(corpus, tokenizer);
 
-            // 3. JSON으로 저장
+            // 3. JSON으로 저장 (중단되었으면 파일을 건드리지 않음)
+            if (Thread.currentThread().isInterrupted()) {
+                throw new RuntimeException("학습 중단됨: " + outputPath + " 저장 안 함");
+            }
             String json = gson.toJson(artifact);
             Files.writeString(outputPath, json);
 
@@ -65,32 +83,31 @@ public class TrigramTrainer implements Trainer {
         // 1. 토큰화
         List<Integer> tokens = tokenizer.encode(corpus);
 
-        // 2. Trigram 카운트
+        // 2. Trigram 카운트 + 3. Bigram 카운트 (backoff용), 한 번 훑으며 함께
         Map<String, Map<Integer, Integer>> trigramCounts = new HashMap<>();
-
-        for (int i = 0; i < tokens.size() - 2; i++) {
-            int prev1 = tokens.get(i);
-            int prev2 = tokens.get(i + 1);
-            int next = tokens.get(i + 2);
-
-            String key = TrigramArtifact.makeKey(prev1, prev2);
-
-            trigramCounts.putIfAbsent(key, new HashMap<>());
-            Map<Integer, Integer> nextCounts = trigramCounts.get(key);
-            nextCounts.put(next, nextCounts.getOrDefault(next, 0) + 1);
-        }
-
-        // 3. Bigram 카운트 (backoff용)
         Map<Integer, Map<Integer, Integer>> bigramCounts = new HashMap<>();
 
         for (int i = 0; i < tokens.size() - 1; i++) {
+            if ((i & (PROGRESS_INTERVAL - 1)) == 0) {
+                checkpoint(i, tokens.size(), corpus.length());
+            }
             int prev = tokens.get(i);
             int next = tokens.get(i + 1);
 
             bigramCounts.putIfAbsent(prev, new HashMap<>());
-            Map<Integer, Integer> nextCounts = bigramCounts.get(prev);
-            nextCounts.put(next, nextCounts.getOrDefault(next, 0) + 1);
+            Map<Integer, Integer> bigramNext = bigramCounts.get(prev);
+            bigramNext.put(next, bigramNext.getOrDefault(next, 0) + 1);
+
+            if (i + 2 < tokens.size()) {
+                String key = TrigramArtifact.makeKey(prev, next);
+                int trigramNextToken = tokens.get(i + 2);
+
+                trigramCounts.putIfAbsent(key, new HashMap<>());
+                Map<Integer, Integer> trigramNext = trigramCounts.get(key);
+                trigramNext.put(trigramNextToken, trigramNext.getOrDefault(trigramNextToken, 0) + 1);
+            }
         }
+        checkpoint(tokens.size(), tokens.size(), corpus.length());
 
         // 4. Vocabulary 추출 및 토크나이저 타입 결정
         Map<String, Integer> vocabulary = new HashMap<>();
@@ -137,4 +154,15 @@ public class TrigramTrainer implements Trainer {
     public String trainerName() {
         return "TrigramTrainer";
     }
+
+    /**
+     * PROGRESS_INTERVAL 토큰마다: interrupt 확인 + 진행 보고 (코퍼스 하나 → 바이트 대신 문자 수 비율)
+     */
+    private void checkpoint(int processedTokens, int totalTokens, long corpusChars) {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new RuntimeException("학습 중단됨");
+        }
+        long processedChars = totalTokens > 0 ? corpusChars * processedTokens / totalTokens : corpusChars;
+        listener.onProgress(processedTokens, processedChars, corpusChars, processedTokens == totalTokens ? 1 : 0, 1);
+    }
 }
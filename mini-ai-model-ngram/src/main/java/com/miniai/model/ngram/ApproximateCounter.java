@@ -0,0 +1,163 @@
+package com.miniai.model.ngram;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * 메모리 제한 근사 N-gram 카운터
+ *
+ * 학습 포인트:
+ * - 자주 나오는 문맥(heavy hitter)은 정확히, 드문 문맥(long tail)은 근사로 센다
+ * - Space-Saving: 고정 개수(k)의 문맥만 감시, 꽉 차면 가장 적게 나온 문맥을 내보냄
+ * - 내보낸 문맥의 다음 토큰 카운트는 Count-Min Sketch로 옮겨서 잃지 않음
+ * - 나온 문맥은 모두 Bloom filter에도 기록 → 조회 때 본 적 없는 문맥은 sketch를 보지 않고 backoff
+ *   (sketch는 충돌 때문에 없는 키에도 양수를 돌려줌)
+ * - 결과: 정확한 카운트 테이블은 order당 최대 k개 문맥, sketch + filter는 고정 바이트
+ *
+ * 한계:
+ * - 한 번 내보내졌다가 다시 들어온 문맥은 재진입 이후 카운트만 정확히 가짐
+ *   (이전 카운트는 sketch에 남아 있음)
+ */
+class ApproximateCounter {
+
+    private static final int SKETCH_DEPTH = 4;
+    private static final int PRESENCE_HASHES = 4;
+
+    /**
+     * order마다 예산 중 문맥 presence filter에 쓸 비율 (나머지는 sketch)
+     */
+    private static final int PRESENCE_BUDGET_DIVISOR = 4;
+
+    private final int n;
+    private final Map<Integer, SpaceSaving> heavyContexts = new HashMap<>();
+    private final Map<Integer, CountMinSketch> sketches = new HashMap<>();
+    private final Map<Integer, BloomFilter> presence = new HashMap<>();
+    private final Map<Integer, Integer> unigramCounts = new HashMap<>();
+
+    /**
+     * @param n N-gram order
+     * @param heavyContextsPerOrder order마다 정확히 셀 문맥 수 (k)
+     * @param sketchBudgetBytes 전체 sketch + presence filter 메모리 예산 (order 수로 균등 분배, filter는 1/4)
+     */
+    ApproximateCounter(int n, int heavyContextsPerOrder, long sketchBudgetBytes) {
+        this.n = n;
+        long perOrderBudget = sketchBudgetBytes / (n - 1);
+        long presenceBudget = perOrderBudget / PRESENCE_BUDGET_DIVISOR;
+        for (int order = 2; order <= n; order++) {
+            heavyContexts.put(order, new SpaceSaving(heavyContextsPerOrder));
+            presence.put(order, BloomFilter.withBudget(PRESENCE_HASHES, presenceBudget));
+            sketches.put(order, CountMinSketch.withBudget(SKETCH_DEPTH, perOrderBudget - presenceBudget));
+        }
+    }
+
+    /**
+     * 토큰 시퀀스 하나(파일의 한 조각)의 모든 order N-gram 추가
+     *
+     * @param from 이 위치 이상에서 끝나는 N-gram만 (앞은 이전 조각에서 이미 센 문맥)
+     */
+    void add(List<Integer> tokens, int from) {
+        for (int i = Math.max(0, from - n + 1); i < tokens.size(); i++) {
+            if (i >= from) {
+                unigramCounts.merge(tokens.get(i), 1, Integer::sum);
+            }
+
+            for (int order = Math.max(2, from - i + 1); order <= n && i + order <= tokens.size(); order++) {
+                String key = NgramArtifact.makeKey(tokens.subList(i, i + order - 1));
+                int next = tokens.get(i + order - 1);
+                heavyContexts.get(order).offer(key, next, sketches.get(order));
+                presence.get(order).add(BloomFilter.key(key));
+            }
+        }
+    }
+
+    /**
+     * 근사 Artifact 구성 (heavy 문맥은 정확한 카운트, 나머지는 sketch)
+     */
+    ApproximateNgramArtifact build(int maxTailCandidates) {
+        ApproximateNgramArtifact artifact = new ApproximateNgramArtifact(n, maxTailCandidates);
+
+        Map<Integer, Map<String, Map<Integer, Integer>>> lowerOrderCounts = new HashMap<>();
+        Map<String, Map<Integer, Integer>> unigram = new HashMap<>();
+        unigram.put("", unigramCounts);
+        lowerOrderCounts.put(1, unigram);
+
+        for (int order = 2; order <= n; order++) {
+            Map<String, Map<Integer, Integer>> exact = heavyContexts.get(order).toCounts();
+            if (order == n) {
+                artifact.setCounts(exact);
+            } else {
+                lowerOrderCounts.put(order, exact);
+            }
+        }
+
+        artifact.setLowerOrderCounts(lowerOrderCounts);
+        artifact.setContinuationCounts(NgramTrainer.computeContinuationCounts(lowerOrderCounts));
+        artifact.setSketches(sketches);
+        artifact.setPresence(presence);
+        return artifact;
+    }
+
+    /**
+     * Space-Saving 문맥 감시자 (문맥마다 다음 토큰 카운트를 정확히 보관)
+     */
+    private static class SpaceSaving {
+        private final int capacity;
+        private final Map<String, Entry> entries = new HashMap<>();
+        private final TreeSet<Entry> byCount = new TreeSet<>(
+            Comparator.comparingLong((Entry e) -> e.count).thenComparingLong(e -> e.sequence));
+        private long sequence;
+
+        SpaceSaving(int capacity) {
+            this.capacity = capacity;
+        }
+
+        void offer(String context, int next, CountMinSketch overflow) {
+            Entry entry = entries.get(context);
+
+            if (entry != null) {
+                byCount.remove(entry);
+                entry.count++;
+            } else if (entries.size() < capacity) {
+                entry = new Entry(context, 1, sequence++);
+                entries.put(context, entry);
+            } else {
+                // 가장 적게 나온 문맥을 내보내고 그 카운트를 sketch로 이동
+                Entry evicted = byCount.pollFirst();
+                entries.remove(evicted.context);
+                for (Map.Entry<Integer, Integer> e : evicted.nextCounts.entrySet()) {
+                    overflow.add(CountMinSketch.key(evicted.context, e.getKey()), e.getValue());
+                }
+
+                entry = new Entry(context, evicted.count + 1, sequence++);
+                entries.put(context, entry);
+            }
+
+            entry.nextCounts.merge(next, 1, Integer::sum);
+            byCount.add(entry);
+        }
+
+        Map<String, Map<Integer, Integer>> toCounts() {
+            Map<String, Map<Integer, Integer>> counts = new HashMap<>();
+            for (Entry entry : entries.values()) {
+                counts.put(entry.context, entry.nextCounts);
+            }
+            return counts;
+        }
+
+        private static class Entry {
+            final String context;
+            final long sequence;
+            final Map<Integer, Integer> nextCounts = new HashMap<>();
+            long count;
+
+            Entry(String context, long count, long sequence) {
+                this.context = context;
+                this.count = count;
+                this.sequence = sequence;
+            }
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.miniai.model.ngram;
+
+import com.google.gson.Gson;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 근사 N-gram Artifact (heavy hitter 정확 카운트 + long tail Count-Min Sketch)
+ *
+ * 학습 포인트:
+ * - NgramArtifact와 같은 조회 메서드를 제공하므로 SimpleBackoff, KneserNey가 그대로 사용
+ * - 정확한 테이블에 있는 문맥: 저장된 카운트 반환
+ * - 없는 문맥: 학습 중에 나온 문맥(presence filter)이면 한 단계 짧은 문맥의 상위 후보들을 sketch에서 추정
+ *   (sketch는 키를 나열할 수 없으므로 후보를 하위 order에서 가져옴)
+ * - 나온 적 없는 문맥은 빈 카운트 → smoothing이 하위 order로 backoff
+ *   (sketch는 충돌로 없는 키에도 양수를 돌려주므로, filter 없이 조회하면 없던 카운트를 만들어 냄)
+ * - presence가 없는 옛 Artifact는 예전처럼 sketch를 바로 조회
+ *
+ * 사용법:
+ * - 학습: NgramTrainer.trainApproximate(...), CLI `train --approximate`, /v1/train의 approximate: true
+ * - 로드: ApproximateNgramArtifact.load(path) → new NgramModel(artifact, tokenizer, smoothing)
+ */
+public class ApproximateNgramArtifact extends NgramArtifact {
+
+    /**
+     * order → long tail (문맥, 다음 토큰) 카운트 sketch
+     */
+    private Map<Integer, CountMinSketch> sketches;
+
+    /**
+     * order → 학습 중에 나온 문맥 (heavy + tail, 거짓 양성만 있음)
+     */
+    private Map<Integer, BloomFilter> presence;
+
+    /**
+     * tail 문맥 조회 시 sketch에서 추정할 최대 후보 수
+     */
+    private int maxTailCandidates;
+
+    /**
+     * 빈도순 unigram 후보 (조회 시 지연 계산, 직렬화 제외)
+     */
+    private transient List<Integer> unigramCandidates;
+
+    public ApproximateNgramArtifact() {
+        super();
+        this.sketches = new HashMap<>();
+        this.maxTailCandidates = 32;
+    }
+
+    public ApproximateNgramArtifact(int n, int maxTailCandidates) {
+        super(n);
+        this.sketches = new HashMap<>();
+        this.maxTailCandidates = maxTailCandidates;
+        getMetadata().setModelType(n + "-gram-approx");
+    }
+
+    @Override
+    public int getCount(List<Integer> context, int next) {
+        return getNextTokenCounts(context).getOrDefault(next, 0);
+    }
+
+    @Override
+    public Map<Integer, Integer> getNextTokenCounts(List<Integer> context) {
+        Map<Integer, Integer> exact = getCounts().get(makeKey(context));
+        if (exact != null) {
+            return exact;
+        }
+        return estimateTail(getN(), context);
+    }
+
+    @Override
+    public Map<Integer, Integer> getLowerOrderCounts(int order, List<Integer> context) {
+        Map<String, Map<Integer, Integer>> orderCounts = getLowerOrderCounts().get(order);
+        if (order == 1) {
+            return orderCounts != null ? orderCounts.getOrDefault("", new HashMap<>()) : new HashMap<>();
+        }
+        if (orderCounts != null) {
+            Map<Integer, Integer> exact = orderCounts.get(makeKey(context));
+            if (exact != null) {
+                return exact;
+            }
+        }
+        return estimateTail(order, context);
+    }
+
+    @Override
+    public Map<Integer, Integer> getNextTokenCounts(ContextCursor cursor) {
+        Map<Integer, Integer> exact = contextIndex().get(getN(), cursor);
+        if (exact != null) {
+            return exact;
+        }
+        return cursor.size() < getN() - 1 ? new HashMap<>() : estimateTail(getN(), cursor.suffix(getN() - 1));
+    }
+
+    @Override
+    public Map<Integer, Integer> getLowerOrderCounts(int order, ContextCursor cursor) {
+        Map<Integer, Integer> exact = contextIndex().get(order, cursor);
+        if (exact != null || order == 1) {
+            return exact != null ? exact : new HashMap<>();
+        }
+        return cursor.size() < order - 1 ? new HashMap<>() : estimateTail(order, cursor.suffix(order - 1));
+    }
+
+    /**
+     * 정확한 테이블에 없는 문맥의 카운트 추정
+     *
+     * 학습 중에 나온 문맥만: 후보 = 한 단계 짧은 문맥(suffix)의 상위 토큰들, 각 후보를 sketch에서 조회
+     */
+    private Map<Integer, Integer> estimateTail(int order, List<Integer> context) {
+        CountMinSketch sketch = sketches.get(order);
+        if (sketch == null || context.size() != order - 1) {
+            return new HashMap<>();
+        }
+
+        String key = makeKey(context);
+        BloomFilter seen = presence != null ? presence.get(order) : null;
+        if (seen != null && !seen.mightContain(BloomFilter.key(key))) {
+            return new HashMap<>(); // 나온 적 없는 문맥 → backoff
+        }
+
+        List<Integer> candidates;
+        if (order == 2) {
+            candidates = unigramCandidates();
+        } else {
+            candidates = topTokens(getLowerOrderCounts(order - 1, context.subList(1, context.size())));
+        }
+
+        Map<Integer, Integer> result = new HashMap<>();
+        for (int token : candidates) {
+            int estimate = sketch.estimate(CountMinSketch.key(key, token));
+            if (estimate > 0) {
+                result.put(token, estimate);
+            }
+        }
+        return result;
+    }
+
+    private List<Integer> unigramCandidates() {
+        List<Integer> candidates = unigramCandidates;
+        if (candidates == null) {
+            candidates = topTokens(getLowerOrderCounts(1, Collections.emptyList()));
+            unigramCandidates = candidates;
+        }
+        return candidates;
+    }
+
+    private List<Integer> topTokens(Map<Integer, Integer> counts) {
+        List<Map.Entry<Integer, Integer>> entries = new ArrayList<>(counts.entrySet());
+        entries.sort(Map.Entry.<Integer, Integer>comparingByValue().reversed());
+
+        List<Integer> tokens = new ArrayList<>();
+        for (int i = 0; i < entries.size() && i < maxTailCandidates; i++) {
+            tokens.add(entries.get(i).getKey());
+        }
+        return tokens;
+    }
+
+    /**
+     * Sketch + presence filter 전체 메모리 (바이트)
+     */
+    public long getSketchBytes() {
+        long bytes = sketches.values().stream().mapToLong(CountMinSketch::memoryBytes).sum();
+        if (presence != null) {
+            bytes += presence.values().stream().mapToLong(BloomFilter::memoryBytes).sum();
+        }
+        return bytes;
+    }
+
+    /**
+     * 정확히 저장된 문맥 수 (모든 order 합)
+     */
+    public int getExactContextCount() {
+        int total = getCounts().size();
+        for (Map<String, Map<Integer, Integer>> orderCounts : getLowerOrderCounts().values()) {
+            total += orderCounts.size();
+        }
+        return total;
+    }
+
+    public Map<Integer, CountMinSketch> getSketches() {
+        return sketches;
+    }
+
+    public void setSketches(Map<Integer, CountMinSketch> sketches) {
+        this.sketches = sketches;
+    }
+
+    public Map<Integer, BloomFilter> getPresence() {
+        return presence;
+    }
+
+    public void setPresence(Map<Integer, BloomFilter> presence) {
+        this.presence = presence;
+    }
+
+    public int getMaxTailCandidates() {
+        return maxTailCandidates;
+    }
+
+    /**
+     * JSON 파일로부터 근사 Artifact 로드
+     */
+    public static ApproximateNgramArtifact load(Path artifactPath) {
+        try {
+            String json = Files.readString(artifactPath);
+            return new Gson().fromJson(json, ApproximateNgramArtifact.class);
+        } catch (IOException e) {
+            throw new RuntimeException("Artifact 로드 실패: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ApproximateNgramArtifact(n=%d, vocab=%d, exactContexts=%d, sketch=%dKB)",
+            getN(), getVocabulary().size(), getExactContextCount(), getSketchBytes() / 1024);
+    }
+}
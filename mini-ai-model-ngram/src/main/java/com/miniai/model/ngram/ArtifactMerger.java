@@ -0,0 +1,190 @@
+package com.miniai.model.ngram;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * N-gram Artifact 병합기
+ *
+ * 학습 포인트:
+ * - N-gram 카운트는 더하기만 하면 합쳐진다 (같은 문맥 + 같은 다음 토큰 → 카운트 합)
+ * - 단, 서로 다른 코퍼스로 만든 Artifact는 토큰 ID가 다르다
+ *   → 병합 대상의 vocabulary 기준으로 ID를 다시 매핑해야 함
+ * - Continuation count는 "고유 문맥 수"라서 더하면 안 됨
+ *   → 병합 중 새로 생긴 bigram만 +1
+ *
+ * 사용처:
+ * - 증분 학습: 기존 Artifact + 새 파일로 만든 작은 Artifact
+ * - 분산 학습: 여러 머신에서 만든 shard 합치기
+ *
+ * 비용은 병합되는 쪽(source) 크기에 비례 (target은 제자리 수정)
+ */
+public class ArtifactMerger {
+
+    private ArtifactMerger() {
+    }
+
+    /**
+     * source를 target에 병합 (target이 수정됨)
+     *
+     * @param target 병합 결과를 담을 Artifact (기존 모델)
+     * @param source 추가할 Artifact (새 데이터)
+     * @return target
+     */
+    public static NgramArtifact mergeInto(NgramArtifact target, NgramArtifact source) {
+        if (target.getN() != source.getN()) {
+            throw new IllegalArgumentException(String.format(
+                "N이 다른 Artifact는 병합할 수 없습니다 (%d vs %d)", target.getN(), source.getN()));
+        }
+
+        String targetTokenizer = target.getMetadata().getTokenizerType();
+        String sourceTokenizer = source.getMetadata().getTokenizerType();
+        if (targetTokenizer != null && sourceTokenizer != null && !targetTokenizer.equals(sourceTokenizer)) {
+            throw new IllegalArgumentException(String.format(
+                "토크나이저가 다른 Artifact는 병합할 수 없습니다 (%s vs %s)", targetTokenizer, sourceTokenizer));
+        }
+
+        // 1. Vocabulary 확장 + source ID → target ID 매핑
+        Map<Integer, Integer> idMap = extendVocabulary(target.getVocabulary(), source.getVocabulary());
+
+        // 2. 주 N-gram 카운트 합산
+        mergeCounts(target.getCounts(), source.getCounts(), idMap, null);
+
+        // 3. 하위 N-gram 카운트 합산 (bigram 병합 시 continuation count 갱신)
+        for (Map.Entry<Integer, Map<String, Map<Integer, Integer>>> entry : source.getLowerOrderCounts().entrySet()) {
+            int order = entry.getKey();
+            Map<String, Map<Integer, Integer>> targetOrder =
+                target.getLowerOrderCounts().computeIfAbsent(order, k -> new HashMap<>());
+            Map<Integer, Integer> continuation = order == 2 ? target.getContinuationCounts() : null;
+            mergeCounts(targetOrder, entry.getValue(), idMap, continuation);
+        }
+
+        // 4. Metadata 갱신
+        NgramArtifact.Metadata metadata = target.getMetadata();
+        NgramArtifact.Metadata sourceMetadata = source.getMetadata();
+        metadata.setVocabSize(target.getVocabulary().size());
+        metadata.setTotalTokens(metadata.getTotalTokens() + sourceMetadata.getTotalTokens());
+        metadata.setTotalNgrams(metadata.getTotalNgrams() + sourceMetadata.getTotalNgrams());
+        metadata.setTrainedAt(Instant.now().toString());
+        metadata.setCorpusInfo(metadata.getCorpusInfo() + " + " + sourceMetadata.getCorpusInfo());
+        if (metadata.getTokenizerType() == null) {
+            metadata.setTokenizerType(sourceTokenizer);
+        }
+
+        return target;
+    }
+
+    /**
+     * 여러 shard를 하나로 병합 (첫 번째 shard가 수정되어 결과가 됨)
+     */
+    public static NgramArtifact mergeAll(List<NgramArtifact> shards) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("병합할 Artifact가 없습니다");
+        }
+        NgramArtifact merged = shards.get(0);
+        for (int i = 1; i < shards.size(); i++) {
+            mergeInto(merged, shards.get(i));
+        }
+        return merged;
+    }
+
+    /**
+     * target vocabulary에 source 단어를 추가하고 ID 매핑 반환
+     *
+     * - 이미 있는 단어: target의 ID 사용
+     * - 새 단어: target의 최대 ID 다음 번호 할당
+     */
+    private static Map<Integer, Integer> extendVocabulary(Map<String, Integer> target, Map<String, Integer> source) {
+        int nextId = target.values().stream().mapToInt(Integer::intValue).max().orElse(-1) + 1;
+
+        Map<Integer, Integer> idMap = new HashMap<>();
+        for (Map.Entry<String, Integer> entry : source.entrySet()) {
+            Integer targetId = target.get(entry.getKey());
+            if (targetId == null) {
+                targetId = nextId++;
+                target.put(entry.getKey(), targetId);
+            }
+            idMap.put(entry.getValue(), targetId);
+        }
+        return idMap;
+    }
+
+    /**
+     * 카운트 테이블 하나를 병합
+     *
+     * @param continuation null이 아니면, target에 없던 (문맥, 토큰) 쌍마다 해당 토큰의 continuation count +1
+     */
+    private static void mergeCounts(Map<String, Map<Integer, Integer>> target,
+                                    Map<String, Map<Integer, Integer>> source,
+                                    Map<Integer, Integer> idMap,
+                                    Map<Integer, Integer> continuation) {
+        for (Map.Entry<String, Map<Integer, Integer>> entry : source.entrySet()) {
+            String key = remapKey(entry.getKey(), idMap);
+            Map<Integer, Integer> targetNext = target.computeIfAbsent(key, k -> new HashMap<>());
+
+            for (Map.Entry<Integer, Integer> next : entry.getValue().entrySet()) {
+                int token = remapId(next.getKey(), idMap);
+                Integer previous = targetNext.put(token, targetNext.getOrDefault(token, 0) + next.getValue());
+                if (previous == null && continuation != null) {
+                    continuation.merge(token, 1, Integer::sum);
+                }
+            }
+        }
+    }
+
+    private static String remapKey(String key, Map<Integer, Integer> idMap) {
+        if (key.isEmpty()) {
+            return key; // unigram
+        }
+        String[] parts = key.split(":");
+        int[] tokens = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            tokens[i] = remapId(Integer.parseInt(parts[i]), idMap);
+        }
+        return NgramArtifact.makeKey(tokens);
+    }
+
+    private static int remapId(int id, Map<Integer, Integer> idMap) {
+        return idMap.getOrDefault(id, id);
+    }
+
+    /**
+     * 여러 머신에서 학습한 shard 병합
+     *
+     * 사용법: ArtifactMerger <output.json> <shard1.json> <shard2.json> ...
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("사용법: ArtifactMerger <output.json> <shard1.json> <shard2.json> ...");
+            System.exit(1);
+        }
+
+        long startTime = System.currentTimeMillis();
+        List<NgramArtifact> shards = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            NgramArtifact shard = NgramTrainer.loadArtifact(Paths.get(args[i]));
+            System.out.println("📦 " + args[i] + ": " + shard);
+            shards.add(shard);
+        }
+
+        NgramArtifact merged = mergeAll(shards);
+
+        Path outputPath = Paths.get(args[0]);
+        Gson gson = new GsonBuilder().setPrettyPrinting().create();
+        Files.writeString(outputPath, gson.toJson(merged));
+
+        System.out.println("✅ 병합 완료: " + outputPath);
+        System.out.println("   " + merged);
+        System.out.println("   Latency: " + (System.currentTimeMillis() - startTime) + "ms");
+    }
+}
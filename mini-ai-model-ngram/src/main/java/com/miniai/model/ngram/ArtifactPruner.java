@@ -0,0 +1,357 @@
+package com.miniai.model.ngram;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * N-gram Artifact 가지치기 (저장 전 크기 줄이기)
+ *
+ * 학습 포인트:
+ * - 1회만 나온 5-gram은 대부분 예측을 거의 바꾸지 않지만 Artifact의 대부분을 차지
+ * - Count cutoff: order별로 최소 카운트 미만인 N-gram 제거 (가장 단순)
+ * - Relative entropy (Stolcke 방식): N-gram을 지웠을 때 하위 order로 backoff한
+ *   확률과 얼마나 다른지로 중요도를 매기고, 덜 중요한 것부터 제거
+ *     D(h, w) = P(h) × P(w|h) × log(P(w|h) / (β × P(w|h')))
+ *     (h' = h의 첫 토큰을 뺀 문맥, β = 지운 뒤 backoff로 받는 비중)
+ * - 목표는 크기 예산(maxNgrams) 또는 perplexity 예산(maxPerplexityIncrease)
+ *     예상 perplexity 증가율 ≈ exp(Σ D) - 1  (원본 모델 대비 추정치, 실제 값은 held-out으로 측정)
+ *
+ * 규칙:
+ * - Unigram은 지우지 않음 (최종 fallback)
+ * - 남아 있는 상위 N-gram의 문맥이 되는 하위 N-gram은 지우지 않음 (ARPA와 같은 제약)
+ * - Continuation count(Kneser-Ney)는 원본 그대로 유지
+ *
+ * 사용법:
+ * <pre>
+ * ArtifactPruner pruner = new ArtifactPruner()
+ *     .minCount(5, 2)                  // 5-gram은 2회 이상만
+ *     .maxPerplexityIncrease(0.05);    // 예상 perplexity 증가 5% 이내
+ * ArtifactPruner.Report report = pruner.prune(artifact);
+ * </pre>
+ */
+public class ArtifactPruner {
+
+    /**
+     * 하위 order 확률이 0일 때 쓰는 최소 확률 (log 무한대 방지)
+     */
+    private static final double MIN_PROBABILITY = 1e-9;
+
+    private final Map<Integer, Integer> minCounts = new HashMap<>();
+    private double backoffWeight = 0.4;
+    private long maxNgrams = -1;
+    private double maxPerplexityIncrease = -1;
+
+    /**
+     * order별 count cutoff 지정
+     *
+     * @param order N-gram order (2 이상)
+     * @param minCount 이 값 미만의 카운트는 제거
+     */
+    public ArtifactPruner minCount(int order, int minCount) {
+        if (order < 2) {
+            throw new IllegalArgumentException("Unigram은 가지치기 대상이 아닙니다");
+        }
+        minCounts.put(order, minCount);
+        return this;
+    }
+
+    /**
+     * 지워진 N-gram이 backoff로 받는 확률 비중 (기본 0.4 = SimpleBackoff 기본 가중치)
+     *
+     * 지운 뒤의 확률을 backoffWeight × P(w|h')로 보고 점수를 매김
+     */
+    public ArtifactPruner backoffWeight(double backoffWeight) {
+        if (backoffWeight <= 0 || backoffWeight > 1) {
+            throw new IllegalArgumentException("backoffWeight는 0보다 크고 1 이하여야 합니다");
+        }
+        this.backoffWeight = backoffWeight;
+        return this;
+    }
+
+    /**
+     * 크기 예산: 남길 N-gram 수 (order 2 이상 전체)
+     */
+    public ArtifactPruner maxNgrams(long maxNgrams) {
+        if (maxNgrams < 0) {
+            throw new IllegalArgumentException("maxNgrams는 0 이상이어야 합니다");
+        }
+        this.maxNgrams = maxNgrams;
+        return this;
+    }
+
+    /**
+     * Perplexity 예산: 허용할 예상 perplexity 증가율 (예: 0.05 = 5%)
+     */
+    public ArtifactPruner maxPerplexityIncrease(double maxPerplexityIncrease) {
+        if (maxPerplexityIncrease < 0) {
+            throw new IllegalArgumentException("maxPerplexityIncrease는 0 이상이어야 합니다");
+        }
+        this.maxPerplexityIncrease = maxPerplexityIncrease;
+        return this;
+    }
+
+    /**
+     * 가지치기 (artifact를 제자리에서 수정)
+     */
+    public Report prune(NgramArtifact artifact) {
+        long startTime = System.currentTimeMillis();
+        int n = artifact.getN();
+        Report report = new Report();
+        report.ngramsBefore = countNgrams(artifact);
+
+        // 1. 원본 카운트 기준으로 모든 N-gram 점수 계산 (테이블 수정 전)
+        List<Candidate> cutoffs = new ArrayList<>();
+        List<Candidate> candidates = new ArrayList<>();
+        for (int order = n; order >= 2; order--) {
+            Map<String, Map<Integer, Integer>> table = table(artifact, order);
+            Map<String, Map<Integer, Integer>> lowerTable = table(artifact, order - 1);
+            Map<String, Integer> lowerTotals = new HashMap<>();
+            long orderTotal = 0;
+            for (Map<Integer, Integer> nextCounts : table.values()) {
+                orderTotal += sum(nextCounts);
+            }
+            int minCount = minCounts.getOrDefault(order, 0);
+
+            for (Map.Entry<String, Map<Integer, Integer>> entry : table.entrySet()) {
+                String context = entry.getKey();
+                Map<Integer, Integer> nextCounts = entry.getValue();
+                long contextTotal = sum(nextCounts);
+                String lowerContext = order == 2 ? "" : dropFirst(context);
+                Map<Integer, Integer> lowerCounts = lowerTable.getOrDefault(lowerContext, Map.of());
+                int lowerTotal = lowerTotals.computeIfAbsent(lowerContext, k -> (int) sum(lowerCounts));
+
+                for (Map.Entry<Integer, Integer> next : nextCounts.entrySet()) {
+                    int count = next.getValue();
+                    double p = (double) count / contextTotal;
+                    double backoff = lowerTotal > 0
+                        ? Math.max(MIN_PROBABILITY, (double) lowerCounts.getOrDefault(next.getKey(), 0) / lowerTotal)
+                        : MIN_PROBABILITY;
+                    double score = (double) count / orderTotal * Math.log(p / (backoffWeight * backoff));
+
+                    Candidate candidate = new Candidate(order, context, next.getKey(), score);
+                    (count < minCount ? cutoffs : candidates).add(candidate);
+                }
+            }
+        }
+
+        // 2. Count cutoff (상위 order부터)
+        for (Candidate candidate : cutoffs) {
+            if (remove(artifact, candidate)) {
+                report.removedByCutoff++;
+                report.estimatedLogLoss += candidate.score;
+            }
+        }
+
+        // 3. Relative entropy: 점수 낮은 것부터 예산이 허락하는 만큼 제거
+        //    (예산은 이 단계에만 적용, cutoff는 명시적으로 지정한 것이므로 항상 적용)
+        if (maxNgrams >= 0 || maxPerplexityIncrease >= 0) {
+            candidates.sort(Comparator.comparingDouble(c -> c.score));
+            double maxLogLoss = maxPerplexityIncrease >= 0 ? Math.log1p(maxPerplexityIncrease) : Double.MAX_VALUE;
+            long remaining = report.ngramsBefore - report.removedByCutoff;
+            double entropyLogLoss = 0;
+
+            // 상위 N-gram에 막혀 건너뛴 후보는 상위가 지워진 뒤 한 번 더 시도
+            List<Candidate> deferred = new ArrayList<>();
+            for (List<Candidate> pass : List.of(candidates, deferred)) {
+                for (Candidate candidate : new ArrayList<>(pass)) {
+                    if (maxNgrams >= 0 && remaining <= maxNgrams) {
+                        break;
+                    }
+                    if (entropyLogLoss + candidate.score > maxLogLoss) {
+                        break;
+                    }
+                    if (remove(artifact, candidate)) {
+                        report.removedByEntropy++;
+                        report.estimatedLogLoss += candidate.score;
+                        entropyLogLoss += candidate.score;
+                        remaining--;
+                    } else if (pass == candidates) {
+                        deferred.add(candidate);
+                    }
+                }
+            }
+        }
+
+        report.ngramsAfter = countNgrams(artifact);
+        report.latencyMs = System.currentTimeMillis() - startTime;
+        return report;
+    }
+
+    /**
+     * N-gram 하나 제거 (상위 N-gram의 문맥이면 false)
+     */
+    private static boolean remove(NgramArtifact artifact, Candidate candidate) {
+        if (candidate.order < artifact.getN()) {
+            String asContext = candidate.context + ":" + candidate.next;
+            if (table(artifact, candidate.order + 1).containsKey(asContext)) {
+                return false;
+            }
+        }
+
+        Map<String, Map<Integer, Integer>> table = table(artifact, candidate.order);
+        Map<Integer, Integer> nextCounts = table.get(candidate.context);
+        if (nextCounts == null || nextCounts.remove(candidate.next) == null) {
+            return false;
+        }
+        if (nextCounts.isEmpty()) {
+            table.remove(candidate.context);
+        }
+        return true;
+    }
+
+    private static Map<String, Map<Integer, Integer>> table(NgramArtifact artifact, int order) {
+        if (order == artifact.getN()) {
+            return artifact.getCounts();
+        }
+        return artifact.getLowerOrderCounts().computeIfAbsent(order, k -> new HashMap<>());
+    }
+
+    /**
+     * order 2 이상 N-gram 수 (문맥, 다음 토큰) 쌍 기준
+     */
+    static long countNgrams(NgramArtifact artifact) {
+        long total = 0;
+        for (int order = 2; order <= artifact.getN(); order++) {
+            for (Map<Integer, Integer> nextCounts : table(artifact, order).values()) {
+                total += nextCounts.size();
+            }
+        }
+        return total;
+    }
+
+    private static String dropFirst(String contextKey) {
+        int colon = contextKey.indexOf(':');
+        return colon < 0 ? "" : contextKey.substring(colon + 1);
+    }
+
+    private static long sum(Map<Integer, Integer> counts) {
+        long total = 0;
+        for (int count : counts.values()) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * 제거 후보 하나
+     */
+    private static class Candidate {
+        final int order;
+        final String context;
+        final int next;
+        final double score;
+
+        Candidate(int order, String context, int next, double score) {
+            this.order = order;
+            this.context = context;
+            this.next = next;
+            this.score = score;
+        }
+    }
+
+    /**
+     * 가지치기 결과
+     */
+    public static class Report {
+        private long ngramsBefore;
+        private long ngramsAfter;
+        private long removedByCutoff;
+        private long removedByEntropy;
+        private double estimatedLogLoss;
+        private long latencyMs;
+
+        public long getNgramsBefore() {
+            return ngramsBefore;
+        }
+
+        public long getNgramsAfter() {
+            return ngramsAfter;
+        }
+
+        public long getRemovedByCutoff() {
+            return removedByCutoff;
+        }
+
+        public long getRemovedByEntropy() {
+            return removedByEntropy;
+        }
+
+        /**
+         * 예상 perplexity 증가율 (exp(Σ D) - 1)
+         */
+        public double getEstimatedPerplexityIncrease() {
+            return Math.expm1(estimatedLogLoss);
+        }
+
+        public void print() {
+            System.out.println("✂️  가지치기: " + ngramsBefore + " → " + ngramsAfter + " N-grams"
+                + String.format(" (%.1f%%)", ngramsBefore > 0 ? 100.0 * ngramsAfter / ngramsBefore : 100.0));
+            System.out.println("   Cutoff: -" + removedByCutoff + ", Entropy: -" + removedByEntropy);
+            System.out.println(String.format("   예상 perplexity 증가 (학습 데이터 기준): %+.2f%%", getEstimatedPerplexityIncrease() * 100));
+            System.out.println("   Latency: " + latencyMs + "ms");
+        }
+
+        @Override
+        public String toString() {
+            return String.format("PruneReport(%d → %d, cutoff=%d, entropy=%d, ppl%+.2f%%)",
+                ngramsBefore, ngramsAfter, removedByCutoff, removedByEntropy,
+                getEstimatedPerplexityIncrease() * 100);
+        }
+    }
+
+    /**
+     * 저장된 Artifact 가지치기
+     *
+     * 사용법: ArtifactPruner input.json output.json [--max-ngrams N] [--max-ppl-increase X] [--min-count ORDER:COUNT]...
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("사용법: ArtifactPruner <input.json> <output.json>"
+                + " [--max-ngrams N] [--max-ppl-increase X] [--min-count ORDER:COUNT]...");
+            System.exit(1);
+        }
+
+        ArtifactPruner pruner = new ArtifactPruner();
+        for (int i = 2; i < args.length - 1; i += 2) {
+            switch (args[i]) {
+                case "--max-ngrams" -> pruner.maxNgrams(Long.parseLong(args[i + 1]));
+                case "--max-ppl-increase" -> pruner.maxPerplexityIncrease(Double.parseDouble(args[i + 1]));
+                case "--min-count" -> {
+                    String[] parts = args[i + 1].split(":");
+                    pruner.minCount(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]));
+                }
+                default -> throw new IllegalArgumentException("알 수 없는 옵션: " + args[i]);
+            }
+        }
+
+        Path inputPath = Paths.get(args[0]);
+        Path outputPath = Paths.get(args[1]);
+
+        long loadStart = System.currentTimeMillis();
+        NgramArtifact artifact = NgramTrainer.loadArtifact(inputPath);
+        long loadBefore = System.currentTimeMillis() - loadStart;
+
+        pruner.prune(artifact).print();
+
+        Gson gson = new GsonBuilder().setPrettyPrinting().create();
+        Files.writeString(outputPath, gson.toJson(artifact));
+
+        loadStart = System.currentTimeMillis();
+        NgramTrainer.loadArtifact(outputPath);
+        long loadAfter = System.currentTimeMillis() - loadStart;
+
+        System.out.println("✅ 저장: " + outputPath);
+        System.out.println(String.format("   크기: %dKB → %dKB, 로드: %dms → %dms",
+            Files.size(inputPath) / 1024, Files.size(outputPath) / 1024, loadBefore, loadAfter));
+    }
+}
@@ -0,0 +1,96 @@
+package com.miniai.model.ngram;
+
+/**
+ * Bloom filter (고정 메모리 집합 포함 여부)
+ *
+ * 학습 포인트:
+ * - 비트 배열 하나 + 해시 함수 hashes개: 추가는 hashes개 비트를 켬, 조회는 모두 켜져 있는지 확인
+ * - 거짓 음성은 없음 (넣은 것은 항상 true), 거짓 양성은 비트가 찰수록 늘어남
+ *   → 원소 m개, 비트 b개일 때 거짓 양성률 ≈ (1 - e^(-hashes × m / b))^hashes
+ * - 근사 Artifact에서 "학습 중에 실제로 나온 문맥인가"를 확인하는 데 사용
+ *   (Count-Min Sketch는 본 적 없는 키에도 충돌로 양수를 돌려주므로, 없는 문맥을 먼저 걸러야 함)
+ */
+public class BloomFilter {
+
+    private int hashes;
+    private long bitCount;
+    private long[] bits;
+
+    /**
+     * Gson 역직렬화용
+     */
+    public BloomFilter() {
+    }
+
+    public BloomFilter(int hashes, long bitCount) {
+        if (hashes < 1 || bitCount < 1) {
+            throw new IllegalArgumentException("hashes와 bitCount는 1 이상이어야 합니다");
+        }
+        this.hashes = hashes;
+        this.bits = new long[(int) Math.min((bitCount + 63) / 64, Integer.MAX_VALUE - 8)];
+        this.bitCount = (long) bits.length * 64;
+    }
+
+    /**
+     * 메모리 예산(바이트)에 맞는 filter 생성
+     */
+    public static BloomFilter withBudget(int hashes, long budgetBytes) {
+        return new BloomFilter(hashes, Math.max(64, budgetBytes * 8));
+    }
+
+    /**
+     * 문맥 키의 64비트 해시 (String.hashCode는 32비트라 문맥이 많으면 충돌이 잦음)
+     */
+    public static long key(String contextKey) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < contextKey.length(); i++) {
+            h = (h ^ contextKey.charAt(i)) * 0x100000001b3L;
+        }
+        return h;
+    }
+
+    public void add(long key) {
+        long h1 = mix(key);
+        long h2 = mix(h1) | 1;
+        for (int i = 0; i < hashes; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+            bits[(int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    /**
+     * 포함 여부 (false면 확실히 없음, true면 있거나 거짓 양성)
+     */
+    public boolean mightContain(long key) {
+        long h1 = mix(key);
+        long h2 = mix(h1) | 1;
+        for (int i = 0; i < hashes; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+            if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 메모리 사용량 (바이트)
+     */
+    public long memoryBytes() {
+        return (long) bits.length * Long.BYTES;
+    }
+
+    /**
+     * SplitMix64 finalizer (CountMinSketch와 같음)
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("BloomFilter(hashes=%d, bits=%d, %dKB)", hashes, bitCount, memoryBytes() / 1024);
+    }
+}
@@ -0,0 +1,284 @@
+package com.miniai.model.ngram;
+
+import com.google.gson.Gson;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 서빙용으로 컴파일된 N-gram 모델 (양자화된 log 확률)
+ *
+ * 학습 포인트:
+ * - 카운트 대신 smoothing까지 끝난 확률을 저장 → 조회 시 smoothing 계산이 없음
+ * - 문맥마다: 관찰된 다음 토큰 배열 + backoff 가중치 코드 + 각 토큰의 log 확률 코드
+ * - 코드는 8비트 또는 16비트, 실제 값은 공유 codebook(모든 문맥이 같이 쓰는 표)에서 꺼냄
+ * - 조회 (ARPA와 같은 backoff 구조):
+ *     P(w|h) = 저장된 값              (w가 h 뒤에서 관찰됨)
+ *            = bow(h) × P(w|h')      (아니면 한 단계 짧은 문맥으로)
+ *
+ * 메모리 (항목당):
+ * - NgramArtifact: 토큰 int + 카운트 int = 8바이트 (primitive로 인코딩해도)
+ * - 컴파일 (8비트): 토큰 int + 코드 1바이트 = 5바이트 (+ 문맥마다 backoff 코드 1바이트)
+ * - 위는 payloadBytes() 기준, 실제 힙은 문맥마다 HashMap 노드/키 String/Entry/배열 헤더가 더 붙음
+ *   → memoryBytes()는 이 오버헤드까지 포함 (NgramArtifact.estimateMemoryBytes()와 같은 기준)
+ *
+ * 생성: NgramCompiler.compile(artifact, smoothing, bits)
+ */
+public class CompiledNgramArtifact {
+
+    // 메모리 추정용 (배열 헤더 / 문맥 하나의 고정 크기 / 어휘 항목 하나)
+    private static final int ARRAY_HEADER_BYTES = 16;
+    private static final int CONTEXT_BYTES = 32 + 40 + 16 + 2 * ARRAY_HEADER_BYTES;
+    private static final int VOCABULARY_ENTRY_BYTES = 64;
+
+    private int n;
+    private int bits;
+    private String smoothing;
+
+    /**
+     * code → log 확률 (모든 문맥, 모든 항목이 공유)
+     */
+    private float[] codebook;
+
+    /**
+     * order → 문맥 키 → 항목 (unigram은 order 1, 키 "")
+     */
+    private Map<Integer, Map<String, Entry>> tables;
+
+    private Map<String, Integer> vocabulary;
+    private NgramArtifact.Metadata metadata;
+
+    /**
+     * code → 확률 (로드 후 지연 계산, 직렬화 제외)
+     */
+    private transient double[] probabilities;
+
+    public CompiledNgramArtifact() {
+        this.tables = new HashMap<>();
+        this.vocabulary = new HashMap<>();
+        this.metadata = new NgramArtifact.Metadata();
+    }
+
+    CompiledNgramArtifact(int n, int bits, String smoothing, float[] codebook) {
+        this();
+        this.n = n;
+        this.bits = bits;
+        this.smoothing = smoothing;
+        this.codebook = codebook;
+    }
+
+    /**
+     * 문맥 뒤 다음 토큰 확률 분포
+     *
+     * 가장 긴 문맥부터 내려가며, 아직 없는 토큰만 (누적 backoff 가중치 × 저장된 확률)로 채움
+     */
+    public Map<Integer, Double> getProbabilities(List<Integer> context) {
+        double[] probs = probabilities();
+        Map<Integer, Double> result = new HashMap<>();
+        double scale = 1.0;
+
+        for (int order = Math.min(n, context.size() + 1); order >= 1; order--) {
+            Entry entry = lookup(order, context);
+            if (entry == null) {
+                continue; // 없는 문맥은 확률 전체를 하위 order로 넘김
+            }
+            for (int i = 0; i < entry.tokens.length; i++) {
+                if (!result.containsKey(entry.tokens[i])) {
+                    result.put(entry.tokens[i], scale * probs[code(entry, i + 1)]);
+                }
+            }
+            if (order == 1) {
+                break;
+            }
+            scale *= probs[code(entry, 0)];
+        }
+        return result;
+    }
+
+    /**
+     * 토큰 하나의 확률 (분포 전체를 만들지 않는 backoff 조회)
+     */
+    public double getProbability(List<Integer> context, int token) {
+        double[] probs = probabilities();
+        double scale = 1.0;
+
+        for (int order = Math.min(n, context.size() + 1); order >= 1; order--) {
+            Entry entry = lookup(order, context);
+            if (entry == null) {
+                continue;
+            }
+            int index = Arrays.binarySearch(entry.tokens, token);
+            if (index >= 0) {
+                return scale * probs[code(entry, index + 1)];
+            }
+            if (order == 1) {
+                break;
+            }
+            scale *= probs[code(entry, 0)];
+        }
+        return 0.0;
+    }
+
+    private Entry lookup(int order, List<Integer> context) {
+        Map<String, Entry> table = tables.get(order);
+        if (table == null) {
+            return null;
+        }
+        String key = order == 1 ? "" : NgramArtifact.makeKey(context.subList(context.size() - (order - 1), context.size()));
+        return table.get(key);
+    }
+
+    /**
+     * codes 배열의 index번째 코드 (0 = backoff, 1부터 = tokens[index - 1])
+     */
+    private int code(Entry entry, int index) {
+        if (bits == 8) {
+            return entry.codes[index] & 0xff;
+        }
+        return ((entry.codes[2 * index] & 0xff) << 8) | (entry.codes[2 * index + 1] & 0xff);
+    }
+
+    private double[] probabilities() {
+        double[] probs = probabilities;
+        if (probs == null) {
+            probs = new double[codebook.length];
+            for (int i = 0; i < codebook.length; i++) {
+                probs[i] = Math.exp(codebook[i]);
+            }
+            probabilities = probs;
+        }
+        return probs;
+    }
+
+    void put(int order, String contextKey, Entry entry) {
+        tables.computeIfAbsent(order, k -> new HashMap<>()).put(contextKey, entry);
+    }
+
+    /**
+     * 힙 메모리 추정 (바이트, 모니터링/메모리 예산용 대략값)
+     *
+     * 문맥 하나 ≈ 120B + 키 글자 수 × 2 (HashMap 노드 32B + 키 String 40B + Entry 16B + 배열 헤더 2개)
+     * + 토큰/코드 배열 (8바이트 정렬), 어휘 항목 하나 ≈ 64B + 글자 수 × 2,
+     * codebook과 (계산된 경우) 확률 표 포함
+     */
+    public long memoryBytes() {
+        long total = ARRAY_HEADER_BYTES + (long) codebook.length * Float.BYTES;
+        if (probabilities != null) {
+            total += ARRAY_HEADER_BYTES + (long) probabilities.length * Double.BYTES;
+        }
+        for (Map<String, Entry> table : tables.values()) {
+            for (Map.Entry<String, Entry> context : table.entrySet()) {
+                Entry entry = context.getValue();
+                total += CONTEXT_BYTES + 2L * context.getKey().length()
+                    + align((long) entry.tokens.length * Integer.BYTES) + align(entry.codes.length);
+            }
+        }
+        for (String word : vocabulary.keySet()) {
+            total += VOCABULARY_ENTRY_BYTES + 2L * word.length();
+        }
+        return total;
+    }
+
+    /**
+     * 항목 배열 payload (바이트, codebook + 토큰 + 코드, 객체 오버헤드 제외)
+     *
+     * 양자화 압축률 비교용 (primitive 카운트 저장의 항목당 8바이트와 같은 기준)
+     */
+    public long payloadBytes() {
+        long total = (long) codebook.length * Float.BYTES;
+        for (Map<String, Entry> table : tables.values()) {
+            for (Entry entry : table.values()) {
+                total += (long) entry.tokens.length * Integer.BYTES + entry.codes.length;
+            }
+        }
+        return total;
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    /**
+     * 저장된 (문맥, 토큰) 항목 수
+     */
+    public long getEntryCount() {
+        long total = 0;
+        for (Map<String, Entry> table : tables.values()) {
+            for (Entry entry : table.values()) {
+                total += entry.tokens.length;
+            }
+        }
+        return total;
+    }
+
+    public int getN() {
+        return n;
+    }
+
+    public int getBits() {
+        return bits;
+    }
+
+    public String getSmoothing() {
+        return smoothing;
+    }
+
+    public Map<String, Integer> getVocabulary() {
+        return vocabulary;
+    }
+
+    public void setVocabulary(Map<String, Integer> vocabulary) {
+        this.vocabulary = vocabulary;
+    }
+
+    public NgramArtifact.Metadata getMetadata() {
+        return metadata;
+    }
+
+    public void setMetadata(NgramArtifact.Metadata metadata) {
+        this.metadata = metadata;
+    }
+
+    /**
+     * JSON 파일로부터 컴파일된 모델 로드
+     */
+    public static CompiledNgramArtifact load(Path path) {
+        try {
+            return new Gson().fromJson(Files.readString(path), CompiledNgramArtifact.class);
+        } catch (IOException e) {
+            throw new RuntimeException("컴파일된 모델 로드 실패: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CompiledNgramArtifact(n=%d, %d-bit, smoothing=%s, entries=%d, %dKB)",
+            n, bits, smoothing, getEntryCount(), memoryBytes() / 1024);
+    }
+
+    /**
+     * 문맥 하나의 컴파일된 항목
+     */
+    static class Entry {
+        /**
+         * 관찰된 다음 토큰 (정렬됨, 이진 탐색용)
+         */
+        final int[] tokens;
+
+        /**
+         * [backoff 가중치, 토큰별 log 확률] 코드 (8비트: 1바이트, 16비트: 2바이트 big-endian)
+         * unigram의 backoff 자리는 사용하지 않음
+         */
+        final byte[] codes;
+
+        Entry(int[] tokens, byte[] codes) {
+            this.tokens = tokens;
+            this.codes = codes;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.miniai.model.ngram;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 생성 루프용 문맥 커서 (마지막 N-1개 토큰의 ring buffer)
+ *
+ * 학습 포인트:
+ * - 기존 루프: 토큰마다 subList → makeKey 문자열 → backoff 단계마다 새 List
+ * - 커서: 토큰을 추가할 때 order별 문맥 해시를 바로 갱신
+ *     hash(마지막 k개) = extend(hash(추가 전 마지막 k-1개), 새 토큰)
+ *   → 추가는 order마다 곱셈 한 번, 조회는 미리 계산된 해시로 표 한 번
+ * - 해시가 같아도 토큰을 직접 비교하므로 충돌이 결과를 바꾸지 않음
+ *
+ * 사용 예시:
+ *   ContextCursor cursor = ContextCursor.of(n, promptTokens);
+ *   Map<Integer, Double> probs = smoothing.getSmoothedProbabilities(artifact, cursor);
+ *   cursor.append(nextToken);
+ *
+ * 주의: 스레드 안전하지 않음 (요청/루프마다 하나씩 사용)
+ */
+public final class ContextCursor {
+
+    /**
+     * 빈 문맥 (unigram 키 "")의 해시
+     */
+    static final long EMPTY_HASH = 0x2545F4914F6CDD1DL;
+
+    private static final long MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    private final int n;
+    private final int[] ring;
+    private int head; // 가장 오래된 토큰 위치
+    private int size;
+
+    /**
+     * hashes[k] = 마지막 k개 토큰의 해시 (k = 0..N-1)
+     */
+    private final long[] hashes;
+
+    public ContextCursor(int n) {
+        if (n < 1) {
+            throw new IllegalArgumentException("N은 1 이상이어야 합니다");
+        }
+        this.n = n;
+        this.ring = new int[n - 1];
+        this.hashes = new long[n];
+        reset();
+    }
+
+    /**
+     * 토큰 목록의 마지막 N-1개로 채운 커서
+     */
+    public static ContextCursor of(int n, List<Integer> tokens) {
+        ContextCursor cursor = new ContextCursor(n);
+        for (int i = Math.max(0, tokens.size() - (n - 1)); i < tokens.size(); i++) {
+            cursor.append(tokens.get(i));
+        }
+        return cursor;
+    }
+
+    /**
+     * 토큰 추가 (가득 차면 가장 오래된 토큰을 밀어냄)
+     */
+    public void append(int token) {
+        int capacity = ring.length;
+        if (capacity == 0) {
+            return; // unigram 모델: 문맥 없음
+        }
+
+        // 긴 suffix부터 갱신 (짧은 suffix의 이전 값을 읽어야 하므로)
+        int longest = Math.min(size + 1, capacity);
+        for (int k = longest; k >= 1; k--) {
+            hashes[k] = extend(hashes[k - 1], token);
+        }
+
+        if (size < capacity) {
+            ring[(head + size) % capacity] = token;
+            size++;
+        } else {
+            ring[head] = token;
+            head = (head + 1) % capacity;
+        }
+    }
+
+    /**
+     * 비우기 (다른 텍스트에 재사용)
+     */
+    public void reset() {
+        head = 0;
+        size = 0;
+        hashes[0] = EMPTY_HASH;
+    }
+
+    /**
+     * 현재 문맥 토큰 수 (최대 N-1)
+     */
+    public int size() {
+        return size;
+    }
+
+    public int getN() {
+        return n;
+    }
+
+    /**
+     * 끝에서 length개 토큰 중 index번째 (0 = 가장 오래된 토큰)
+     */
+    public int get(int length, int index) {
+        if (length > size || index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("length=" + length + ", index=" + index + ", size=" + size);
+        }
+        return ring[(head + size - length + index) % ring.length];
+    }
+
+    /**
+     * 마지막 length개 토큰의 해시
+     */
+    public long hash(int length) {
+        if (length > size) {
+            throw new IndexOutOfBoundsException("length=" + length + ", size=" + size);
+        }
+        return hashes[length];
+    }
+
+    /**
+     * 마지막 length개 토큰이 tokens와 같은지 (해시 충돌 확인용)
+     */
+    boolean matches(int[] tokens) {
+        int length = tokens.length;
+        if (length > size) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (get(length, i) != tokens[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 마지막 length개 토큰 (기존 List API로 넘길 때만 사용)
+     */
+    public List<Integer> suffix(int length) {
+        List<Integer> tokens = new ArrayList<>(length);
+        for (int i = 0; i < length; i++) {
+            tokens.add(get(length, i));
+        }
+        return tokens;
+    }
+
+    /**
+     * 현재 문맥 전체
+     */
+    public List<Integer> toList() {
+        return suffix(size);
+    }
+
+    /**
+     * 해시 한 단계 확장 (문맥 뒤에 토큰 하나)
+     */
+    static long extend(long hash, int token) {
+        long h = (hash ^ (token & 0xffffffffL)) * MULTIPLIER;
+        return h ^ (h >>> 29);
+    }
+
+    /**
+     * 토큰 배열 전체의 해시 (색인 구축용, 커서의 hash(length)와 같은 값)
+     */
+    static long hashOf(int[] tokens) {
+        long h = EMPTY_HASH;
+        for (int token : tokens) {
+            h = extend(h, token);
+        }
+        return h;
+    }
+
+    @Override
+    public String toString() {
+        return "ContextCursor" + toList();
+    }
+}
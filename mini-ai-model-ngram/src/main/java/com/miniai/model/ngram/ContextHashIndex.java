@@ -0,0 +1,51 @@
+package com.miniai.model.ngram;
+
+import java.util.Map;
+
+/**
+ * 문맥 해시 → 다음 토큰 카운트 색인 (ContextCursor 조회용)
+ *
+ * 학습 포인트:
+ * - order마다 ContextHashTable 하나 (open addressing, 커서 해시로 조회)
+ * - 카운트 Map은 복사하지 않고 Artifact의 Map을 그대로 참조
+ */
+final class ContextHashIndex {
+
+    private final ContextHashTable<Map<Integer, Integer>>[] tables;
+
+    ContextHashIndex(NgramArtifact artifact) {
+        int n = artifact.getN();
+        this.tables = newTables(n + 1);
+        for (int order = 1; order <= n; order++) {
+            Map<String, Map<Integer, Integer>> source = order == n
+                ? artifact.getCounts()
+                : artifact.getLowerOrderCounts().get(order);
+            if (source == null) {
+                source = Map.of();
+            }
+            ContextHashTable<Map<Integer, Integer>> table = new ContextHashTable<>(source.size());
+            for (Map.Entry<String, Map<Integer, Integer>> context : source.entrySet()) {
+                table.put(ContextHashTable.parseKey(context.getKey()), context.getValue());
+            }
+            tables[order] = table;
+        }
+    }
+
+    /**
+     * order별 표 배열 (제네릭 배열은 직접 못 만들어서 ContextHashTable<?> 배열을 캐스팅)
+     */
+    @SuppressWarnings("unchecked")
+    private static ContextHashTable<Map<Integer, Integer>>[] newTables(int length) {
+        return (ContextHashTable<Map<Integer, Integer>>[]) new ContextHashTable<?>[length];
+    }
+
+    /**
+     * 커서의 마지막 order-1개 토큰을 문맥으로 하는 카운트 (없으면 null)
+     */
+    Map<Integer, Integer> get(int order, ContextCursor cursor) {
+        if (order < 1 || order >= tables.length) {
+            return null;
+        }
+        return tables[order].get(cursor, order - 1);
+    }
+}
@@ -0,0 +1,107 @@
+package com.miniai.model.ngram;
+
+/**
+ * 문맥 토큰 열 → 값 해시 표 (ContextCursor의 해시로 조회)
+ *
+ * 학습 포인트:
+ * - open addressing (long 해시 배열 + 항목 배열, linear probing), 용량은 항목 수 × 2 이상의 2의 거듭제곱
+ * - 해시는 ContextCursor와 같은 함수 → 커서가 append 때 갱신해 둔 해시로 바로 조회 (문맥 키 문자열 없음)
+ * - 항목마다 문맥 토큰을 보관해서 해시 충돌 시에도 정확한 문맥만 반환
+ *
+ * 만든 뒤에는 읽기 전용 (여러 스레드가 동시에 조회해도 됨)
+ *
+ * @param <V> 문맥별 값 (다음 토큰 카운트, smoothing이 미리 계산한 값 등)
+ */
+public final class ContextHashTable<V> {
+
+    private final long[] hashes;
+    private final Entry<V>[] entries;
+    private final int mask;
+
+    public ContextHashTable(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(2, expectedSize * 2) - 1) << 1;
+        this.hashes = new long[capacity];
+        this.entries = newEntries(capacity);
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Entry<V> 배열 (제네릭 배열은 직접 못 만들어서 Entry<?> 배열을 캐스팅, 항목은 put으로만 들어감)
+     */
+    @SuppressWarnings("unchecked")
+    private static <V> Entry<V>[] newEntries(int capacity) {
+        return (Entry<V>[]) new Entry<?>[capacity];
+    }
+
+    /**
+     * 문맥 추가 (같은 문맥을 두 번 넣지 않아야 함)
+     */
+    public void put(int[] tokens, V value) {
+        Entry<V> entry = new Entry<>(tokens, value);
+        long hash = ContextCursor.hashOf(tokens);
+        int slot = slot(hash);
+        while (entries[slot] != null) {
+            if (hashes[slot] == hash) {
+                // 64비트 해시까지 같은 다른 문맥: 같은 칸에 연결
+                entry.next = entries[slot];
+                break;
+            }
+            slot = (slot + 1) & mask;
+        }
+        hashes[slot] = hash;
+        entries[slot] = entry;
+    }
+
+    /**
+     * 커서의 마지막 length개 토큰을 문맥으로 하는 값 (없으면 null)
+     */
+    public V get(ContextCursor cursor, int length) {
+        if (length < 0 || cursor.size() < length) {
+            return null;
+        }
+        long hash = cursor.hash(length);
+        int slot = slot(hash);
+        while (entries[slot] != null) {
+            if (hashes[slot] == hash) {
+                for (Entry<V> e = entries[slot]; e != null; e = e.next) {
+                    if (cursor.matches(e.tokens)) {
+                        return e.value;
+                    }
+                }
+                return null;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    private int slot(long hash) {
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    /**
+     * Artifact 문맥 키("12:7:3")를 토큰 배열로 ("" → 빈 배열)
+     */
+    public static int[] parseKey(String key) {
+        if (key.isEmpty()) {
+            return new int[0];
+        }
+        String[] parts = key.split(":");
+        int[] tokens = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            tokens[i] = Integer.parseInt(parts[i]);
+        }
+        return tokens;
+    }
+
+    private static final class Entry<V> {
+        final int[] tokens;
+        final V value;
+        Entry<V> next;
+
+        Entry(int[] tokens, V value) {
+            this.tokens = tokens;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.miniai.model.ngram;
+
+/**
+ * Count-Min Sketch (고정 메모리 근사 카운터)
+ *
+ * 학습 포인트:
+ * - depth개의 해시 함수 × width개의 카운터 = 고정 크기 2차원 배열
+ * - 추가: 각 행에서 해시된 칸을 증가
+ * - 조회: 각 행의 칸 중 최솟값 (충돌은 과대추정만 만들고 과소추정은 없음)
+ * - Conservative update: 최솟값보다 작은 칸만 올려서 과대추정을 줄임
+ *
+ * 오차: 확률 1 - (1/2)^depth 이상으로 estimate ≤ true + 2 × total / width
+ */
+public class CountMinSketch {
+
+    private int depth;
+    private int width;
+    private int[][] table;
+
+    /**
+     * Gson 역직렬화용
+     */
+    public CountMinSketch() {
+    }
+
+    public CountMinSketch(int depth, int width) {
+        if (depth < 1 || width < 1) {
+            throw new IllegalArgumentException("depth와 width는 1 이상이어야 합니다");
+        }
+        this.depth = depth;
+        this.width = width;
+        this.table = new int[depth][width];
+    }
+
+    /**
+     * 메모리 예산(바이트)에 맞는 sketch 생성
+     */
+    public static CountMinSketch withBudget(int depth, long budgetBytes) {
+        long width = budgetBytes / (depth * (long) Integer.BYTES);
+        return new CountMinSketch(depth, (int) Math.max(1, Math.min(width, Integer.MAX_VALUE - 8)));
+    }
+
+    /**
+     * (문맥, 다음 토큰) 쌍의 64비트 키
+     */
+    public static long key(String contextKey, int next) {
+        return ((long) contextKey.hashCode() << 32) ^ (next & 0xffffffffL);
+    }
+
+    /**
+     * 카운트 추가 (conservative update)
+     */
+    public void add(long key, int count) {
+        int[] cells = new int[depth];
+        int min = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            cells[row] = index(key, row);
+            min = Math.min(min, table[row][cells[row]]);
+        }
+
+        long target = (long) min + count;
+        int capped = (int) Math.min(target, Integer.MAX_VALUE);
+        for (int row = 0; row < depth; row++) {
+            if (table[row][cells[row]] < capped) {
+                table[row][cells[row]] = capped;
+            }
+        }
+    }
+
+    /**
+     * 카운트 추정 (실제 값 이상)
+     */
+    public int estimate(long key) {
+        int min = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, table[row][index(key, row)]);
+        }
+        return min;
+    }
+
+    /**
+     * 메모리 사용량 (바이트)
+     */
+    public long memoryBytes() {
+        return (long) depth * width * Integer.BYTES;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    private int index(long key, int row) {
+        return (int) Long.remainderUnsigned(mix(key + row * 0x9E3779B97F4A7C15L), width);
+    }
+
+    /**
+     * SplitMix64 finalizer (행마다 독립적인 해시처럼 동작)
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CountMinSketch(depth=%d, width=%d, %dKB)", depth, width, memoryBytes() / 1024);
+    }
+}
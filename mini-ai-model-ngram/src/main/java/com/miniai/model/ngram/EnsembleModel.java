@@ -0,0 +1,530 @@
+package com.miniai.model.ngram;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.miniai.core.tokenizer.Tokenizer;
+import com.miniai.core.types.GenerateRequest;
+import com.miniai.core.types.GenerateResponse;
+import com.miniai.core.types.StageTimer;
+import com.miniai.core.types.Usage;
+import com.miniai.model.BigramModel;
+import com.miniai.model.NextTokenPredictor;
+import com.miniai.model.Sampler;
+import com.miniai.model.StopSequenceMatcher;
+import com.miniai.model.TrigramModel;
+import com.miniai.model.smoothing.SmoothingStrategy;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * 여러 모델을 가중치로 섞는 앙상블 언어 모델 (linear interpolation)
+ *
+ * 학습 포인트:
+ * - P(w|h) = Σ λ_i × P_i(w|h)   (Σ λ_i = 1)
+ *   예: bigram(희소한 문맥에 강함) + trigram + 5-gram KN(긴 패턴에 강함)
+ * - λ는 held-out 텍스트로 EM 학습:
+ *     E: 토큰마다 r_i = λ_i P_i / Σ_j λ_j P_j  (각 모델의 "책임")
+ *     M: λ_i = 평균 r_i
+ *   → held-out log-likelihood가 단조 증가 (보통 수십 번이면 수렴)
+ * - 단계마다 멤버 조회를 동시에 실행 (첫 멤버는 호출 스레드에서, 나머지는 조회 풀에서)
+ * - 후보 병합은 크기 K인 min-heap으로 상위 K개만 남김 (전체 정렬 없음)
+ * - 멤버들은 같은 vocabulary(토큰 ID)를 써야 함
+ *
+ * 사용 예시:
+ *   EnsembleModel model = new EnsembleModel(List.of(bigram, trigram, kn5));
+ *   model.tuneWeights(heldOutText, 50);
+ *   EnsembleModel.save(model, "kneser-ney", Paths.get("ensemble.json"));
+ */
+public class EnsembleModel implements NextTokenPredictor {
+
+    /**
+     * EM 수렴 기준 (가중치 변화량 최댓값)
+     */
+    private static final double EM_TOLERANCE = 1e-4;
+
+    private static final AtomicInteger POOL_COUNT = new AtomicInteger();
+
+    private final List<NextTokenPredictor> members;
+    private final List<String> memberPaths;
+    private final Tokenizer tokenizer;
+    private final int contextLength;
+    private final ThreadPoolExecutor lookupPool;
+    private volatile double[] weights;
+
+    /**
+     * 균등 가중치로 생성
+     */
+    public EnsembleModel(List<NextTokenPredictor> members) {
+        this(members, uniform(members.size()), List.of());
+    }
+
+    /**
+     * @param weights 멤버별 가중치 (합이 1이 되도록 정규화)
+     * @param memberPaths 멤버 Artifact 경로 (설정 저장용, 없으면 빈 List)
+     */
+    public EnsembleModel(List<NextTokenPredictor> members, double[] weights, List<String> memberPaths) {
+        if (members.isEmpty()) {
+            throw new IllegalArgumentException("앙상블 멤버가 하나 이상 필요합니다");
+        }
+        if (weights.length != members.size()) {
+            throw new IllegalArgumentException("가중치 수(" + weights.length + ")가 멤버 수(" + members.size() + ")와 다릅니다");
+        }
+        this.members = List.copyOf(members);
+        this.memberPaths = List.copyOf(memberPaths);
+        this.tokenizer = members.get(0).getTokenizer();
+        this.contextLength = members.stream().mapToInt(NextTokenPredictor::contextLength).max().orElse(1);
+        checkSameVocabulary(members);
+        setWeights(weights);
+
+        int poolId = POOL_COUNT.incrementAndGet();
+        AtomicInteger threadCount = new AtomicInteger();
+        int threads = Math.max(1, Math.min(members.size() - 1, Runtime.getRuntime().availableProcessors()));
+        this.lookupPool = new ThreadPoolExecutor(threads, threads, 30L, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(),
+            runnable -> {
+                Thread thread = new Thread(runnable, "ensemble-" + poolId + "-lookup-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        // 모델이 교체되어 버려져도 쉬는 스레드는 스스로 종료
+        this.lookupPool.allowCoreThreadTimeOut(true);
+    }
+
+    private static double[] uniform(int size) {
+        double[] weights = new double[size];
+        Arrays.fill(weights, 1.0 / Math.max(1, size));
+        return weights;
+    }
+
+    /**
+     * 토큰 ID가 같은 단어를 가리키는지 확인 (다르면 분포를 섞을 수 없음)
+     */
+    private static void checkSameVocabulary(List<NextTokenPredictor> members) {
+        Tokenizer first = members.get(0).getTokenizer();
+        for (NextTokenPredictor member : members.subList(1, members.size())) {
+            Tokenizer other = member.getTokenizer();
+            if (other.vocabSize() != first.vocabSize()) {
+                throw new IllegalArgumentException("멤버 vocabulary 크기가 다릅니다: "
+                    + first.vocabSize() + " vs " + other.vocabSize() + " (" + member.modelName() + ")");
+            }
+            for (int id = 0; id < first.vocabSize(); id++) {
+                if (!first.decode(List.of(id)).equals(other.decode(List.of(id)))) {
+                    throw new IllegalArgumentException("멤버 vocabulary가 다릅니다: 토큰 " + id + " (" + member.modelName() + ")");
+                }
+            }
+        }
+    }
+
+    @Override
+    public GenerateResponse generate(GenerateRequest request) {
+        long startTime = System.currentTimeMillis();
+        StageTimer timer = new StageTimer();
+        long t = timer.start();
+
+        List<Integer> tokens = new ArrayList<>(tokenizer.encode(request.getPrompt()));
+        int inputTokenCount = tokens.size();
+
+        Long seed = request.getSeed().orElse(System.currentTimeMillis());
+        Sampler sampler = new Sampler(request.getTemperature(), request.getTopK(), seed);
+        StopSequenceMatcher stops = StopSequenceMatcher.compile(request.getStopSequences(), tokenizer, getVocabulary());
+        t = timer.lap(StageTimer.TOKENIZE, t);
+
+        for (int i = 0; i < request.getMaxTokens(); i++) {
+            // 멤버 동시 조회 + 가중합
+            Map<Integer, Double> mixed = nextTokenProbabilities(tokens);
+            t = timer.lap(StageTimer.DISTRIBUTION, t);
+
+            Map<Integer, Double> probs = topK(mixed, request.getTopK());
+            if (probs.isEmpty()) {
+                break; // 어느 멤버도 예측 불가
+            }
+
+            int nextToken = sampler.sample(NgramModel.probsToCounts(probs));
+
+            // Stop sequence 체크 (일치한 stop sequence는 결과에서 제외)
+            int matched = stops.advance(nextToken);
+            if (matched > 0) {
+                tokens.subList(tokens.size() - (matched - 1), tokens.size()).clear();
+                break;
+            }
+
+            tokens.add(nextToken);
+            t = timer.lap(StageTimer.SAMPLING, t);
+        }
+        t = timer.lap(StageTimer.SAMPLING, t);
+
+        String generatedText = tokenizer.decode(tokens);
+        timer.lap(StageTimer.DECODE, t);
+        Usage usage = new Usage(inputTokenCount, tokens.size() - inputTokenCount);
+        long latency = System.currentTimeMillis() - startTime;
+
+        return new GenerateResponse(generatedText, usage, latency, modelName(), timer.toMap());
+    }
+
+    /**
+     * 섞은 다음 토큰 분포 (합 = 1, 예측한 멤버의 가중치로 재정규화)
+     */
+    @Override
+    public Map<Integer, Double> nextTokenProbabilities(List<Integer> context) {
+        List<Map<Integer, Double>> distributions = lookupAll(context);
+        double[] w = weights;
+
+        Map<Integer, Double> mixed = new HashMap<>();
+        double usedWeight = 0.0;
+        for (int i = 0; i < distributions.size(); i++) {
+            Map<Integer, Double> distribution = distributions.get(i);
+            double total = distribution.values().stream().mapToDouble(Double::doubleValue).sum();
+            if (total <= 0 || w[i] == 0) {
+                continue; // 이 멤버는 예측 불가 (예: bigram dead end)
+            }
+            usedWeight += w[i];
+            double scale = w[i] / total;
+            for (Map.Entry<Integer, Double> entry : distribution.entrySet()) {
+                mixed.merge(entry.getKey(), scale * entry.getValue(), Double::sum);
+            }
+        }
+        if (usedWeight > 0 && usedWeight < 1) {
+            double norm = usedWeight;
+            mixed.replaceAll((token, p) -> p / norm);
+        }
+        return mixed;
+    }
+
+    /**
+     * 모든 멤버 분포를 동시에 조회
+     *
+     * 멤버마다 필요한 만큼의 문맥 끝만 복사해서 넘김 (생성 중인 List를 다른 스레드와 공유하지 않음)
+     */
+    private List<Map<Integer, Double>> lookupAll(List<Integer> context) {
+        List<Integer> tail = List.copyOf(context.subList(Math.max(0, context.size() - contextLength), context.size()));
+
+        List<CompletableFuture<Map<Integer, Double>>> futures = new ArrayList<>(members.size() - 1);
+        for (NextTokenPredictor member : members.subList(1, members.size())) {
+            futures.add(CompletableFuture.supplyAsync(() -> member.nextTokenProbabilities(tail), lookupPool));
+        }
+
+        List<Map<Integer, Double>> distributions = new ArrayList<>(members.size());
+        distributions.add(members.get(0).nextTokenProbabilities(tail));
+        for (CompletableFuture<Map<Integer, Double>> future : futures) {
+            distributions.add(future.join());
+        }
+        return distributions;
+    }
+
+    /**
+     * 확률 상위 K개 (크기 K min-heap, K <= 0이면 전체)
+     */
+    static Map<Integer, Double> topK(Map<Integer, Double> probs, int k) {
+        if (k <= 0 || probs.size() <= k) {
+            return probs;
+        }
+        PriorityQueue<Map.Entry<Integer, Double>> heap = new PriorityQueue<>(k, Map.Entry.comparingByValue());
+        for (Map.Entry<Integer, Double> entry : probs.entrySet()) {
+            if (heap.size() < k) {
+                heap.add(entry);
+            } else if (entry.getValue() > heap.peek().getValue()) {
+                heap.poll();
+                heap.add(entry);
+            }
+        }
+        Map<Integer, Double> result = new LinkedHashMap<>();
+        for (Map.Entry<Integer, Double> entry : heap) {
+            result.put(entry.getKey(), entry.getValue());
+        }
+        return result;
+    }
+
+    /**
+     * Held-out 텍스트로 가중치 EM 학습
+     *
+     * 멤버 확률은 토큰마다 한 번만 조회해두고 EM 반복은 그 표 위에서만 계산
+     *
+     * @return 학습된 가중치 (모델에도 적용됨)
+     */
+    public double[] tuneWeights(String heldOutText, int maxIterations) {
+        List<Integer> tokens = tokenizer.encode(heldOutText);
+        int k = members.size();
+
+        // P_i(token_t | 문맥) 표 (멤버별 정규화)
+        List<double[]> table = new ArrayList<>();
+        for (int t = 1; t < tokens.size(); t++) {
+            List<Map<Integer, Double>> distributions = lookupAll(tokens.subList(0, t));
+            double[] row = new double[k];
+            boolean any = false;
+            for (int i = 0; i < k; i++) {
+                Map<Integer, Double> distribution = distributions.get(i);
+                double total = distribution.values().stream().mapToDouble(Double::doubleValue).sum();
+                row[i] = total > 0 ? distribution.getOrDefault(tokens.get(t), 0.0) / total : 0.0;
+                any |= row[i] > 0;
+            }
+            if (any) {
+                table.add(row); // 모든 멤버가 0이면 가중치와 무관하므로 제외
+            }
+        }
+        if (table.isEmpty()) {
+            throw new IllegalArgumentException("Held-out 텍스트에서 예측 가능한 토큰이 없습니다");
+        }
+
+        double[] lambda = uniform(k);
+        int iteration = 0;
+        double change = Double.MAX_VALUE;
+        while (iteration < maxIterations && change > EM_TOLERANCE) {
+            double[] responsibility = new double[k];
+            for (double[] row : table) {
+                double mixture = 0.0;
+                for (int i = 0; i < k; i++) {
+                    mixture += lambda[i] * row[i];
+                }
+                for (int i = 0; i < k; i++) {
+                    responsibility[i] += lambda[i] * row[i] / mixture;
+                }
+            }
+            change = 0.0;
+            for (int i = 0; i < k; i++) {
+                double updated = responsibility[i] / table.size();
+                change = Math.max(change, Math.abs(updated - lambda[i]));
+                lambda[i] = updated;
+            }
+            iteration++;
+        }
+
+        setWeights(lambda);
+        System.out.printf("🎚️ EM 가중치 (%d회, %d토큰): %s%n", iteration, table.size(), describeWeights());
+        return getWeights();
+    }
+
+    /**
+     * 텍스트에 대한 Perplexity (NgramModel.perplexity와 같은 방식)
+     */
+    public double perplexity(String text) {
+        List<Integer> tokens = tokenizer.encode(text);
+        double logProbSum = 0.0;
+        int predicted = 0;
+        for (int i = 1; i < tokens.size(); i++) {
+            double p = nextTokenProbabilities(tokens.subList(0, i)).getOrDefault(tokens.get(i), 0.0);
+            logProbSum += Math.log(p > 0 ? p : 1e-6);
+            predicted++;
+        }
+        return predicted == 0 ? Double.NaN : Math.exp(-logProbSum / predicted);
+    }
+
+    public void setWeights(double[] weights) {
+        if (weights.length != members.size()) {
+            throw new IllegalArgumentException("가중치 수(" + weights.length + ")가 멤버 수(" + members.size() + ")와 다릅니다");
+        }
+        double sum = 0.0;
+        for (double weight : weights) {
+            if (weight < 0 || Double.isNaN(weight)) {
+                throw new IllegalArgumentException("가중치는 0 이상이어야 합니다");
+            }
+            sum += weight;
+        }
+        if (sum <= 0) {
+            throw new IllegalArgumentException("가중치 합이 0입니다");
+        }
+        double[] normalized = new double[weights.length];
+        for (int i = 0; i < weights.length; i++) {
+            normalized[i] = weights[i] / sum;
+        }
+        this.weights = normalized; // 배열을 통째로 교체 (생성 중인 요청은 이전 가중치로 계속)
+    }
+
+    public double[] getWeights() {
+        return weights.clone();
+    }
+
+    public List<NextTokenPredictor> getMembers() {
+        return members;
+    }
+
+    @Override
+    public int contextLength() {
+        return contextLength;
+    }
+
+    @Override
+    public Tokenizer getTokenizer() {
+        return tokenizer;
+    }
+
+    @Override
+    public Map<String, Integer> getVocabulary() {
+        return members.get(0).getVocabulary();
+    }
+
+    /**
+     * 멤버 합 (하나라도 추정할 수 없으면 -1)
+     */
+    @Override
+    public long memoryBytes() {
+        long total = 0;
+        for (NextTokenPredictor member : members) {
+            long bytes = member.memoryBytes();
+            if (bytes < 0) {
+                return -1;
+            }
+            total += bytes;
+        }
+        return total;
+    }
+
+    @Override
+    public String modelName() {
+        return "ensemble(" + members.stream().map(NextTokenPredictor::modelName).collect(Collectors.joining("+")) + ")";
+    }
+
+    private String describeWeights() {
+        double[] w = weights;
+        List<String> parts = new ArrayList<>();
+        for (int i = 0; i < members.size(); i++) {
+            parts.add(String.format("%s=%.3f", members.get(i).modelName(), w[i]));
+        }
+        return String.join(", ", parts);
+    }
+
+    @Override
+    public String toString() {
+        return "EnsembleModel(" + describeWeights() + ")";
+    }
+
+    // ========== 저장 / 로드 ==========
+
+    /**
+     * 앙상블 설정 저장 (멤버 Artifact 경로 + 가중치 + smoothing)
+     */
+    public static void save(EnsembleModel model, String smoothingType, Path configPath) throws IOException {
+        if (model.memberPaths.size() != model.members.size()) {
+            throw new IllegalArgumentException("멤버 Artifact 경로를 모르는 앙상블은 저장할 수 없습니다");
+        }
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("modelType", "ensemble");
+        config.put("members", model.memberPaths);
+        config.put("weights", model.getWeights());
+        config.put("smoothingType", smoothingType);
+        Gson gson = new GsonBuilder().setPrettyPrinting().create();
+        Files.writeString(configPath, gson.toJson(config));
+    }
+
+    /**
+     * 멤버 Artifact를 읽어서 앙상블 생성 (가중치는 균등, 이후 tuneWeights)
+     */
+    public static EnsembleModel fromArtifacts(List<Path> artifactPaths, SmoothingStrategy smoothing) throws IOException {
+        List<NextTokenPredictor> members = new ArrayList<>();
+        List<String> paths = new ArrayList<>();
+        for (Path path : artifactPaths) {
+            members.add(loadArtifact(path, smoothing));
+            paths.add(path.toString());
+        }
+        return new EnsembleModel(members, uniform(members.size()), paths);
+    }
+
+    /**
+     * Smoothing 이름으로 지정 (N-gram 멤버용: simple, kneser-ney, modified-kneser-ney, stupid-backoff)
+     */
+    public static EnsembleModel fromArtifacts(List<Path> artifactPaths, String smoothingType) throws IOException {
+        return fromArtifacts(artifactPaths, NgramCompiler.smoothingFor(smoothingType));
+    }
+
+    /**
+     * 저장된 앙상블 설정으로 생성
+     */
+    public static EnsembleModel load(Path configPath) throws IOException {
+        JsonObject config = JsonParser.parseString(Files.readString(configPath)).getAsJsonObject();
+        List<Path> paths = new ArrayList<>();
+        for (JsonElement member : config.getAsJsonArray("members")) {
+            paths.add(Path.of(member.getAsString()));
+        }
+        String smoothingType = config.has("smoothingType") ? config.get("smoothingType").getAsString() : "simple";
+        EnsembleModel model = fromArtifacts(paths, smoothingType);
+        model.setWeights(new Gson().fromJson(config.get("weights"), double[].class));
+        return model;
+    }
+
+    /**
+     * 앙상블 가중치 학습 후 설정 저장
+     *
+     * 사용법: EnsembleModel <config.json> <held-out.txt> <smoothing> <artifact1> <artifact2> ...
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 5) {
+            System.out.println("사용법: EnsembleModel <config.json> <held-out.txt> <smoothing> <artifact1> <artifact2> ...");
+            return;
+        }
+        long startTime = System.currentTimeMillis();
+        List<Path> artifacts = new ArrayList<>();
+        for (int i = 3; i < args.length; i++) {
+            artifacts.add(Path.of(args[i]));
+        }
+        EnsembleModel model = fromArtifacts(artifacts, args[2]);
+        String heldOut = Files.readString(Path.of(args[1]));
+        double before = model.perplexity(heldOut);
+        model.tuneWeights(heldOut, 100);
+        double after = model.perplexity(heldOut);
+        save(model, args[2], Path.of(args[0]));
+
+        System.out.println("✅ 앙상블 저장: " + args[0]);
+        System.out.printf("   Held-out PPL: %.2f (균등) → %.2f (EM)%n", before, after);
+        for (int i = 0; i < model.members.size(); i++) {
+            System.out.printf("   %s: %.2f%n", model.members.get(i).modelName(),
+                perplexityOf(model.members.get(i), heldOut));
+        }
+        System.out.println("   Latency: " + (System.currentTimeMillis() - startTime) + "ms");
+    }
+
+    private static double perplexityOf(NextTokenPredictor member, String text) {
+        EnsembleModel single = new EnsembleModel(List.of(member));
+        return single.perplexity(text);
+    }
+
+    /**
+     * Smoothing 이름으로 지정해서 Artifact 하나를 모델로 로드 (서버 모델 레지스트리용)
+     */
+    public static NextTokenPredictor loadArtifact(Path artifactPath, String smoothingType) throws IOException {
+        return loadArtifact(artifactPath, NgramCompiler.smoothingFor(smoothingType));
+    }
+
+    /**
+     * Artifact metadata의 modelType으로 모델 로드 (bigram / trigram / ensemble 설정 / N-gram)
+     */
+    public static NextTokenPredictor loadArtifact(Path artifactPath, SmoothingStrategy smoothing) throws IOException {
+        String modelType = "";
+        if (!artifactPath.toString().endsWith(".arpa")) {
+            try (Reader reader = Files.newBufferedReader(artifactPath)) {
+                JsonObject root = JsonParser.parseReader(reader).getAsJsonObject();
+                JsonObject metadata = root.has("metadata") ? root.getAsJsonObject("metadata") : root;
+                if (metadata.has("modelType")) {
+                    modelType = metadata.get("modelType").getAsString();
+                }
+            }
+        }
+        if ("bigram".equals(modelType)) {
+            return BigramModel.fromArtifact(artifactPath);
+        }
+        if ("trigram".equals(modelType)) {
+            return TrigramModel.fromArtifact(artifactPath);
+        }
+        if ("ensemble".equals(modelType)) {
+            return load(artifactPath);
+        }
+        return NgramModel.fromArtifact(artifactPath, smoothing);
+    }
+}
@@ -0,0 +1,174 @@
+package com.miniai.model.ngram;
+
+import com.miniai.core.model.LanguageModel;
+import com.miniai.core.types.GenerateRequest;
+import com.miniai.core.types.GenerateResponse;
+import com.miniai.core.types.StageTimer;
+import com.miniai.core.types.Usage;
+import com.miniai.model.Sampler;
+import com.miniai.model.StopSequenceMatcher;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Suffix array + N-gram backoff 언어 모델 ("infini-gram")
+ *
+ * 학습 포인트:
+ * - 매 단계마다 문맥 끝과 가장 길게 일치하는 코퍼스 위치를 찾음 (길이 제한 없음)
+ * - 일치 길이가 N-gram 문맥(N-1)보다 길면 그 위치들의 다음 토큰 카운트로 샘플링
+ *   → 보일러플레이트 코드는 훨씬 긴 문맥을 보고 그대로 이어감
+ * - 짧으면 기존 NgramModel의 smoothing 분포로 backoff (본 적 없는 조합에도 확률)
+ *   (세션 캐시도 backoff 모델의 것을 공유)
+ *
+ * 사용 예시:
+ *   NgramModel ngram = NgramModel.fromArtifact(artifactPath, new KneserNey());
+ *   InfiniGramModel model = InfiniGramModel.open(Paths.get("model.sa"), ngram);
+ */
+public class InfiniGramModel implements LanguageModel {
+
+    /**
+     * 일치 길이 상한 (조회 비용은 길이에 비례)
+     */
+    public static final int DEFAULT_MAX_MATCH_LENGTH = 256;
+
+    private final SuffixArrayIndex index;
+    private final NgramModel backoff;
+    private final int minMatchLength;
+    private final int maxMatchLength;
+
+    private final AtomicLong indexSteps = new AtomicLong();
+    private final AtomicLong backoffSteps = new AtomicLong();
+
+    /**
+     * 기본 설정: N-gram 문맥보다 긴 일치(N 토큰 이상)일 때만 suffix array 사용
+     */
+    public InfiniGramModel(SuffixArrayIndex index, NgramModel backoff) {
+        this(index, backoff, backoff.getN(), DEFAULT_MAX_MATCH_LENGTH);
+    }
+
+    /**
+     * @param minMatchLength 이 길이 이상 일치하면 suffix array 카운트 사용
+     * @param maxMatchLength 일치 길이 상한
+     */
+    public InfiniGramModel(SuffixArrayIndex index, NgramModel backoff, int minMatchLength, int maxMatchLength) {
+        if (minMatchLength < 1 || maxMatchLength < minMatchLength) {
+            throw new IllegalArgumentException("1 <= minMatchLength <= maxMatchLength 여야 합니다");
+        }
+        this.index = index;
+        this.backoff = backoff;
+        this.minMatchLength = minMatchLength;
+        this.maxMatchLength = maxMatchLength;
+    }
+
+    /**
+     * 저장된 색인을 memory-mapped로 열어서 모델 생성 (색인 정보는 getIndex()로)
+     */
+    public static InfiniGramModel open(Path indexPath, NgramModel backoff) throws IOException {
+        return new InfiniGramModel(SuffixArrayIndex.open(indexPath), backoff);
+    }
+
+    @Override
+    public GenerateResponse generate(GenerateRequest request) {
+        long startTime = System.currentTimeMillis();
+        StageTimer timer = new StageTimer();
+        long t = timer.start();
+
+        List<Integer> tokens = new ArrayList<>(backoff.getTokenizer().encode(request.getPrompt()));
+        int inputTokenCount = tokens.size();
+        SessionCache cache = backoff.observeSession(request, tokens);
+
+        Long seed = request.getSeed().orElse(System.currentTimeMillis());
+        Sampler sampler = new Sampler(request.getTemperature(), request.getTopK(), seed);
+        ContextCursor cursor = ContextCursor.of(backoff.getN(), tokens);
+        StopSequenceMatcher stops = StopSequenceMatcher.compile(
+            request.getStopSequences(), backoff.getTokenizer(), backoff.getVocabulary());
+        t = timer.lap(StageTimer.TOKENIZE, t);
+
+        for (int i = 0; i < request.getMaxTokens(); i++) {
+            // 코퍼스 일치 카운트 또는 N-gram 분포 (세션 캐시 interpolation 포함)
+            Map<Integer, Integer> counts = nextTokenCounts(tokens, cursor, cache);
+            t = timer.lap(StageTimer.DISTRIBUTION, t);
+            if (counts.isEmpty()) {
+                break; // 더 이상 생성 불가
+            }
+
+            int nextToken = sampler.sample(counts);
+
+            // Stop sequence 체크 (일치한 stop sequence는 결과에서 제외)
+            int matched = stops.advance(nextToken);
+            if (matched > 0) {
+                tokens.subList(tokens.size() - (matched - 1), tokens.size()).clear();
+                break;
+            }
+
+            tokens.add(nextToken);
+            cursor.append(nextToken);
+            t = timer.lap(StageTimer.SAMPLING, t);
+        }
+        t = timer.lap(StageTimer.SAMPLING, t);
+
+        String generatedText = backoff.getTokenizer().decode(tokens);
+        timer.lap(StageTimer.DECODE, t);
+        Usage usage = new Usage(inputTokenCount, tokens.size() - inputTokenCount);
+        long latency = System.currentTimeMillis() - startTime;
+
+        return new GenerateResponse(generatedText, usage, latency, modelName(), timer.toMap());
+    }
+
+    /**
+     * 다음 토큰 카운트 (긴 일치가 있으면 코퍼스 카운트, 없으면 N-gram 분포)
+     */
+    private Map<Integer, Integer> nextTokenCounts(List<Integer> tokens, ContextCursor cursor, SessionCache cache) {
+        SuffixArrayIndex.Match match = index.longestMatch(tokens, maxMatchLength);
+        if (match.getLength() >= minMatchLength) {
+            indexSteps.incrementAndGet();
+            return match.getNextTokenCounts();
+        }
+        backoffSteps.incrementAndGet();
+        return NgramModel.probsToCounts(backoff.getNextTokenProbabilities(cursor, cache));
+    }
+
+    /**
+     * 문맥 끝과 가장 길게 일치하는 코퍼스 위치 (디버깅/분석용)
+     */
+    public SuffixArrayIndex.Match longestMatch(String text) {
+        return index.longestMatch(backoff.getTokenizer().encode(text), maxMatchLength);
+    }
+
+    @Override
+    public String modelName() {
+        return "infini+" + backoff.modelName();
+    }
+
+    public SuffixArrayIndex getIndex() {
+        return index;
+    }
+
+    public NgramModel getBackoff() {
+        return backoff;
+    }
+
+    /**
+     * Suffix array 카운트로 생성한 단계 수 (누적)
+     */
+    public long getIndexSteps() {
+        return indexSteps.get();
+    }
+
+    /**
+     * N-gram backoff로 생성한 단계 수 (누적)
+     */
+    public long getBackoffSteps() {
+        return backoffSteps.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("InfiniGramModel(%s, backoff=%s, minMatch=%d)", index, backoff, minMatchLength);
+    }
+}
@@ -21,6 +21,10 @@ import java.util.stream.Collectors;
  */
 public class NgramArtifact {
 
+    // 메모리 추정용 (박싱된 HashMap 항목 / 문맥 하나의 대략 크기)
+    private static final int ENTRY_BYTES = 64;
+    private static final int CONTEXT_BYTES = 96;
+
     /**
      * N-gram order (예: 5 = 5-gram)
      */
@@ -54,6 +58,11 @@ public class NgramArtifact {
      */
     private Metadata metadata;
 
+    /**
+     * ContextCursor 조회용 해시 색인 (처음 조회할 때 생성, 직렬화하지 않음)
+     */
+    private transient volatile ContextHashIndex contextIndex;
+
     public NgramArtifact() {
         this.n = 3; // 기본값 trigram
         this.counts = new HashMap<>();
@@ -119,6 +128,42 @@ public class NgramArtifact {
         return lowerOrderCounts.get(order).getOrDefault(key, new HashMap<>());
     }
 
+    /**
+     * 커서의 마지막 N-1개 토큰 뒤에 올 수 있는 토큰과 카운트 (문자열 키 없이 해시 조회)
+     *
+     * 색인은 학습이 끝난 Artifact에서 처음 조회할 때 만들어짐
+     * (이후 새 문맥을 추가하면 setCounts/setLowerOrderCounts 또는 새 Artifact 사용)
+     */
+    public Map<Integer, Integer> getNextTokenCounts(ContextCursor cursor) {
+        Map<Integer, Integer> counts = contextIndex().get(n, cursor);
+        return counts != null ? counts : new HashMap<>();
+    }
+
+    /**
+     * 커서의 마지막 order-1개 토큰을 문맥으로 하는 하위 N-gram 카운트
+     */
+    public Map<Integer, Integer> getLowerOrderCounts(int order, ContextCursor cursor) {
+        Map<Integer, Integer> counts = contextIndex().get(order, cursor);
+        return counts != null ? counts : new HashMap<>();
+    }
+
+    /**
+     * 해시 색인 (없으면 생성)
+     */
+    ContextHashIndex contextIndex() {
+        ContextHashIndex index = contextIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = contextIndex;
+                if (index == null) {
+                    index = new ContextHashIndex(this);
+                    contextIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
     /**
      * Continuation count 조회 (Kneser-Ney용)
      */
@@ -147,6 +192,34 @@ public class NgramArtifact {
             .sum();
     }
 
+    /**
+     * 힙 메모리 추정 (바이트, 모니터링용 대략값)
+     *
+     * 박싱된 HashMap 기준: (다음 토큰, 카운트) 항목 하나 ≈ 64B (Node + Integer 2개),
+     * 문맥 하나 ≈ 96B + 키 글자 수 × 2 (키 String + 내부 HashMap)
+     */
+    public long estimateMemoryBytes() {
+        long total = 0;
+        total += estimateTableBytes(counts);
+        for (Map<String, Map<Integer, Integer>> table : lowerOrderCounts.values()) {
+            total += estimateTableBytes(table);
+        }
+        total += (long) continuationCounts.size() * ENTRY_BYTES;
+        for (String word : vocabulary.keySet()) {
+            total += ENTRY_BYTES + 2L * word.length();
+        }
+        return total;
+    }
+
+    private static long estimateTableBytes(Map<String, Map<Integer, Integer>> table) {
+        long total = 0;
+        for (Map.Entry<String, Map<Integer, Integer>> context : table.entrySet()) {
+            total += CONTEXT_BYTES + 2L * context.getKey().length()
+                + (long) context.getValue().size() * ENTRY_BYTES;
+        }
+        return total;
+    }
+
     // Getters and Setters
     public int getN() {
         return n;
@@ -154,6 +227,7 @@ public class NgramArtifact {
 
     public void setN(int n) {
         this.n = n;
+        this.contextIndex = null;
     }
 
     public Map<String, Map<Integer, Integer>> getCounts() {
@@ -162,6 +236,7 @@ public class NgramArtifact {
 
     public void setCounts(Map<String, Map<Integer, Integer>> counts) {
         this.counts = counts;
+        this.contextIndex = null;
     }
 
     public Map<Integer, Map<String, Map<Integer, Integer>>> getLowerOrderCounts() {
@@ -170,6 +245,7 @@ public class NgramArtifact {
 
     public void setLowerOrderCounts(Map<Integer, Map<String, Map<Integer, Integer>>> lowerOrderCounts) {
         this.lowerOrderCounts = lowerOrderCounts;
+        this.contextIndex = null;
     }
 
     public Map<Integer, Integer> getContinuationCounts() {
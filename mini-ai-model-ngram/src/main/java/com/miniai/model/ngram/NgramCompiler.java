@@ -0,0 +1,253 @@
+package com.miniai.model.ngram;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.miniai.model.smoothing.ArpaBackoff;
+import com.miniai.model.smoothing.ArpaFormat;
+import com.miniai.model.smoothing.KneserNey;
+import com.miniai.model.smoothing.ModifiedKneserNey;
+import com.miniai.model.smoothing.SimpleBackoff;
+import com.miniai.model.smoothing.SmoothingStrategy;
+import com.miniai.model.smoothing.StupidBackoff;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * NgramArtifact + SmoothingStrategy → 서빙용 CompiledNgramArtifact
+ *
+ * 학습 포인트:
+ * - 확률과 backoff 가중치 계산은 ArpaBackoff.precompute (오프라인, ARPA와 같은 구조)
+ * - 여기서는 그 log 값들을 양자화만 함
+ * - 모든 log 확률을 정렬해 같은 개수씩 2^bits 구간으로 나눈 평균값이 codebook
+ *
+ * 정확도:
+ * - Kneser-Ney: backoff 구조와 정확히 같음 (오차는 양자화뿐)
+ * - SimpleBackoff: 관찰되지 않은 토큰의 분포가 근사됨
+ */
+public final class NgramCompiler {
+
+    private NgramCompiler() {
+    }
+
+    /**
+     * Artifact를 smoothing 전략으로 컴파일
+     *
+     * @param artifact 학습된 Artifact
+     * @param smoothing 확률 계산에 쓸 전략 (결과에 고정됨)
+     * @param bits 코드 비트 수 (8 또는 16)
+     */
+    public static CompiledNgramArtifact compile(NgramArtifact artifact, SmoothingStrategy smoothing, int bits) {
+        checkBits(bits);
+        CompiledNgramArtifact compiled = compile(ArpaBackoff.precompute(artifact, smoothing), bits);
+
+        NgramArtifact.Metadata source = artifact.getMetadata();
+        NgramArtifact.Metadata metadata = compiled.getMetadata();
+        metadata.setVocabSize(source.getVocabSize());
+        metadata.setTotalTokens(source.getTotalTokens());
+        metadata.setTotalNgrams(source.getTotalNgrams());
+        metadata.setTrainedAt(source.getTrainedAt());
+        metadata.setCorpusInfo(source.getCorpusInfo());
+        return compiled;
+    }
+
+    /**
+     * 미리 계산된 backoff 모델(ARPA에서 읽은 것 포함)을 양자화
+     *
+     * @param bits 코드 비트 수 (8 또는 16)
+     */
+    public static CompiledNgramArtifact compile(ArpaBackoff model, int bits) {
+        checkBits(bits);
+        int n = model.getN();
+
+        // 1. 공유 codebook (모든 log 확률 + backoff 가중치)
+        List<Double> values = new ArrayList<>();
+        for (int order = 1; order <= n; order++) {
+            for (Map.Entry<String, Map<Integer, Double>> context : model.getLogProbs(order).entrySet()) {
+                values.addAll(context.getValue().values());
+                if (order > 1) {
+                    values.add(model.logBackoff(order, context.getKey()));
+                }
+            }
+            for (Map.Entry<String, Double> backoff : model.getLogBackoffs(order).entrySet()) {
+                if (!model.getLogProbs(order).containsKey(backoff.getKey())) {
+                    values.add(backoff.getValue());
+                }
+            }
+        }
+        float[] codebook = buildCodebook(values.stream().mapToDouble(Double::doubleValue).toArray(), 1 << bits);
+
+        // 2. 양자화 (항목이 없고 backoff만 있는 문맥도 저장)
+        String smoothingName = model.getSourceName();
+        CompiledNgramArtifact compiled = new CompiledNgramArtifact(n, bits, smoothingName, codebook);
+        int bytesPerCode = bits / 8;
+        for (int order = 1; order <= n; order++) {
+            Set<String> contextKeys = new HashSet<>(model.getLogProbs(order).keySet());
+            contextKeys.addAll(model.getLogBackoffs(order).keySet());
+            for (String contextKey : contextKeys) {
+                Map<Integer, Double> entries = model.getLogProbs(order).getOrDefault(contextKey, Map.of());
+                int[] tokens = entries.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+                int[] codes = new int[tokens.length + 1];
+                codes[0] = order > 1 ? encode(codebook, model.logBackoff(order, contextKey)) : 0;
+                for (int i = 0; i < tokens.length; i++) {
+                    codes[i + 1] = encode(codebook, entries.get(tokens[i]));
+                }
+                compiled.put(order, contextKey, new CompiledNgramArtifact.Entry(tokens, pack(codes, bytesPerCode)));
+            }
+        }
+
+        compiled.setVocabulary(model.getVocabulary());
+        NgramArtifact.Metadata metadata = compiled.getMetadata();
+        metadata.setModelType(n + "-gram-compiled");
+        metadata.setN(n);
+        metadata.setTokenizerType(model.getTokenizerType());
+        metadata.setVocabSize(model.getVocabulary().size());
+        metadata.setSmoothingType(smoothingName);
+        return compiled;
+    }
+
+    private static void checkBits(int bits) {
+        if (bits != 8 && bits != 16) {
+            throw new IllegalArgumentException("bits는 8 또는 16이어야 합니다: " + bits);
+        }
+    }
+
+    /**
+     * 정렬된 값을 같은 개수씩 size개 구간으로 나눠 구간 평균을 codebook으로
+     */
+    static float[] buildCodebook(double[] values, int size) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int buckets = Math.max(1, Math.min(size, sorted.length));
+        float[] codebook = new float[buckets];
+
+        for (int b = 0; b < buckets; b++) {
+            int from = (int) ((long) b * sorted.length / buckets);
+            int to = (int) ((long) (b + 1) * sorted.length / buckets);
+            double sum = 0;
+            for (int i = from; i < to; i++) {
+                sum += sorted[i];
+            }
+            codebook[b] = to > from ? (float) (sum / (to - from)) : (float) sorted[from];
+        }
+        return codebook;
+    }
+
+    /**
+     * 코드 배열을 바이트로 (16비트는 big-endian 2바이트)
+     */
+    private static byte[] pack(int[] codes, int bytesPerCode) {
+        byte[] packed = new byte[codes.length * bytesPerCode];
+        for (int i = 0; i < codes.length; i++) {
+            if (bytesPerCode == 1) {
+                packed[i] = (byte) codes[i];
+            } else {
+                packed[2 * i] = (byte) (codes[i] >>> 8);
+                packed[2 * i + 1] = (byte) codes[i];
+            }
+        }
+        return packed;
+    }
+
+    /**
+     * 가장 가까운 codebook 값의 code (codebook은 오름차순)
+     */
+    static int encode(float[] codebook, double value) {
+        int index = Arrays.binarySearch(codebook, (float) value);
+        if (index >= 0) {
+            return index;
+        }
+        int upper = -index - 1;
+        if (upper == 0) {
+            return 0;
+        }
+        if (upper == codebook.length) {
+            return codebook.length - 1;
+        }
+        return value - codebook[upper - 1] <= codebook[upper] - value ? upper - 1 : upper;
+    }
+
+    /**
+     * 저장된 Artifact 컴파일 (확장자가 .arpa면 ARPA로 내보내기/가져오기)
+     *
+     * 사용법:
+     *   NgramCompiler input.json output.json [smoothing] [8|16]   양자화 컴파일
+     *   NgramCompiler input.json output.arpa [smoothing]          ARPA 내보내기
+     *   NgramCompiler input.arpa output.json [8|16]               ARPA 가져오기 + 양자화
+     *   smoothing: simple (기본) | kneser-ney | modified-kneser-ney | stupid-backoff
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("사용법: NgramCompiler <input.json|input.arpa> <output.json|output.arpa> "
+                + "[simple|kneser-ney|modified-kneser-ney|stupid-backoff] [8|16]");
+            System.exit(1);
+        }
+
+        Path input = Paths.get(args[0]);
+        Path output = Paths.get(args[1]);
+        long startTime = System.currentTimeMillis();
+
+        if (args[0].endsWith(".arpa")) {
+            int bits = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+            CompiledNgramArtifact compiled = compile(ArpaFormat.read(input), bits);
+            save(compiled, output);
+            System.out.println("✅ ARPA 가져오기 완료: " + args[1]);
+            System.out.println("   " + compiled);
+        } else {
+            SmoothingStrategy smoothing = smoothingFor(args.length > 2 ? args[2] : "simple");
+            NgramArtifact artifact = NgramTrainer.loadArtifact(input);
+
+            if (args[1].endsWith(".arpa")) {
+                ArpaBackoff model = ArpaBackoff.precompute(artifact, smoothing);
+                ArpaFormat.write(model, output);
+                System.out.println("✅ ARPA 내보내기 완료: " + args[1]);
+                System.out.println("   " + model.description());
+            } else {
+                int bits = args.length > 3 ? Integer.parseInt(args[3]) : 8;
+                CompiledNgramArtifact compiled = compile(artifact, smoothing, bits);
+                save(compiled, output);
+                System.out.println("✅ 컴파일 완료: " + args[1]);
+                System.out.println("   " + compiled);
+            }
+        }
+        System.out.println("   Latency: " + (System.currentTimeMillis() - startTime) + "ms");
+    }
+
+    static SmoothingStrategy smoothingFor(String name) {
+        if (name.equalsIgnoreCase("modified-kneser-ney")) {
+            return new ModifiedKneserNey();
+        }
+        if (name.equalsIgnoreCase("kneser-ney")) {
+            return new KneserNey();
+        }
+        if (name.equalsIgnoreCase("stupid-backoff")) {
+            return new StupidBackoff();
+        }
+        return new SimpleBackoff();
+    }
+
+    /**
+     * 컴파일된 모델을 JSON으로 저장 (임시 파일 + rename)
+     */
+    public static void save(CompiledNgramArtifact compiled, Path outputPath) throws IOException {
+        Gson gson = new GsonBuilder().create();
+        Path absolute = outputPath.toAbsolutePath();
+        Path tempPath = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+        Files.writeString(tempPath, gson.toJson(compiled));
+        try {
+            Files.move(tempPath, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempPath, absolute, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
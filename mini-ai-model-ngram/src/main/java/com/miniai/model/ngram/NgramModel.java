@@ -2,12 +2,16 @@ package com.miniai.model.ngram;
 
 import com.codeai.tokenizer.CodeTokenizer;
 import com.google.gson.Gson;
-import com.miniai.core.model.LanguageModel;
 import com.miniai.core.tokenizer.Tokenizer;
 import com.miniai.core.types.GenerateRequest;
 import com.miniai.core.types.GenerateResponse;
+import com.miniai.core.types.StageTimer;
 import com.miniai.core.types.Usage;
+import com.miniai.model.NextTokenPredictor;
 import com.miniai.model.Sampler;
+import com.miniai.model.StopSequenceMatcher;
+import com.miniai.model.smoothing.ArpaBackoff;
+import com.miniai.model.smoothing.ArpaFormat;
 import com.miniai.model.smoothing.KneserNey;
 import com.miniai.model.smoothing.SimpleBackoff;
 import com.miniai.model.smoothing.SmoothingStrategy;
@@ -17,6 +21,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * N-gram 언어 모델 (일반화된 버전)
@@ -25,18 +30,54 @@ import java.util.*;
  * - N을 파라미터로 받아 어떤 N-gram이든 지원
  * - Smoothing 전략 교체 가능 (SimpleBackoff, KneserNey)
  * - 문맥 윈도우: N-1 토큰
+ * - 컴파일된 모델(CompiledNgramArtifact)이면 카운트 대신 양자화된 확률로 생성
+ * - ARPA 파일이면 ArpaBackoff 전략으로 미리 계산된 확률 사용
+ * - 생성/perplexity 루프는 ContextCursor로 문맥을 유지 (토큰마다 subList/문맥 키 생성 없음)
+ * - 요청에 sessionId가 있으면 세션 캐시(SessionCache)와 interpolation (파일 안 식별자 반복)
+ * - 프롬프트가 식별자 중간에서 끝나면 ("getUs") 첫 토큰을 그 조각으로 시작하는 단어로 제한 (VocabularyTrie)
  *
  * 예시 (5-gram):
  * - 입력: "for (int i = 0;"
  * - 문맥: 마지막 4토큰 ["i", "=", "0", ";"]
  * - 예측: 다음 토큰 확률 분포
  */
-public class NgramModel implements LanguageModel {
+public class NgramModel implements NextTokenPredictor {
+
+    /**
+     * Perplexity 계산 시 확률 0 토큰에 줄 최소 확률
+     */
+    private static final double UNSEEN_PROBABILITY = 1e-6;
+
+    /**
+     * 세션 캐시 최대 개수 (가장 오래 안 쓴 세션부터 제거 → 메모리 상한)
+     */
+    public static final int MAX_SESSIONS = 128;
+
+    /**
+     * 문서 완성에서 커서 앞에서 가져올 토큰 수 (N-1개 문맥 + 세션 캐시 anchor 탐색 창)
+     */
+    static final int DOCUMENT_CONTEXT_TOKENS = SessionCache.FALLBACK_WINDOW + SessionCache.ANCHOR_LENGTH;
 
     private final NgramArtifact artifact;
+    private final CompiledNgramArtifact compiled;
     private final Tokenizer tokenizer;
     private final SmoothingStrategy smoothing;
     private final Map<Integer, String> reverseVocab;
+    private final VocabularyTrie completionTrie;
+    private final int n;
+
+    private final Map<String, SessionCache> sessions = Collections.synchronizedMap(
+        new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, SessionCache> eldest) {
+                return size() > MAX_SESSIONS;
+            }
+        });
+    private volatile double sessionCacheWeight = SessionCache.DEFAULT_WEIGHT;
+
+    // 세션 캐시 조회 / 캐시가 분포를 바꾼 횟수 (여러 요청 스레드가 동시에 더함)
+    private final LongAdder sessionLookups = new LongAdder();
+    private final LongAdder sessionHits = new LongAdder();
 
     /**
      * 기본 생성자 (SimpleBackoff 사용)
@@ -50,73 +91,499 @@ public class NgramModel implements LanguageModel {
      */
     public NgramModel(NgramArtifact artifact, Tokenizer tokenizer, SmoothingStrategy smoothing) {
         this.artifact = artifact;
+        this.compiled = null;
         this.tokenizer = tokenizer;
         this.smoothing = smoothing;
+        this.n = artifact.getN();
+        this.reverseVocab = reverseVocabulary(artifact.getVocabulary());
+        this.completionTrie = VocabularyTrie.build(artifact.getVocabulary(), NgramModel::isCompletable);
+    }
+
+    /**
+     * 컴파일된 모델 생성자 (카운트와 smoothing 계산 없이 저장된 확률로 생성)
+     */
+    public NgramModel(CompiledNgramArtifact compiled, Tokenizer tokenizer) {
+        this.artifact = null;
+        this.compiled = compiled;
+        this.tokenizer = tokenizer;
+        this.smoothing = null;
+        this.n = compiled.getN();
+        this.reverseVocab = reverseVocabulary(compiled.getVocabulary());
+        this.completionTrie = VocabularyTrie.build(compiled.getVocabulary(), NgramModel::isCompletable);
+    }
+
+    /**
+     * Reverse vocabulary 생성 (id → word)
+     */
+    private static Map<Integer, String> reverseVocabulary(Map<String, Integer> vocabulary) {
+        Map<Integer, String> reverse = new HashMap<>();
+        for (Map.Entry<String, Integer> entry : vocabulary.entrySet()) {
+            reverse.put(entry.getValue(), entry.getKey());
+        }
+        return reverse;
+    }
+
+    /**
+     * 완성 후보가 될 수 있는 단어 (특수 토큰 제외)
+     */
+    private static boolean isCompletable(String word) {
+        return !word.equals(CodeTokenizer.UNK_TOKEN)
+            && !word.equals(CodeTokenizer.NEWLINE_TOKEN)
+            && !word.startsWith(CodeTokenizer.INDENT_PREFIX);
+    }
+
+    /**
+     * 프롬프트 끝에서 입력 중인 식별자 조각
+     *
+     * 마지막 토큰이 [UNK]이고 (vocabulary에 없는 조각) 그 조각으로 시작하는 단어가 있을 때만
+     *
+     * @return 조각 (완성할 수 없으면 null)
+     */
+    String partialToken(String prompt, List<Integer> tokens) {
+        if (tokens.isEmpty() || tokens.get(tokens.size() - 1) != CodeTokenizer.UNK_ID) {
+            return null;
+        }
+        int start = prompt.length();
+        while (start > 0 && Character.isJavaIdentifierPart(prompt.charAt(start - 1))) {
+            start--;
+        }
+        String fragment = prompt.substring(start);
+        return !fragment.isEmpty() && completionTrie.count(fragment) > 0 ? fragment : null;
+    }
 
-        // Reverse vocabulary 생성 (id → word)
-        this.reverseVocab = new HashMap<>();
-        for (Map.Entry<String, Integer> entry : artifact.getVocabulary().entrySet()) {
-            reverseVocab.put(entry.getValue(), entry.getKey());
+    /**
+     * 입력 중인 마지막 토큰의 완성 후보 (모델 확률 높은 순)
+     *
+     * 키 입력마다 호출해도 되도록 trie 조회 + 분포 계산 한 번
+     */
+    public List<String> completePartialToken(String prompt, int limit) {
+        List<Integer> tokens = new ArrayList<>(tokenizer.encode(prompt));
+        String partial = partialToken(prompt, tokens);
+        if (partial == null) {
+            return List.of();
+        }
+        tokens.remove(tokens.size() - 1);
+        Map<Integer, Double> candidates = completionTrie.restrict(
+            getNextTokenProbabilities(ContextCursor.of(n, tokens)), partial);
+
+        List<String> result = new ArrayList<>();
+        for (int token : candidates.keySet()) {
+            if (result.size() >= limit) {
+                break;
+            }
+            result.add(tokenText(token));
         }
+        return result;
+    }
+
+    /**
+     * 다음 토큰 확률 분포 (컴파일된 모델이면 저장된 확률, 아니면 smoothing 계산)
+     */
+    public Map<Integer, Double> getNextTokenProbabilities(ContextCursor cursor) {
+        if (compiled != null) {
+            return compiled.getProbabilities(cursor.toList());
+        }
+        return smoothing.getSmoothedProbabilities(artifact, cursor);
+    }
+
+    @Override
+    public Map<Integer, Double> nextTokenProbabilities(List<Integer> context) {
+        return getNextTokenProbabilities(ContextCursor.of(n, context));
     }
 
+    @Override
+    public int contextLength() {
+        return n - 1;
+    }
+
+    /**
+     * 세션 캐시와 섞은 다음 토큰 확률 분포 (cache가 null이면 전역 분포 그대로)
+     */
+    Map<Integer, Double> getNextTokenProbabilities(ContextCursor cursor, SessionCache cache) {
+        return interpolateSession(getNextTokenProbabilities(cursor), cursor, cache);
+    }
+
+    private Map<Integer, Double> interpolateSession(Map<Integer, Double> probs, ContextCursor cursor,
+                                                    SessionCache cache) {
+        if (cache == null) {
+            return probs;
+        }
+        Map<Integer, Double> result = cache.interpolate(probs, cursor, sessionCacheWeight);
+        sessionLookups.increment();
+        if (result != probs) {
+            sessionHits.increment(); // 캐시에 이 문맥(또는 unigram)이 있었음
+        }
+        return result;
+    }
+
+    /**
+     * 요청의 세션 캐시에 프롬프트 반영 (sessionId가 없으면 null)
+     */
+    SessionCache observeSession(GenerateRequest request, List<Integer> promptTokens) {
+        if (request.getSessionId().isEmpty()) {
+            return null;
+        }
+        SessionCache cache = sessions.computeIfAbsent(request.getSessionId().get(),
+            id -> new SessionCache(Math.min(n, SessionCache.DEFAULT_ORDER),
+                SessionCache.DEFAULT_MAX_ENTRIES, SessionCache.DEFAULT_MAX_UNIGRAMS));
+        cache.observePrompt(promptTokens);
+        return cache;
+    }
+
+    /**
+     * 사용자가 수락한 완성을 세션 캐시에 반영
+     *
+     * 다음 프롬프트에 같은 텍스트가 들어와도 anchor 뒤만 세므로 중복 카운트되지 않음
+     * 세션 캐시는 이 모델 인스턴스에만 있음 → 모델을 교체하면 새 인스턴스는 빈 세션으로 시작
+     */
+    public void acceptCompletion(String sessionId, String text) {
+        SessionCache cache = sessions.get(sessionId);
+        if (cache == null) {
+            throw new IllegalArgumentException("세션을 찾을 수 없습니다: " + sessionId
+                + " (오래되어 제거되었거나 모델이 교체됨, 다음 생성 요청이 세션을 다시 만듦)");
+        }
+        cache.accept(tokenizer.encode(text));
+    }
+
+    /**
+     * 세션 캐시 제거 (파일을 닫았을 때)
+     *
+     * @return 세션이 있었으면 true
+     */
+    public boolean endSession(String sessionId) {
+        return sessions.remove(sessionId) != null;
+    }
+
+    public Optional<SessionCache> getSessionCache(String sessionId) {
+        return Optional.ofNullable(sessions.get(sessionId));
+    }
+
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * 세션 캐시 interpolation 가중치 λ (0이면 캐시 무시)
+     */
+    public void setSessionCacheWeight(double weight) {
+        if (weight < 0 || weight > 1) {
+            throw new IllegalArgumentException("세션 캐시 가중치는 0 이상 1 이하여야 합니다");
+        }
+        this.sessionCacheWeight = weight;
+    }
+
+    public double getSessionCacheWeight() {
+        return sessionCacheWeight;
+    }
+
+    /**
+     * 세션 캐시 조회 수 (누적, 세션이 있는 요청의 생성 단계마다 1)
+     */
+    public long getSessionCacheLookups() {
+        return sessionLookups.sum();
+    }
+
+    /**
+     * 세션 캐시가 분포에 반영된 조회 수 (누적)
+     */
+    public long getSessionCacheHits() {
+        return sessionHits.sum();
+    }
+
+    /**
+     * 텍스트 생성 (단계별 시간을 응답에 기록)
+     *
+     * - tokenize: 프롬프트 토큰화 + 세션 캐시 반영 + 입력 중인 토큰 판별
+     * - distribution: 문맥의 다음 토큰 분포 (컴파일된 모델은 표 조회, 아니면 smoothing 전략의 order별 조회·계산)
+     *   → smoothing 전략은 order마다 조회와 할인 계산이 번갈아 일어나서 둘을 나누지 않음
+     * - session: 분포 보정 (세션 캐시 interpolation, 입력 중인 토큰 제한, 세션이 없으면 ≈ 0)
+     * - sampling: 샘플링 + stop sequence
+     * - decode: 토큰 → 텍스트
+     */
     @Override
     public GenerateResponse generate(GenerateRequest request) {
-        long startTime = System.currentTimeMillis();
+        Decoding decoding = new Decoding(request, null, 0);
+        while (decoding.isActive()) {
+            decoding.step(null);
+        }
+        return decoding.finish();
+    }
+
+    /**
+     * 증분 토큰화된 문서의 커서 위치에서 완성 (WebSocket 완성 세션용)
+     *
+     * - 프롬프트를 토큰화하지 않고 문서에 저장된 토큰에서 커서 앞 문맥만 가져옴
+     *   (커서 줄의 앞부분만 다시 토큰화 → 키 입력당 비용이 파일 크기와 무관)
+     * - 세션 캐시는 처음 한 번만 커서 앞 전체를 반영, 이후에는 끝부분 창만 넘김 (anchor로 이어서 셈)
+     * - 샘플링, 세션 캐시, 입력 중인 식별자, stop sequence는 generate와 같음
+     *   (options의 prompt는 쓰지 않음)
+     *
+     * @return generate와 달리 프롬프트를 포함하지 않고 커서에 삽입할 텍스트만
+     *         (usage의 입력 토큰은 실제로 사용한 문맥 토큰 수)
+     * @throws IllegalArgumentException offset이 문서를 벗어난 경우
+     */
+    public GenerateResponse complete(TokenizedDocument document, int offset, GenerateRequest options) {
+        Decoding decoding = new Decoding(options, document, offset);
+        while (decoding.isActive()) {
+            decoding.step(null);
+        }
+        return decoding.finish();
+    }
 
-        // 1. 프롬프트 토큰화
-        List<Integer> tokens = new ArrayList<>(tokenizer.encode(request.getPrompt()));
-        int inputTokenCount = tokens.size();
+    /**
+     * 여러 요청을 한 번에 생성 (같은 단계의 같은 문맥 조회를 공유)
+     *
+     * - 요청들을 한 토큰씩 나란히 진행 (lockstep)
+     * - 같은 프롬프트/같은 코드 패턴의 요청은 같은 단계에서 같은 문맥을 조회함
+     *   → 단계마다 문맥 → 분포(+ 샘플러용 카운트)를 한 번만 계산
+     * - 공유 표는 단계가 끝나면 버림 (큰 분포를 배치 내내 들고 있으면 GC 부담이 이득보다 큼)
+     * - 샘플러, 세션 캐시, stop sequence는 요청마다 따로이므로 결과는 generate와 같음
+     */
+    @Override
+    public List<GenerateResponse> generateBatch(List<GenerateRequest> requests) {
+        List<Decoding> decodings = new ArrayList<>(requests.size());
+        for (GenerateRequest request : requests) {
+            decodings.add(new Decoding(request, null, 0));
+        }
 
-        // 2. Sampler 생성
-        Long seed = request.getSeed().orElse(System.currentTimeMillis());
-        Sampler sampler = new Sampler(request.getTemperature(), request.getTopK(), seed);
-        int n = artifact.getN();
+        boolean active = true;
+        while (active) {
+            active = false;
+            Map<List<Integer>, Lookup> shared = new HashMap<>();
+            for (Decoding decoding : decodings) {
+                if (decoding.isActive()) {
+                    decoding.step(shared);
+                    active |= decoding.isActive();
+                }
+            }
+        }
 
-        for (int i = 0; i < request.getMaxTokens(); i++) {
-            // 문맥 추출 (마지막 N-1개 토큰)
-            int contextStart = Math.max(0, tokens.size() - (n - 1));
-            List<Integer> context = tokens.subList(contextStart, tokens.size());
+        List<GenerateResponse> responses = new ArrayList<>(decodings.size());
+        for (Decoding decoding : decodings) {
+            responses.add(decoding.finish());
+        }
+        return responses;
+    }
+
+    /**
+     * 요청 하나의 생성 상태 (프롬프트 토큰화 → 토큰 단위 step → finish)
+     *
+     * 단계 시간은 이 요청의 작업만 기록 (배치에서 다른 요청을 기다린 시간은 제외)
+     */
+    private final class Decoding {
+        private final long startTime = System.currentTimeMillis();
+        private final StageTimer timer = new StageTimer();
+        private final GenerateRequest request;
+        private final List<Integer> tokens;
+        private final int inputTokenCount;
+        private final int contextTokenCount;
+        private final SessionCache cache;
+        private final String partial;
+        private final Sampler sampler;
+        private final ContextCursor cursor;
+        private final StopSequenceMatcher stops;
+        private final String linePrefix;
+        private int generated;
+        private boolean active;
+
+        /**
+         * @param document 증분 토큰화된 문서 (null이면 request의 프롬프트를 토큰화)
+         * @param offset 문서에서 커서 위치
+         */
+        Decoding(GenerateRequest request, TokenizedDocument document, int offset) {
+            this.request = request;
+            long t = timer.start();
+
+            // 1. 프롬프트 토큰화 (문서면 커서 줄 앞부분만 토큰화하고 나머지는 저장된 토큰)
+            String prompt;
+            if (document == null) {
+                prompt = request.getPrompt();
+                tokens = new ArrayList<>(tokenizer.encode(prompt));
+                linePrefix = null;
+            } else {
+                boolean newSession = request.getSessionId().isPresent()
+                    && !sessions.containsKey(request.getSessionId().get());
+                tokens = new ArrayList<>(document.tokensBefore(offset,
+                    newSession ? Integer.MAX_VALUE : DOCUMENT_CONTEXT_TOKENS + n));
+                prompt = linePrefix = document.linePrefix(offset);
+            }
+            inputTokenCount = tokens.size();
+            cache = observeSession(request, tokens);
+
+            // 식별자 중간에서 끝났으면 조각([UNK])은 문맥에서 빼고 첫 토큰으로 완성
+            partial = partialToken(prompt, tokens);
+            if (partial != null) {
+                tokens.remove(tokens.size() - 1);
+            }
+            contextTokenCount = tokens.size();
+
+            // 2. Sampler 생성
+            Long seed = request.getSeed().orElse(System.currentTimeMillis());
+            sampler = new Sampler(request.getTemperature(), request.getTopK(), seed);
+
+            // 문맥 커서 (마지막 N-1개 토큰, 토큰을 추가할 때 갱신)
+            cursor = ContextCursor.of(n, tokens);
+
+            // Stop sequence는 요청마다 한 번 토큰 ID automaton으로 컴파일
+            stops = StopSequenceMatcher.compile(request.getStopSequences(), tokenizer, getVocabulary());
+            t = timer.lap(StageTimer.TOKENIZE, t);
+
+            active = request.getMaxTokens() > 0;
+            if (!active) {
+                timer.lap(StageTimer.SAMPLING, t);
+            }
+        }
+
+        boolean isActive() {
+            return active;
+        }
+
+        /**
+         * 토큰 하나 생성 (끝나면 isActive() == false)
+         *
+         * @param shared 이번 단계에서 요청끼리 공유하는 문맥 조회 결과 (null이면 공유 안 함)
+         */
+        void step(Map<List<Integer>, Lookup> shared) {
+            long t = System.nanoTime();
 
             // 다음 토큰 확률 분포 (smoothing 적용)
-            Map<Integer, Double> probs = smoothing.getSmoothedProbabilities(artifact, context);
+            Lookup lookup = shared != null
+                ? shared.computeIfAbsent(cursor.toList(), key -> new Lookup(getNextTokenProbabilities(cursor)))
+                : new Lookup(getNextTokenProbabilities(cursor));
+            t = timer.lap(StageTimer.DISTRIBUTION, t);
+
+            // 세션이 있으면 캐시와 interpolation, 입력 중인 토큰이면 이어지는 단어로 제한
+            Map<Integer, Double> probs = interpolateSession(lookup.probs, cursor, cache);
+            if (generated == 0 && partial != null) {
+                probs = completionTrie.restrict(probs, partial);
+            }
+            t = timer.lap(StageTimer.SESSION, t);
 
             if (probs.isEmpty()) {
-                break; // 더 이상 생성 불가
+                end(t); // 더 이상 생성 불가
+                return;
+            }
+
+            // 샘플링 (보정하지 않은 분포면 카운트 변환과 후보 정렬을 같은 문맥의 요청과 공유)
+            int nextToken = probs == lookup.probs
+                ? sampler.sample(lookup.candidates(sampler))
+                : sampler.sample(probsToCounts(probs));
+
+            // Stop sequence 체크 (토큰당 O(1), 일치한 stop sequence는 결과에서 제외)
+            int matched = stops.advance(nextToken);
+            if (matched > 0) {
+                tokens.subList(tokens.size() - (matched - 1), tokens.size()).clear();
+                end(t);
+                return;
             }
 
-            // 확률을 카운트로 변환 (Sampler가 Integer 카운트를 받음)
-            Map<Integer, Integer> counts = probsToCounts(probs);
+            tokens.add(nextToken);
+            cursor.append(nextToken);
+            generated++;
+            t = timer.lap(StageTimer.SAMPLING, t);
+            if (generated >= request.getMaxTokens()) {
+                end(t);
+            }
+        }
 
-            // 샘플링
-            int nextToken = sampler.sample(counts);
+        private void end(long t) {
+            timer.lap(StageTimer.SAMPLING, t); // 마지막 샘플링 (stop sequence로 멈춘 경우)
+            active = false;
+        }
 
-            // Stop sequence 체크
-            String nextWord = reverseVocab.getOrDefault(nextToken, "[UNK]");
-            if (request.getStopSequences() != null && request.getStopSequences().contains(nextWord)) {
-                break;
+        GenerateResponse finish() {
+            long t = System.nanoTime();
+            int outputTokenCount = tokens.size() - contextTokenCount;
+            String generatedText;
+            if (linePrefix != null) {
+                // 3. 삽입할 텍스트만 디코딩
+                generatedText = insertionText();
+            } else {
+                if (partial != null && outputTokenCount == 0) {
+                    tokens.add(CodeTokenizer.UNK_ID); // 조각을 완성하지 못했으면 프롬프트 그대로
+                }
+
+                // 3. 결과 디코딩
+                generatedText = tokenizer.decode(tokens);
             }
+            timer.lap(StageTimer.DECODE, t);
 
-            tokens.add(nextToken);
+            // 4. Usage 계산
+            Usage usage = new Usage(inputTokenCount, outputTokenCount);
+
+            long latency = System.currentTimeMillis() - startTime;
+
+            return new GenerateResponse(generatedText, usage, latency, modelName(), timer.toMap());
         }
 
-        // 3. 결과 디코딩
-        String generatedText = tokenizer.decode(tokens);
+        /**
+         * 커서에 삽입할 텍스트 (문서 완성)
+         *
+         * decode는 앞 토큰에 따라 공백을 정하므로 마지막 문맥 토큰과 함께 디코딩한 뒤 그 부분을 뺌
+         * 커서 앞이 공백이거나 입력 중인 조각을 완성하면 앞 공백은 넣지 않고, 조각은 이미 입력했으므로 뺌
+         */
+        private String insertionText() {
+            List<Integer> output = tokens.subList(contextTokenCount, tokens.size());
+            if (output.isEmpty()) {
+                return "";
+            }
+            String text = tokenizer.decode(output);
+            if (contextTokenCount > 0) {
+                int last = tokens.get(contextTokenCount - 1);
+                List<Integer> joined = new ArrayList<>(output.size() + 1);
+                joined.add(last);
+                joined.addAll(output);
+                String before = tokenizer.decode(List.of(last));
+                String after = tokenizer.decode(joined);
+                if (after.startsWith(before)) {
+                    text = after.substring(before.length());
+                }
+            }
+            boolean afterSpace = linePrefix.isEmpty()
+                || Character.isWhitespace(linePrefix.charAt(linePrefix.length() - 1));
+            if (partial != null || afterSpace) {
+                int start = 0;
+                while (start < text.length() && text.charAt(start) == ' ') {
+                    start++;
+                }
+                text = text.substring(start);
+            }
+            if (partial != null && text.startsWith(partial)) {
+                text = text.substring(partial.length());
+            }
+            return text;
+        }
+    }
 
-        // 4. Usage 계산
-        int outputTokenCount = tokens.size() - inputTokenCount;
-        Usage usage = new Usage(inputTokenCount, outputTokenCount);
+    /**
+     * 문맥 하나의 조회 결과 (배치에서 요청끼리 공유, 샘플링 후보는 처음 샘플링할 때 준비)
+     */
+    private static final class Lookup {
+        final Map<Integer, Double> probs;
+        private Sampler preparedBy;
+        private Sampler.Candidates candidates;
 
-        long latency = System.currentTimeMillis() - startTime;
+        Lookup(Map<Integer, Double> probs) {
+            this.probs = probs;
+        }
 
-        return new GenerateResponse(generatedText, usage, latency, modelName());
+        /**
+         * 이 분포의 샘플링 후보 (temperature/topK가 같은 요청끼리 재사용)
+         */
+        Sampler.Candidates candidates(Sampler sampler) {
+            if (candidates == null || !sampler.hasSameSettings(preparedBy)) {
+                candidates = sampler.candidates(probsToCounts(probs));
+                preparedBy = sampler;
+            }
+            return candidates;
+        }
     }
 
     /**
      * 확률 분포를 카운트로 변환 (Sampler 호환용)
      * 확률을 1000배로 스케일업하여 정수로 변환
      */
-    private Map<Integer, Integer> probsToCounts(Map<Integer, Double> probs) {
+    static Map<Integer, Integer> probsToCounts(Map<Integer, Double> probs) {
         Map<Integer, Integer> counts = new HashMap<>();
         for (Map.Entry<Integer, Double> entry : probs.entrySet()) {
             // 확률을 1000배하여 정수 카운트로 변환
@@ -126,15 +593,84 @@ public class NgramModel implements LanguageModel {
         return counts;
     }
 
+    /**
+     * 텍스트에 대한 Perplexity (낮을수록 모델이 텍스트를 잘 예측)
+     *
+     * PPL = exp(-(1/N) × Σ log P(token_i | 문맥))
+     * Sampler처럼 분포를 합이 1이 되도록 정규화해서 사용 (backoff 단계마다 합이 다를 수 있음)
+     * 모델이 확률 0을 준 토큰은 UNSEEN_PROBABILITY로 대체 (무한대 방지)
+     */
+    public double perplexity(String text) {
+        List<Integer> tokens = tokenizer.encode(text);
+        double logProbSum = 0.0;
+        int predicted = 0;
+
+        ContextCursor cursor = new ContextCursor(n);
+        for (int i = 1; i < tokens.size(); i++) {
+            cursor.append(tokens.get(i - 1));
+            Map<Integer, Double> probs = getNextTokenProbabilities(cursor);
+            double total = probs.values().stream().mapToDouble(Double::doubleValue).sum();
+            double p = total > 0 ? probs.getOrDefault(tokens.get(i), 0.0) / total : 0.0;
+            logProbSum += Math.log(p > 0 ? p : UNSEEN_PROBABILITY);
+            predicted++;
+        }
+
+        return predicted == 0 ? Double.NaN : Math.exp(-logProbSum / predicted);
+    }
+
+    /**
+     * 토큰 ID의 단어 (stop sequence 비교용)
+     */
+    String tokenText(int token) {
+        return reverseVocab.getOrDefault(token, "[UNK]");
+    }
+
     @Override
     public String modelName() {
-        return artifact.getN() + "-gram-v1";
+        return compiled != null ? n + "-gram-q" + compiled.getBits() + "-v1" : n + "-gram-v1";
     }
 
+    /**
+     * 카운트 Artifact (컴파일된 모델이면 null)
+     */
     public NgramArtifact getArtifact() {
         return artifact;
     }
 
+    /**
+     * 컴파일된 Artifact (카운트 모델이면 null)
+     */
+    public CompiledNgramArtifact getCompiled() {
+        return compiled;
+    }
+
+    public int getN() {
+        return n;
+    }
+
+    public Tokenizer getTokenizer() {
+        return tokenizer;
+    }
+
+    public VocabularyTrie getCompletionTrie() {
+        return completionTrie;
+    }
+
+    public Map<String, Integer> getVocabulary() {
+        return compiled != null ? compiled.getVocabulary() : artifact.getVocabulary();
+    }
+
+    /**
+     * 컴파일된 모델은 항목 배열 크기, 아니면 카운트 Map 추정치
+     */
+    @Override
+    public long memoryBytes() {
+        return compiled != null ? compiled.memoryBytes() : artifact.estimateMemoryBytes();
+    }
+
+    /**
+     * Smoothing 전략 (컴파일된 모델이면 null, 전략 이름은 getCompiled().getSmoothing())
+     */
     public SmoothingStrategy getSmoothing() {
         return smoothing;
     }
@@ -150,27 +686,78 @@ public class NgramModel implements LanguageModel {
      * Artifact 파일로부터 모델 로드 (Smoothing 전략 지정)
      */
     public static NgramModel fromArtifact(Path artifactPath, SmoothingStrategy smoothing) throws IOException {
+        // ARPA 파일이면 미리 계산된 확률 사용 (smoothing은 ARPA를 만들 때 고정됨)
+        if (artifactPath.toString().endsWith(".arpa")) {
+            return fromArpa(artifactPath);
+        }
         String json = Files.readString(artifactPath);
         Gson gson = new Gson();
         NgramArtifact artifact = gson.fromJson(json, NgramArtifact.class);
 
-        // 토크나이저 타입에 따라 생성
-        String tokenizerType = artifact.getMetadata().getTokenizerType();
-        Tokenizer tokenizer;
-
-        if ("CodeTokenizer".equals(tokenizerType)) {
-            tokenizer = new CodeTokenizer(artifact.getVocabulary());
-            System.out.println("🔧 " + artifact.getN() + "-gram 모델 로드: CodeTokenizer 사용");
-        } else {
-            tokenizer = new WhitespaceTokenizer(artifact.getVocabulary());
-            System.out.println("📝 " + artifact.getN() + "-gram 모델 로드: WhitespaceTokenizer 사용");
+        // 근사 학습 Artifact면 sketch까지 다시 로드
+        String modelType = artifact.getMetadata().getModelType();
+        if (modelType != null && modelType.endsWith("-approx")) {
+            artifact = gson.fromJson(json, ApproximateNgramArtifact.class);
+        }
+        // 컴파일된 모델이면 저장된 확률 사용 (smoothing은 컴파일 시점에 고정됨)
+        if (modelType != null && modelType.endsWith("-compiled")) {
+            return fromCompiled(gson.fromJson(json, CompiledNgramArtifact.class));
         }
 
+        return fromArtifact(artifact, smoothing);
+    }
+
+    /**
+     * ARPA 파일로 모델 생성
+     *
+     * 카운트 없이 vocabulary만 가진 Artifact + ArpaBackoff 전략
+     * (조회는 backoff 가중치 곱셈 체인뿐)
+     */
+    public static NgramModel fromArpa(Path arpaPath) throws IOException {
+        ArpaBackoff backoff = ArpaFormat.read(arpaPath);
+        NgramArtifact artifact = new NgramArtifact(backoff.getN());
+        artifact.setVocabulary(backoff.getVocabulary());
+        artifact.getMetadata().setModelType(backoff.getN() + "-gram-arpa");
+        artifact.getMetadata().setN(backoff.getN());
+        artifact.getMetadata().setTokenizerType(backoff.getTokenizerType());
+        artifact.getMetadata().setVocabSize(backoff.getVocabulary().size());
+        artifact.getMetadata().setSmoothingType(backoff.strategyName());
+        return fromArtifact(artifact, backoff);
+    }
+
+    /**
+     * 컴파일된 Artifact로 모델 생성
+     */
+    public static NgramModel fromCompiled(CompiledNgramArtifact compiled) {
+        Tokenizer tokenizer = tokenizerFor(compiled.getMetadata().getTokenizerType(), compiled.getVocabulary(),
+            compiled.getN());
+        System.out.println("📦 컴파일된 모델: " + compiled);
+        return new NgramModel(compiled, tokenizer);
+    }
+
+    /**
+     * 로드된 Artifact로 모델 생성 (토크나이저는 metadata의 타입을 따름)
+     */
+    public static NgramModel fromArtifact(NgramArtifact artifact, SmoothingStrategy smoothing) {
+        Tokenizer tokenizer = tokenizerFor(artifact.getMetadata().getTokenizerType(), artifact.getVocabulary(),
+            artifact.getN());
         System.out.println("📊 Smoothing: " + smoothing.description());
 
         return new NgramModel(artifact, tokenizer, smoothing);
     }
 
+    /**
+     * 토크나이저 타입에 따라 생성
+     */
+    private static Tokenizer tokenizerFor(String tokenizerType, Map<String, Integer> vocabulary, int n) {
+        if ("CodeTokenizer".equals(tokenizerType)) {
+            System.out.println("🔧 " + n + "-gram 모델 로드: CodeTokenizer 사용");
+            return new CodeTokenizer(vocabulary);
+        }
+        System.out.println("📝 " + n + "-gram 모델 로드: WhitespaceTokenizer 사용");
+        return new WhitespaceTokenizer(vocabulary);
+    }
+
     /**
      * Kneser-Ney Smoothing으로 모델 로드
      */
@@ -180,8 +767,12 @@ public class NgramModel implements LanguageModel {
 
     @Override
     public String toString() {
+        if (compiled != null) {
+            return String.format("NgramModel(n=%d, vocab=%d, compiled=%d-bit %s)",
+                n, compiled.getVocabulary().size(), compiled.getBits(), compiled.getSmoothing());
+        }
         return String.format("NgramModel(n=%d, vocab=%d, smoothing=%s)",
-            artifact.getN(),
+            n,
             artifact.getVocabulary().size(),
             smoothing.strategyName());
     }
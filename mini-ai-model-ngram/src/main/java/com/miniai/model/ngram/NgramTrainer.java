@@ -7,15 +7,31 @@ import com.miniai.core.model.Trainer;
 import com.miniai.core.tokenizer.Tokenizer;
 import com.miniai.tokenizer.WhitespaceTokenizer;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Scanner;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * N-gram 모델 학습기 (일반화된 버전)
@@ -24,15 +40,52 @@ import java.util.Set;
  * - N을 파라미터로 받아 어떤 N-gram이든 학습 가능
  * - 하위 N-gram도 자동으로 학습 (backoff용)
  * - Continuation count 계산 (Kneser-Ney용)
+ * - 디렉토리 학습: 파일을 병렬로 읽고 토큰화, 파일 경계를 넘는 N-gram은 만들지 않음
+ * - 큰 파일은 줄 경계 조각(약 1M 문자)으로 나눠 읽고 셈 → 메모리는 진행 중인 조각만, 진행은 조각마다 보고
+ * - 증분 학습: 새 파일만 세어서 기존 Artifact에 병합 (ArtifactMerger)
+ * - 진행 상황은 TrainingListener로 보고, 스레드 interrupt로 중단 가능
+ * - 가지치기: 저장 전에 count cutoff / relative entropy로 N-gram 제거 (ArtifactPruner)
+ * - 근사 학습: 드문 문맥은 Count-Min Sketch에 넣어 메모리 상한 유지 (trainApproximate)
  *
  * 예시:
  * - n=5: 5-gram, 4-gram, 3-gram, 2-gram, 1-gram 모두 학습
  */
 public class NgramTrainer implements Trainer {
 
+    /**
+     * 근사 Artifact에서 tail 문맥 조회 시 sketch로 추정할 후보 수
+     */
+    private static final int DEFAULT_TAIL_CANDIDATES = 32;
+
+    /**
+     * 스레드마다 미리 토큰화해 둘 조각 수 (counter가 한 조각을 세는 동안 스레드가 놀지 않을 만큼)
+     */
+    private static final int IN_FLIGHT_PER_THREAD = 2;
+
+    /**
+     * 파일을 나눠 읽는 조각 크기 (문자 수, 줄 경계에서 자름) → 진행 보고 간격이자 조각 하나의 메모리
+     */
+    static final int DEFAULT_CHUNK_CHARS = 1 << 20;
+
+    /**
+     * 근사 학습 기본값: order마다 정확히 셀 문맥 수
+     */
+    public static final int DEFAULT_HEAVY_CONTEXTS = 100_000;
+
+    /**
+     * 근사 학습 기본값: sketch + presence filter 전체 메모리 예산 (64MB)
+     */
+    public static final long DEFAULT_SKETCH_BYTES = 64L * 1024 * 1024;
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
     private final int n;
     private final Tokenizer tokenizer;
     private final Gson gson;
+    private final int parallelism;
+    private TrainingListener listener = TrainingListener.NONE;
+    private int chunkChars = DEFAULT_CHUNK_CHARS;
+    private ArtifactPruner pruner;
 
     /**
      * N-gram 학습기 생성
@@ -40,39 +93,151 @@ public class NgramTrainer implements Trainer {
      * @param tokenizer 토크나이저
      */
     public NgramTrainer(int n, Tokenizer tokenizer) {
+        this(n, tokenizer, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * N-gram 학습기 생성 (병렬도 지정)
+     * @param n N-gram order (예: 5 = 5-gram)
+     * @param tokenizer 토크나이저
+     * @param parallelism 파일 읽기/토큰화 스레드 수
+     */
+    public NgramTrainer(int n, Tokenizer tokenizer, int parallelism) {
         if (n < 2) {
             throw new IllegalArgumentException("N must be at least 2 (bigram)");
         }
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1");
+        }
         this.n = n;
         this.tokenizer = tokenizer;
+        this.parallelism = parallelism;
         this.gson = new GsonBuilder()
             .setPrettyPrinting()
             .create();
     }
 
+    /**
+     * 진행 상황 리스너 지정
+     */
+    public void setListener(TrainingListener listener) {
+        this.listener = listener != null ? listener : TrainingListener.NONE;
+    }
+
+    /**
+     * 저장 직전 가지치기 지정 (null이면 모든 N-gram 저장)
+     *
+     * 증분 학습에서도 병합 결과를 가지치기하므로, 지워진 카운트는 이후 병합에 반영되지 않음
+     */
+    /**
+     * 조각 크기 지정 (테스트에서 작은 값으로 조각 경계를 검증할 때)
+     */
+    void setChunkChars(int chunkChars) {
+        if (chunkChars < 1) {
+            throw new IllegalArgumentException("chunkChars는 1 이상이어야 합니다");
+        }
+        this.chunkChars = chunkChars;
+    }
+
+    public void setPruner(ArtifactPruner pruner) {
+        this.pruner = pruner;
+    }
+
     @Override
     public void train(Path corpusPath, Path outputPath) {
+        trainAndSave(corpusPath, null, outputPath);
+    }
+
+    /**
+     * 파일 또는 디렉토리로부터 학습 후 저장
+     *
+     * @param corpusPath 코퍼스 파일 또는 디렉토리
+     * @param glob 디렉토리일 때 파일 필터 (예: "*.java"), null이면 전체
+     * @param outputPath Artifact 저장 경로
+     * @return 파일별/전체 처리량 요약
+     */
+    public TrainingSummary trainAndSave(Path corpusPath, String glob, Path outputPath) {
         try {
-            // 1. Corpus 읽기
-            String corpus = Files.readString(corpusPath);
+            // 1. 학습 대상 파일 수집
+            List<Path> files = listCorpusFiles(corpusPath, glob);
+            if (files.isEmpty()) {
+                throw new IllegalArgumentException("학습할 파일이 없습니다: " + corpusPath);
+            }
 
-            // 2. N-gram 학습
-            NgramArtifact artifact = trainFromText(corpus, tokenizer);
+            // 2. N-gram 학습 (파일 병렬 처리)
+            TrainingSummary summary = new TrainingSummary();
+            NgramArtifact artifact = trainFromFiles(files, tokenizer, summary);
 
             // 3. JSON으로 저장
-            String json = gson.toJson(artifact);
-            Files.writeString(outputPath, json);
+            saveArtifact(artifact, outputPath);
 
             System.out.println("✅ " + n + "-gram 학습 완료: " + outputPath);
             System.out.println("   Vocabulary: " + artifact.getVocabulary().size());
             System.out.println("   Total tokens: " + artifact.getMetadata().getTotalTokens());
             System.out.println("   Total " + n + "-grams: " + artifact.getMetadata().getTotalNgrams());
+            summary.print();
+
+            return summary;
 
         } catch (IOException e) {
             throw new RuntimeException("학습 실패: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * 증분 학습: 기존 Artifact에 새 코퍼스의 카운트를 병합 후 저장
+     *
+     * - 새 파일만 토큰화/카운트하므로 비용이 새 데이터 크기에 비례
+     * - 새 파일로 만든 vocabulary의 ID는 기존 vocabulary 기준으로 다시 매핑됨
+     * - 토크나이저 종류는 기존 Artifact를 따름
+     *
+     * @param baseArtifactPath 기존 Artifact 경로
+     * @param corpusPath 새 코퍼스 파일 또는 디렉토리
+     * @param glob 디렉토리일 때 파일 필터, null이면 전체
+     * @param outputPath 병합 결과 저장 경로 (baseArtifactPath와 같아도 됨)
+     * @return 새 파일들의 처리량 요약
+     */
+    public TrainingSummary trainIncremental(Path baseArtifactPath, Path corpusPath, String glob, Path outputPath) {
+        try {
+            long startTime = System.currentTimeMillis();
+            NgramArtifact base = loadArtifact(baseArtifactPath);
+            if (base.getN() != n) {
+                throw new IllegalArgumentException(String.format(
+                    "기존 Artifact는 %d-gram입니다 (학습기: %d-gram)", base.getN(), n));
+            }
+
+            List<Path> files = listCorpusFiles(corpusPath, glob);
+            if (files.isEmpty()) {
+                throw new IllegalArgumentException("학습할 파일이 없습니다: " + corpusPath);
+            }
+
+            // 1. 새 파일만으로 delta Artifact 학습 (vocabulary도 새 파일 기준)
+            Tokenizer deltaTokenizer = buildTokenizer(base.getMetadata().getTokenizerType(), files);
+            TrainingSummary summary = new TrainingSummary();
+            NgramArtifact delta = trainFromFiles(files, deltaTokenizer, summary);
+
+            // 2. 기존 Artifact에 병합 (base가 제자리 수정됨)
+            int baseVocabSize = base.getVocabulary().size();
+            NgramArtifact merged = ArtifactMerger.mergeInto(base, delta);
+
+            // 3. JSON으로 저장
+            saveArtifact(merged, outputPath);
+
+            System.out.println("✅ " + n + "-gram 증분 학습 완료: " + outputPath);
+            System.out.println("   Vocabulary: " + merged.getVocabulary().size()
+                + " (+" + (merged.getVocabulary().size() - baseVocabSize) + ")");
+            System.out.println("   Total tokens: " + merged.getMetadata().getTotalTokens()
+                + " (+" + delta.getMetadata().getTotalTokens() + ")");
+            summary.print();
+            System.out.println("   Latency: " + (System.currentTimeMillis() - startTime) + "ms");
+
+            return summary;
+
+        } catch (IOException e) {
+            throw new RuntimeException("증분 학습 실패: " + e.getMessage(), e);
+        }
+    }
+
     /**
      * 텍스트로부터 N-gram 학습
      */
@@ -80,73 +245,406 @@ public class NgramTrainer implements Trainer {
         // 1. 토큰화
         List<Integer> tokens = tokenizer.encode(corpus);
 
-        NgramArtifact artifact = new NgramArtifact(n);
+        // 2. N-gram 카운트 (주 N-gram + 하위 N-gram)
+        Map<String, Map<Integer, Integer>> ngramCounts = new HashMap<>();
+        Map<Integer, Map<String, Map<Integer, Integer>>> lowerOrderCounts = newLowerOrderCounts();
+        countTokens(tokens, 0, ngramCounts, lowerOrderCounts);
+
+        NgramArtifact artifact = buildArtifact(ngramCounts, lowerOrderCounts, tokenizer);
+
+        // 3. Metadata
+        NgramArtifact.Metadata metadata = artifact.getMetadata();
+        metadata.setTotalTokens(tokens.size());
+        metadata.setTotalNgrams(tokens.size() - n + 1);
+        metadata.setCorpusInfo(String.format("%d characters, %d tokens", corpus.length(), tokens.size()));
 
-        // 2. N-gram 카운트 (주 N-gram)
+        return artifact;
+    }
+
+    /**
+     * 여러 파일로부터 N-gram 학습
+     *
+     * - 읽기 + 토큰화는 parallelism 개의 스레드에서 병렬 실행
+     * - 카운트는 파일 순서대로 누적 (결과가 실행 순서와 무관하게 결정적)
+     * - 각 파일을 독립된 토큰 시퀀스로 세므로 파일 경계를 넘는 N-gram이 없음
+     *
+     * @param files 학습할 파일 목록
+     * @param tokenizer 토크나이저 (encode는 여러 스레드에서 동시에 호출됨)
+     * @param summary 파일별 처리량을 기록할 요약 (null 가능)
+     */
+    public NgramArtifact trainFromFiles(List<Path> files, Tokenizer tokenizer, TrainingSummary summary) {
         Map<String, Map<Integer, Integer>> ngramCounts = new HashMap<>();
-        for (int i = 0; i <= tokens.size() - n; i++) {
-            List<Integer> context = tokens.subList(i, i + n - 1);
-            int next = tokens.get(i + n - 1);
+        Map<Integer, Map<String, Map<Integer, Integer>>> lowerOrderCounts = newLowerOrderCounts();
 
-            String key = NgramArtifact.makeKey(context);
-            ngramCounts.putIfAbsent(key, new HashMap<>());
-            Map<Integer, Integer> nextCounts = ngramCounts.get(key);
-            nextCounts.put(next, nextCounts.getOrDefault(next, 0) + 1);
+        CorpusTotals totals = countFiles(files, tokenizer, summary,
+            (tokens, from) -> countTokens(tokens, from, ngramCounts, lowerOrderCounts));
+
+        NgramArtifact artifact = buildArtifact(ngramCounts, lowerOrderCounts, tokenizer);
+        totals.applyTo(artifact.getMetadata(), files.size());
+        return artifact;
+    }
+
+    /**
+     * 메모리 제한 근사 학습 후 저장
+     *
+     * @param corpusPath 코퍼스 파일 또는 디렉토리
+     * @param glob 디렉토리일 때 파일 필터, null이면 전체
+     * @param outputPath Artifact 저장 경로
+     * @param heavyContextsPerOrder order마다 정확히 셀 문맥 수
+     * @param sketchBudgetBytes long tail sketch 전체 메모리 예산
+     * @return 파일별/전체 처리량 요약
+     */
+    public TrainingSummary trainApproximateAndSave(Path corpusPath, String glob, Path outputPath,
+                                                   int heavyContextsPerOrder, long sketchBudgetBytes) {
+        try {
+            List<Path> files = listCorpusFiles(corpusPath, glob);
+            if (files.isEmpty()) {
+                throw new IllegalArgumentException("학습할 파일이 없습니다: " + corpusPath);
+            }
+
+            TrainingSummary summary = new TrainingSummary();
+            ApproximateNgramArtifact artifact = trainApproximate(
+                files, tokenizer, heavyContextsPerOrder, sketchBudgetBytes, summary);
+
+            saveArtifact(artifact, outputPath);
+
+            System.out.println("✅ " + n + "-gram 근사 학습 완료: " + outputPath);
+            System.out.println("   " + artifact);
+            summary.print();
+
+            return summary;
+
+        } catch (IOException e) {
+            throw new RuntimeException("근사 학습 실패: " + e.getMessage(), e);
         }
-        artifact.setCounts(ngramCounts);
+    }
 
-        // 3. 하위 N-gram 카운트 (backoff용)
-        Map<Integer, Map<String, Map<Integer, Integer>>> lowerOrderCounts = new HashMap<>();
+    /**
+     * 여러 파일로부터 메모리 제한 근사 N-gram 학습
+     *
+     * - 자주 나오는 문맥은 order마다 최대 heavyContextsPerOrder개까지 정확히 셈 (Space-Saving)
+     * - 밀려난 문맥의 카운트는 Count-Min Sketch로 (메모리 = sketchBudgetBytes 고정)
+     * - Unigram은 vocabulary 크기에 비례하므로 항상 정확히 셈
+     *
+     * @param files 학습할 파일 목록
+     * @param tokenizer 토크나이저
+     * @param heavyContextsPerOrder order마다 정확히 셀 문맥 수
+     * @param sketchBudgetBytes long tail sketch 전체 메모리 예산
+     * @param summary 파일별 처리량을 기록할 요약 (null 가능)
+     */
+    public ApproximateNgramArtifact trainApproximate(List<Path> files, Tokenizer tokenizer,
+                                                     int heavyContextsPerOrder, long sketchBudgetBytes,
+                                                     TrainingSummary summary) {
+        if (heavyContextsPerOrder < 1 || sketchBudgetBytes < 1) {
+            throw new IllegalArgumentException("heavyContextsPerOrder와 sketchBudgetBytes는 1 이상이어야 합니다");
+        }
 
-        for (int order = n - 1; order >= 1; order--) {
-            Map<String, Map<Integer, Integer>> orderCounts = new HashMap<>();
+        ApproximateCounter counter = new ApproximateCounter(n, heavyContextsPerOrder, sketchBudgetBytes);
+        CorpusTotals totals = countFiles(files, tokenizer, summary, counter::add);
+
+        ApproximateNgramArtifact artifact = counter.build(DEFAULT_TAIL_CANDIDATES);
+        applyVocabulary(artifact, tokenizer);
+        totals.applyTo(artifact.getMetadata(), files.size());
+        return artifact;
+    }
 
-            for (int i = 0; i <= tokens.size() - order; i++) {
-                List<Integer> context;
-                int next;
+    /**
+     * 파일을 조각으로 나눠 병렬로 토큰화한 뒤, 파일 순서대로 토큰 시퀀스를 counter에 전달
+     *
+     * - 파일은 줄 경계에서 chunkChars 문자 정도씩 읽음 (큰 단일 파일도 조각 하나씩만 메모리에)
+     * - 토큰화는 parallelism 개의 스레드에서 병렬 실행
+     * - counter는 호출 스레드에서만 실행되므로 동기화가 필요 없음
+     * - 동시에 진행 중인 조각은 스레드 수 × IN_FLIGHT_PER_THREAD개까지
+     *   (한꺼번에 제출하면 counter가 따라잡기 전에 코퍼스 전체의 토큰 리스트가 메모리에 쌓임)
+     * - 조각 순서대로 셈 → 파일 순서가 유지되어 근사 학습(Space-Saving)도 결과가 항상 같음
+     * - 같은 파일의 다음 조각에는 앞 조각의 마지막 N-1개 토큰을 붙여 넘김 (from부터 끝나는 N-gram만 셈)
+     *   → 조각 경계를 넘는 N-gram도 한 번씩, 파일 경계는 넘지 않음
+     * - 조각마다 진행 상황 보고 (처리한 바이트 / 전체 바이트 → ETA)
+     */
+    private CorpusTotals countFiles(List<Path> files, Tokenizer tokenizer, TrainingSummary summary,
+                                    SequenceCounter counter) {
+        long startTime = System.nanoTime();
+        listener.onPhase("counting");
 
-                if (order == 1) {
-                    // Unigram: 빈 문맥, 다음 토큰만
-                    context = new ArrayList<>();
-                    next = tokens.get(i);
-                } else {
-                    context = tokens.subList(i, i + order - 1);
-                    next = tokens.get(i + order - 1);
+        CorpusTotals totals = new CorpusTotals();
+        int threads = Math.min(parallelism, files.size());
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try (ChunkReader reader = new ChunkReader(files, chunkChars)) {
+            long totalBytes = 0;
+            for (Path file : files) {
+                totalBytes += Files.size(file);
+            }
+            long processedBytes = 0;
+
+            ArrayDeque<Future<TokenizedChunk>> inFlight = new ArrayDeque<>();
+            int maxInFlight = threads * IN_FLIGHT_PER_THREAD;
+
+            int completedFiles = 0;
+            List<Integer> carry = List.of();
+            long fileCharacters = 0;
+            long fileTokens = 0;
+            long fileNanos = 0;
+            while (true) {
+                CorpusChunk next;
+                while (inFlight.size() < maxInFlight && (next = reader.next()) != null) {
+                    CorpusChunk chunk = next;
+                    inFlight.add(executor.submit(() -> tokenizeChunk(chunk, tokenizer)));
+                }
+                if (inFlight.isEmpty()) {
+                    break;
+                }
+                TokenizedChunk tokenized = inFlight.poll().get();
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedException();
                 }
 
-                String key = order == 1 ? "" : NgramArtifact.makeKey(context);
-                orderCounts.putIfAbsent(key, new HashMap<>());
-                Map<Integer, Integer> nextCounts = orderCounts.get(key);
-                nextCounts.put(next, nextCounts.getOrDefault(next, 0) + 1);
+                List<Integer> sequence = tokenized.tokens;
+                if (!carry.isEmpty()) {
+                    sequence = new ArrayList<>(carry.size() + tokenized.tokens.size());
+                    sequence.addAll(carry);
+                    sequence.addAll(tokenized.tokens);
+                }
+                counter.count(sequence, carry.size());
+
+                totals.characters += tokenized.characters;
+                totals.tokens += tokenized.tokens.size();
+                processedBytes += tokenized.bytes;
+                fileCharacters += tokenized.characters;
+                fileTokens += tokenized.tokens.size();
+                fileNanos += tokenized.nanos;
+
+                if (tokenized.last) {
+                    totals.ngrams += Math.max(0, fileTokens - n + 1);
+                    if (summary != null) {
+                        summary.addFile(new TrainingSummary.FileStats(
+                            tokenized.path, fileCharacters, fileTokens, fileNanos));
+                    }
+                    completedFiles++;
+                    carry = List.of();
+                    fileCharacters = 0;
+                    fileTokens = 0;
+                    fileNanos = 0;
+                } else {
+                    carry = List.copyOf(sequence.subList(Math.max(0, sequence.size() - (n - 1)), sequence.size()));
+                }
+                listener.onProgress(totals.tokens, processedBytes, totalBytes, completedFiles, files.size());
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("학습 중단됨", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("학습 실패: " + e.getCause().getMessage(), e.getCause());
+        } catch (IOException e) {
+            throw new UncheckedIOException("코퍼스 읽기 실패: " + e.getMessage(), e);
+        } finally {
+            executor.shutdownNow();
+        }
 
-            lowerOrderCounts.put(order, orderCounts);
+        if (summary != null) {
+            summary.setTotalNanos(System.nanoTime() - startTime);
         }
-        artifact.setLowerOrderCounts(lowerOrderCounts);
+        return totals;
+    }
 
-        // 4. Continuation counts 계산 (Kneser-Ney용)
-        // 각 토큰이 몇 개의 다른 문맥 뒤에서 나타났는지
-        Map<Integer, Set<String>> tokenContexts = new HashMap<>();
+    /**
+     * Artifact를 JSON으로 저장
+     *
+     * 임시 파일에 쓴 뒤 rename하므로, 읽는 쪽은 이전 파일 또는 완성된 새 파일만 봄
+     * pruner가 지정되어 있으면 쓰기 전에 가지치기
+     * 저장 직전에 interrupt 되었으면 파일을 건드리지 않음
+     */
+    private void saveArtifact(NgramArtifact artifact, Path outputPath) throws IOException {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new RuntimeException("학습 중단됨: " + outputPath + " 저장 안 함");
+        }
+        if (pruner != null) {
+            listener.onPhase("pruning");
+            pruner.prune(artifact).print();
+        }
+        listener.onPhase("writing");
 
-        // Bigram 기준으로 continuation count 계산
-        Map<String, Map<Integer, Integer>> bigramCounts = lowerOrderCounts.get(2);
-        if (bigramCounts != null) {
-            for (Map.Entry<String, Map<Integer, Integer>> entry : bigramCounts.entrySet()) {
-                String context = entry.getKey();
-                for (Integer next : entry.getValue().keySet()) {
-                    tokenContexts.putIfAbsent(next, new HashSet<>());
-                    tokenContexts.get(next).add(context);
+        Path absolute = outputPath.toAbsolutePath();
+        Path tempPath = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+        Files.writeString(tempPath, gson.toJson(artifact));
+        try {
+            Files.move(tempPath, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempPath, absolute, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * 코퍼스 경로에서 학습 대상 파일 목록 수집
+     *
+     * - 파일이면 그 파일 하나
+     * - 디렉토리면 하위 트리 전체를 걸으며 glob에 맞는 일반 파일 (경로순 정렬)
+     * - glob에 '/'가 없으면 파일 이름에, 있으면 루트 기준 상대 경로에 매칭
+     */
+    public static List<Path> listCorpusFiles(Path corpusPath, String glob) throws IOException {
+        if (!Files.isDirectory(corpusPath)) {
+            return List.of(corpusPath);
+        }
+
+        PathMatcher matcher = glob == null || glob.isBlank()
+            ? null
+            : FileSystems.getDefault().getPathMatcher("glob:" + glob);
+        boolean matchRelative = glob != null && glob.contains("/");
+
+        try (Stream<Path> walk = Files.walk(corpusPath)) {
+            return walk
+                .filter(Files::isRegularFile)
+                .filter(path -> matcher == null || matcher.matches(
+                    matchRelative ? corpusPath.relativize(path) : path.getFileName()))
+                .sorted()
+                .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * 여러 파일을 하나의 텍스트로 읽기 (토크나이저 vocabulary 생성용)
+     */
+    public static String readCorpus(List<Path> files) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (Path file : files) {
+            sb.append(Files.readString(file)).append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 코퍼스 파일들로 vocabulary 토크나이저 생성 (파일을 줄 단위로 스트리밍)
+     *
+     * - readCorpus처럼 코퍼스 전체를 한 String으로 들고 있지 않음 → 메모리 = vocabulary + 한 줄
+     * - 두 토크나이저 모두 줄 안에서만 토큰을 나누므로 fromText/fromCode(전체 코퍼스)와 같은 vocabulary
+     *
+     * @param tokenizerType "CodeTokenizer"면 코드 토크나이저, 아니면 공백 토크나이저
+     */
+    public static Tokenizer buildTokenizer(String tokenizerType, List<Path> files) throws IOException {
+        if ("CodeTokenizer".equals(tokenizerType)) {
+            CodeTokenizer tokenizer = CodeTokenizer.empty();
+            forEachLine(files, line -> tokenizer.tokenize(line).forEach(tokenizer::addToken));
+            return tokenizer;
+        }
+        Map<String, Integer> wordToId = new HashMap<>();
+        wordToId.put(WhitespaceTokenizer.UNK_TOKEN, WhitespaceTokenizer.UNK_ID);
+        forEachLine(files, line -> {
+            for (String word : WHITESPACE.split(line)) {
+                if (!word.isEmpty()) {
+                    wordToId.putIfAbsent(word, wordToId.size());
                 }
             }
+        });
+        return new WhitespaceTokenizer(wordToId);
+    }
+
+    private static void forEachLine(List<Path> files, Consumer<String> action) throws IOException {
+        for (Path file : files) {
+            try (Scanner lines = new Scanner(Files.newBufferedReader(file)).useDelimiter("\n")) {
+                while (lines.hasNext()) {
+                    action.accept(lines.next());
+                }
+            }
+            if (Thread.currentThread().isInterrupted()) {
+                throw new RuntimeException("학습 중단됨: vocabulary 생성 중");
+            }
         }
+    }
 
-        Map<Integer, Integer> continuationCounts = new HashMap<>();
-        for (Map.Entry<Integer, Set<String>> entry : tokenContexts.entrySet()) {
-            continuationCounts.put(entry.getKey(), entry.getValue().size());
+    /**
+     * 조각 하나 토큰화 (작업 스레드에서 실행)
+     *
+     * 앞 조각이 있으면 그 마지막 줄을 붙여 토큰화한 뒤 그 줄의 토큰을 뺌
+     * → 줄바꿈 토큰([NL])처럼 줄 사이에 생기는 토큰이 파일 전체를 토큰화한 것과 같음
+     */
+    private static TokenizedChunk tokenizeChunk(CorpusChunk chunk, Tokenizer tokenizer) {
+        long start = System.nanoTime();
+        List<Integer> tokens;
+        if (chunk.previousLine == null) {
+            tokens = tokenizer.encode(chunk.text);
+        } else {
+            List<Integer> joined = tokenizer.encode(chunk.previousLine + "\n" + chunk.text);
+            tokens = new ArrayList<>(joined.subList(tokenizer.encode(chunk.previousLine).size(), joined.size()));
+        }
+        long bytes = utf8Length(chunk.text) + (chunk.last ? 0 : 1);
+        return new TokenizedChunk(chunk.path, chunk.text.length() + (chunk.last ? 0 : 1), bytes, tokens,
+            System.nanoTime() - start, chunk.last);
+    }
+
+    private static long utf8Length(String text) {
+        long bytes = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                bytes += 1;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c)) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+
+    private Map<Integer, Map<String, Map<Integer, Integer>>> newLowerOrderCounts() {
+        Map<Integer, Map<String, Map<Integer, Integer>>> lowerOrderCounts = new HashMap<>();
+        for (int order = n - 1; order >= 1; order--) {
+            lowerOrderCounts.put(order, new HashMap<>());
         }
-        artifact.setContinuationCounts(continuationCounts);
+        return lowerOrderCounts;
+    }
+
+    /**
+     * 토큰 시퀀스 하나의 N-gram 카운트를 누적 (마지막 토큰 위치가 from 이상인 N-gram만)
+     */
+    private void countTokens(List<Integer> tokens, int from,
+                             Map<String, Map<Integer, Integer>> ngramCounts,
+                             Map<Integer, Map<String, Map<Integer, Integer>>> lowerOrderCounts) {
+        // 1. 주 N-gram
+        for (int i = Math.max(0, from - n + 1); i <= tokens.size() - n; i++) {
+            List<Integer> context = tokens.subList(i, i + n - 1);
+            int next = tokens.get(i + n - 1);
 
-        // 5. Vocabulary 추출 및 토크나이저 타입 결정
+            String key = NgramArtifact.makeKey(context);
+            ngramCounts.computeIfAbsent(key, k -> new HashMap<>()).merge(next, 1, Integer::sum);
+        }
+
+        // 2. 하위 N-gram (backoff용)
+        for (int order = n - 1; order >= 1; order--) {
+            Map<String, Map<Integer, Integer>> orderCounts = lowerOrderCounts.get(order);
+
+            for (int i = Math.max(0, from - order + 1); i <= tokens.size() - order; i++) {
+                // Unigram은 빈 문맥, 다음 토큰만
+                String key = order == 1 ? "" : NgramArtifact.makeKey(tokens.subList(i, i + order - 1));
+                int next = tokens.get(i + order - 1);
+
+                orderCounts.computeIfAbsent(key, k -> new HashMap<>()).merge(next, 1, Integer::sum);
+            }
+        }
+    }
+
+    /**
+     * 카운트 테이블로 Artifact 구성 (continuation count, vocabulary, 기본 metadata)
+     */
+    private NgramArtifact buildArtifact(Map<String, Map<Integer, Integer>> ngramCounts,
+                                        Map<Integer, Map<String, Map<Integer, Integer>>> lowerOrderCounts,
+                                        Tokenizer tokenizer) {
+        NgramArtifact artifact = new NgramArtifact(n);
+        artifact.setCounts(ngramCounts);
+        artifact.setLowerOrderCounts(lowerOrderCounts);
+        artifact.setContinuationCounts(computeContinuationCounts(lowerOrderCounts));
+        artifact.getMetadata().setModelType(n + "-gram");
+        applyVocabulary(artifact, tokenizer);
+        return artifact;
+    }
+
+    /**
+     * 토크나이저의 vocabulary와 타입을 Artifact에 기록
+     */
+    private void applyVocabulary(NgramArtifact artifact, Tokenizer tokenizer) {
+        // Vocabulary 추출 및 토크나이저 타입 결정
         Map<String, Integer> vocabulary = new HashMap<>();
         String tokenizerType;
 
@@ -161,17 +659,35 @@ public class NgramTrainer implements Trainer {
         }
         artifact.setVocabulary(vocabulary);
 
-        // 6. Metadata 생성
         NgramArtifact.Metadata metadata = artifact.getMetadata();
         metadata.setN(n);
-        metadata.setModelType(n + "-gram");
         metadata.setTokenizerType(tokenizerType);
         metadata.setVocabSize(tokenizer.vocabSize());
-        metadata.setTotalTokens(tokens.size());
-        metadata.setTotalNgrams(tokens.size() - n + 1);
-        metadata.setCorpusInfo(String.format("%d characters, %d tokens", corpus.length(), tokens.size()));
+    }
 
-        return artifact;
+    /**
+     * Continuation counts 계산 (Kneser-Ney용)
+     * 각 토큰이 몇 개의 다른 문맥 뒤에서 나타났는지 (Bigram 기준)
+     */
+    static Map<Integer, Integer> computeContinuationCounts(
+            Map<Integer, Map<String, Map<Integer, Integer>>> lowerOrderCounts) {
+        Map<Integer, Set<String>> tokenContexts = new HashMap<>();
+
+        Map<String, Map<Integer, Integer>> bigramCounts = lowerOrderCounts.get(2);
+        if (bigramCounts != null) {
+            for (Map.Entry<String, Map<Integer, Integer>> entry : bigramCounts.entrySet()) {
+                String context = entry.getKey();
+                for (Integer next : entry.getValue().keySet()) {
+                    tokenContexts.computeIfAbsent(next, k -> new HashSet<>()).add(context);
+                }
+            }
+        }
+
+        Map<Integer, Integer> continuationCounts = new HashMap<>();
+        for (Map.Entry<Integer, Set<String>> entry : tokenContexts.entrySet()) {
+            continuationCounts.put(entry.getKey(), entry.getValue().size());
+        }
+        return continuationCounts;
     }
 
     /**
@@ -191,4 +707,155 @@ public class NgramTrainer implements Trainer {
     public String trainerName() {
         return n + "-gramTrainer";
     }
+
+    /**
+     * 파일 학습 중 누적한 코퍼스 크기
+     */
+    private static class CorpusTotals {
+        long characters;
+        long tokens;
+        long ngrams;
+
+        void applyTo(NgramArtifact.Metadata metadata, int fileCount) {
+            metadata.setTotalTokens((int) tokens);
+            metadata.setTotalNgrams((int) ngrams);
+            metadata.setCorpusInfo(String.format("%d files, %d characters, %d tokens",
+                fileCount, characters, tokens));
+        }
+    }
+
+    /**
+     * 토큰화된 파일 하나 (작업 스레드 → 카운트 스레드 전달용)
+     */
+    /**
+     * 토큰 시퀀스 counter (from 앞의 토큰은 앞 조각에서 이미 센 문맥)
+     */
+    @FunctionalInterface
+    interface SequenceCounter {
+        void count(List<Integer> tokens, int from);
+    }
+
+    /**
+     * 파일의 한 조각 (줄 경계에서 자름, 자른 줄바꿈 문자는 어느 조각에도 포함하지 않음)
+     */
+    private static class CorpusChunk {
+        final Path path;
+        final String text;
+        final String previousLine; // 앞 조각의 마지막 줄 (파일 첫 조각이면 null)
+        final boolean last;
+
+        CorpusChunk(Path path, String text, String previousLine, boolean last) {
+            this.path = path;
+            this.text = text;
+            this.previousLine = previousLine;
+            this.last = last;
+        }
+    }
+
+    /**
+     * 토큰화된 조각
+     */
+    private static class TokenizedChunk {
+        final Path path;
+        final long characters;
+        final long bytes;
+        final List<Integer> tokens;
+        final long nanos;
+        final boolean last;
+
+        TokenizedChunk(Path path, long characters, long bytes, List<Integer> tokens, long nanos, boolean last) {
+            this.path = path;
+            this.characters = characters;
+            this.bytes = bytes;
+            this.tokens = tokens;
+            this.nanos = nanos;
+            this.last = last;
+        }
+    }
+
+    /**
+     * 파일들을 순서대로 조각으로 읽기 (호출 스레드 전용)
+     *
+     * - 버퍼가 chunkChars 이상 차면 그 뒤 첫 "빈 줄이 아닌 줄 뒤의 줄바꿈"에서 자름
+     *   (빈 줄 뒤에서 자르면 encode가 조각 끝의 빈 줄을 버려 줄바꿈 토큰이 빠짐)
+     * - 자를 곳이 없으면 (아주 긴 줄) 더 읽음, 파일 끝이면 남은 전부가 마지막 조각
+     */
+    private static final class ChunkReader implements AutoCloseable {
+        private final List<Path> files;
+        private final int chunkChars;
+        private final char[] block = new char[8192];
+        private final StringBuilder buffer = new StringBuilder();
+        private int fileIndex;
+        private BufferedReader reader;
+        private String previousLine;
+        private boolean eof;
+
+        ChunkReader(List<Path> files, int chunkChars) {
+            this.files = files;
+            this.chunkChars = chunkChars;
+        }
+
+        /**
+         * 다음 조각 (모든 파일을 다 읽었으면 null)
+         */
+        CorpusChunk next() throws IOException {
+            if (reader == null) {
+                if (fileIndex >= files.size()) {
+                    return null;
+                }
+                reader = Files.newBufferedReader(files.get(fileIndex));
+                buffer.setLength(0);
+                previousLine = null;
+                eof = false;
+            }
+            Path path = files.get(fileIndex);
+
+            int searched = chunkChars; // 여기서부터 자를 곳을 찾음 (앞은 이미 확인)
+            while (!eof) {
+                if (buffer.length() >= chunkChars) {
+                    int cut = firstCut(searched);
+                    if (cut > 0) {
+                        String text = buffer.substring(0, cut);
+                        buffer.delete(0, cut + 1);
+                        CorpusChunk chunk = new CorpusChunk(path, text, previousLine, false);
+                        previousLine = text.substring(text.lastIndexOf('\n') + 1);
+                        return chunk;
+                    }
+                    searched = buffer.length();
+                }
+                int read = reader.read(block);
+                if (read < 0) {
+                    eof = true;
+                } else {
+                    buffer.append(block, 0, read);
+                }
+            }
+
+            CorpusChunk chunk = new CorpusChunk(path, buffer.toString(), previousLine, true);
+            buffer.setLength(0);
+            reader.close();
+            reader = null;
+            fileIndex++;
+            return chunk;
+        }
+
+        /**
+         * from 이후 처음으로 자를 수 있는 줄바꿈 위치 (바로 앞 글자가 줄바꿈이 아닌 것, 없으면 -1)
+         */
+        private int firstCut(int from) {
+            for (int i = Math.max(1, from); i < buffer.length(); i++) {
+                if (buffer.charAt(i) == '\n' && buffer.charAt(i - 1) != '\n') {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (reader != null) {
+                reader.close();
+            }
+        }
+    }
 }
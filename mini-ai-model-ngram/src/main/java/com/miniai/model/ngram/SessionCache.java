@@ -0,0 +1,358 @@
+package com.miniai.model.ngram;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 세션(편집 중인 파일)별 캐시 언어 모델
+ *
+ * 학습 포인트:
+ * - 코드는 "지역성"이 강함: 방금 쓴 식별자가 곧 다시 나옴 (전역 모델은 이걸 모름)
+ * - 세션마다 작은 N-gram 표를 두고 프롬프트/수락된 완성의 토큰으로 바로 갱신
+ * - 생성 시 전역 분포와 섞음:
+ *     P(w|h) = (1 - λ) × P_global(w|h) + λ × P_cache(w|h)
+ * - 캐시 분포는 Witten-Bell 재귀 interpolation (카운트가 적어도 안정적)
+ *     P_k(w|h) = (c(h,w) + D(h) × P_{k-1}(w)) / (c(h) + D(h))   D(h) = h 뒤 서로 다른 토큰 수
+ *
+ * 비용과 메모리:
+ * - 토큰 하나 추가 = order마다 커서 해시로 표 조회 한 번 (O(1))
+ * - 프롬프트는 매 키 입력마다 오므로 "새로 생긴 토큰"만 반영:
+ *   지난번 마지막 토큰들(anchor)을 새 프롬프트에서 찾아 그 뒤만 추가
+ * - 마지막 토큰은 아직 입력 중일 수 있어서 (예: "fo" → "foo") 다음 프롬프트까지 보류
+ *   → 완성을 수락하면 보류한 토큰이 확정된 것 → 먼저 반영하고 완성 토큰을 이어 붙임
+ *     (다음 프롬프트는 "…, 보류 토큰, 완성 토큰들"이므로 anchor가 그대로 맞음)
+ * - 문맥 표는 LRU, 전체 (문맥, 토큰) 쌍 수 ≤ maxEntries
+ * - unigram도 LRU (maxUnigrams개, 접근 순서 LinkedHashMap → 갱신/제거 O(1))
+ *   → 새 토큰은 가장 최근이라 적어도 maxUnigrams-1개의 새 토큰이 들어올 때까지 살아남음
+ *     (가장 드문 것을 지우면 방금 들어온 count 1짜리가 바로 다음에 지워져 새 식별자를 배울 수 없음)
+ *   → 카운트는 maxUnigrams개 토큰마다 절반으로 (aging, 분할 상환 O(1)): 오래전 빈도가 새 식별자를 누르지 않도록
+ * - 캐시 분포는 매번 전체 Map을 만들지 않음:
+ *   P(w) = scale × c(w)/T + overlay(w)   (scale = Π D(h)/(c(h)+D(h)), overlay = 문맥에서 본 토큰만)
+ *   → 문맥 조회는 order × (문맥의 다음 토큰 수), unigram 카운트는 유지 중인 표를 그대로 한 번 훑어 섞음
+ *
+ * 스레드 안전: 같은 세션의 요청이 겹칠 수 있으므로 메서드는 synchronized
+ */
+public class SessionCache {
+
+    public static final int DEFAULT_ORDER = 3;
+    public static final int DEFAULT_MAX_ENTRIES = 8192;
+    public static final int DEFAULT_MAX_UNIGRAMS = 1024;
+    public static final double DEFAULT_WEIGHT = 0.2;
+
+    /**
+     * 새 프롬프트에서 찾을 anchor 길이 (지난번 마지막 토큰 수)
+     */
+    static final int ANCHOR_LENGTH = 8;
+
+    /**
+     * anchor를 못 찾으면 (커서 이동, 큰 수정) 프롬프트 끝의 이 만큼만 반영 (중복 카운트 제한)
+     */
+    static final int FALLBACK_WINDOW = 64;
+
+    private final int order;
+    private final int maxEntries;
+    private final int maxUnigrams;
+
+    /**
+     * Unigram 카운트 (접근 순서 = LRU, 값은 갱신할 수 있는 카운트)
+     */
+    private final LinkedHashMap<Integer, int[]> unigrams = new LinkedHashMap<>(64, 0.75f, true);
+    private long unigramTotal;
+    private int sinceAging;
+
+    /**
+     * (order, 문맥 해시) → 다음 토큰 카운트 (접근 순서 = LRU)
+     */
+    private final LinkedHashMap<Long, Counts> contexts = new LinkedHashMap<>(64, 0.75f, true);
+    private int entries;
+
+    /**
+     * 반영된 토큰의 마지막 order-1개 (갱신용 문맥)
+     */
+    private final ContextCursor committed;
+
+    private final int[] anchor = new int[ANCHOR_LENGTH];
+    private int anchorSize;
+
+    /**
+     * 지난 프롬프트의 마지막 토큰 (보류 중, 완성을 수락하면 확정)
+     */
+    private int pendingToken;
+    private boolean hasPending;
+    private long committedTokens;
+
+    public SessionCache() {
+        this(DEFAULT_ORDER, DEFAULT_MAX_ENTRIES, DEFAULT_MAX_UNIGRAMS);
+    }
+
+    public SessionCache(int order, int maxEntries, int maxUnigrams) {
+        if (order < 1 || order > ANCHOR_LENGTH + 1) {
+            throw new IllegalArgumentException("order는 1 이상 " + (ANCHOR_LENGTH + 1) + " 이하여야 합니다");
+        }
+        if (maxEntries < 1 || maxUnigrams < 1) {
+            throw new IllegalArgumentException("maxEntries와 maxUnigrams는 1 이상이어야 합니다");
+        }
+        this.order = order;
+        this.maxEntries = maxEntries;
+        this.maxUnigrams = maxUnigrams;
+        this.committed = new ContextCursor(order);
+    }
+
+    /**
+     * 프롬프트 반영 (지난 프롬프트 이후 새로 생긴 완성된 토큰만)
+     */
+    public synchronized void observePrompt(List<Integer> tokens) {
+        int complete = tokens.size() - 1; // 마지막 토큰은 입력 중일 수 있음
+        hasPending = complete >= 0;
+        if (hasPending) {
+            pendingToken = tokens.get(complete);
+        }
+        if (complete <= 0) {
+            return;
+        }
+
+        int start;
+        if (anchorSize == 0) {
+            start = 0; // 첫 프롬프트: 파일 앞부분 전체
+        } else {
+            int end = findAnchor(tokens, tokens.size());
+            if (end > complete) {
+                hasPending = false; // 수락한 완성 바로 뒤: 마지막 토큰까지 이미 반영됨
+                return;
+            } else if (end >= 0) {
+                start = end; // 이어서 입력한 부분만
+            } else {
+                // 다른 위치로 이동: 끝부분만 새 문맥으로 반영
+                start = Math.max(0, complete - FALLBACK_WINDOW);
+                committed.reset();
+                for (int i = Math.max(0, start - (order - 1)); i < start; i++) {
+                    committed.append(tokens.get(i));
+                }
+            }
+        }
+        for (int i = start; i < complete; i++) {
+            add(tokens.get(i));
+        }
+    }
+
+    /**
+     * 수락된 완성 반영 (보류 중이던 프롬프트 마지막 토큰 + 전체가 확정된 완성 토큰)
+     */
+    public synchronized void accept(List<Integer> tokens) {
+        if (hasPending) {
+            hasPending = false;
+            add(pendingToken);
+        }
+        for (int token : tokens) {
+            add(token);
+        }
+    }
+
+    /**
+     * 새 프롬프트에서 anchor가 끝나는 가장 뒤 위치 (없으면 -1)
+     */
+    private int findAnchor(List<Integer> tokens, int limit) {
+        for (int end = limit; end >= anchorSize; end--) {
+            boolean match = true;
+            for (int i = 0; i < anchorSize && match; i++) {
+                match = tokens.get(end - anchorSize + i) == anchor[i];
+            }
+            if (match) {
+                return end;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 토큰 하나 반영 (order마다 해시 조회 한 번)
+     */
+    private void add(int token) {
+        addUnigram(token);
+
+        for (int k = 2; k <= order && k - 1 <= committed.size(); k++) {
+            Counts counts = contexts.computeIfAbsent(key(k, committed.hash(k - 1)), key -> new Counts());
+            if (counts.add(token)) {
+                entries++;
+            }
+        }
+        while (entries > maxEntries) {
+            Iterator<Counts> eldest = contexts.values().iterator();
+            entries -= eldest.next().next.size();
+            eldest.remove();
+        }
+
+        committed.append(token);
+        if (anchorSize < ANCHOR_LENGTH) {
+            anchor[anchorSize++] = token;
+        } else {
+            System.arraycopy(anchor, 1, anchor, 0, ANCHOR_LENGTH - 1);
+            anchor[ANCHOR_LENGTH - 1] = token;
+        }
+        committedTokens++;
+    }
+
+    /**
+     * unigram 카운트 +1 (LRU 갱신, 넘치면 가장 오래 안 쓴 토큰 제거, maxUnigrams개마다 aging)
+     */
+    private void addUnigram(int token) {
+        int[] count = unigrams.get(token); // 접근 순서 갱신
+        if (count != null) {
+            count[0]++;
+        } else {
+            unigrams.put(token, new int[] {1});
+            if (unigrams.size() > maxUnigrams) {
+                Iterator<int[]> eldest = unigrams.values().iterator();
+                unigramTotal -= eldest.next()[0];
+                eldest.remove();
+            }
+        }
+        unigramTotal++;
+
+        if (++sinceAging >= maxUnigrams) {
+            sinceAging = 0;
+            unigramTotal = 0;
+            for (int[] c : unigrams.values()) {
+                c[0] = (c[0] + 1) / 2; // 1은 1로 남음 (0이 되어 사라지지 않도록)
+                unigramTotal += c[0];
+            }
+        }
+    }
+
+    /**
+     * 캐시 분포 = scale × unigram(w) + overlay(w)
+     *
+     * Witten-Bell 재귀를 order마다 스칼라(scale)와 문맥에서 본 토큰(overlay)에만 적용
+     *   P_k(w) = (c(h,w) + D(h) × P_{k-1}(w)) / (c(h) + D(h))
+     */
+    private Distribution distribution(ContextCursor context) {
+        double scale = 1.0;
+        Map<Integer, Double> overlay = new HashMap<>();
+        for (int k = 2; k <= order && k - 1 <= context.size(); k++) {
+            Counts counts = contexts.get(key(k, context.hash(k - 1)));
+            if (counts == null) {
+                continue; // LRU로 밀려난 문맥은 건너뜀
+            }
+            double distinct = counts.next.size();
+            double denominator = counts.total + distinct;
+            double backoff = distinct / denominator;
+            scale *= backoff;
+            for (Map.Entry<Integer, Double> e : overlay.entrySet()) {
+                e.setValue(e.getValue() * backoff);
+            }
+            for (Map.Entry<Integer, Integer> e : counts.next.entrySet()) {
+                overlay.merge(e.getKey(), e.getValue() / denominator, Double::sum);
+            }
+        }
+        return new Distribution(scale, overlay);
+    }
+
+    /**
+     * 캐시 분포 (문맥의 마지막 order-1개 토큰 기준, 캐시가 비었으면 빈 Map)
+     *
+     * 전체 분포를 Map으로 만듦 (확인/디버깅용, 생성 경로는 interpolate)
+     */
+    public synchronized Map<Integer, Double> probabilities(ContextCursor context) {
+        Map<Integer, Double> probs = new HashMap<>();
+        if (unigramTotal == 0) {
+            return probs;
+        }
+        distribution(context).addTo(probs, 1.0);
+        return probs;
+    }
+
+    /**
+     * 전역 분포와 캐시 분포 interpolation
+     *
+     * 전역 분포는 합이 1이 아닐 수 있어서 (backoff) 먼저 정규화
+     */
+    public synchronized Map<Integer, Double> interpolate(Map<Integer, Double> global, ContextCursor context,
+                                                         double weight) {
+        if (unigramTotal == 0) {
+            return global;
+        }
+        Distribution cache = distribution(context);
+        double total = global.values().stream().mapToDouble(Double::doubleValue).sum();
+        Map<Integer, Double> result = new HashMap<>(Math.max(16, (global.size() + unigrams.size()) * 2));
+        if (total > 0) {
+            for (Map.Entry<Integer, Double> e : global.entrySet()) {
+                result.put(e.getKey(), (1 - weight) * e.getValue() / total);
+            }
+        }
+        cache.addTo(result, total > 0 ? weight : 1.0);
+        return result;
+    }
+
+    private static long key(int order, long contextHash) {
+        return contextHash * 31 + order;
+    }
+
+    /**
+     * 캐시에 있는 (문맥, 토큰) 쌍 수 (unigram 제외)
+     */
+    public synchronized int getEntryCount() {
+        return entries;
+    }
+
+    public synchronized int getUnigramCount() {
+        return unigrams.size();
+    }
+
+    /**
+     * 지금까지 반영된 토큰 수
+     */
+    public synchronized long getCommittedTokens() {
+        return committedTokens;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("SessionCache(order=%d, tokens=%d, unigrams=%d, entries=%d/%d)",
+            order, committedTokens, unigrams.size(), entries, maxEntries);
+    }
+
+    /**
+     * 문맥에 맞춘 캐시 분포 (unigram 표는 복사하지 않고 scale만)
+     */
+    private final class Distribution {
+        final double scale;
+        final Map<Integer, Double> overlay;
+
+        Distribution(double scale, Map<Integer, Double> overlay) {
+            this.scale = scale;
+            this.overlay = overlay;
+        }
+
+        /**
+         * target에 weight × P(w)를 더함 (unigram 표 한 번 + overlay)
+         */
+        void addTo(Map<Integer, Double> target, double weight) {
+            double unigramWeight = weight * scale / unigramTotal;
+            for (Map.Entry<Integer, int[]> e : unigrams.entrySet()) {
+                target.merge(e.getKey(), unigramWeight * e.getValue()[0], Double::sum);
+            }
+            for (Map.Entry<Integer, Double> e : overlay.entrySet()) {
+                target.merge(e.getKey(), weight * e.getValue(), Double::sum);
+            }
+        }
+    }
+
+    /**
+     * 문맥 하나의 다음 토큰 카운트
+     */
+    private static final class Counts {
+        final Map<Integer, Integer> next = new HashMap<>(4);
+        int total;
+
+        /**
+         * @return 새 토큰이면 true
+         */
+        boolean add(int token) {
+            total++;
+            return next.merge(token, 1, Integer::sum) == 1;
+        }
+    }
+}
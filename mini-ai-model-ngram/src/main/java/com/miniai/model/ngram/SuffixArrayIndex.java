@@ -0,0 +1,478 @@
+package com.miniai.model.ngram;
+
+import com.miniai.core.tokenizer.Tokenizer;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * 토큰화된 코퍼스 위의 Suffix Array ("infini-gram" 완성 색인)
+ *
+ * 학습 포인트:
+ * - N-gram은 문맥을 N-1개 토큰으로 자름 → 코드의 긴 반복 패턴(보일러플레이트)을 놓침
+ * - Suffix array: 코퍼스의 모든 접미사 시작 위치를 사전순으로 정렬한 배열
+ *   → 어떤 토큰 열이든 나타나는 위치들이 배열에서 연속 구간 하나 (이진 탐색으로 O(m log N))
+ * - 구간 안의 접미사는 "패턴 다음 토큰" 순으로도 정렬되어 있음
+ *   → 다음 토큰 카운트 = 서로 다른 다음 토큰마다 경계 이진 탐색 한 번 (구간을 훑지 않음)
+ * - 가장 긴 일치 suffix: 긴 후보부터 구간을 한 토큰씩 좁혀 가다가 비면 다음(한 토큰 짧은) 후보로
+ *   → 토큰 하나 확장 = 구간 안 이진 탐색 두 번 (패턴 전체 비교 없음)
+ * - 모든 N-gram을 저장하지 않음: 크기는 토큰 수 × 8바이트 (토큰 + 위치) 고정
+ *
+ * 구축 (prefix doubling):
+ * - 길이 k 순위 두 개 (i, i+k)로 길이 2k 순위를 만드는 단계를 log(최장 반복 길이)번 반복
+ * - 단계마다 (두 번째 순위, 위치) → (첫 번째 순위, 순서)로 long 배열을 두 번 병렬 정렬 (안정 정렬 효과)
+ * - 파일 토큰화도 병렬
+ *
+ * 파일 형식 (memory-mapped로 열기):
+ *   [MAGIC][토큰 수][토큰 × size][suffix 위치 × size]   (int, big-endian)
+ * - 한 번의 map은 2GB까지라 1GB 단위 chunk 여러 개로 나눠서 map (큰 코퍼스는 영역 하나가 최대 8GB)
+ * - 문서 사이에는 SEPARATOR(-1)를 넣어서 일치가 파일 경계를 넘지 않음
+ */
+public final class SuffixArrayIndex {
+
+    /**
+     * 문서 구분 토큰 (토큰 ID는 0 이상이므로 어떤 패턴과도 일치하지 않음)
+     */
+    static final int SEPARATOR = -1;
+
+    /**
+     * 코퍼스 끝 (SEPARATOR보다 앞에 정렬)
+     */
+    private static final int END = -2;
+
+    private static final int MAGIC = 0x4D534131; // "MSA1"
+    private static final int HEADER_BYTES = 2 * Integer.BYTES;
+
+    /**
+     * map 한 번의 크기 (int 개수, 2^28개 = 1GB)
+     */
+    static final int CHUNK_SHIFT = 28;
+
+    private final IntChunks tokens;
+    private final IntChunks suffixes;
+    private final int size;
+
+    private SuffixArrayIndex(IntChunks tokens, IntChunks suffixes) {
+        this.tokens = tokens;
+        this.suffixes = suffixes;
+        this.size = tokens.size();
+    }
+
+    /**
+     * 토큰화된 문서들로 색인 구축 (메모리)
+     */
+    public static SuffixArrayIndex build(List<List<Integer>> documents) {
+        long total = Math.max(0, documents.size() - 1);
+        for (List<Integer> document : documents) {
+            total += document.size();
+        }
+        if (total > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("코퍼스가 너무 큽니다: " + total + " 토큰");
+        }
+
+        int[] corpus = new int[(int) total];
+        int position = 0;
+        for (int d = 0; d < documents.size(); d++) {
+            if (d > 0) {
+                corpus[position++] = SEPARATOR;
+            }
+            for (int token : documents.get(d)) {
+                if (token < 0) {
+                    throw new IllegalArgumentException("토큰 ID는 0 이상이어야 합니다: " + token);
+                }
+                corpus[position++] = token;
+            }
+        }
+        return new SuffixArrayIndex(IntChunks.wrap(corpus, CHUNK_SHIFT),
+            IntChunks.wrap(buildSuffixArray(corpus), CHUNK_SHIFT));
+    }
+
+    /**
+     * 코퍼스 파일들을 병렬로 토큰화해서 색인 구축 (파일 순서 유지)
+     */
+    public static SuffixArrayIndex build(List<Path> files, Tokenizer tokenizer) {
+        List<List<Integer>> documents = files.parallelStream()
+            .map(file -> {
+                try {
+                    return tokenizer.encode(Files.readString(file));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(file + ": " + e.getMessage(), e);
+                }
+            })
+            .toList();
+        return build(documents);
+    }
+
+    /**
+     * Prefix doubling으로 suffix array 구축
+     */
+    static int[] buildSuffixArray(int[] text) {
+        int n = text.length;
+        int[] sa = new int[n];
+        if (n == 0) {
+            return sa;
+        }
+
+        // 길이 1 순위: 토큰 + 2 (코퍼스 끝 = 0, SEPARATOR = 1)
+        int[] rank = new int[n];
+        for (int i = 0; i < n; i++) {
+            rank[i] = text[i] + 2;
+        }
+        int[] next = new int[n];
+        int[] order = new int[n];
+        long[] keys = new long[n];
+
+        for (int k = 1; ; k <<= 1) {
+            int[] r = rank;
+            int step = k;
+
+            // 1. 두 번째 순위(i+k)로 정렬
+            IntStream.range(0, n).parallel()
+                .forEach(i -> keys[i] = ((long) second(r, i, step, n) << 32) | i);
+            Arrays.parallelSort(keys);
+            for (int p = 0; p < n; p++) {
+                order[p] = (int) keys[p];
+            }
+
+            // 2. 첫 번째 순위로 정렬 (같으면 1의 순서 유지)
+            IntStream.range(0, n).parallel()
+                .forEach(p -> keys[p] = ((long) r[order[p]] << 32) | p);
+            Arrays.parallelSort(keys);
+            for (int p = 0; p < n; p++) {
+                sa[p] = order[(int) keys[p]];
+            }
+
+            // 3. 길이 2k 순위 (쌍이 바뀔 때만 증가)
+            next[sa[0]] = 0;
+            for (int p = 1; p < n; p++) {
+                int cur = sa[p];
+                int prev = sa[p - 1];
+                boolean same = r[cur] == r[prev] && second(r, cur, step, n) == second(r, prev, step, n);
+                next[cur] = next[prev] + (same ? 0 : 1);
+            }
+            int[] swap = rank;
+            rank = next;
+            next = swap;
+
+            if (rank[sa[n - 1]] == n - 1 || k >= n) {
+                return sa; // 모든 접미사 순위가 다름
+            }
+        }
+    }
+
+    private static int second(int[] rank, int i, int k, int n) {
+        return i + k < n ? rank[i + k] + 1 : 0;
+    }
+
+    /**
+     * 문맥 끝과 가장 길게 일치하는 코퍼스 위치들과 그 다음 토큰 카운트
+     *
+     * 시작 위치를 앞(가장 긴 후보)에서부터 하나씩 당기면서, 각 후보는 구간을 한 토큰씩 좁혀 문맥 끝까지 확장
+     * → 구간이 비면 그 후보는 바로 포기 (실패한 후보의 비용은 일치한 깊이만큼)
+     * → 처음으로 문맥 끝까지 살아남은 (다음 토큰이 있는) 후보가 가장 긴 일치
+     *
+     * @param context 문맥 토큰 (마지막 maxLength개만 사용)
+     * @param maxLength 일치 길이 상한
+     */
+    public Match longestMatch(List<Integer> context, int maxLength) {
+        int m = Math.min(context.size(), Math.max(0, maxLength));
+        int[] pattern = new int[m];
+        for (int i = 0; i < m; i++) {
+            pattern[i] = context.get(context.size() - m + i);
+        }
+
+        int[] range = new int[2];
+        for (int from = 0; from < m; from++) {
+            int length = m - from;
+            if (narrow(pattern, from, length, range)) {
+                int continuation = continuationStart(range[0], range[1], length);
+                if (continuation < range[1]) {
+                    return new Match(length, range[1] - continuation,
+                        nextTokenCounts(continuation, range[1], length));
+                }
+            }
+        }
+
+        // 길이 0 (빈 패턴)은 코퍼스 전체
+        int start = continuationStart(0, size, 0);
+        return new Match(0, size - start, nextTokenCounts(start, size, 0));
+    }
+
+    /**
+     * 토큰 열이 코퍼스에 나타나는 횟수
+     */
+    public int count(List<Integer> pattern) {
+        int[] p = pattern.stream().mapToInt(Integer::intValue).toArray();
+        int[] range = new int[2];
+        return narrow(p, 0, p.length, range) ? range[1] - range[0] : 0;
+    }
+
+    /**
+     * 패턴 [from, from+length)가 나타나는 suffix 구간을 range에 저장 (없으면 false)
+     *
+     * 구간 [lo, hi)의 접미사는 앞 depth개 토큰이 같으므로 depth번째 토큰 순으로 정렬되어 있음
+     * → 토큰 하나씩 경계 이진 탐색 두 번으로 좁힘 (비교는 토큰 하나, 패턴 전체를 다시 비교하지 않음)
+     */
+    private boolean narrow(int[] pattern, int from, int length, int[] range) {
+        int lo = 0;
+        int hi = size;
+        for (int depth = 0; depth < length && lo < hi; depth++) {
+            int token = pattern[from + depth];
+            lo = firstTokenAtLeast(lo, hi, depth, token);
+            hi = firstTokenAtLeast(lo, hi, depth, token + 1);
+        }
+        range[0] = lo;
+        range[1] = hi;
+        return lo < hi;
+    }
+
+    /**
+     * 구간 [lo, hi)에서 depth번째 토큰이 token 이상인 첫 위치
+     */
+    private int firstTokenAtLeast(int lo, int hi, int depth, int token) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (tokenAt(suffixes.get(mid) + depth) < token) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * 구간 [lo, hi)의 다음 토큰 카운트 (같은 다음 토큰은 연속 구간이므로 경계만 이진 탐색)
+     */
+    private Map<Integer, Integer> nextTokenCounts(int lo, int hi, int length) {
+        Map<Integer, Integer> counts = new LinkedHashMap<>();
+        int p = lo;
+        while (p < hi) {
+            int token = tokenAt(suffixes.get(p) + length);
+            int end = firstTokenAtLeast(p + 1, hi, length, token + 1);
+            counts.put(token, end - p);
+            p = end;
+        }
+        return counts;
+    }
+
+    /**
+     * 구간 [lo, hi)에서 패턴 뒤에 실제 토큰이 오는 첫 위치 (코퍼스 끝/SEPARATOR가 앞에 정렬됨)
+     */
+    private int continuationStart(int lo, int hi, int length) {
+        return firstTokenAtLeast(lo, hi, length, 0);
+    }
+
+    private int tokenAt(int position) {
+        return position < size ? tokens.get(position) : END;
+    }
+
+    /**
+     * 코퍼스 토큰 수 (SEPARATOR 포함)
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 토큰 + suffix array 크기 (바이트, 저장된 색인이면 memory-mapped라 힙 밖)
+     */
+    public long sizeBytes() {
+        return 2L * size * Integer.BYTES;
+    }
+
+    /**
+     * suffix 위치 (사전순 index번째 접미사의 시작 위치, 테스트/디버깅용)
+     */
+    int suffixAt(int index) {
+        return suffixes.get(index);
+    }
+
+    /**
+     * 파일로 저장 (임시 파일에 쓴 뒤 rename)
+     */
+    public void save(Path path) throws IOException {
+        Path absolute = path.toAbsolutePath();
+        Path tempPath = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(tempPath), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(size);
+            for (int i = 0; i < size; i++) {
+                out.writeInt(tokens.get(i));
+            }
+            for (int i = 0; i < size; i++) {
+                out.writeInt(suffixes.get(i));
+            }
+        }
+        try {
+            Files.move(tempPath, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempPath, absolute, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * 저장된 색인을 memory-mapped로 열기 (힙에 올리지 않음, 페이지는 OS가 필요할 때 읽음)
+     */
+    public static SuffixArrayIndex open(Path path) throws IOException {
+        return open(path, CHUNK_SHIFT);
+    }
+
+    /**
+     * chunk 크기(2^chunkShift개)를 지정해서 열기 (테스트에서 작은 chunk로 경계 확인용)
+     */
+    static SuffixArrayIndex open(Path path, int chunkShift) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES) {
+                throw new IllegalArgumentException("Suffix array 파일이 아닙니다: " + path);
+            }
+            IntBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES).asIntBuffer();
+            int size = header.get(1);
+            long regionBytes = (long) size * Integer.BYTES;
+            if (header.get(0) != MAGIC || size < 0 || channel.size() != HEADER_BYTES + 2 * regionBytes) {
+                throw new IllegalArgumentException("Suffix array 파일이 아니거나 손상되었습니다: " + path);
+            }
+            IntChunks tokens = IntChunks.map(channel, HEADER_BYTES, size, chunkShift);
+            IntChunks suffixes = IntChunks.map(channel, HEADER_BYTES + regionBytes, size, chunkShift);
+            return new SuffixArrayIndex(tokens, suffixes);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SuffixArrayIndex(tokens=%,d, %.1f MB)", size, size * 8.0 / (1024 * 1024));
+    }
+
+    /**
+     * int 배열 view (2^shift개 단위 IntBuffer 여러 개)
+     *
+     * 학습 포인트:
+     * - MappedByteBuffer는 int 인덱스라 한 번에 2GB까지만 map 가능 → 1GB chunk로 나눠서 map
+     * - i번째 값 = chunks[i >>> shift]의 (i & mask)번째 (shift + mask라 나눗셈 없음)
+     * - 메모리에서 구축한 색인도 같은 view로 감싸서 조회 코드는 하나
+     */
+    private static final class IntChunks {
+        private final IntBuffer[] chunks;
+        private final int shift;
+        private final int mask;
+        private final int size;
+
+        private IntChunks(IntBuffer[] chunks, int shift, int size) {
+            this.chunks = chunks;
+            this.shift = shift;
+            this.mask = (1 << shift) - 1;
+            this.size = size;
+        }
+
+        static IntChunks wrap(int[] values, int shift) {
+            IntBuffer[] chunks = new IntBuffer[chunkCount(values.length, shift)];
+            for (int c = 0; c < chunks.length; c++) {
+                int from = c << shift;
+                chunks[c] = IntBuffer.wrap(values, from, Math.min(1 << shift, values.length - from)).slice();
+            }
+            return new IntChunks(chunks, shift, values.length);
+        }
+
+        static IntChunks map(FileChannel channel, long offset, int size, int shift) throws IOException {
+            IntBuffer[] chunks = new IntBuffer[chunkCount(size, shift)];
+            for (int c = 0; c < chunks.length; c++) {
+                long from = (long) c << shift;
+                long count = Math.min(1L << shift, size - from);
+                chunks[c] = channel.map(FileChannel.MapMode.READ_ONLY, offset + from * Integer.BYTES,
+                    count * Integer.BYTES).asIntBuffer();
+            }
+            return new IntChunks(chunks, shift, size);
+        }
+
+        private static int chunkCount(int size, int shift) {
+            return (int) (((long) size + (1L << shift) - 1) >>> shift);
+        }
+
+        int get(int index) {
+            return chunks[index >>> shift].get(index & mask);
+        }
+
+        int size() {
+            return size;
+        }
+    }
+
+    /**
+     * 가장 긴 일치 결과
+     */
+    public static final class Match {
+        private final int length;
+        private final int occurrences;
+        private final Map<Integer, Integer> nextTokenCounts;
+
+        Match(int length, int occurrences, Map<Integer, Integer> nextTokenCounts) {
+            this.length = length;
+            this.occurrences = occurrences;
+            this.nextTokenCounts = nextTokenCounts;
+        }
+
+        /**
+         * 일치한 문맥 길이 (0이면 코퍼스 전체 = unigram)
+         */
+        public int getLength() {
+            return length;
+        }
+
+        /**
+         * 일치 위치 중 다음 토큰이 있는 위치 수
+         */
+        public int getOccurrences() {
+            return occurrences;
+        }
+
+        /**
+         * 다음 토큰 → 카운트
+         */
+        public Map<Integer, Integer> getNextTokenCounts() {
+            return nextTokenCounts;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Match(length=%d, occurrences=%d, next=%d)",
+                length, occurrences, nextTokenCounts.size());
+        }
+    }
+
+    /**
+     * 코퍼스로 색인 구축 (토크나이저는 Artifact의 vocabulary를 따름)
+     *
+     * 사용법: SuffixArrayIndex <corpus> <artifact.json> <output.sa> [glob]
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("사용법: SuffixArrayIndex <corpus> <artifact.json> <output.sa> [glob]");
+            System.exit(1);
+        }
+        long startTime = System.currentTimeMillis();
+        Tokenizer tokenizer = NgramModel.fromArtifact(Paths.get(args[1])).getTokenizer();
+        List<Path> files = NgramTrainer.listCorpusFiles(Paths.get(args[0]), args.length > 3 ? args[3] : null);
+
+        SuffixArrayIndex index = build(files, tokenizer);
+        index.save(Paths.get(args[2]));
+        System.out.println("✅ Suffix array 구축 완료: " + args[2]);
+        System.out.println("   " + files.size() + " files, " + index);
+        System.out.println("   Latency: " + (System.currentTimeMillis() - startTime) + "ms");
+    }
+}
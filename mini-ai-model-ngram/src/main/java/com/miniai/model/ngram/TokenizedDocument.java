@@ -0,0 +1,243 @@
+package com.miniai.model.ngram;
+
+import com.codeai.tokenizer.CodeTokenizer;
+import com.miniai.core.tokenizer.Tokenizer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 편집(delta)을 증분으로 반영하는 토큰화된 문서 (IDE 완성 세션용)
+ *
+ * 학습 포인트:
+ * - IDE는 키를 누를 때마다 파일 앞부분 전체를 보냄 → 매번 전체를 다시 토큰화하면 파일 크기에 비례
+ * - CodeTokenizer와 WhitespaceTokenizer는 줄 단위로 토큰화함 (토큰이 줄을 넘지 않음)
+ *     encode(text) = encode(줄 1) + [NL] + encode(줄 2) + [NL] + ...
+ *   → 편집이 닿은 줄만 다시 토큰화하면 전체 토큰화와 같은 결과
+ * - 줄 찾기는 마지막 편집 위치(hint)부터 걸어감 → 타이핑처럼 한곳에서 이어지는 편집은 O(1)
+ * - 완성 문맥은 커서 앞 토큰 몇 개만 필요 (N-1개 + 세션 캐시 anchor) → 뒤에서부터 필요한 만큼만
+ *
+ * 키 입력 하나의 비용 = 편집한 줄 길이 + hint와의 거리 (파일 크기와 무관)
+ * (줄 목록 갱신은 ArrayList 참조 이동이라 줄 수에 비례하지만 상수가 매우 작음)
+ *
+ * encode와 같은 결과를 내기 위해 CodeTokenizer의 규칙을 따름:
+ * - [NL]은 vocabulary에 있을 때만 줄 사이에 넣음 (WhitespaceTokenizer는 넣지 않음)
+ * - 텍스트 끝의 빈 줄은 무시 (String.split("\n")이 끝의 빈 문자열을 버림)
+ *
+ * 주의: 스레드 안전하지 않음 (세션마다 하나씩 사용)
+ */
+public final class TokenizedDocument {
+
+    private final Tokenizer tokenizer;
+    private final int newlineId;
+
+    /**
+     * 줄 목록 (줄바꿈 문자 없음, 항상 1줄 이상)
+     */
+    private final List<Line> lines = new ArrayList<>();
+    private int length;
+
+    /**
+     * 마지막으로 찾은 줄과 그 시작 위치 (편집 지역성 활용)
+     */
+    private int hintLine;
+    private int hintOffset;
+
+    public TokenizedDocument(Tokenizer tokenizer) {
+        this.tokenizer = tokenizer;
+        this.newlineId = tokenizer instanceof CodeTokenizer code
+            ? code.getVocabulary().getOrDefault(CodeTokenizer.NEWLINE_TOKEN, CodeTokenizer.UNK_ID)
+            : CodeTokenizer.UNK_ID;
+        setText("");
+    }
+
+    /**
+     * 문서 전체 교체 (세션 시작, 동기화가 어긋났을 때)
+     */
+    public void setText(String text) {
+        lines.clear();
+        for (String line : splitLines(text)) {
+            lines.add(new Line(line));
+        }
+        length = text.length();
+        hintLine = 0;
+        hintOffset = 0;
+    }
+
+    /**
+     * 편집 반영: [offset, offset + deleteLength)를 insert로 바꿈
+     *
+     * @throws IllegalArgumentException 범위가 문서를 벗어난 경우
+     */
+    public void edit(int offset, int deleteLength, String insert) {
+        if (offset < 0 || deleteLength < 0 || offset + deleteLength > length) {
+            throw new IllegalArgumentException(String.format(
+                "편집 범위가 문서를 벗어납니다: offset=%d, deleteLength=%d, length=%d", offset, deleteLength, length));
+        }
+        String inserted = insert != null ? insert : "";
+
+        int startLine = findLine(offset);
+        int startOffset = hintOffset;
+        int startColumn = offset - startOffset;
+
+        // 삭제 끝 위치의 줄 (시작 줄부터 앞으로)
+        int endLine = startLine;
+        int endOffset = startOffset;
+        int end = offset + deleteLength;
+        while (end > endOffset + lines.get(endLine).text.length()) {
+            endOffset += lines.get(endLine).text.length() + 1;
+            endLine++;
+        }
+        int endColumn = end - endOffset;
+
+        // 닿은 줄만 다시 만들어서 토큰화
+        String merged = lines.get(startLine).text.substring(0, startColumn)
+            + inserted
+            + lines.get(endLine).text.substring(endColumn);
+        List<Line> replacement = new ArrayList<>();
+        for (String line : splitLines(merged)) {
+            replacement.add(new Line(line));
+        }
+        List<Line> touched = lines.subList(startLine, endLine + 1);
+        touched.clear();
+        touched.addAll(replacement);
+
+        length += inserted.length() - deleteLength;
+        hintLine = startLine;
+        hintOffset = startOffset;
+    }
+
+    /**
+     * offset 앞의 마지막 토큰들 (encode(text 앞부분)의 끝 maxTokens개와 같음)
+     *
+     * 커서가 있는 줄은 커서 앞까지만 다시 토큰화, 앞 줄들은 저장된 토큰을 뒤에서부터 사용
+     */
+    public List<Integer> tokensBefore(int offset, int maxTokens) {
+        checkOffset(offset);
+        int line = findLine(offset);
+        String head = lines.get(line).text.substring(0, offset - hintOffset);
+
+        // 끝의 빈 줄은 encode가 버림 → 내용이 있는 줄까지 거슬러 올라감
+        int[] current = head.isEmpty() ? null : toArray(tokenizer.encode(head));
+        while (current == null && line > 0) {
+            line--;
+            if (!lines.get(line).text.isEmpty()) {
+                current = lines.get(line).tokens;
+            }
+        }
+        if (current == null) {
+            return new ArrayList<>();
+        }
+
+        // 뒤에서부터 필요한 만큼 (줄 사이에는 [NL])
+        List<Integer> reversed = new ArrayList<>();
+        int[] tokens = current;
+        while (true) {
+            for (int i = tokens.length - 1; i >= 0 && reversed.size() < maxTokens; i--) {
+                reversed.add(tokens[i]);
+            }
+            if (reversed.size() >= maxTokens || line == 0) {
+                break;
+            }
+            if (newlineId != CodeTokenizer.UNK_ID) {
+                reversed.add(newlineId);
+            }
+            line--;
+            tokens = lines.get(line).tokens;
+        }
+        Collections.reverse(reversed);
+        return reversed;
+    }
+
+    /**
+     * offset이 있는 줄의 offset 앞부분 (입력 중인 식별자 판별용)
+     */
+    public String linePrefix(int offset) {
+        checkOffset(offset);
+        int line = findLine(offset);
+        return lines.get(line).text.substring(0, offset - hintOffset);
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public int lineCount() {
+        return lines.size();
+    }
+
+    /**
+     * 문서 전체 텍스트 (문서 크기에 비례, 디버깅/검증용)
+     */
+    public String text() {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < lines.size(); i++) {
+            if (i > 0) {
+                sb.append('\n');
+            }
+            sb.append(lines.get(i).text);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 문서 전체 토큰 (문서 크기에 비례, 검증용: encode(text())와 같아야 함)
+     */
+    public List<Integer> tokens() {
+        return tokensBefore(length, Integer.MAX_VALUE);
+    }
+
+    private void checkOffset(int offset) {
+        if (offset < 0 || offset > length) {
+            throw new IllegalArgumentException("offset이 문서를 벗어납니다: " + offset + " (길이 " + length + ")");
+        }
+    }
+
+    /**
+     * offset이 들어 있는 줄 (줄 끝 위치도 그 줄), hintOffset은 그 줄의 시작 위치로 갱신
+     */
+    private int findLine(int offset) {
+        int line = hintLine;
+        int start = hintOffset;
+        while (offset < start) {
+            line--;
+            start -= lines.get(line).text.length() + 1;
+        }
+        while (offset > start + lines.get(line).text.length()) {
+            start += lines.get(line).text.length() + 1;
+            line++;
+        }
+        hintLine = line;
+        hintOffset = start;
+        return line;
+    }
+
+    /**
+     * 줄바꿈으로 나눔 (끝의 빈 줄도 유지: "a\n" → ["a", ""])
+     */
+    private static String[] splitLines(String text) {
+        return text.split("\n", -1);
+    }
+
+    private static int[] toArray(List<Integer> tokens) {
+        int[] array = new int[tokens.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = tokens.get(i);
+        }
+        return array;
+    }
+
+    /**
+     * 줄 하나와 그 토큰 (줄이 바뀌면 새 Line으로 교체)
+     */
+    private final class Line {
+        final String text;
+        final int[] tokens;
+
+        Line(String text) {
+            this.text = text;
+            this.tokens = toArray(tokenizer.encode(text));
+        }
+    }
+}
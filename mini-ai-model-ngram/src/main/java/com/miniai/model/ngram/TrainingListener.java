@@ -0,0 +1,35 @@
+package com.miniai.model.ngram;
+
+/**
+ * 학습 진행 상황 리스너
+ *
+ * 학습 포인트:
+ * - 긴 학습은 "지금 어디까지 했는지"를 밖에서 볼 수 있어야 함 (진행률, ETA)
+ * - 콜백은 학습 스레드에서 호출되므로 가볍게 유지해야 함
+ */
+public interface TrainingListener {
+
+    /**
+     * 아무것도 하지 않는 리스너 (기본값)
+     */
+    TrainingListener NONE = new TrainingListener() { };
+
+    /**
+     * 학습 단계 변경 (예: "counting", "writing")
+     */
+    default void onPhase(String phase) {
+    }
+
+    /**
+     * 카운트 진행 상황 (파일 안에서도 조각 하나를 셀 때마다, 약 1M 문자마다 호출)
+     *
+     * @param processedTokens 지금까지 카운트한 토큰 수
+     * @param processedBytes 지금까지 카운트한 코퍼스 바이트 (ETA 기준)
+     * @param totalBytes 전체 코퍼스 바이트
+     * @param completedFiles 지금까지 끝난 파일 수
+     * @param totalFiles 전체 파일 수
+     */
+    default void onProgress(long processedTokens, long processedBytes, long totalBytes,
+                            int completedFiles, int totalFiles) {
+    }
+}
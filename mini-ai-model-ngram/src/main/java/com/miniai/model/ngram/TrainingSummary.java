@@ -0,0 +1,121 @@
+package com.miniai.model.ngram;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 학습 처리량 요약 (파일별 + 전체)
+ *
+ * 학습 포인트:
+ * - 디렉토리 학습 시 파일마다 읽기/토큰화 시간을 측정
+ * - 전체 처리량 = 전체 토큰 수 / 전체 경과 시간 (병렬 처리 효과 포함)
+ * - 파일별 처리량으로 느린 파일(거대 파일, 인코딩 문제 등)을 찾을 수 있음
+ */
+public class TrainingSummary {
+
+    /**
+     * 파일 수가 이보다 많으면 파일별 출력 대신 느린 파일만 출력
+     */
+    private static final int MAX_FILES_TO_PRINT = 20;
+    private static final int SLOWEST_FILES_TO_PRINT = 5;
+
+    private final List<FileStats> files = new ArrayList<>();
+    private long totalNanos;
+
+    void addFile(FileStats stats) {
+        files.add(stats);
+    }
+
+    void setTotalNanos(long totalNanos) {
+        this.totalNanos = totalNanos;
+    }
+
+    public List<FileStats> getFiles() {
+        return files;
+    }
+
+    public int getFileCount() {
+        return files.size();
+    }
+
+    public long getTotalTokens() {
+        return files.stream().mapToLong(FileStats::getTokens).sum();
+    }
+
+    public long getTotalCharacters() {
+        return files.stream().mapToLong(FileStats::getCharacters).sum();
+    }
+
+    public long getTotalMillis() {
+        return totalNanos / 1_000_000;
+    }
+
+    /**
+     * 전체 처리량 (tokens/sec, wall-clock 기준)
+     */
+    public double getTokensPerSecond() {
+        return totalNanos > 0 ? getTotalTokens() * 1e9 / totalNanos : 0.0;
+    }
+
+    /**
+     * 요약 출력
+     */
+    public void print() {
+        System.out.println("   Files: " + files.size());
+
+        if (files.size() <= MAX_FILES_TO_PRINT) {
+            for (FileStats stats : files) {
+                System.out.println("     " + stats);
+            }
+        } else {
+            System.out.println("   Slowest files:");
+            files.stream()
+                .sorted(Comparator.comparingDouble(FileStats::getTokensPerSecond))
+                .limit(SLOWEST_FILES_TO_PRINT)
+                .forEach(stats -> System.out.println("     " + stats));
+        }
+
+        System.out.printf("   Throughput: %,d tokens in %dms (%,.0f tokens/sec)%n",
+            getTotalTokens(), getTotalMillis(), getTokensPerSecond());
+    }
+
+    /**
+     * 파일 하나의 읽기/토큰화 통계
+     */
+    public static class FileStats {
+        private final Path path;
+        private final long characters;
+        private final long tokens;
+        private final long nanos;
+
+        public FileStats(Path path, long characters, long tokens, long nanos) {
+            this.path = path;
+            this.characters = characters;
+            this.tokens = tokens;
+            this.nanos = nanos;
+        }
+
+        public Path getPath() { return path; }
+        public long getCharacters() { return characters; }
+        public long getTokens() { return tokens; }
+        public long getNanos() { return nanos; }
+
+        public double getTokensPerSecond() {
+            return nanos > 0 ? tokens * 1e9 / nanos : 0.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %,d tokens, %.1fms (%,.0f tokens/sec)",
+                path, tokens, nanos / 1e6, getTokensPerSecond());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("TrainingSummary(files=%d, tokens=%d, %dms, %.0f tokens/sec)",
+            files.size(), getTotalTokens(), getTotalMillis(), getTokensPerSecond());
+    }
+}
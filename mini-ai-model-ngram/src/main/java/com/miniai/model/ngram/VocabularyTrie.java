@@ -0,0 +1,187 @@
+package com.miniai.model.ngram;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+/**
+ * Vocabulary 접두사 trie (입력 중인 토큰 완성용)
+ *
+ * 학습 포인트:
+ * - 프롬프트가 식별자 중간에서 끝나면 ("Strin", "getUs") 토크나이저는 [UNK]를 만듦
+ *   → 그 조각으로 시작하는 vocabulary 단어로 첫 토큰을 제한하면 문맥이 살아남
+ * - 단어를 사전 순으로 정렬하면 같은 접두사의 단어는 연속 구간
+ *   → trie 노드마다 그 구간 [from, to)만 저장 (노드 = 접두사)
+ * - 조회 = 접두사 글자 수만큼 내려가기 + 구간 복사: O(접두사 길이 + 결과 수)
+ * - 노드/자식은 배열로 평탄화 (CSR): 자식 글자는 정렬되어 있어 이진 탐색
+ *
+ * 모델을 로드할 때 한 번 만들고 이후에는 읽기만 함 (스레드 안전)
+ */
+public final class VocabularyTrie {
+
+    /**
+     * 사전 순으로 정렬된 토큰 ID
+     */
+    private final int[] ids;
+
+    // 노드별 구간과 자식 (CSR)
+    private final int[] rangeFrom;
+    private final int[] rangeTo;
+    private final int[] childStart;
+    private final char[] childLabels;
+    private final int[] childNodes;
+
+    private VocabularyTrie(int[] ids, int[] rangeFrom, int[] rangeTo,
+                           int[] childStart, char[] childLabels, int[] childNodes) {
+        this.ids = ids;
+        this.rangeFrom = rangeFrom;
+        this.rangeTo = rangeTo;
+        this.childStart = childStart;
+        this.childLabels = childLabels;
+        this.childNodes = childNodes;
+    }
+
+    /**
+     * Vocabulary로 trie 생성
+     *
+     * @param include 완성 후보로 쓸 단어 (특수 토큰 제외용)
+     */
+    public static VocabularyTrie build(Map<String, Integer> vocabulary, Predicate<String> include) {
+        List<Map.Entry<String, Integer>> entries = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : vocabulary.entrySet()) {
+            if (!entry.getKey().isEmpty() && include.test(entry.getKey())) {
+                entries.add(entry);
+            }
+        }
+        entries.sort(Map.Entry.comparingByKey());
+
+        int[] ids = new int[entries.size()];
+        String[] words = new String[entries.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = entries.get(i).getValue();
+            words[i] = entries.get(i).getKey();
+        }
+
+        // 임시 트리 (사전 순 삽입이므로 각 노드 구간은 from..마지막 삽입+1)
+        Node root = new Node(0);
+        for (int i = 0; i < words.length; i++) {
+            Node node = root;
+            node.to = i + 1;
+            for (char c : words[i].toCharArray()) {
+                int index = i;
+                node = node.children.computeIfAbsent(c, key -> new Node(index));
+                node.to = i + 1;
+            }
+        }
+
+        // BFS로 평탄화 (자식은 TreeMap 순서 = 글자 순)
+        List<Node> order = new ArrayList<>();
+        order.add(root);
+        for (int i = 0; i < order.size(); i++) {
+            order.get(i).id = i;
+            order.addAll(order.get(i).children.values());
+        }
+        int nodeCount = order.size();
+        int[] rangeFrom = new int[nodeCount];
+        int[] rangeTo = new int[nodeCount];
+        int[] childStart = new int[nodeCount + 1];
+        char[] childLabels = new char[nodeCount - 1];
+        int[] childNodes = new int[nodeCount - 1];
+        int edge = 0;
+        for (Node node : order) {
+            rangeFrom[node.id] = node.from;
+            rangeTo[node.id] = node.to;
+            childStart[node.id] = edge;
+            for (Map.Entry<Character, Node> child : node.children.entrySet()) {
+                childLabels[edge] = child.getKey();
+                childNodes[edge] = child.getValue().id;
+                edge++;
+            }
+        }
+        childStart[nodeCount] = edge;
+
+        return new VocabularyTrie(ids, rangeFrom, rangeTo, childStart, childLabels, childNodes);
+    }
+
+    /**
+     * 접두사 노드 (없으면 -1)
+     */
+    private int find(String prefix) {
+        int node = 0;
+        for (int i = 0; i < prefix.length() && node >= 0; i++) {
+            int from = childStart[node];
+            int to = childStart[node + 1];
+            int index = Arrays.binarySearch(childLabels, from, to, prefix.charAt(i));
+            node = index >= 0 ? childNodes[index] : -1;
+        }
+        return node;
+    }
+
+    /**
+     * 접두사로 시작하는 단어 수
+     */
+    public int count(String prefix) {
+        int node = find(prefix);
+        return node < 0 ? 0 : rangeTo[node] - rangeFrom[node];
+    }
+
+    /**
+     * 접두사로 시작하는 토큰 ID (사전 순)
+     */
+    public int[] complete(String prefix) {
+        int node = find(prefix);
+        return node < 0 ? new int[0] : Arrays.copyOfRange(ids, rangeFrom[node], rangeTo[node]);
+    }
+
+    /**
+     * 분포를 접두사로 시작하는 토큰으로 제한 (확률 높은 순)
+     *
+     * 모델이 확률을 주지 않은 후보도 0으로 남김 (문맥에 안 나온 식별자도 완성 가능)
+     */
+    public Map<Integer, Double> restrict(Map<Integer, Double> probs, String prefix) {
+        int node = find(prefix);
+        if (node < 0) {
+            return Map.of();
+        }
+        List<Map.Entry<Integer, Double>> candidates = new ArrayList<>(rangeTo[node] - rangeFrom[node]);
+        for (int i = rangeFrom[node]; i < rangeTo[node]; i++) {
+            candidates.add(Map.entry(ids[i], probs.getOrDefault(ids[i], 0.0)));
+        }
+        candidates.sort(Map.Entry.<Integer, Double>comparingByValue(Comparator.reverseOrder()));
+
+        Map<Integer, Double> result = new LinkedHashMap<>();
+        for (Map.Entry<Integer, Double> candidate : candidates) {
+            result.put(candidate.getKey(), candidate.getValue());
+        }
+        return result;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public int nodeCount() {
+        return rangeFrom.length;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("VocabularyTrie(words=%d, nodes=%d)", ids.length, rangeFrom.length);
+    }
+
+    private static final class Node {
+        final TreeMap<Character, Node> children = new TreeMap<>();
+        final int from;
+        int to;
+        int id;
+
+        Node(int from) {
+            this.from = from;
+        }
+    }
+}
@@ -0,0 +1,468 @@
+package com.miniai.model.smoothing;
+
+import com.miniai.model.ngram.NgramArtifact;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * 미리 계산된 backoff 가중치 (ARPA 방식)
+ *
+ * 학습 포인트:
+ * - SimpleBackoff / KneserNey는 요청마다 카운트에서 λ와 backoff를 다시 계산
+ * - 여기서는 오프라인으로 한 번만 계산: 문맥마다 최종 확률 + backoff 가중치
+ * - 조회는 곱셈 체인뿐 (order마다 해시 조회 한 번):
+ *     P(w|h) = P*(w|h)              (w가 h 뒤에서 관찰됨)
+ *            = bow(h) × P(w|h')     (아니면 한 단계 짧은 문맥으로)
+ * - bow(h) = (1 - Σ_{관찰된 w} P(w|h)) / (1 - Σ_{관찰된 w} P(w|h'))
+ *   → backoff해도 분포 합이 1로 유지됨
+ * - 하위 문맥과 똑같은 분포인 문맥은 저장하지 않음 (bow = 1과 같음)
+ * - 분포 전체: unigram 확률 배열은 한 번만 만들어 두고, 단계마다 (bow 곱 × unigram) + 상위 order 항목만 덮어씀
+ *   → 어휘 크기의 HashMap을 매번 만들지 않음 (결과는 읽기 전용 Map view, 만드는 비용은 상위 order 항목 수)
+ *
+ * 사용:
+ * - ArpaBackoff.precompute(artifact, new KneserNey()) → 같은 확률을 카운트 계산 없이
+ * - ArpaFormat으로 ARPA 텍스트 파일 읽기/쓰기 (다른 LM 도구와 교환)
+ * - SmoothingStrategy로 NgramModel에 그대로 꽂을 수 있음 (artifact의 카운트는 쓰지 않음)
+ */
+public class ArpaBackoff implements SmoothingStrategy {
+
+    /**
+     * 전략 호출 시 문맥 앞을 채우는 토큰 (어휘에 없음 → 상위 문맥 조회가 항상 실패)
+     */
+    private static final int PADDING_TOKEN = -1;
+
+    /**
+     * 하위 문맥과 같은 분포로 보는 log 확률 차이
+     */
+    private static final double SAME_DISTRIBUTION_EPSILON = 1e-9;
+
+    private static final double MIN_MASS = 1e-12;
+
+    private final int n;
+    private final String sourceName;
+
+    /**
+     * order → 문맥 키 → 다음 토큰 → ln P (unigram은 order 1, 키 "")
+     */
+    private final Map<Integer, Map<String, Map<Integer, Double>>> logProbs = new HashMap<>();
+
+    /**
+     * order → 문맥 키 → ln bow (order 2 이상, 없으면 0 = 가중치 1)
+     */
+    private final Map<Integer, Map<String, Double>> logBackoffs = new HashMap<>();
+
+    private Map<String, Integer> vocabulary = new HashMap<>();
+    private String tokenizerType;
+
+    /**
+     * unigram 확률 (처음 분포를 만들 때 계산, unigram이 바뀌면 다시)
+     */
+    private volatile UnigramBase unigramBase;
+
+    /**
+     * @param n 최고 order
+     * @param sourceName 계산에 쓴 원래 전략 이름 (ARPA에서 읽었으면 "arpa")
+     */
+    public ArpaBackoff(int n, String sourceName) {
+        this.n = n;
+        this.sourceName = sourceName;
+    }
+
+    /**
+     * Artifact의 모든 문맥에 대해 전략의 확률과 backoff 가중치를 미리 계산
+     *
+     * 같은 하위 문맥을 쓰는 문맥끼리 묶어서 하위 분포를 한 번만 계산
+     * 하위 order 문맥의 분포는 "상위 문맥이 없을 때 전략이 주는 분포"
+     * (앞을 어휘에 없는 토큰으로 채운 문맥으로 전략을 호출해서 구함)
+     *
+     * 정확도:
+     * - Kneser-Ney: backoff 구조와 정확히 같음
+     * - SimpleBackoff: 정규화되지 않은 혼합이라 관찰되지 않은 토큰의 분포가 근사됨
+     */
+    public static ArpaBackoff precompute(NgramArtifact artifact, SmoothingStrategy smoothing) {
+        int n = artifact.getN();
+        ArpaBackoff result = new ArpaBackoff(n, smoothing.strategyName());
+        result.setVocabulary(artifact.getVocabulary());
+        result.setTokenizerType(artifact.getMetadata().getTokenizerType());
+
+        // Unigram: 확률이 있는 모든 토큰
+        Map<Integer, Double> unigram = new HashMap<>();
+        for (Map.Entry<Integer, Double> e : distribution(artifact, smoothing, 1, "").entrySet()) {
+            if (e.getValue() > 0) {
+                unigram.put(e.getKey(), Math.log(e.getValue()));
+            }
+        }
+        result.put(1, "", unigram, 0.0);
+
+        for (int order = 2; order <= n; order++) {
+            Map<String, Map<Integer, Integer>> table = order == n
+                ? artifact.getCounts()
+                : artifact.getLowerOrderCounts().getOrDefault(order, Map.of());
+            Map<String, List<String>> byLowerContext = new HashMap<>();
+            for (String contextKey : table.keySet()) {
+                String lowerKey = order == 2 ? "" : contextKey.substring(contextKey.indexOf(':') + 1);
+                byLowerContext.computeIfAbsent(lowerKey, k -> new ArrayList<>()).add(contextKey);
+            }
+
+            for (Map.Entry<String, List<String>> group : byLowerContext.entrySet()) {
+                Map<Integer, Double> lower = distribution(artifact, smoothing, order - 1, group.getKey());
+                for (String contextKey : group.getValue()) {
+                    Map<Integer, Double> probs = distribution(artifact, smoothing, order, contextKey);
+                    result.precomputeContext(order, contextKey, table.get(contextKey).keySet(), probs, lower);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 문맥 하나: 관찰된 토큰의 확률과 backoff 가중치 (하위 문맥과 분포가 같으면 저장하지 않음)
+     */
+    private void precomputeContext(int order, String contextKey, Iterable<Integer> observed,
+                                   Map<Integer, Double> probs, Map<Integer, Double> lower) {
+        Map<Integer, Double> entries = new HashMap<>();
+        double observedMass = 0.0;
+        double lowerObservedMass = 0.0;
+        boolean sameAsLower = true;
+
+        for (int token : observed) {
+            double p = probs.getOrDefault(token, 0.0);
+            if (p <= 0) {
+                continue;
+            }
+            double q = lower.getOrDefault(token, 0.0);
+            double logProb = Math.log(p);
+            entries.put(token, logProb);
+            observedMass += p;
+            lowerObservedMass += q;
+            if (q <= 0 || Math.abs(logProb - Math.log(q)) > SAME_DISTRIBUTION_EPSILON) {
+                sameAsLower = false;
+            }
+        }
+
+        double logBackoff = Math.log(Math.max(MIN_MASS, 1 - observedMass))
+            - Math.log(Math.max(MIN_MASS, 1 - lowerObservedMass));
+        if (sameAsLower && Math.abs(logBackoff) < SAME_DISTRIBUTION_EPSILON) {
+            return;
+        }
+        put(order, contextKey, entries, logBackoff);
+    }
+
+    /**
+     * order 문맥의 정규화된 분포 (상위 문맥이 없다고 가정)
+     */
+    private static Map<Integer, Double> distribution(NgramArtifact artifact, SmoothingStrategy smoothing,
+                                                     int order, String contextKey) {
+        List<Integer> context = new ArrayList<>(Collections.nCopies(artifact.getN() - order, PADDING_TOKEN));
+        if (!contextKey.isEmpty()) {
+            for (String part : contextKey.split(":")) {
+                context.add(Integer.parseInt(part));
+            }
+        }
+
+        Map<Integer, Double> probs = smoothing.getSmoothedProbabilities(artifact, context);
+        double total = probs.values().stream().mapToDouble(Double::doubleValue).sum();
+        Map<Integer, Double> normalized = new HashMap<>();
+        if (total > 0) {
+            for (Map.Entry<Integer, Double> entry : probs.entrySet()) {
+                normalized.put(entry.getKey(), entry.getValue() / total);
+            }
+        }
+        return normalized;
+    }
+
+    private void put(int order, String contextKey, Map<Integer, Double> entries, double logBackoff) {
+        if (order == 1) {
+            unigramBase = null;
+        }
+        logProbs.computeIfAbsent(order, k -> new HashMap<>()).put(contextKey, entries);
+        if (order > 1 && logBackoff != 0.0) {
+            putBackoff(order, contextKey, logBackoff);
+        }
+    }
+
+    /**
+     * N-gram 하나 등록 (ARPA 로드용)
+     */
+    void putProbability(int order, String contextKey, int token, double logProb) {
+        if (order == 1) {
+            unigramBase = null;
+        }
+        logProbs.computeIfAbsent(order, k -> new HashMap<>())
+            .computeIfAbsent(contextKey, k -> new HashMap<>())
+            .put(token, logProb);
+    }
+
+    /**
+     * 문맥의 backoff 가중치 등록 (ARPA 로드용)
+     */
+    void putBackoff(int order, String contextKey, double logBackoff) {
+        logBackoffs.computeIfAbsent(order, k -> new HashMap<>()).put(contextKey, logBackoff);
+    }
+
+    /**
+     * 문맥 뒤 다음 토큰 확률 분포 (artifact의 카운트는 쓰지 않음)
+     *
+     * 가장 긴 문맥부터 내려가며, 아직 없는 토큰만 (누적 backoff 가중치 × 저장된 확률)로 채움
+     * unigram은 캐시된 배열 × 누적 가중치로 (읽기 전용 view, 상위 order 항목이 우선)
+     */
+    @Override
+    public Map<Integer, Double> getSmoothedProbabilities(NgramArtifact artifact, List<Integer> context) {
+        Map<Integer, Double> overlay = new HashMap<>();
+        double logScale = 0.0;
+
+        for (int order = Math.min(n, context.size() + 1); order >= 2; order--) {
+            String key = contextKey(order, context);
+            // 없는 문맥은 항목 없음 + bow 1 → 확률 전체를 하위 order로 넘김
+            Map<Integer, Double> entries = logProbs.getOrDefault(order, Map.of()).getOrDefault(key, Map.of());
+            for (Map.Entry<Integer, Double> e : entries.entrySet()) {
+                if (!overlay.containsKey(e.getKey())) {
+                    overlay.put(e.getKey(), Math.exp(logScale + e.getValue()));
+                }
+            }
+            logScale += logBackoff(order, key);
+        }
+        return new ScaledDistribution(unigramBase(), Math.exp(logScale), overlay);
+    }
+
+    private UnigramBase unigramBase() {
+        UnigramBase base = unigramBase;
+        if (base == null) {
+            base = new UnigramBase(logProbs.getOrDefault(1, Map.of()).getOrDefault("", Map.of()));
+            unigramBase = base;
+        }
+        return base;
+    }
+
+    /**
+     * 토큰 하나의 ln 확률 (분포 전체를 만들지 않는 backoff 조회, 확률 0이면 -∞)
+     */
+    public double logProbability(List<Integer> context, int token) {
+        double logScale = 0.0;
+
+        for (int order = Math.min(n, context.size() + 1); order >= 1; order--) {
+            String key = contextKey(order, context);
+            Map<Integer, Double> entries = logProbs.getOrDefault(order, Map.of()).getOrDefault(key, Map.of());
+            Double logProb = entries.get(token);
+            if (logProb != null) {
+                return logScale + logProb;
+            }
+            logScale += logBackoff(order, key);
+        }
+        return Double.NEGATIVE_INFINITY;
+    }
+
+    private static String contextKey(int order, List<Integer> context) {
+        return order == 1 ? "" : NgramArtifact.makeKey(context.subList(context.size() - (order - 1), context.size()));
+    }
+
+    /**
+     * 문맥의 ln bow (저장되지 않았으면 0)
+     */
+    public double logBackoff(int order, String contextKey) {
+        if (order == 1) {
+            return 0.0;
+        }
+        return logBackoffs.getOrDefault(order, Map.of()).getOrDefault(contextKey, 0.0);
+    }
+
+    /**
+     * order의 문맥 키 → 다음 토큰 → ln P
+     */
+    public Map<String, Map<Integer, Double>> getLogProbs(int order) {
+        return logProbs.getOrDefault(order, Map.of());
+    }
+
+    /**
+     * order의 문맥 키 → ln bow (1이 아닌 것만)
+     */
+    public Map<String, Double> getLogBackoffs(int order) {
+        return logBackoffs.getOrDefault(order, Map.of());
+    }
+
+    /**
+     * 저장된 (문맥, 토큰) 항목 수
+     */
+    public long getEntryCount() {
+        long total = 0;
+        for (Map<String, Map<Integer, Double>> table : logProbs.values()) {
+            for (Map<Integer, Double> entries : table.values()) {
+                total += entries.size();
+            }
+        }
+        return total;
+    }
+
+    public int getN() {
+        return n;
+    }
+
+    public String getSourceName() {
+        return sourceName;
+    }
+
+    public Map<String, Integer> getVocabulary() {
+        return vocabulary;
+    }
+
+    public void setVocabulary(Map<String, Integer> vocabulary) {
+        this.vocabulary = vocabulary;
+    }
+
+    /**
+     * 확률을 계산한 Artifact의 토크나이저 타입 (ARPA 파일 머리말에 기록)
+     */
+    public String getTokenizerType() {
+        return tokenizerType;
+    }
+
+    public void setTokenizerType(String tokenizerType) {
+        this.tokenizerType = tokenizerType;
+    }
+
+    @Override
+    public String strategyName() {
+        return "ArpaBackoff";
+    }
+
+    @Override
+    public String description() {
+        return String.format("ARPA backoff weights (n=%d, from %s, %d entries)", n, sourceName, getEntryCount());
+    }
+
+    /**
+     * unigram 확률 배열 (토큰 순서 그대로 + 토큰 ID로 바로 찾는 표)
+     */
+    private static final class UnigramBase {
+        final int[] tokens;
+        final double[] probs;
+
+        /**
+         * token id → probs의 위치 (없으면 -1)
+         */
+        final int[] slots;
+
+        UnigramBase(Map<Integer, Double> logProbs) {
+            this.tokens = new int[logProbs.size()];
+            this.probs = new double[logProbs.size()];
+            int maxToken = -1;
+            int i = 0;
+            for (Map.Entry<Integer, Double> e : logProbs.entrySet()) {
+                tokens[i] = e.getKey();
+                probs[i] = Math.exp(e.getValue());
+                maxToken = Math.max(maxToken, e.getKey());
+                i++;
+            }
+            this.slots = new int[maxToken + 1];
+            Arrays.fill(slots, -1);
+            for (int j = 0; j < tokens.length; j++) {
+                if (tokens[j] >= 0) {
+                    slots[tokens[j]] = j;
+                }
+            }
+        }
+
+        int slot(Object key) {
+            return key instanceof Integer token && token >= 0 && token < slots.length ? slots[token] : -1;
+        }
+    }
+
+    /**
+     * scale × unigram + 상위 order 항목 (overlay가 우선) 읽기 전용 Map
+     *
+     * 순회는 overlay 먼저, 그다음 overlay에 없는 unigram 토큰
+     */
+    private static final class ScaledDistribution extends AbstractMap<Integer, Double> {
+        private final UnigramBase base;
+        private final double scale;
+        private final Map<Integer, Double> overlay;
+        private final int size;
+
+        ScaledDistribution(UnigramBase base, double scale, Map<Integer, Double> overlay) {
+            this.base = base;
+            this.scale = scale;
+            this.overlay = overlay;
+            int shared = 0;
+            for (int token : overlay.keySet()) {
+                if (base.slot(token) >= 0) {
+                    shared++;
+                }
+            }
+            this.size = base.tokens.length + overlay.size() - shared;
+        }
+
+        @Override
+        public Double get(Object key) {
+            Double value = overlay.get(key);
+            if (value != null) {
+                return value;
+            }
+            int slot = base.slot(key);
+            return slot >= 0 ? scale * base.probs[slot] : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return overlay.containsKey(key) || base.slot(key) >= 0;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public Set<Entry<Integer, Double>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<Integer, Double>> iterator() {
+                    Iterator<Entry<Integer, Double>> overlayEntries = overlay.entrySet().iterator();
+                    return new Iterator<>() {
+                        private int next = advance(0);
+
+                        private int advance(int from) {
+                            while (from < base.tokens.length && overlay.containsKey(base.tokens[from])) {
+                                from++;
+                            }
+                            return from;
+                        }
+
+                        @Override
+                        public boolean hasNext() {
+                            return overlayEntries.hasNext() || next < base.tokens.length;
+                        }
+
+                        @Override
+                        public Entry<Integer, Double> next() {
+                            if (overlayEntries.hasNext()) {
+                                Entry<Integer, Double> entry = overlayEntries.next();
+                                return Map.entry(entry.getKey(), entry.getValue());
+                            }
+                            if (next >= base.tokens.length) {
+                                throw new NoSuchElementException();
+                            }
+                            Entry<Integer, Double> entry = Map.entry(base.tokens[next], scale * base.probs[next]);
+                            next = advance(next + 1);
+                            return entry;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+        }
+    }
+}
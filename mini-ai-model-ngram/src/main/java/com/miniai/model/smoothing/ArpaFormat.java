@@ -0,0 +1,316 @@
+package com.miniai.model.smoothing;
+
+import com.miniai.model.ngram.NgramArtifact;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * ARPA 텍스트 형식 읽기/쓰기
+ *
+ * 학습 포인트:
+ * - SRILM, KenLM 등 표준 LM 도구가 쓰는 backoff 모델 교환 형식
+ * - 값은 log10, 줄마다 "log10 P  w1 ... wk  [log10 bow]"
+ * - bow는 그 N-gram이 한 단계 긴 N-gram의 문맥으로 쓰일 때의 가중치
+ * - 모든 N-gram의 앞부분(w1 ... w(k-1))도 파일에 있어야 함
+ *   → 저장되지 않은 앞부분은 backoff 체인으로 계산한 확률로 채워서 씀
+ *
+ * 예시:
+ *   \data\
+ *   ngram 1=3
+ *   ngram 2=2
+ *
+ *   \1-grams:
+ *   -99.000000	[UNK]
+ *   -0.301030	for	-0.176091
+ *   ...
+ *   \end\
+ *
+ * 이 프로젝트 전용 규칙:
+ * - 토큰 안의 공백/역슬래시는 이스케이프 (\s, \t, \n, \\) — 문자열 리터럴 토큰 때문
+ * - "[UNK]"(또는 외부 파일의 "<unk>")는 항상 id 0
+ * - \data\ 앞의 "# tokenizer: ..." 머리말에 토크나이저 타입 기록 (다른 도구는 무시함)
+ */
+public final class ArpaFormat {
+
+    /**
+     * 확률 0을 나타내는 log10 값 (ARPA 관례)
+     */
+    private static final double LOG10_ZERO = -99.0;
+
+    private static final double LN_10 = Math.log(10);
+
+    private static final String UNK = "[UNK]";
+
+    private ArpaFormat() {
+    }
+
+    /**
+     * ARPA 파일로 저장 (임시 파일 + rename)
+     */
+    public static void write(ArpaBackoff model, Path outputPath) throws IOException {
+        int n = model.getN();
+        Map<Integer, String> words = new HashMap<>();
+        for (Map.Entry<String, Integer> entry : model.getVocabulary().entrySet()) {
+            words.put(entry.getValue(), entry.getKey());
+        }
+
+        // order → N-gram 키 → ln P (저장된 항목 + 빠진 앞부분 채우기)
+        List<Map<String, Double>> ngrams = new ArrayList<>();
+        ngrams.add(Map.of()); // order 0 자리
+        for (int order = 1; order <= n; order++) {
+            Map<String, Double> table = new TreeMap<>();
+            for (Map.Entry<String, Map<Integer, Double>> context : model.getLogProbs(order).entrySet()) {
+                for (Map.Entry<Integer, Double> e : context.getValue().entrySet()) {
+                    table.put(ngramKey(context.getKey(), e.getKey()), e.getValue());
+                }
+            }
+            ngrams.add(table);
+        }
+        for (int id : words.keySet()) {
+            ngrams.get(1).putIfAbsent(String.valueOf(id), Double.NEGATIVE_INFINITY);
+        }
+        for (int order = n; order >= 2; order--) {
+            // 이 order N-gram의 앞부분 + bow를 가진 문맥이 한 단계 낮은 order에 있어야 함
+            Function<String, Double> chain = backoffProbability(model);
+            List<String> required = new ArrayList<>(model.getLogBackoffs(order).keySet());
+            for (String key : ngrams.get(order).keySet()) {
+                required.add(key.substring(0, key.lastIndexOf(':')));
+            }
+            for (String prefix : required) {
+                ngrams.get(order - 1).computeIfAbsent(prefix, chain);
+            }
+        }
+
+        Path absolute = outputPath.toAbsolutePath();
+        Path tempPath = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(tempPath, StandardCharsets.UTF_8)) {
+            writer.write("# mini-ai ARPA export (source: " + model.getSourceName() + ")\n");
+            if (model.getTokenizerType() != null) {
+                writer.write("# tokenizer: " + model.getTokenizerType() + "\n");
+            }
+            writer.write("\n\\data\\\n");
+            for (int order = 1; order <= n; order++) {
+                writer.write("ngram " + order + "=" + ngrams.get(order).size() + "\n");
+            }
+
+            for (int order = 1; order <= n; order++) {
+                writer.write("\n\\" + order + "-grams:\n");
+                for (String key : sortedById(ngrams.get(order).keySet())) {
+                    StringBuilder line = new StringBuilder(log10(ngrams.get(order).get(key)));
+                    line.append('\t');
+                    String[] ids = key.split(":");
+                    for (int i = 0; i < ids.length; i++) {
+                        if (i > 0) {
+                            line.append(' ');
+                        }
+                        line.append(escape(words.getOrDefault(Integer.parseInt(ids[i]), UNK)));
+                    }
+                    if (order < n) {
+                        double logBackoff = model.logBackoff(order + 1, key);
+                        if (logBackoff != 0.0) {
+                            line.append('\t').append(log10(logBackoff));
+                        }
+                    }
+                    writer.write(line.append('\n').toString());
+                }
+            }
+            writer.write("\n\\end\\\n");
+        }
+
+        try {
+            Files.move(tempPath, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempPath, absolute, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * ARPA 파일 로드
+     *
+     * @throws IllegalArgumentException 형식이 잘못된 경우
+     */
+    public static ArpaBackoff read(Path inputPath) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(inputPath, StandardCharsets.UTF_8)) {
+            String tokenizerType = null;
+            Map<Integer, Integer> declared = new TreeMap<>();
+            String line;
+
+            // 머리말 + \data\ 섹션
+            while ((line = reader.readLine()) != null && !line.trim().equals("\\data\\")) {
+                if (line.startsWith("# tokenizer:")) {
+                    tokenizerType = line.substring("# tokenizer:".length()).trim();
+                }
+            }
+            if (line == null) {
+                throw new IllegalArgumentException("ARPA 형식이 아닙니다 (\\data\\ 없음): " + inputPath);
+            }
+            while ((line = reader.readLine()) != null && !line.trim().startsWith("\\")) {
+                String trimmed = line.trim();
+                if (trimmed.startsWith("ngram ")) {
+                    String[] parts = trimmed.substring("ngram ".length()).split("=");
+                    declared.put(Integer.parseInt(parts[0].trim()), Integer.parseInt(parts[1].trim()));
+                }
+            }
+            if (declared.isEmpty()) {
+                throw new IllegalArgumentException("ARPA 형식이 아닙니다 (ngram 개수 없음): " + inputPath);
+            }
+
+            int n = Collections.max(declared.keySet());
+            ArpaBackoff model = new ArpaBackoff(n, "arpa");
+            model.setTokenizerType(tokenizerType);
+            Map<String, Integer> vocabulary = new HashMap<>();
+            vocabulary.put(UNK, 0);
+
+            // \k-grams: 섹션들
+            int order = 0;
+            int[] seen = new int[n + 1];
+            for (; line != null; line = reader.readLine()) {
+                String trimmed = line.trim();
+                if (trimmed.isEmpty()) {
+                    continue;
+                }
+                if (trimmed.equals("\\end\\")) {
+                    break;
+                }
+                if (trimmed.startsWith("\\") && trimmed.endsWith("-grams:")) {
+                    order = Integer.parseInt(trimmed.substring(1, trimmed.indexOf('-')));
+                    continue;
+                }
+                if (order < 1 || order > n) {
+                    throw new IllegalArgumentException("ARPA 섹션 밖의 줄: " + trimmed);
+                }
+
+                String[] fields = trimmed.split("\\s+");
+                if (fields.length != order + 1 && fields.length != order + 2) {
+                    throw new IllegalArgumentException(order + "-gram 줄 형식 오류: " + trimmed);
+                }
+                int[] ids = new int[order];
+                for (int i = 0; i < order; i++) {
+                    String word = unescape(fields[i + 1]);
+                    if (word.equals("<unk>")) {
+                        word = UNK;
+                    }
+                    Integer id = vocabulary.get(word);
+                    if (id == null) {
+                        if (order > 1) {
+                            throw new IllegalArgumentException("1-gram에 없는 단어: " + word);
+                        }
+                        id = vocabulary.size();
+                        vocabulary.put(word, id);
+                    }
+                    ids[i] = id;
+                }
+
+                String contextKey = order == 1 ? "" : NgramArtifact.makeKey(Arrays.copyOf(ids, order - 1));
+                double log10Prob = Double.parseDouble(fields[0]);
+                if (log10Prob > LOG10_ZERO) {
+                    model.putProbability(order, contextKey, ids[order - 1], log10Prob * LN_10);
+                }
+                if (fields.length == order + 2) {
+                    double log10Backoff = Double.parseDouble(fields[order + 1]);
+                    if (log10Backoff != 0.0 && order < n) {
+                        model.putBackoff(order + 1, NgramArtifact.makeKey(ids), log10Backoff * LN_10);
+                    }
+                }
+                seen[order]++;
+            }
+
+            for (Map.Entry<Integer, Integer> entry : declared.entrySet()) {
+                if (seen[entry.getKey()] != entry.getValue()) {
+                    throw new IllegalArgumentException(String.format("%d-gram 개수 불일치: 선언 %d, 실제 %d",
+                        entry.getKey(), entry.getValue(), seen[entry.getKey()]));
+                }
+            }
+            model.setVocabulary(vocabulary);
+            return model;
+        }
+    }
+
+    /**
+     * 저장되지 않은 N-gram의 확률을 backoff 체인으로 계산하는 함수
+     */
+    private static Function<String, Double> backoffProbability(ArpaBackoff model) {
+        return key -> {
+            List<Integer> ids = new ArrayList<>();
+            for (String part : key.split(":")) {
+                ids.add(Integer.parseInt(part));
+            }
+            return model.logProbability(ids.subList(0, ids.size() - 1), ids.get(ids.size() - 1));
+        };
+    }
+
+    private static String ngramKey(String contextKey, int token) {
+        return contextKey.isEmpty() ? String.valueOf(token) : contextKey + ":" + token;
+    }
+
+    /**
+     * 토큰 id 순서로 정렬 (문자열 정렬이면 "10"이 "2"보다 앞에 옴)
+     */
+    private static List<String> sortedById(Iterable<String> keys) {
+        List<String> sorted = new ArrayList<>();
+        keys.forEach(sorted::add);
+        sorted.sort((a, b) -> Arrays.compare(
+            Arrays.stream(a.split(":")).mapToInt(Integer::parseInt).toArray(),
+            Arrays.stream(b.split(":")).mapToInt(Integer::parseInt).toArray()));
+        return sorted;
+    }
+
+    private static String log10(double lnValue) {
+        if (Double.isInfinite(lnValue) && lnValue < 0) {
+            return String.format(Locale.ROOT, "%.6f", LOG10_ZERO);
+        }
+        return String.format(Locale.ROOT, "%.6f", Math.max(LOG10_ZERO, lnValue / LN_10));
+    }
+
+    static String escape(String word) {
+        StringBuilder sb = new StringBuilder(word.length());
+        for (char c : word.toCharArray()) {
+            switch (c) {
+                case '\\' -> sb.append("\\\\");
+                case ' ' -> sb.append("\\s");
+                case '\t' -> sb.append("\\t");
+                case '\n' -> sb.append("\\n");
+                default -> sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    static String unescape(String word) {
+        if (word.indexOf('\\') < 0) {
+            return word;
+        }
+        StringBuilder sb = new StringBuilder(word.length());
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            if (c == '\\' && i + 1 < word.length()) {
+                char next = word.charAt(++i);
+                switch (next) {
+                    case 's' -> sb.append(' ');
+                    case 't' -> sb.append('\t');
+                    case 'n' -> sb.append('\n');
+                    default -> sb.append(next);
+                }
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
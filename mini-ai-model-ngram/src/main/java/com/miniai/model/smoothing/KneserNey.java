@@ -1,5 +1,6 @@
 package com.miniai.model.smoothing;
 
+import com.miniai.model.ngram.ContextCursor;
 import com.miniai.model.ngram.NgramArtifact;
 
 import java.util.ArrayList;
@@ -48,10 +49,21 @@ public class KneserNey implements SmoothingStrategy {
 
     @Override
     public Map<Integer, Double> getSmoothedProbabilities(NgramArtifact artifact, List<Integer> context) {
+        return smooth(artifact, artifact.getNextTokenCounts(context));
+    }
+
+    /**
+     * 커서 버전: 최고 order 카운트를 문맥 키 없이 해시로 조회
+     */
+    @Override
+    public Map<Integer, Double> getSmoothedProbabilities(NgramArtifact artifact, ContextCursor cursor) {
+        return smooth(artifact, artifact.getNextTokenCounts(cursor));
+    }
+
+    private Map<Integer, Double> smooth(NgramArtifact artifact, Map<Integer, Integer> primaryCounts) {
         Map<Integer, Double> result = new HashMap<>();
 
         // 1. 주 N-gram에서 discounted 확률 계산
-        Map<Integer, Integer> primaryCounts = artifact.getNextTokenCounts(context);
         double contextTotal = primaryCounts.values().stream().mapToInt(Integer::intValue).sum();
 
         if (contextTotal == 0) {
@@ -0,0 +1,326 @@
+package com.miniai.model.smoothing;
+
+import com.miniai.model.ngram.ContextCursor;
+import com.miniai.model.ngram.ContextHashTable;
+import com.miniai.model.ngram.NgramArtifact;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Modified Kneser-Ney Smoothing (Chen & Goodman)
+ *
+ * 학습 포인트:
+ * - KneserNey는 최고 order와 unigram continuation만 섞음 (중간 order를 건너뜀)
+ * - 여기서는 모든 order를 재귀적으로 interpolation:
+ *     P_k(w|h) = max(c_k(h,w) - D_k(c), 0) / c_k(h) + γ(h) × P_{k-1}(w|h')
+ *     γ(h)    = (D_k1 × N1(h•) + D_k2 × N2(h•) + D_k3+ × N3+(h•)) / c_k(h)
+ * - 카운트: 최고 order는 실제 카운트, 하위 order는 continuation 카운트
+ *   (그 k-gram 앞에 온 서로 다른 토큰 수)
+ * - Discount 3개 (카운트 1, 2, 3+)를 order마다 count-of-counts로 추정:
+ *     Y = n1 / (n1 + 2 n2)
+ *     D1 = 1 - 2Y n2/n1,  D2 = 2 - 3Y n3/n2,  D3+ = 3 - 4Y n4/n3
+ * - Unigram은 균등 분포와 interpolation (어휘의 모든 토큰에 확률)
+ *
+ * 성능:
+ * - Artifact를 처음 볼 때 continuation 카운트, discount, 문맥별 c(h)와 γ(h)를 한 번 계산
+ *   → Artifact별로 WeakHashMap에 보관 (앙상블처럼 여러 Artifact를 번갈아 써도 다시 계산하지 않음,
+ *     Artifact가 내려가면 표도 GC)
+ * - 문맥별 값은 order마다 ContextHashTable (커서 해시로 조회, 문맥 키 문자열을 만들지 않음)
+ *   → List 문맥도 커서 하나로 바꿔서 같은 경로로 조회
+ * - 토큰 하나의 확률은 order마다 해시 조회 한 번 (O(n))
+ * - 분포 전체는 미리 계산된 unigram 배열 × γ 곱 + 관찰된 토큰만 더함
+ *
+ * 주의: 계산 결과는 Artifact 인스턴스에 묶임 (Artifact를 수정하면 새 전략 인스턴스 사용)
+ */
+public class ModifiedKneserNey implements SmoothingStrategy {
+
+    /**
+     * count-of-counts가 부족할 때 쓰는 discount (D1, D2, D3+)
+     */
+    private static final double[] FALLBACK_DISCOUNTS = {0.5, 1.0, 1.5};
+
+    /**
+     * Artifact → 미리 계산된 표 (Artifact 인스턴스 기준, 약한 참조)
+     */
+    private final Map<NgramArtifact, Tables> tables = new WeakHashMap<>();
+
+    /**
+     * 마지막으로 사용한 표 (같은 Artifact가 연속이면 잠금 없이)
+     */
+    private volatile LastUsed last;
+
+    @Override
+    public Map<Integer, Double> getSmoothedProbabilities(NgramArtifact artifact, List<Integer> context) {
+        return getSmoothedProbabilities(artifact, ContextCursor.of(artifact.getN(), context));
+    }
+
+    /**
+     * 커서 버전: order별 c(h), γ(h)를 커서 해시로 조회
+     */
+    @Override
+    public Map<Integer, Double> getSmoothedProbabilities(NgramArtifact artifact, ContextCursor cursor) {
+        Tables t = tablesFor(artifact);
+        int top = Math.min(t.n, cursor.size() + 1);
+
+        // P_top = Σ_k (Π_{j>k} γ_j) × discounted_k + (Π_{j≥2} γ_j) × P_1
+        ContextStats[] stats = new ContextStats[top + 1];
+        double[] weights = new double[top + 1];
+        double weight = 1.0;
+        for (int order = top; order >= 2; order--) {
+            stats[order] = t.stats(order, cursor);
+            weights[order] = weight;
+            if (stats[order] != null) {
+                weight *= stats[order].gamma;
+            }
+        }
+
+        Map<Integer, Double> result = new HashMap<>(t.unigram.length * 2);
+        for (int token = 0; token < t.unigram.length; token++) {
+            if (t.unigram[token] > 0) {
+                result.put(token, weight * t.unigram[token]);
+            }
+        }
+        for (int order = 2; order <= top; order++) {
+            ContextStats s = stats[order];
+            if (s == null) {
+                continue;
+            }
+            double[] discounts = t.discounts[order];
+            for (Map.Entry<Integer, Integer> e : s.counts.entrySet()) {
+                double discounted = Math.max(e.getValue() - discount(discounts, e.getValue()), 0) / s.total;
+                result.merge(e.getKey(), weights[order] * discounted, Double::sum);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 토큰 하나의 확률 (order마다 해시 조회 한 번)
+     */
+    public double probability(NgramArtifact artifact, List<Integer> context, int token) {
+        Tables t = tablesFor(artifact);
+        ContextCursor cursor = ContextCursor.of(t.n, context);
+        int top = Math.min(t.n, cursor.size() + 1);
+
+        double p = token >= 0 && token < t.unigram.length ? t.unigram[token] : 0.0;
+        for (int order = 2; order <= top; order++) {
+            ContextStats s = t.stats(order, cursor);
+            if (s == null) {
+                continue; // 없는 문맥: P_k = P_{k-1}
+            }
+            int count = s.counts.getOrDefault(token, 0);
+            double discounted = Math.max(count - discount(t.discounts[order], count), 0) / s.total;
+            p = discounted + s.gamma * p;
+        }
+        return p;
+    }
+
+    /**
+     * order의 discount (D1, D2, D3+)
+     */
+    public double[] getDiscounts(NgramArtifact artifact, int order) {
+        return tablesFor(artifact).discounts[order].clone();
+    }
+
+    private static double discount(double[] discounts, int count) {
+        if (count <= 0) {
+            return 0.0;
+        }
+        return discounts[Math.min(count, 3) - 1];
+    }
+
+    private Tables tablesFor(NgramArtifact artifact) {
+        LastUsed l = last;
+        if (l != null && l.artifact.get() == artifact) {
+            return l.tables;
+        }
+        Tables t;
+        synchronized (tables) {
+            t = tables.computeIfAbsent(artifact, Tables::new);
+        }
+        last = new LastUsed(artifact, t);
+        return t;
+    }
+
+    /**
+     * count-of-counts로 discount 3개 추정
+     *
+     * @param countOfCounts [0, n1, n2, n3, n4]
+     */
+    static double[] estimateDiscounts(long[] countOfCounts) {
+        long n1 = countOfCounts[1];
+        long n2 = countOfCounts[2];
+        long n3 = countOfCounts[3];
+        long n4 = countOfCounts[4];
+        if (n1 == 0 || n2 == 0 || n3 == 0 || n4 == 0) {
+            return FALLBACK_DISCOUNTS.clone();
+        }
+        double y = (double) n1 / (n1 + 2.0 * n2);
+        double[] discounts = {
+            1 - 2 * y * n2 / n1,
+            2 - 3 * y * n3 / n2,
+            3 - 4 * y * n4 / n3
+        };
+        for (int i = 0; i < discounts.length; i++) {
+            // 데이터가 이상하면 (음수, 카운트보다 큼) 기본값
+            if (!(discounts[i] > 0 && discounts[i] < i + 1)) {
+                discounts[i] = FALLBACK_DISCOUNTS[i];
+            }
+        }
+        return discounts;
+    }
+
+    @Override
+    public String strategyName() {
+        return "ModifiedKneserNey";
+    }
+
+    @Override
+    public String description() {
+        return "Modified Kneser-Ney Smoothing (3 discounts per order, recursive interpolation)";
+    }
+
+    /**
+     * 문맥 하나의 미리 계산된 값
+     */
+    private static final class ContextStats {
+        final Map<Integer, Integer> counts;
+        final double total;
+        final double gamma;
+
+        ContextStats(Map<Integer, Integer> counts, double[] discounts) {
+            this.counts = counts;
+            long sum = 0;
+            int[] nk = new int[3];
+            for (int count : counts.values()) {
+                sum += count;
+                if (count > 0) {
+                    nk[Math.min(count, 3) - 1]++;
+                }
+            }
+            this.total = sum;
+            this.gamma = (discounts[0] * nk[0] + discounts[1] * nk[1] + discounts[2] * nk[2]) / sum;
+        }
+    }
+
+    /**
+     * 마지막으로 사용한 Artifact (약한 참조라 캐시가 Artifact를 붙잡지 않음)와 그 표
+     */
+    private static final class LastUsed {
+        final WeakReference<NgramArtifact> artifact;
+        final Tables tables;
+
+        LastUsed(NgramArtifact artifact, Tables tables) {
+            this.artifact = new WeakReference<>(artifact);
+            this.tables = tables;
+        }
+    }
+
+    /**
+     * Artifact 하나에 대한 미리 계산된 표 (Artifact 자체는 참조하지 않음 → WeakHashMap 키가 풀릴 수 있음)
+     */
+    private static final class Tables {
+        final int n;
+
+        /**
+         * order → 문맥 → 카운트 + c(h) + γ(h) (order 2 이상)
+         */
+        final List<ContextHashTable<ContextStats>> contexts;
+
+        /**
+         * order → [D1, D2, D3+]
+         */
+        final double[][] discounts;
+
+        /**
+         * token id → P_1 (균등 분포와 interpolation된 continuation unigram)
+         */
+        final double[] unigram;
+
+        Tables(NgramArtifact artifact) {
+            this.n = artifact.getN();
+
+            // 1. order별 카운트: 최고 order는 실제, 나머지는 continuation
+            List<Map<String, Map<Integer, Integer>>> counts = new ArrayList<>();
+            for (int order = 0; order <= n; order++) {
+                counts.add(new HashMap<>());
+            }
+            counts.set(n, artifact.getCounts());
+            for (int order = n; order >= 2; order--) {
+                Map<String, Map<Integer, Integer>> higher = order == n
+                    ? artifact.getCounts()
+                    : artifact.getLowerOrderCounts().getOrDefault(order, Map.of());
+                Map<String, Map<Integer, Integer>> continuation = counts.get(order - 1);
+                for (Map.Entry<String, Map<Integer, Integer>> context : higher.entrySet()) {
+                    String key = context.getKey();
+                    String lowerKey = order == 2 ? "" : key.substring(key.indexOf(':') + 1);
+                    Map<Integer, Integer> target = continuation.computeIfAbsent(lowerKey, k -> new HashMap<>());
+                    for (int token : context.getValue().keySet()) {
+                        target.merge(token, 1, Integer::sum); // 서로 다른 앞 토큰 하나
+                    }
+                }
+            }
+
+            // 2. order별 discount (count-of-counts)
+            this.discounts = new double[n + 1][];
+            for (int order = 1; order <= n; order++) {
+                long[] countOfCounts = new long[5];
+                for (Map<Integer, Integer> next : counts.get(order).values()) {
+                    for (int count : next.values()) {
+                        if (count >= 1 && count <= 4) {
+                            countOfCounts[count]++;
+                        }
+                    }
+                }
+                discounts[order] = estimateDiscounts(countOfCounts);
+            }
+
+            // 3. 문맥별 c(h), γ(h)
+            this.contexts = new ArrayList<>();
+            for (int order = 0; order <= n; order++) {
+                Map<String, Map<Integer, Integer>> source = order >= 2 ? counts.get(order) : Map.of();
+                ContextHashTable<ContextStats> table = new ContextHashTable<>(source.size());
+                for (Map.Entry<String, Map<Integer, Integer>> context : source.entrySet()) {
+                    if (!context.getValue().isEmpty()) {
+                        table.put(ContextHashTable.parseKey(context.getKey()),
+                            new ContextStats(context.getValue(), discounts[order]));
+                    }
+                }
+                contexts.add(table);
+            }
+
+            // 4. Unigram (continuation + 균등 분포)
+            int vocabSize = artifact.getVocabulary().values().stream().mapToInt(Integer::intValue).max().orElse(-1) + 1;
+            for (Map<Integer, Integer> next : counts.get(1).values()) {
+                for (int token : next.keySet()) {
+                    vocabSize = Math.max(vocabSize, token + 1);
+                }
+            }
+            this.unigram = new double[vocabSize];
+            double uniform = 1.0 / Math.max(1, artifact.getVocabulary().size());
+            Map<Integer, Integer> unigramCounts = counts.get(1).getOrDefault("", Map.of());
+            if (unigramCounts.isEmpty()) {
+                for (int token : artifact.getVocabulary().values()) {
+                    unigram[token] = uniform;
+                }
+            } else {
+                ContextStats s = new ContextStats(unigramCounts, discounts[1]);
+                for (int token : artifact.getVocabulary().values()) {
+                    unigram[token] = s.gamma * uniform;
+                }
+                for (Map.Entry<Integer, Integer> e : unigramCounts.entrySet()) {
+                    unigram[e.getKey()] += Math.max(e.getValue() - discount(discounts[1], e.getValue()), 0) / s.total;
+                }
+            }
+        }
+
+        ContextStats stats(int order, ContextCursor cursor) {
+            return contexts.get(order).get(cursor, order - 1);
+        }
+    }
+}
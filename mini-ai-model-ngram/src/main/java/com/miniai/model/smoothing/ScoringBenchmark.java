@@ -0,0 +1,174 @@
+package com.miniai.model.smoothing;
+
+import com.miniai.model.ngram.NgramArtifact;
+import com.miniai.model.ngram.NgramTrainer;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * 후보 채점 처리량 비교: SimpleBackoff vs StupidBackoff
+ *
+ * 학습 포인트:
+ * - 랭킹 작업은 "문맥 하나 + 후보 여러 개"의 점수만 필요
+ * - SimpleBackoff: 문맥마다 분포 Map 전체를 만든 뒤 후보를 조회
+ * - StupidBackoff.scoreAll: 분포 없이 후보마다 order별 해시 조회
+ *
+ * 사용법: ScoringBenchmark <artifact.json> [contexts=20000] [candidates=100]
+ */
+public final class ScoringBenchmark {
+
+    private static final int ROUNDS = 3;
+
+    private ScoringBenchmark() {
+    }
+
+    /**
+     * 측정 결과
+     */
+    public static final class Result {
+        private final String strategy;
+        private final long candidates;
+        private final long nanos;
+        private final double checksum;
+
+        Result(String strategy, long candidates, long nanos, double checksum) {
+            this.strategy = strategy;
+            this.candidates = candidates;
+            this.nanos = nanos;
+            this.checksum = checksum;
+        }
+
+        public String getStrategy() {
+            return strategy;
+        }
+
+        public double getCandidatesPerSecond() {
+            return candidates / (nanos / 1e9);
+        }
+
+        /**
+         * 점수 합 (JIT가 계산을 지우지 않게 결과를 사용)
+         */
+        public double getChecksum() {
+            return checksum;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-14s %,12.0f candidates/sec (%,d candidates, %dms)",
+                strategy, getCandidatesPerSecond(), candidates, nanos / 1_000_000);
+        }
+    }
+
+    /**
+     * Artifact의 최고 order 문맥들에서 두 전략으로 같은 후보를 채점
+     *
+     * @param contextCount 채점할 문맥 수 (최고 order 문맥에서 무작위 선택)
+     * @param candidateCount 문맥마다 후보 수 (unigram 빈도 상위 토큰)
+     * @return [SimpleBackoff, StupidBackoff]
+     */
+    public static List<Result> run(NgramArtifact artifact, int contextCount, int candidateCount) {
+        List<List<Integer>> contexts = sampleContexts(artifact, contextCount);
+        int[] candidates = topUnigrams(artifact, candidateCount);
+
+        SimpleBackoff simple = new SimpleBackoff();
+        StupidBackoff stupid = new StupidBackoff();
+        stupid.score(artifact, contexts.get(0), candidates[0]); // 문맥 색인 미리 계산
+
+        // 워밍업 (JIT)
+        scoreSimple(artifact, simple, contexts, candidates);
+        scoreStupid(artifact, stupid, contexts, candidates);
+
+        List<Result> results = new ArrayList<>();
+        long total = (long) contexts.size() * candidates.length;
+
+        // 라운드마다 번갈아 측정하고 가장 빠른 시간 사용 (GC/JIT 잡음 제거)
+        long simpleNanos = Long.MAX_VALUE;
+        long stupidNanos = Long.MAX_VALUE;
+        double simpleChecksum = 0;
+        double stupidChecksum = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            simpleChecksum = scoreSimple(artifact, simple, contexts, candidates);
+            simpleNanos = Math.min(simpleNanos, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            stupidChecksum = scoreStupid(artifact, stupid, contexts, candidates);
+            stupidNanos = Math.min(stupidNanos, System.nanoTime() - start);
+        }
+        results.add(new Result(simple.strategyName(), total, simpleNanos, simpleChecksum));
+        results.add(new Result(stupid.strategyName(), total, stupidNanos, stupidChecksum));
+        return results;
+    }
+
+    private static double scoreSimple(NgramArtifact artifact, SimpleBackoff simple,
+                                      List<List<Integer>> contexts, int[] candidates) {
+        double checksum = 0;
+        for (List<Integer> context : contexts) {
+            Map<Integer, Double> probs = simple.getSmoothedProbabilities(artifact, context);
+            for (int candidate : candidates) {
+                checksum += probs.getOrDefault(candidate, 0.0);
+            }
+        }
+        return checksum;
+    }
+
+    private static double scoreStupid(NgramArtifact artifact, StupidBackoff stupid,
+                                      List<List<Integer>> contexts, int[] candidates) {
+        double checksum = 0;
+        double[] scores = new double[candidates.length];
+        for (List<Integer> context : contexts) {
+            stupid.scoreAll(artifact, context, candidates, scores);
+            for (double score : scores) {
+                checksum += score;
+            }
+        }
+        return checksum;
+    }
+
+    private static List<List<Integer>> sampleContexts(NgramArtifact artifact, int count) {
+        List<String> keys = new ArrayList<>(artifact.getCounts().keySet());
+        if (keys.isEmpty()) {
+            throw new IllegalArgumentException("최고 order 문맥이 없는 Artifact입니다");
+        }
+        Random random = new Random(42);
+        List<List<Integer>> contexts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String key = keys.get(random.nextInt(keys.size()));
+            contexts.add(Arrays.stream(key.split(":")).map(Integer::valueOf).toList());
+        }
+        return contexts;
+    }
+
+    private static int[] topUnigrams(NgramArtifact artifact, int count) {
+        return artifact.getLowerOrderCounts(1, List.of()).entrySet().stream()
+            .sorted(Map.Entry.<Integer, Integer>comparingByValue().reversed())
+            .limit(count)
+            .mapToInt(Map.Entry::getKey)
+            .toArray();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("사용법: ScoringBenchmark <artifact.json> [contexts] [candidates]");
+            System.exit(1);
+        }
+        int contextCount = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+        int candidateCount = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+
+        NgramArtifact artifact = NgramTrainer.loadArtifact(Paths.get(args[0]));
+        System.out.printf("📊 %s: %d contexts × %d candidates%n", args[0], contextCount, candidateCount);
+        List<Result> results = run(artifact, contextCount, candidateCount);
+        for (Result result : results) {
+            System.out.println("   " + result);
+        }
+        System.out.printf("   Speedup: %.1fx%n",
+            results.get(1).getCandidatesPerSecond() / results.get(0).getCandidatesPerSecond());
+    }
+}
@@ -1,5 +1,6 @@
 package com.miniai.model.smoothing;
 
+import com.miniai.model.ngram.ContextCursor;
 import com.miniai.model.ngram.NgramArtifact;
 
 import java.util.ArrayList;
@@ -47,15 +48,7 @@ public class SimpleBackoff implements SmoothingStrategy {
         int n = artifact.getN();
 
         // 1. 주 N-gram 확률
-        Map<Integer, Integer> primaryCounts = artifact.getNextTokenCounts(context);
-        double primaryTotal = primaryCounts.values().stream().mapToInt(Integer::intValue).sum();
-
-        if (primaryTotal > 0) {
-            for (Map.Entry<Integer, Integer> entry : primaryCounts.entrySet()) {
-                double prob = entry.getValue() / primaryTotal;
-                result.put(entry.getKey(), prob * (1 - backoffWeight));
-            }
-        }
+        addLevel(result, artifact.getNextTokenCounts(context), 1 - backoffWeight);
 
         // 2. Backoff: 하위 N-gram들 순차 적용
         double remainingWeight = backoffWeight;
@@ -68,36 +61,63 @@ public class SimpleBackoff implements SmoothingStrategy {
             }
 
             Map<Integer, Integer> lowerCounts = artifact.getLowerOrderCounts(order, currentContext);
-            double lowerTotal = lowerCounts.values().stream().mapToInt(Integer::intValue).sum();
-
-            if (lowerTotal > 0) {
-                double levelWeight = remainingWeight * (1 - backoffWeight);
-
-                for (Map.Entry<Integer, Integer> entry : lowerCounts.entrySet()) {
-                    double prob = entry.getValue() / lowerTotal;
-                    result.merge(entry.getKey(), prob * levelWeight, Double::sum);
-                }
-
+            if (addLevel(result, lowerCounts, remainingWeight * (1 - backoffWeight))) {
                 remainingWeight *= backoffWeight;
             }
         }
 
         // 3. Unigram fallback
         if (remainingWeight > 0.01) {
-            Map<Integer, Integer> unigramCounts = artifact.getLowerOrderCounts(1, new ArrayList<>());
-            double unigramTotal = unigramCounts.values().stream().mapToInt(Integer::intValue).sum();
-
-            if (unigramTotal > 0) {
-                for (Map.Entry<Integer, Integer> entry : unigramCounts.entrySet()) {
-                    double prob = entry.getValue() / unigramTotal;
-                    result.merge(entry.getKey(), prob * remainingWeight, Double::sum);
-                }
+            addLevel(result, artifact.getLowerOrderCounts(1, new ArrayList<>()), remainingWeight);
+        }
+
+        return result;
+    }
+
+    /**
+     * 커서 버전: order별 문맥을 잘라 만들지 않고 커서의 해시로 바로 조회
+     */
+    @Override
+    public Map<Integer, Double> getSmoothedProbabilities(NgramArtifact artifact, ContextCursor cursor) {
+        int n = artifact.getN();
+        if (cursor.size() < n - 1) {
+            // 프롬프트가 N-1개보다 짧을 때는 기존 경로 (짧은 문맥의 order별 조회 규칙을 그대로 유지)
+            return getSmoothedProbabilities(artifact, cursor.toList());
+        }
+
+        Map<Integer, Double> result = new HashMap<>();
+        addLevel(result, artifact.getNextTokenCounts(cursor), 1 - backoffWeight);
+
+        double remainingWeight = backoffWeight;
+        for (int order = n - 1; order >= 1 && remainingWeight > 0.01; order--) {
+            if (addLevel(result, artifact.getLowerOrderCounts(order, cursor), remainingWeight * (1 - backoffWeight))) {
+                remainingWeight *= backoffWeight;
             }
         }
 
+        if (remainingWeight > 0.01) {
+            addLevel(result, artifact.getLowerOrderCounts(1, cursor), remainingWeight);
+        }
         return result;
     }
 
+    /**
+     * 한 order의 상대 빈도 × 가중치를 결과에 더함
+     *
+     * @return 관찰된 카운트가 있었는지
+     */
+    private static boolean addLevel(Map<Integer, Double> result, Map<Integer, Integer> counts, double weight) {
+        double total = counts.values().stream().mapToInt(Integer::intValue).sum();
+        if (total <= 0) {
+            return false;
+        }
+        for (Map.Entry<Integer, Integer> entry : counts.entrySet()) {
+            double prob = entry.getValue() / total;
+            result.merge(entry.getKey(), prob * weight, Double::sum);
+        }
+        return true;
+    }
+
     @Override
     public String strategyName() {
         return "SimpleBackoff";
@@ -1,5 +1,6 @@
 package com.miniai.model.smoothing;
 
+import com.miniai.model.ngram.ContextCursor;
 import com.miniai.model.ngram.NgramArtifact;
 
 import java.util.List;
@@ -16,6 +17,7 @@ import java.util.Map;
  * 구현체:
  * - SimpleBackoff: 단순 backoff (Trigram → Bigram → Unigram)
  * - KneserNey: Kneser-Ney Smoothing (가장 효과적)
+ * - ArpaBackoff: 미리 계산된 확률 + backoff 가중치 (ARPA 파일 읽기/쓰기)
  * - AddOne: Add-One (Laplace) Smoothing
  */
 public interface SmoothingStrategy {
@@ -29,6 +31,16 @@ public interface SmoothingStrategy {
      */
     Map<Integer, Double> getSmoothedProbabilities(NgramArtifact artifact, List<Integer> context);
 
+    /**
+     * 커서 문맥에서 확률 분포 계산 (생성 루프용)
+     *
+     * 기본 구현은 커서를 List로 바꿔 위 메서드를 호출 (결과는 항상 같아야 함)
+     * 구현체는 order별 조회를 커서의 해시로 바꿔 문맥 키 생성을 없앨 수 있음
+     */
+    default Map<Integer, Double> getSmoothedProbabilities(NgramArtifact artifact, ContextCursor cursor) {
+        return getSmoothedProbabilities(artifact, cursor.toList());
+    }
+
     /**
      * Smoothing 전략 이름
      */
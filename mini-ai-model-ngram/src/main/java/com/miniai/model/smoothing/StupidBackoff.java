@@ -0,0 +1,229 @@
+package com.miniai.model.smoothing;
+
+import com.miniai.model.ngram.ApproximateNgramArtifact;
+import com.miniai.model.ngram.NgramArtifact;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stupid Backoff (Brants et al., 대규모 랭킹용 점수)
+ *
+ * 학습 포인트:
+ * - 확률이 아닌 점수: 정규화도, discount도, λ 계산도 없음
+ *     S(w|h) = c(h w) / c(h)       (h 뒤에서 w가 관찰됨)
+ *            = α × S(w|h')          (아니면 한 단계 짧은 문맥으로, α = 0.4)
+ *     S(w)   = c(w) / N
+ * - 관찰된 가장 긴 order에서 바로 멈춤 (하위 order를 섞지 않음)
+ * - 랭킹에는 후보 간 순서만 필요하므로 정규화하지 않아도 됨
+ *
+ * 빠른 경로 (score / scoreAll):
+ * - 분포 Map을 만들지 않음: order마다 해시 조회 한 번 + 미리 계산된 c(h)
+ * - 처음 본 Artifact는 문맥을 HashMap으로 다시 색인 (로드된 표는 트리 맵)
+ * - scoreAll은 같은 문맥의 후보 여러 개를 문맥 키 한 번만 만들고 채점
+ *
+ * getSmoothedProbabilities (생성용):
+ * - 관찰된 가장 긴 문맥의 다음 토큰 점수만 반환 (Sampler가 정규화)
+ */
+public class StupidBackoff implements SmoothingStrategy {
+
+    private final double alpha;
+
+    /**
+     * 마지막으로 사용한 Artifact의 문맥 색인 (다음 토큰 카운트 + c(h))
+     */
+    private volatile ContextIndex index;
+
+    public StupidBackoff() {
+        this(0.4); // 논문 기본값
+    }
+
+    public StupidBackoff(double alpha) {
+        if (alpha <= 0 || alpha > 1) {
+            throw new IllegalArgumentException("Alpha must be in (0, 1]");
+        }
+        this.alpha = alpha;
+    }
+
+    @Override
+    public Map<Integer, Double> getSmoothedProbabilities(NgramArtifact artifact, List<Integer> context) {
+        int top = Math.min(artifact.getN(), context.size() + 1);
+        double scale = 1.0;
+
+        for (int order = top; order >= 1; order--) {
+            List<Integer> suffix = context.subList(context.size() - (order - 1), context.size());
+            Map<Integer, Integer> counts = order == artifact.getN()
+                ? artifact.getNextTokenCounts(suffix)
+                : artifact.getLowerOrderCounts(order, suffix);
+            if (!counts.isEmpty()) {
+                double total = counts.values().stream().mapToInt(Integer::intValue).sum();
+                Map<Integer, Double> result = new HashMap<>(counts.size() * 2);
+                for (Map.Entry<Integer, Integer> entry : counts.entrySet()) {
+                    result.put(entry.getKey(), scale * entry.getValue() / total);
+                }
+                return result;
+            }
+            scale *= alpha;
+        }
+        return new HashMap<>();
+    }
+
+    /**
+     * 후보 하나의 점수 (분포를 만들지 않는 빠른 경로, 관찰된 적 없는 토큰은 0)
+     */
+    public double score(NgramArtifact artifact, List<Integer> context, int token) {
+        int top = Math.min(artifact.getN(), context.size() + 1);
+        String[] keys = contextKeys(context, top);
+        return score(artifact, indexFor(artifact), keys, top, token);
+    }
+
+    /**
+     * 같은 문맥의 후보 여러 개 채점 (문맥 키는 한 번만 생성)
+     *
+     * @param candidates 후보 토큰
+     * @param scores 결과 (candidates와 같은 길이)
+     */
+    public void scoreAll(NgramArtifact artifact, List<Integer> context, int[] candidates, double[] scores) {
+        if (scores.length < candidates.length) {
+            throw new IllegalArgumentException("scores 배열이 후보 수보다 짧습니다");
+        }
+        int top = Math.min(artifact.getN(), context.size() + 1);
+        String[] keys = contextKeys(context, top);
+        ContextIndex t = indexFor(artifact);
+        for (int i = 0; i < candidates.length; i++) {
+            scores[i] = score(artifact, t, keys, top, candidates[i]);
+        }
+    }
+
+    private double score(NgramArtifact artifact, ContextIndex t, String[] keys, int top, int token) {
+        double scale = 1.0;
+        for (int order = top; order >= 1; order--) {
+            ContextCounts context = t.counts(artifact, order, keys[order]);
+            if (context != null) {
+                Integer count = context.counts.get(token);
+                if (count != null && count > 0) {
+                    return scale * count / context.total;
+                }
+            }
+            scale *= alpha;
+        }
+        return 0.0;
+    }
+
+    /**
+     * order별 문맥 키 (긴 키 하나를 만들고 앞에서부터 잘라 씀)
+     */
+    private static String[] contextKeys(List<Integer> context, int top) {
+        String[] keys = new String[top + 1];
+        StringBuilder sb = new StringBuilder();
+        for (int i = context.size() - (top - 1); i < context.size(); i++) {
+            if (sb.length() > 0) {
+                sb.append(':');
+            }
+            sb.append(context.get(i));
+        }
+        String key = sb.toString();
+        for (int order = top; order >= 1; order--) {
+            keys[order] = order == 1 ? "" : key;
+            int colon = key.indexOf(':');
+            key = colon < 0 ? "" : key.substring(colon + 1);
+        }
+        return keys;
+    }
+
+    private ContextIndex indexFor(NgramArtifact artifact) {
+        ContextIndex t = index;
+        if (t == null || t.artifact != artifact) {
+            synchronized (this) {
+                t = index;
+                if (t == null || t.artifact != artifact) {
+                    t = new ContextIndex(artifact);
+                    index = t;
+                }
+            }
+        }
+        return t;
+    }
+
+    @Override
+    public String strategyName() {
+        return "StupidBackoff";
+    }
+
+    @Override
+    public String description() {
+        return String.format("Stupid Backoff (alpha=%.2f, unnormalized scores)", alpha);
+    }
+
+    public double getAlpha() {
+        return alpha;
+    }
+
+    /**
+     * Artifact 하나의 문맥 색인 (처음 볼 때 한 번 계산)
+     *
+     * - 로드된 Artifact의 카운트 표는 Gson의 트리 맵이라 조회마다 문자열 비교가 O(log n)
+     *   → 문맥 키 → (다음 토큰 카운트, 총 카운트)를 HashMap으로 다시 색인
+     * - 근사 학습 Artifact는 sketch tail 조회가 필요하므로 색인하지 않고
+     *   getNextTokenCounts / getLowerOrderCounts를 거침
+     */
+    private static final class ContextIndex {
+        final NgramArtifact artifact;
+        final boolean direct;
+        final List<Map<String, ContextCounts>> index = new ArrayList<>();
+
+        ContextIndex(NgramArtifact artifact) {
+            this.artifact = artifact;
+            this.direct = !(artifact instanceof ApproximateNgramArtifact);
+            for (int order = 0; order <= artifact.getN(); order++) {
+                Map<String, ContextCounts> table = new HashMap<>();
+                if (direct && order >= 1) {
+                    Map<String, Map<Integer, Integer>> source = order == artifact.getN()
+                        ? artifact.getCounts()
+                        : artifact.getLowerOrderCounts().getOrDefault(order, Map.of());
+                    for (Map.Entry<String, Map<Integer, Integer>> context : source.entrySet()) {
+                        if (!context.getValue().isEmpty()) {
+                            table.put(context.getKey(), new ContextCounts(new HashMap<>(context.getValue())));
+                        }
+                    }
+                }
+                index.add(table);
+            }
+        }
+
+        ContextCounts counts(NgramArtifact artifact, int order, String key) {
+            if (direct) {
+                return index.get(order).get(key);
+            }
+            List<Integer> context = new ArrayList<>();
+            if (!key.isEmpty()) {
+                for (String part : key.split(":")) {
+                    context.add(Integer.parseInt(part));
+                }
+            }
+            Map<Integer, Integer> counts = order == artifact.getN()
+                ? artifact.getNextTokenCounts(context)
+                : artifact.getLowerOrderCounts(order, context);
+            return counts.isEmpty() ? null : new ContextCounts(counts);
+        }
+    }
+
+    /**
+     * 문맥 하나의 다음 토큰 카운트 + 총 카운트
+     */
+    private static final class ContextCounts {
+        final Map<Integer, Integer> counts;
+        final double total;
+
+        ContextCounts(Map<Integer, Integer> counts) {
+            this.counts = counts;
+            long sum = 0;
+            for (int count : counts.values()) {
+                sum += count;
+            }
+            this.total = sum;
+        }
+    }
+}
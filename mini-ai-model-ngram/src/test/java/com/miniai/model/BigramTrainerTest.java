@@ -1,5 +1,6 @@
 package com.miniai.model;
 
+import com.miniai.model.ngram.TrainingListener;
 import com.miniai.tokenizer.WhitespaceTokenizer;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
@@ -210,4 +211,37 @@ class BigramTrainerTest {
         System.out.println("\n=== 실제 문장 Bigram ===");
         trainer.printSummary(artifact, 10);
     }
+
+    @Test
+    @DisplayName("카운트 중 진행을 보고하고, interrupt 되면 중단하고 파일을 쓰지 않는다")
+    void testProgressAndInterrupt(@TempDir Path tempDir) throws Exception {
+        StringBuilder corpus = new StringBuilder();
+        for (int i = 0; i < 200_000; i++) {
+            corpus.append("w").append(i % 50).append(' ');
+        }
+        Path corpusPath = tempDir.resolve("corpus.txt");
+        Files.writeString(corpusPath, corpus);
+        WhitespaceTokenizer tokenizer = WhitespaceTokenizer.fromText(corpus.toString());
+
+        BigramTrainer trainer = new BigramTrainer(tokenizer);
+        long[] calls = new long[1];
+        trainer.setListener(new TrainingListener() {
+            @Override
+            public void onProgress(long processedTokens, long processedBytes, long totalBytes,
+                                   int completedFiles, int totalFiles) {
+                calls[0]++;
+            }
+        });
+        trainer.trainFromText(corpus.toString(), tokenizer);
+        assertTrue(calls[0] > 2, "progress calls: " + calls[0]);
+
+        Path outputPath = tempDir.resolve("bigram.json");
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(RuntimeException.class, () -> trainer.train(corpusPath, outputPath));
+        } finally {
+            Thread.interrupted();
+        }
+        assertFalse(Files.exists(outputPath));
+    }
 }
@@ -0,0 +1,136 @@
+package com.miniai.model;
+
+import com.codeai.tokenizer.CodeTokenizer;
+import com.miniai.core.types.GenerateRequest;
+import com.miniai.core.types.GenerateResponse;
+import com.miniai.model.ngram.NgramModel;
+import com.miniai.model.ngram.NgramTrainer;
+import com.miniai.model.smoothing.KneserNey;
+import com.miniai.tokenizer.WhitespaceTokenizer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Stop sequence automaton 테스트 (겹치는 패턴, 여러 토큰 stop sequence, 모델 연동)
+ */
+class StopSequenceMatcherTest {
+
+    @Test
+    @DisplayName("매 토큰마다 돌려준 길이가 직접 끝부분을 비교한 결과와 같다")
+    void testMatchesBruteForce() {
+        Random random = new Random(5);
+        List<int[]> patterns = List.of(
+            new int[]{1, 2, 1},
+            new int[]{2, 1},
+            new int[]{1, 1, 1, 2},
+            new int[]{3},
+            new int[]{2, 2, 2, 2, 2}
+        );
+        StopSequenceMatcher matcher = StopSequenceMatcher.of(patterns);
+
+        List<Integer> stream = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            int token = 1 + random.nextInt(random.nextInt(10) == 0 ? 3 : 2);
+            stream.add(token);
+
+            int expected = 0;
+            for (int[] pattern : patterns) {
+                if (endsWith(stream, pattern)) {
+                    expected = Math.max(expected, pattern.length);
+                }
+            }
+            assertEquals(expected, matcher.advance(token), "position " + i);
+        }
+
+        matcher.reset();
+        assertEquals(0, matcher.advance(1));
+        assertTrue(StopSequenceMatcher.of(List.of()).isEmpty());
+    }
+
+    private static boolean endsWith(List<Integer> stream, int[] pattern) {
+        if (stream.size() < pattern.length) {
+            return false;
+        }
+        int offset = stream.size() - pattern.length;
+        for (int i = 0; i < pattern.length; i++) {
+            if (stream.get(offset + i) != pattern[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Test
+    @DisplayName("여러 토큰 stop sequence에서 생성을 멈춘다 (NgramModel은 제외, Bigram/Trigram은 포함)")
+    void testMultiTokenStopInModels() {
+        String corpus = """
+            void a ( ) {
+                x ( ) ;
+            }
+            }
+            """;
+        CodeTokenizer tokenizer = CodeTokenizer.fromCode(corpus);
+        tokenizer.addToken(CodeTokenizer.NEWLINE_TOKEN);
+        StopSequenceMatcher matcher = StopSequenceMatcher.compile(
+            List.of("} [NL] }", "zzz", ""), tokenizer, tokenizer.getVocabulary());
+        assertEquals(4, matcher.stateCount()); // root + "}", "[NL]", "}" (zzz는 vocabulary에 없어 제외)
+
+        NgramModel ngram = new NgramModel(new NgramTrainer(3, tokenizer).trainFromText(corpus, tokenizer),
+            tokenizer, new KneserNey());
+        GenerateResponse response = ngram.generate(GenerateRequest.builder("x ( ) ;")
+            .maxTokens(20)
+            .temperature(0.1)
+            .stopSequences(List.of("}\n}"))
+            .seed(3L)
+            .build());
+        // ; [NL] } [NL] } 에서 멈추고 일치한 "} [NL] }"는 버림
+        assertEquals(1, response.getUsage().getOutputTokens());
+        assertFalse(response.getGeneratedText().contains("}"), response.getGeneratedText());
+
+        BigramModel bigram = new BigramModel(new BigramTrainer(tokenizer).trainFromText(corpus, tokenizer), tokenizer);
+        TrigramModel trigram = new TrigramModel(new TrigramTrainer(tokenizer).trainFromText(corpus, tokenizer), tokenizer);
+        for (NextTokenPredictor model : List.<NextTokenPredictor>of(bigram, trigram)) {
+            GenerateResponse included = model.generate(GenerateRequest.builder("x ( ) ;")
+                .maxTokens(20)
+                .temperature(0.1)
+                .stopSequences(List.of("} [NL] }"))
+                .seed(3L)
+                .build());
+            assertEquals(4, included.getUsage().getOutputTokens(), model.modelName());
+            assertTrue(included.getGeneratedText().endsWith("}"));
+        }
+    }
+
+    @Test
+    @DisplayName("토큰 경계에 맞지 않는 stop sequence는 디코딩한 텍스트 끝으로 찾는다 (Bigram/Trigram)")
+    void testUnalignedStopFallsBackToText() {
+        // WhitespaceTokenizer: "y;"가 토큰 하나 → ";"는 vocabulary에 없어 automaton에는 없음
+        String corpus = "x y; x y; x y; x y;";
+        WhitespaceTokenizer tokenizer = WhitespaceTokenizer.fromText(corpus);
+        StopSequenceMatcher matcher = StopSequenceMatcher.compile(List.of(";"), tokenizer, tokenizer.getVocabulary());
+        assertTrue(matcher.isEmpty());
+
+        List<Integer> tokens = tokenizer.encode("x y; x");
+        assertFalse(matcher.endsWithText(tokens));
+        assertTrue(matcher.endsWithText(tokens.subList(0, 2)));
+        assertFalse(StopSequenceMatcher.of(List.of()).endsWithText(tokens));
+
+        BigramModel bigram = new BigramModel(new BigramTrainer(tokenizer).trainFromText(corpus, tokenizer), tokenizer);
+        TrigramModel trigram = new TrigramModel(new TrigramTrainer(tokenizer).trainFromText(corpus, tokenizer), tokenizer);
+        for (NextTokenPredictor model : List.<NextTokenPredictor>of(bigram, trigram)) {
+            GenerateResponse response = model.generate(GenerateRequest.builder("x")
+                .maxTokens(20)
+                .stopSequences(List.of(";"))
+                .seed(1L)
+                .build());
+            assertEquals(1, response.getUsage().getOutputTokens(), model.modelName());
+            assertEquals("x y;", response.getGeneratedText(), model.modelName());
+        }
+    }
+}
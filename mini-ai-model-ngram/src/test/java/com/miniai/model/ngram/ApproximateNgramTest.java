@@ -0,0 +1,179 @@
+package com.miniai.model.ngram;
+
+import com.miniai.model.smoothing.KneserNey;
+import com.miniai.model.smoothing.SimpleBackoff;
+import com.miniai.tokenizer.WhitespaceTokenizer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static com.miniai.model.ngram.NgramTestSupport.parseKey;
+import static com.miniai.model.ngram.NgramTestSupport.writeCorpus;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 메모리 제한 근사 학습 테스트 (Space-Saving + Count-Min Sketch)
+ */
+class ApproximateNgramTest {
+
+    @Test
+    @DisplayName("Count-Min Sketch는 과소추정하지 않는다")
+    void testSketchNeverUnderestimates() {
+        CountMinSketch sketch = new CountMinSketch(4, 64);
+        Random random = new Random(7);
+        int[] trueCounts = new int[500];
+
+        for (int i = 0; i < 5000; i++) {
+            int item = random.nextInt(trueCounts.length);
+            trueCounts[item]++;
+            sketch.add(CountMinSketch.key("ctx", item), 1);
+        }
+
+        for (int item = 0; item < trueCounts.length; item++) {
+            assertTrue(sketch.estimate(CountMinSketch.key("ctx", item)) >= trueCounts[item]);
+        }
+        assertEquals(4 * 64 * 4, sketch.memoryBytes());
+    }
+
+    @Test
+    @DisplayName("문맥 수가 heavy 용량 이하면 정확한 학습과 카운트가 같다")
+    void testMatchesExactWhenEverythingFits(@TempDir Path tempDir) throws Exception {
+        Files.writeString(tempDir.resolve("a.txt"), "a b c a b d a b c");
+        List<Path> files = NgramTrainer.listCorpusFiles(tempDir, null);
+        WhitespaceTokenizer tokenizer = WhitespaceTokenizer.fromText(NgramTrainer.readCorpus(files));
+        NgramTrainer trainer = new NgramTrainer(3, tokenizer, 1);
+
+        NgramArtifact exact = trainer.trainFromFiles(files, tokenizer, null);
+        ApproximateNgramArtifact approx = trainer.trainApproximate(files, tokenizer, 100, 4096, null);
+
+        assertEquals(exact.getCounts(), approx.getCounts());
+        assertEquals(exact.getLowerOrderCounts(), approx.getLowerOrderCounts());
+        assertEquals(exact.getContinuationCounts(), approx.getContinuationCounts());
+        assertEquals(exact.getMetadata().getTotalTokens(), approx.getMetadata().getTotalTokens());
+    }
+
+    @Test
+    @DisplayName("근사 Artifact는 저장/로드 후에도 sketch로 tail 문맥을 조회한다")
+    void testSaveAndLoad(@TempDir Path tempDir) throws Exception {
+        Path corpusDir = Files.createDirectories(tempDir.resolve("corpus"));
+        writeCorpus(corpusDir, 4, 300);
+        Path output = tempDir.resolve("approx.json");
+
+        List<Path> files = NgramTrainer.listCorpusFiles(corpusDir, null);
+        WhitespaceTokenizer tokenizer = WhitespaceTokenizer.fromText(NgramTrainer.readCorpus(files));
+        NgramTrainer trainer = new NgramTrainer(3, tokenizer, 2);
+        trainer.trainApproximateAndSave(corpusDir, null, output, 16, 16 * 1024);
+
+        NgramModel model = NgramModel.fromArtifact(output, new KneserNey());
+        assertTrue(model.getArtifact() instanceof ApproximateNgramArtifact);
+
+        ApproximateNgramArtifact loaded = (ApproximateNgramArtifact) model.getArtifact();
+        assertEquals(16 * 1024, loaded.getSketchBytes());
+        assertTrue(loaded.getCounts().size() <= 16);
+
+        // 정확한 테이블에서 밀려난 문맥도 sketch에서 다음 토큰 후보를 찾음
+        ApproximateNgramArtifact trained = trainer.trainApproximate(files, tokenizer, 16, 16 * 1024, null);
+        NgramArtifact exact = trainer.trainFromFiles(files, tokenizer, null);
+        int tailHits = 0;
+        for (String key : exact.getCounts().keySet()) {
+            if (!trained.getCounts().containsKey(key)) {
+                List<Integer> context = parseKey(key);
+                if (!loaded.getNextTokenCounts(context).isEmpty()) {
+                    tailHits++;
+                }
+            }
+        }
+        assertTrue(tailHits > 0);
+    }
+
+    @Test
+    @DisplayName("학습 중에 나온 적 없는 문맥은 sketch 충돌로 카운트를 만들지 않고 backoff한다")
+    void testUnseenContextsBackOff(@TempDir Path tempDir) throws Exception {
+        Path corpusDir = Files.createDirectories(tempDir.resolve("corpus"));
+        writeCorpus(corpusDir, 4, 300);
+        List<Path> files = NgramTrainer.listCorpusFiles(corpusDir, null);
+        WhitespaceTokenizer tokenizer = WhitespaceTokenizer.fromText(NgramTrainer.readCorpus(files));
+        NgramTrainer trainer = new NgramTrainer(3, tokenizer, 2);
+
+        // 작은 sketch → 충돌이 많아 거의 모든 키가 양수로 추정됨
+        ApproximateNgramArtifact approx = trainer.trainApproximate(files, tokenizer, 16, 8 * 1024, null);
+        NgramArtifact exact = trainer.trainFromFiles(files, tokenizer, null);
+
+        List<List<Integer>> unseen = new ArrayList<>();
+        Random random = new Random(3);
+        while (unseen.size() < 300) {
+            List<Integer> context = List.of(random.nextInt(tokenizer.vocabSize()), random.nextInt(tokenizer.vocabSize()));
+            if (!exact.getCounts().containsKey(NgramArtifact.makeKey(context))) {
+                unseen.add(context);
+            }
+        }
+        int invented = countNonEmpty(approx, unseen);
+
+        // presence filter 없이 (옛 Artifact) sketch만 보면 훨씬 많은 문맥에 카운트를 만들어 냄
+        Map<Integer, BloomFilter> presence = approx.getPresence();
+        approx.setPresence(null);
+        int inventedWithoutFilter = countNonEmpty(approx, unseen);
+        approx.setPresence(presence);
+
+        assertTrue(invented * 4 < inventedWithoutFilter,
+            "invented=" + invented + " withoutFilter=" + inventedWithoutFilter);
+
+        // 실제로 나온 tail 문맥은 여전히 sketch에서 찾음
+        int tailHits = 0;
+        for (String key : exact.getCounts().keySet()) {
+            if (!approx.getCounts().containsKey(key) && !approx.getNextTokenCounts(parseKey(key)).isEmpty()) {
+                tailHits++;
+            }
+        }
+        assertTrue(tailHits > 0);
+    }
+
+    @Test
+    @DisplayName("근사 학습의 held-out perplexity는 정확한 학습과 크게 다르지 않다")
+    void testPerplexityDelta(@TempDir Path tempDir) throws Exception {
+        Path corpusDir = Files.createDirectories(tempDir.resolve("corpus"));
+        writeCorpus(corpusDir, 8, 400);
+
+        List<Path> all = NgramTrainer.listCorpusFiles(corpusDir, null);
+        List<Path> trainFiles = all.subList(0, all.size() - 1);
+        String heldOut = Files.readString(all.get(all.size() - 1));
+
+        WhitespaceTokenizer tokenizer = WhitespaceTokenizer.fromText(NgramTrainer.readCorpus(all));
+        NgramTrainer trainer = new NgramTrainer(3, tokenizer, 2);
+
+        NgramArtifact exact = trainer.trainFromFiles(trainFiles, tokenizer, null);
+        ApproximateNgramArtifact approx = trainer.trainApproximate(trainFiles, tokenizer, 64, 64 * 1024, null);
+
+        double exactPpl = new NgramModel(exact, tokenizer, new SimpleBackoff()).perplexity(heldOut);
+        double approxPpl = new NgramModel(approx, tokenizer, new SimpleBackoff()).perplexity(heldOut);
+
+        int exactContexts = exact.getCounts().size() + exact.getLowerOrderCounts().get(2).size();
+        System.out.printf("Exact:  %d contexts, perplexity %.2f%n", exactContexts, exactPpl);
+        System.out.printf("Approx: %d contexts + %dKB sketch, perplexity %.2f (Δ %+.1f%%)%n",
+            approx.getExactContextCount() - 1, approx.getSketchBytes() / 1024, approxPpl,
+            (approxPpl - exactPpl) / exactPpl * 100);
+
+        assertTrue(approx.getCounts().size() <= 64);
+        assertTrue(exactContexts > 2 * 64);
+        assertTrue(Double.isFinite(approxPpl));
+        assertTrue(approxPpl < exactPpl * 1.5);
+    }
+
+
+    private static int countNonEmpty(ApproximateNgramArtifact artifact, List<List<Integer>> contexts) {
+        int nonEmpty = 0;
+        for (List<Integer> context : contexts) {
+            if (!artifact.getNextTokenCounts(context).isEmpty()) {
+                nonEmpty++;
+            }
+        }
+        return nonEmpty;
+    }
+}
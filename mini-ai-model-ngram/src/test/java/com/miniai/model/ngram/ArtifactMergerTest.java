@@ -0,0 +1,116 @@
+package com.miniai.model.ngram;
+
+import com.miniai.tokenizer.WhitespaceTokenizer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Artifact 병합 / 증분 학습 테스트
+ */
+class ArtifactMergerTest {
+
+    private static final String CORPUS_A = "the cat sat on the mat";
+    private static final String CORPUS_B = "the dog sat on the log";
+
+    @Test
+    @DisplayName("vocabulary가 다른 shard를 병합하면 전체 학습과 같은 카운트가 된다")
+    void testMergeMatchesFullTraining(@TempDir Path tempDir) throws Exception {
+        Path a = tempDir.resolve("a.txt");
+        Path b = tempDir.resolve("b.txt");
+        Files.writeString(a, CORPUS_A);
+        Files.writeString(b, CORPUS_B);
+
+        NgramArtifact shardA = train(List.of(a));
+        NgramArtifact shardB = train(List.of(b));
+        NgramArtifact full = train(List.of(a, b));
+
+        NgramArtifact merged = ArtifactMerger.mergeAll(List.of(shardA, shardB));
+
+        assertEquals(wordCounts(full, full.getCounts()), wordCounts(merged, merged.getCounts()));
+        for (int order = 1; order < 3; order++) {
+            assertEquals(
+                wordCounts(full, full.getLowerOrderCounts().get(order)),
+                wordCounts(merged, merged.getLowerOrderCounts().get(order)));
+        }
+        assertEquals(wordContinuation(full), wordContinuation(merged));
+        assertEquals(full.getVocabulary().keySet(), merged.getVocabulary().keySet());
+        assertEquals(full.getMetadata().getTotalTokens(), merged.getMetadata().getTotalTokens());
+    }
+
+    @Test
+    @DisplayName("증분 학습은 새 파일만 세어서 기존 Artifact에 병합한다")
+    void testIncrementalTraining(@TempDir Path tempDir) throws Exception {
+        Path a = tempDir.resolve("a.txt");
+        Files.writeString(a, CORPUS_A);
+        Path newDir = Files.createDirectories(tempDir.resolve("new"));
+        Files.writeString(newDir.resolve("b.txt"), CORPUS_B);
+
+        WhitespaceTokenizer tokenizer = WhitespaceTokenizer.fromText(CORPUS_A);
+        NgramTrainer trainer = new NgramTrainer(3, tokenizer);
+        Path artifactPath = tempDir.resolve("model.json");
+        trainer.train(a, artifactPath);
+
+        TrainingSummary summary = trainer.trainIncremental(artifactPath, newDir, null, artifactPath);
+        NgramArtifact updated = NgramTrainer.loadArtifact(artifactPath);
+
+        assertEquals(1, summary.getFileCount());
+        assertTrue(updated.getVocabulary().containsKey("dog"));
+        assertEquals(12, updated.getMetadata().getTotalTokens());
+
+        // "sat on" → "the"는 두 코퍼스에서 한 번씩
+        Map<String, Integer> vocab = updated.getVocabulary();
+        assertEquals(2, updated.getCount(List.of(vocab.get("sat"), vocab.get("on")), vocab.get("the")));
+    }
+
+    @Test
+    @DisplayName("N이 다른 Artifact는 병합할 수 없다")
+    void testMismatchedOrderRejected() {
+        assertThrows(IllegalArgumentException.class,
+            () -> ArtifactMerger.mergeInto(new NgramArtifact(3), new NgramArtifact(5)));
+    }
+
+    private NgramArtifact train(List<Path> files) throws Exception {
+        WhitespaceTokenizer tokenizer = WhitespaceTokenizer.fromText(NgramTrainer.readCorpus(files));
+        return new NgramTrainer(3, tokenizer).trainFromFiles(files, tokenizer, null);
+    }
+
+    /**
+     * ID 기반 카운트를 단어 기반으로 변환 (vocabulary가 달라도 비교 가능)
+     */
+    private Map<String, Integer> wordCounts(NgramArtifact artifact, Map<String, Map<Integer, Integer>> counts) {
+        Map<Integer, String> words = reverse(artifact);
+        Map<String, Integer> result = new HashMap<>();
+        counts.forEach((key, nextCounts) -> {
+            StringBuilder context = new StringBuilder();
+            if (!key.isEmpty()) {
+                for (String id : key.split(":")) {
+                    context.append(words.get(Integer.parseInt(id))).append(' ');
+                }
+            }
+            nextCounts.forEach((next, count) -> result.put(context + "→ " + words.get(next), count));
+        });
+        return result;
+    }
+
+    private Map<String, Integer> wordContinuation(NgramArtifact artifact) {
+        Map<Integer, String> words = reverse(artifact);
+        Map<String, Integer> result = new HashMap<>();
+        artifact.getContinuationCounts().forEach((id, count) -> result.put(words.get(id), count));
+        return result;
+    }
+
+    private Map<Integer, String> reverse(NgramArtifact artifact) {
+        Map<Integer, String> words = new HashMap<>();
+        artifact.getVocabulary().forEach((word, id) -> words.put(id, word));
+        return words;
+    }
+}
@@ -0,0 +1,140 @@
+package com.miniai.model.ngram;
+
+import com.miniai.model.smoothing.SimpleBackoff;
+import com.miniai.tokenizer.WhitespaceTokenizer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static com.miniai.model.ngram.NgramTestSupport.writeCorpus;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Artifact 가지치기 테스트 (count cutoff + relative entropy)
+ */
+class ArtifactPrunerTest {
+
+    @Test
+    @DisplayName("Count cutoff는 상위 N-gram의 문맥이 아닌 singleton만 지운다")
+    void testCountCutoff() {
+        WhitespaceTokenizer tokenizer = WhitespaceTokenizer.fromText("a b c d");
+        NgramTrainer trainer = new NgramTrainer(3, tokenizer);
+        NgramArtifact artifact = trainer.trainFromText("a b c a b c a b d", tokenizer);
+
+        int a = tokenizer.getTokenId("a");
+        int b = tokenizer.getTokenId("b");
+        int c = tokenizer.getTokenId("c");
+        int d = tokenizer.getTokenId("d");
+
+        ArtifactPruner.Report report = new ArtifactPruner()
+            .minCount(3, 2)
+            .minCount(2, 2)
+            .prune(artifact);
+
+        // Trigram "a b d" (1회) 제거, "a b c" (2회) 유지
+        assertEquals(0, artifact.getCount(List.of(a, b), d));
+        assertEquals(2, artifact.getCount(List.of(a, b), c));
+        // Bigram "b d" (1회)는 지워지고, "c a" (2회)는 유지
+        assertFalse(artifact.getLowerOrderCounts(2, List.of(b)).containsKey(d));
+        assertEquals(2, artifact.getLowerOrderCounts(2, List.of(c)).get(a));
+        // Unigram은 그대로
+        assertEquals(1, artifact.getLowerOrderCounts(1, List.of()).get(d));
+
+        assertEquals(2, report.getRemovedByCutoff());
+        assertEquals(report.getNgramsBefore() - 2, report.getNgramsAfter());
+        System.out.println(report);
+    }
+
+    @Test
+    @DisplayName("상위 N-gram이 남아 있으면 그 문맥이 되는 하위 N-gram은 지우지 않는다")
+    void testKeepsContextsOfHigherOrders() {
+        WhitespaceTokenizer tokenizer = WhitespaceTokenizer.fromText("x y z");
+        NgramTrainer trainer = new NgramTrainer(3, tokenizer);
+        NgramArtifact artifact = trainer.trainFromText("x y z x y z", tokenizer);
+
+        int x = tokenizer.getTokenId("x");
+        int y = tokenizer.getTokenId("y");
+
+        // 모든 bigram이 cutoff 대상이지만 trigram은 남김
+        new ArtifactPruner().minCount(2, 100).prune(artifact);
+
+        // Trigram 문맥 "x y"가 남아 있으므로 bigram "x → y"도 남음
+        assertTrue(artifact.getCounts().containsKey(NgramArtifact.makeKey(x, y)));
+        assertEquals(2, artifact.getLowerOrderCounts(2, List.of(x)).get(y));
+    }
+
+    @Test
+    @DisplayName("크기 예산까지 점수가 낮은 N-gram부터 지운다")
+    void testSizeBudget(@TempDir Path tempDir) throws Exception {
+        Path corpusDir = Files.createDirectories(tempDir.resolve("corpus"));
+        writeCorpus(corpusDir, 3, 300);
+        List<Path> files = NgramTrainer.listCorpusFiles(corpusDir, null);
+        WhitespaceTokenizer tokenizer = WhitespaceTokenizer.fromText(NgramTrainer.readCorpus(files));
+        NgramArtifact artifact = new NgramTrainer(4, tokenizer, 2).trainFromFiles(files, tokenizer, null);
+
+        long before = ArtifactPruner.countNgrams(artifact);
+        ArtifactPruner.Report report = new ArtifactPruner().maxNgrams(before / 4).prune(artifact);
+
+        assertTrue(report.getNgramsAfter() <= before / 4);
+        assertEquals(report.getNgramsAfter(), ArtifactPruner.countNgrams(artifact));
+        report.print();
+    }
+
+    @Test
+    @DisplayName("Cutoff + perplexity 예산으로 가지치기하면 크기는 크게 줄고 held-out perplexity는 조금만 오른다")
+    void testPerplexityBudget(@TempDir Path tempDir) throws Exception {
+        Path corpusDir = Files.createDirectories(tempDir.resolve("corpus"));
+        writeCorpus(corpusDir, 6, 400);
+
+        List<Path> all = NgramTrainer.listCorpusFiles(corpusDir, null);
+        List<Path> trainFiles = all.subList(0, all.size() - 1);
+        String heldOut = Files.readString(all.get(all.size() - 1));
+        WhitespaceTokenizer tokenizer = WhitespaceTokenizer.fromText(NgramTrainer.readCorpus(all));
+        NgramTrainer trainer = new NgramTrainer(4, tokenizer, 2);
+
+        NgramArtifact exact = trainer.trainFromFiles(trainFiles, tokenizer, null);
+        double exactPpl = new NgramModel(exact, tokenizer, new SimpleBackoff()).perplexity(heldOut);
+
+        NgramArtifact pruned = trainer.trainFromFiles(trainFiles, tokenizer, null);
+        ArtifactPruner.Report report = new ArtifactPruner()
+            .minCount(4, 2)
+            .maxPerplexityIncrease(0.05)
+            .prune(pruned);
+        double prunedPpl = new NgramModel(pruned, tokenizer, new SimpleBackoff()).perplexity(heldOut);
+
+        report.print();
+        System.out.printf("Held-out perplexity: %.2f → %.2f (%+.1f%%)%n",
+            exactPpl, prunedPpl, (prunedPpl - exactPpl) / exactPpl * 100);
+
+        assertTrue(report.getRemovedByEntropy() > 0);
+        assertTrue(report.getNgramsAfter() < report.getNgramsBefore() * 0.7);
+        assertTrue(prunedPpl < exactPpl * 1.1);
+    }
+
+    @Test
+    @DisplayName("학습기에 pruner를 지정하면 저장된 Artifact가 가지치기된다")
+    void testPruneOnSave(@TempDir Path tempDir) throws Exception {
+        Path corpusDir = Files.createDirectories(tempDir.resolve("corpus"));
+        writeCorpus(corpusDir, 2, 200);
+        List<Path> files = NgramTrainer.listCorpusFiles(corpusDir, null);
+        WhitespaceTokenizer tokenizer = WhitespaceTokenizer.fromText(NgramTrainer.readCorpus(files));
+
+        NgramTrainer trainer = new NgramTrainer(3, tokenizer, 2);
+        Path full = tempDir.resolve("full.json");
+        trainer.trainAndSave(corpusDir, null, full);
+
+        trainer.setPruner(new ArtifactPruner().minCount(3, 2));
+        Path pruned = tempDir.resolve("pruned.json");
+        trainer.trainAndSave(corpusDir, null, pruned);
+
+        assertTrue(Files.size(pruned) < Files.size(full));
+        NgramArtifact loaded = NgramTrainer.loadArtifact(pruned);
+        assertTrue(loaded.getCounts().values().stream()
+            .flatMap(m -> m.values().stream())
+            .allMatch(count -> count >= 2));
+    }
+}
@@ -0,0 +1,121 @@
+package com.miniai.model.ngram;
+
+import com.miniai.model.smoothing.KneserNey;
+import com.miniai.model.smoothing.ModifiedKneserNey;
+import com.miniai.model.smoothing.SimpleBackoff;
+import com.miniai.model.smoothing.SmoothingStrategy;
+import com.miniai.model.smoothing.StupidBackoff;
+import com.miniai.tokenizer.WhitespaceTokenizer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 생성 루프용 문맥 커서 테스트 (ring buffer + order별 해시 조회)
+ */
+class ContextCursorTest {
+
+    private WhitespaceTokenizer tokenizer;
+    private NgramArtifact artifact;
+    private List<Integer> heldOut;
+
+    @BeforeEach
+    void setUp() {
+        StringBuilder corpus = new StringBuilder();
+        Random random = new Random(7);
+        for (int i = 0; i < 3000; i++) {
+            corpus.append("w").append(random.nextInt(40)).append(' ');
+        }
+        tokenizer = WhitespaceTokenizer.fromText(corpus.toString());
+        artifact = new NgramTrainer(4, tokenizer).trainFromText(corpus.toString(), tokenizer);
+        heldOut = tokenizer.encode(corpus.substring(0, 600) + " w3 w1 w4 w1 w5");
+    }
+
+    @Test
+    @DisplayName("가득 차면 가장 오래된 토큰을 밀어내고 order별 해시를 갱신한다")
+    void testRingBuffer() {
+        ContextCursor cursor = ContextCursor.of(4, List.of(1, 2, 3, 4, 5));
+        assertEquals(List.of(3, 4, 5), cursor.toList());
+
+        cursor.append(6);
+        assertEquals(List.of(4, 5, 6), cursor.toList());
+        assertEquals(List.of(5, 6), cursor.suffix(2));
+        assertEquals(4, cursor.get(3, 0));
+
+        for (int length = 0; length <= 3; length++) {
+            int[] suffix = cursor.suffix(length).stream().mapToInt(Integer::intValue).toArray();
+            assertEquals(ContextCursor.hashOf(suffix), cursor.hash(length));
+        }
+
+        cursor.reset();
+        assertEquals(0, cursor.size());
+        assertThrows(IndexOutOfBoundsException.class, () -> cursor.hash(1));
+    }
+
+    @Test
+    @DisplayName("커서 조회는 문자열 키 조회와 같은 카운트 Map을 돌려준다")
+    void testLookupsMatchStringKeys() {
+        ContextCursor cursor = new ContextCursor(artifact.getN());
+        List<Integer> tokens = new ArrayList<>();
+        for (int token : heldOut) {
+            cursor.append(token);
+            tokens.add(token);
+            List<Integer> context = tokens.subList(Math.max(0, tokens.size() - 3), tokens.size());
+
+            if (context.size() == 3) {
+                assertEquals(artifact.getNextTokenCounts(context), artifact.getNextTokenCounts(cursor));
+            }
+            for (int order = 1; order <= Math.min(3, context.size() + 1); order++) {
+                List<Integer> suffix = context.subList(context.size() - (order - 1), context.size());
+                assertEquals(artifact.getLowerOrderCounts(order, suffix),
+                    artifact.getLowerOrderCounts(order, cursor), "order " + order + " " + suffix);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("모든 smoothing 전략에서 커서 분포가 List 분포와 같다 (짧은 프롬프트 포함)")
+    void testStrategiesMatchListPath() {
+        SmoothingStrategy[] strategies = {
+            new SimpleBackoff(), new KneserNey(), new ModifiedKneserNey(), new StupidBackoff()
+        };
+        for (SmoothingStrategy smoothing : strategies) {
+            ContextCursor cursor = new ContextCursor(artifact.getN());
+            for (int i = 0; i < heldOut.size(); i++) {
+                List<Integer> context = heldOut.subList(Math.max(0, i - 3), i);
+                assertEquals(smoothing.getSmoothedProbabilities(artifact, context),
+                    smoothing.getSmoothedProbabilities(artifact, cursor),
+                    smoothing.strategyName() + " at " + i);
+                cursor.append(heldOut.get(i));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("근사 Artifact도 정확한 표에 없는 문맥은 sketch로 추정한다")
+    void testApproximateArtifact(@TempDir Path tempDir) throws Exception {
+        Files.writeString(tempDir.resolve("corpus.txt"), tokenizer.decode(heldOut));
+        List<Path> files = NgramTrainer.listCorpusFiles(tempDir, null);
+        ApproximateNgramArtifact approx = new NgramTrainer(3, tokenizer, 1)
+            .trainApproximate(files, tokenizer, 16, 16 * 1024, null);
+
+        ContextCursor cursor = new ContextCursor(3);
+        SimpleBackoff smoothing = new SimpleBackoff();
+        for (int i = 0; i < heldOut.size(); i++) {
+            List<Integer> context = heldOut.subList(Math.max(0, i - 2), i);
+            assertEquals(approx.getNextTokenCounts(context), approx.getNextTokenCounts(cursor));
+            assertEquals(smoothing.getSmoothedProbabilities(approx, context),
+                smoothing.getSmoothedProbabilities(approx, cursor));
+            cursor.append(heldOut.get(i));
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.miniai.model.ngram;
+
+import com.miniai.core.types.GenerateRequest;
+import com.miniai.core.types.GenerateResponse;
+import com.miniai.model.BigramModel;
+import com.miniai.model.BigramTrainer;
+import com.miniai.model.NextTokenPredictor;
+import com.miniai.model.TrigramModel;
+import com.miniai.model.TrigramTrainer;
+import com.miniai.model.smoothing.KneserNey;
+import com.miniai.tokenizer.WhitespaceTokenizer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 앙상블 모델 테스트 (EM 가중치, 동시 조회 결과, top-K 병합, 설정 저장)
+ */
+class EnsembleModelTest {
+
+    private String corpus;
+    private String heldOut;
+    private WhitespaceTokenizer tokenizer;
+
+    @BeforeEach
+    void setUp() {
+        Random random = new Random(17);
+        String[] lines = {
+            "for ( int i = 0 ; i < n ; i ++ ) {",
+            "if ( x == null ) { return null ; }",
+            "public int getCount ( ) { return count ; }",
+            "list . add ( item ) ;",
+            "while ( it . hasNext ( ) ) { it . next ( ) ; }"
+        };
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 400; i++) {
+            text.append(lines[random.nextInt(lines.length)]).append(' ');
+        }
+        corpus = text.toString();
+        heldOut = corpus.substring(0, 800);
+        tokenizer = WhitespaceTokenizer.fromText(corpus);
+    }
+
+    private NgramModel ngram(String text, int n) {
+        return new NgramModel(new NgramTrainer(n, tokenizer).trainFromText(text, tokenizer), tokenizer, new KneserNey());
+    }
+
+    /**
+     * 같은 vocabulary로 토큰 순서만 섞은 코퍼스 (쓸모없는 멤버)
+     */
+    private String shuffledCorpus() {
+        List<String> words = new ArrayList<>(List.of(corpus.split(" ")));
+        Collections.shuffle(words, new Random(3));
+        return String.join(" ", words);
+    }
+
+    @Test
+    @DisplayName("EM은 held-out을 잘 맞히는 멤버에 큰 가중치를 주고 perplexity를 낮춘다")
+    void testEmWeights() {
+        NgramModel good = ngram(corpus, 4);
+        NgramModel bad = ngram(shuffledCorpus(), 2);
+        EnsembleModel ensemble = new EnsembleModel(List.of(bad, good));
+
+        double uniform = ensemble.perplexity(heldOut);
+        double[] weights = ensemble.tuneWeights(heldOut, 100);
+
+        assertEquals(1.0, weights[0] + weights[1], 1e-9);
+        assertTrue(weights[1] > 0.8, "good weight " + weights[1]);
+        assertTrue(ensemble.perplexity(heldOut) < uniform);
+        assertTrue(ensemble.perplexity(heldOut) < new EnsembleModel(List.of(bad)).perplexity(heldOut));
+    }
+
+    @Test
+    @DisplayName("동시 조회로 섞은 분포가 멤버 분포의 가중합과 같고, top-K는 가장 큰 K개다")
+    void testMixtureAndTopK() {
+        BigramModel bigram = new BigramModel(new BigramTrainer(tokenizer).trainFromText(corpus, tokenizer), tokenizer);
+        TrigramModel trigram = new TrigramModel(new TrigramTrainer(tokenizer).trainFromText(corpus, tokenizer), tokenizer);
+        NgramModel kn = ngram(corpus, 4);
+        List<NextTokenPredictor> members = List.of(bigram, trigram, kn);
+        double[] weights = {0.2, 0.3, 0.5};
+        EnsembleModel ensemble = new EnsembleModel(members, weights, List.of());
+
+        List<Integer> tokens = tokenizer.encode(heldOut);
+        for (int t = 1; t < 60; t++) {
+            List<Integer> context = tokens.subList(0, t);
+            Map<Integer, Double> expected = new HashMap<>();
+            for (int i = 0; i < members.size(); i++) {
+                Map<Integer, Double> p = members.get(i).nextTokenProbabilities(context);
+                double total = p.values().stream().mapToDouble(Double::doubleValue).sum();
+                for (Map.Entry<Integer, Double> e : p.entrySet()) {
+                    expected.merge(e.getKey(), weights[i] * e.getValue() / total, Double::sum);
+                }
+            }
+            Map<Integer, Double> mixed = ensemble.nextTokenProbabilities(context);
+            assertEquals(expected.keySet(), mixed.keySet());
+            for (Map.Entry<Integer, Double> e : expected.entrySet()) {
+                assertEquals(e.getValue(), mixed.get(e.getKey()), 1e-12);
+            }
+
+            Map<Integer, Double> top = EnsembleModel.topK(mixed, 3);
+            assertEquals(Math.min(3, mixed.size()), top.size());
+            double smallestKept = top.values().stream().mapToDouble(Double::doubleValue).min().orElse(0);
+            long larger = mixed.values().stream().filter(p -> p > smallestKept).count();
+            assertTrue(larger < 3);
+        }
+
+        GenerateResponse response = ensemble.generate(GenerateRequest.builder("for ( int i = 0 ;")
+            .maxTokens(5).topK(3).seed(1L).build());
+        assertEquals(5, response.getUsage().getOutputTokens());
+        assertEquals("ensemble(bigram-v1+trigram-v1+4-gram-v1)", response.getModel());
+    }
+
+    @Test
+    @DisplayName("설정을 저장하고 다시 읽으면 같은 멤버와 가중치, vocabulary가 다르면 거절")
+    void testSaveAndLoad(@TempDir Path tempDir) throws Exception {
+        Path corpusPath = Files.writeString(tempDir.resolve("corpus.txt"), corpus);
+        Path bigramPath = tempDir.resolve("bigram.json");
+        Path ngramPath = tempDir.resolve("4gram.json");
+        new BigramTrainer(tokenizer).train(corpusPath, bigramPath);
+        new NgramTrainer(4, tokenizer).trainAndSave(corpusPath, null, ngramPath);
+
+        EnsembleModel ensemble = EnsembleModel.fromArtifacts(List.of(bigramPath, ngramPath), new KneserNey());
+        assertInstanceOf(BigramModel.class, ensemble.getMembers().get(0));
+        assertInstanceOf(NgramModel.class, ensemble.getMembers().get(1));
+        ensemble.tuneWeights(heldOut, 50);
+
+        Path configPath = tempDir.resolve("ensemble.json");
+        EnsembleModel.save(ensemble, "kneser-ney", configPath);
+        EnsembleModel loaded = EnsembleModel.load(configPath);
+        assertArrayEquals(ensemble.getWeights(), loaded.getWeights(), 1e-12);
+        assertEquals(ensemble.modelName(), loaded.modelName());
+        assertEquals(ensemble.perplexity(heldOut), loaded.perplexity(heldOut), 1e-9);
+
+        WhitespaceTokenizer other = WhitespaceTokenizer.fromText("completely different words here");
+        NgramModel foreign = new NgramModel(new NgramTrainer(2, other).trainFromText("different words", other), other);
+        assertThrows(IllegalArgumentException.class, () -> new EnsembleModel(List.of(ensemble.getMembers().get(1), foreign)));
+        assertThrows(IllegalArgumentException.class, () -> ensemble.setWeights(new double[]{1.0}));
+    }
+}
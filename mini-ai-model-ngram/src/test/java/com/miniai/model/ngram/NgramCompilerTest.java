@@ -0,0 +1,173 @@
+package com.miniai.model.ngram;
+
+import com.codeai.tokenizer.CodeTokenizer;
+import com.miniai.core.types.GenerateRequest;
+import com.miniai.core.types.GenerateResponse;
+import com.miniai.model.smoothing.KneserNey;
+import com.miniai.model.smoothing.SimpleBackoff;
+import com.miniai.model.smoothing.SmoothingStrategy;
+import com.miniai.tokenizer.WhitespaceTokenizer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static com.miniai.model.ngram.NgramTestSupport.normalize;
+import static com.miniai.model.ngram.NgramTestSupport.parseKey;
+import static com.miniai.model.ngram.NgramTestSupport.writeCorpus;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 서빙용 컴파일 테스트 (양자화된 log 확률)
+ */
+class NgramCompilerTest {
+
+    private String corpus;
+    private String heldOut;
+    private CodeTokenizer tokenizer;
+    private NgramArtifact artifact;
+
+    @BeforeEach
+    void setUp() {
+        corpus = """
+            public class User {
+            private String name;
+            public String getName() {
+            return name;
+            }
+            public void setName(String name) {
+            this.name = name;
+            }
+            }
+            for (int i = 0; i < 10; i++) {
+            System.out.println(i);
+            }
+            if (value != null) {
+            return value;
+            }
+            for (int j = 0; j < 100; j++) {
+            process(j);
+            }
+            """;
+        heldOut = """
+            public String getValue() {
+            return value;
+            }
+            for (int k = 0; k < 10; k++) {
+            System.out.println(k);
+            }
+            """;
+        tokenizer = CodeTokenizer.fromCode(corpus + heldOut);
+        artifact = new NgramTrainer(4, tokenizer).trainFromText(corpus, tokenizer);
+    }
+
+    @Test
+    @DisplayName("Kneser-Ney 컴파일 결과는 양자화 오차 안에서 원래 확률과 같다")
+    void testKneserNeyMatchesWithinQuantizationError() {
+        KneserNey kn = new KneserNey();
+        CompiledNgramArtifact q16 = NgramCompiler.compile(artifact, kn, 16);
+        CompiledNgramArtifact q8 = NgramCompiler.compile(artifact, kn, 8);
+
+        double maxError16 = 0;
+        double maxError8 = 0;
+        for (String key : artifact.getCounts().keySet()) {
+            List<Integer> context = parseKey(key);
+            Map<Integer, Double> expected = normalize(kn.getSmoothedProbabilities(artifact, context));
+            for (Map.Entry<Integer, Double> e : expected.entrySet()) {
+                maxError16 = Math.max(maxError16,
+                    Math.abs(Math.log(q16.getProbability(context, e.getKey()) / e.getValue())));
+                maxError8 = Math.max(maxError8,
+                    Math.abs(Math.log(q8.getProbability(context, e.getKey()) / e.getValue())));
+            }
+        }
+
+        System.out.printf("max |log ratio|: 16-bit %.5f, 8-bit %.4f%n", maxError16, maxError8);
+        assertTrue(maxError16 < 0.01);
+        assertTrue(maxError8 < 0.2);
+    }
+
+    @Test
+    @DisplayName("분포 조회와 토큰 하나 조회가 같은 값을 준다")
+    void testDistributionMatchesPointLookup() {
+        CompiledNgramArtifact compiled = NgramCompiler.compile(artifact, new SimpleBackoff(), 8);
+        List<Integer> context = tokenizer.encode("for (int i =");
+        context = context.subList(context.size() - 3, context.size());
+
+        Map<Integer, Double> distribution = compiled.getProbabilities(context);
+        assertFalse(distribution.isEmpty());
+        for (Map.Entry<Integer, Double> e : distribution.entrySet()) {
+            assertEquals(e.getValue(), compiled.getProbability(context, e.getKey()), 1e-12);
+        }
+    }
+
+    @Test
+    @DisplayName("컴파일된 모델은 primitive 카운트 저장보다 작고 perplexity는 거의 같다")
+    void testFootprintAndPerplexity(@TempDir Path tempDir) throws Exception {
+        // codebook(8비트 1KB)이 의미 없을 만큼 큰 합성 코퍼스
+        Path corpusDir = Files.createDirectories(tempDir.resolve("corpus"));
+        writeCorpus(corpusDir, 6, 400);
+        List<Path> all = NgramTrainer.listCorpusFiles(corpusDir, null);
+        List<Path> trainFiles = all.subList(0, all.size() - 1);
+        String heldOutText = Files.readString(all.get(all.size() - 1));
+        WhitespaceTokenizer words = WhitespaceTokenizer.fromText(NgramTrainer.readCorpus(all));
+        NgramArtifact large = new NgramTrainer(4, words, 2).trainFromFiles(trainFiles, words, null);
+
+        // 기준: 항목마다 토큰 int + 카운트 int
+        long entries = ArtifactPruner.countNgrams(large) + large.getLowerOrderCounts(1, List.of()).size();
+        long primitiveBytes = entries * 2 * Integer.BYTES;
+
+        for (SmoothingStrategy smoothing : List.of(new SimpleBackoff(), new KneserNey())) {
+            CompiledNgramArtifact compiled = NgramCompiler.compile(large, smoothing, 8);
+
+            double original = new NgramModel(large, words, smoothing).perplexity(heldOutText);
+            double quantized = new NgramModel(compiled, words).perplexity(heldOutText);
+
+            System.out.printf("%s: counts %dB → compiled %dB (heap %dB / %dB), perplexity %.3f → %.3f%n",
+                smoothing.strategyName(), primitiveBytes, compiled.payloadBytes(),
+                compiled.memoryBytes(), large.estimateMemoryBytes(), original, quantized);
+
+            assertTrue(compiled.payloadBytes() < primitiveBytes * 0.75);
+            // 힙 추정은 payload보다 크고, 박싱된 카운트 테이블보다는 작아야 함
+            assertTrue(compiled.memoryBytes() > compiled.payloadBytes());
+            assertTrue(compiled.memoryBytes() < large.estimateMemoryBytes());
+            assertEquals(original, quantized, original * 0.1);
+        }
+    }
+
+    @Test
+    @DisplayName("컴파일된 Artifact를 저장하고 fromArtifact로 로드해서 생성한다")
+    void testSaveLoadAndGenerate(@TempDir Path tempDir) throws Exception {
+        CompiledNgramArtifact compiled = NgramCompiler.compile(artifact, new KneserNey(), 8);
+        Path path = tempDir.resolve("compiled.json");
+        NgramCompiler.save(compiled, path);
+
+        NgramModel model = NgramModel.fromArtifact(path);
+        assertNotNull(model.getCompiled());
+        assertNull(model.getArtifact());
+        assertEquals("4-gram-q8-v1", model.modelName());
+
+        GenerateRequest request = GenerateRequest.builder("for (int i =")
+            .maxTokens(10)
+            .seed(42L)
+            .build();
+        GenerateResponse response = model.generate(request);
+
+        assertTrue(response.getUsage().getOutputTokens() > 0);
+        System.out.println("Generated: " + response.getGeneratedText());
+    }
+
+    @Test
+    @DisplayName("codebook은 오름차순이고 가장 가까운 값으로 인코딩한다")
+    void testCodebook() {
+        float[] codebook = NgramCompiler.buildCodebook(new double[]{-5, -4, -3, -2, -1, 0}, 3);
+        assertArrayEquals(new float[]{-4.5f, -2.5f, -0.5f}, codebook);
+        assertEquals(0, NgramCompiler.encode(codebook, -10));
+        assertEquals(1, NgramCompiler.encode(codebook, -2.0));
+        assertEquals(2, NgramCompiler.encode(codebook, 3));
+    }
+}
@@ -3,12 +3,16 @@ package com.miniai.model.ngram;
 import com.codeai.tokenizer.CodeTokenizer;
 import com.miniai.core.types.GenerateRequest;
 import com.miniai.core.types.GenerateResponse;
+import com.miniai.core.types.StageTimer;
 import com.miniai.model.smoothing.KneserNey;
 import com.miniai.model.smoothing.SimpleBackoff;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 
+import java.util.List;
+import java.util.Map;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -280,4 +284,74 @@ public class NgramModelTest {
 
         System.out.println("3-gram context size: 2, 5-gram context size: 4");
     }
+
+    @Test
+    @DisplayName("응답에 단계별 시간이 기록된다")
+    void testStageTimings() {
+        NgramArtifact artifact = new NgramTrainer(3, tokenizer).trainFromText(testCorpus, tokenizer);
+        NgramModel model = new NgramModel(artifact, tokenizer, new KneserNey());
+
+        long startNanos = System.nanoTime();
+        GenerateResponse response = model.generate(GenerateRequest.builder("for (int")
+            .maxTokens(10)
+            .seed(42L)
+            .build());
+        long elapsedNanos = System.nanoTime() - startNanos;
+
+        Map<String, Long> stages = response.getStageNanos();
+        assertEquals(List.of(StageTimer.TOKENIZE, StageTimer.DISTRIBUTION, StageTimer.SESSION,
+            StageTimer.SAMPLING, StageTimer.DECODE), List.copyOf(stages.keySet()));
+        long total = stages.values().stream().mapToLong(Long::longValue).sum();
+        assertTrue(stages.values().stream().allMatch(nanos -> nanos >= 0));
+        assertTrue(total <= elapsedNanos, total + " > " + elapsedNanos);
+        assertTrue(model.memoryBytes() > 0);
+    }
+
+    @Test
+    @DisplayName("배치 생성은 요청마다 generate한 결과와 같다")
+    void testGenerateBatchMatchesGenerate() {
+        NgramArtifact artifact = new NgramTrainer(3, tokenizer).trainFromText(testCorpus, tokenizer);
+        NgramModel model = new NgramModel(artifact, tokenizer, new KneserNey());
+
+        List<GenerateRequest> requests = List.of(
+            GenerateRequest.builder("for (int").maxTokens(10).seed(1L).build(),
+            GenerateRequest.builder("for (int").maxTokens(10).seed(2L).build(),
+            GenerateRequest.builder("for (int").maxTokens(10).seed(1L).temperature(0.5).topK(3).build(),
+            GenerateRequest.builder("public").maxTokens(10).seed(1L).stopSequences(List.of(";")).build());
+
+        List<GenerateResponse> batch = model.generateBatch(requests);
+
+        assertEquals(requests.size(), batch.size());
+        for (int i = 0; i < requests.size(); i++) {
+            GenerateResponse single = model.generate(requests.get(i));
+            assertEquals(single.getGeneratedText(), batch.get(i).getGeneratedText());
+            assertEquals(single.getUsage().getOutputTokens(), batch.get(i).getUsage().getOutputTokens());
+        }
+    }
+
+    @Test
+    @DisplayName("문서 완성은 generate와 같은 토큰을 생성하고 삽입할 텍스트만 돌려준다")
+    void testCompleteMatchesGenerate() {
+        NgramArtifact artifact = new NgramTrainer(3, tokenizer).trainFromText(testCorpus, tokenizer);
+        NgramModel model = new NgramModel(artifact, tokenizer, new KneserNey());
+        String file = "public class User {\nprivate String name;\npublic String getName() {\nreturn nam";
+
+        TokenizedDocument document = new TokenizedDocument(tokenizer);
+        document.setText(file);
+        for (int offset : new int[]{file.length(), file.indexOf("{") + 1, file.indexOf("String") + 3, 7}) {
+            String prompt = file.substring(0, offset);
+            GenerateRequest request = GenerateRequest.builder(prompt).maxTokens(6).seed(3L).build();
+
+            GenerateResponse full = model.generate(request);
+            GenerateResponse completion = model.complete(document, offset, request);
+
+            assertEquals(full.getUsage().getOutputTokens(), completion.getUsage().getOutputTokens());
+            assertEquals(tokenizer.encode(full.getGeneratedText()),
+                tokenizer.encode(prompt + completion.getGeneratedText()), "offset " + offset);
+        }
+
+        // 입력 중인 식별자는 나머지만 삽입
+        GenerateRequest request = GenerateRequest.builder("").maxTokens(1).seed(1L).build();
+        assertEquals("e", model.complete(document, file.length(), request).getGeneratedText());
+    }
 }
@@ -0,0 +1,72 @@
+package com.miniai.model.ngram;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * 여러 테스트가 같이 쓰는 합성 코퍼스와 분포 도우미
+ */
+public final class NgramTestSupport {
+
+    private NgramTestSupport() {
+    }
+
+    /**
+     * 코드 비슷한 합성 코퍼스 (자주 나오는 패턴 + 드문 식별자, 항상 같은 내용)
+     *
+     * dir 아래에 file0.txt ... file{fileCount-1}.txt 생성
+     */
+    public static void writeCorpus(Path dir, int fileCount, int linesPerFile) throws Exception {
+        String[] types = {"int", "String", "long", "List<String>", "Map<String,Integer>"};
+        String[] calls = {"size()", "get(0)", "isEmpty()", "toString()", "hashCode()"};
+        Random random = new Random(42);
+
+        for (int f = 0; f < fileCount; f++) {
+            List<String> lines = new ArrayList<>();
+            for (int i = 0; i < linesPerFile; i++) {
+                String type = types[random.nextInt(types.length)];
+                String name = "v" + random.nextInt(200);
+                String other = "v" + random.nextInt(200);
+                String call = calls[random.nextInt(calls.length)];
+                if (random.nextBoolean()) {
+                    lines.add(type + " " + name + " = " + other + " . " + call + " ;");
+                } else {
+                    lines.add("if ( " + name + " != null ) { return " + other + " ; }");
+                }
+            }
+            Files.write(dir.resolve("file" + f + ".txt"), lines);
+        }
+    }
+
+    /**
+     * Artifact 문맥 키("12:7:3") → 토큰 리스트
+     */
+    public static List<Integer> parseKey(String key) {
+        List<Integer> context = new ArrayList<>();
+        for (String part : key.split(":")) {
+            context.add(Integer.parseInt(part));
+        }
+        return context;
+    }
+
+    /**
+     * 분포를 합이 1이 되도록 제자리 정규화 (backoff 분포 비교용)
+     */
+    public static Map<Integer, Double> normalize(Map<Integer, Double> probs) {
+        double total = probs.values().stream().mapToDouble(Double::doubleValue).sum();
+        probs.replaceAll((k, v) -> v / total);
+        return probs;
+    }
+
+    /**
+     * 정규화한 분포에서 토큰 하나의 확률 (분포는 바꾸지 않음)
+     */
+    public static double normalized(Map<Integer, Double> probs, int token) {
+        double total = probs.values().stream().mapToDouble(Double::doubleValue).sum();
+        return probs.getOrDefault(token, 0.0) / total;
+    }
+}
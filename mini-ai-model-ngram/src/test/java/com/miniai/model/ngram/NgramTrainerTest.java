@@ -0,0 +1,157 @@
+package com.miniai.model.ngram;
+
+import com.codeai.tokenizer.CodeTokenizer;
+import com.miniai.tokenizer.WhitespaceTokenizer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * N-gram 학습기 테스트 (디렉토리 학습)
+ */
+class NgramTrainerTest {
+
+    @Test
+    @DisplayName("디렉토리 학습은 파일 경계를 넘는 N-gram을 만들지 않는다")
+    void testDirectoryTrainingRespectsFileBoundaries(@TempDir Path tempDir) throws Exception {
+        Files.writeString(tempDir.resolve("a.txt"), "a b c");
+        Files.createDirectories(tempDir.resolve("sub"));
+        Files.writeString(tempDir.resolve("sub/b.txt"), "d e f");
+
+        List<Path> files = NgramTrainer.listCorpusFiles(tempDir, null);
+        assertEquals(2, files.size());
+
+        WhitespaceTokenizer tokenizer = WhitespaceTokenizer.fromText(NgramTrainer.readCorpus(files));
+        NgramTrainer trainer = new NgramTrainer(2, tokenizer, 2);
+        TrainingSummary summary = new TrainingSummary();
+        NgramArtifact artifact = trainer.trainFromFiles(files, tokenizer, summary);
+
+        int c = tokenizer.getTokenId("c");
+        int d = tokenizer.getTokenId("d");
+
+        // "c d"는 두 파일을 이어 붙여야만 생기는 bigram
+        assertEquals(0, artifact.getCount(List.of(c), d));
+        assertEquals(1, artifact.getCount(List.of(tokenizer.getTokenId("a")), tokenizer.getTokenId("b")));
+        assertEquals(4, artifact.getMetadata().getTotalNgrams());
+        assertEquals(6, artifact.getMetadata().getTotalTokens());
+
+        assertEquals(2, summary.getFileCount());
+        assertEquals(6, summary.getTotalTokens());
+        System.out.println(summary);
+    }
+
+    @Test
+    @DisplayName("스레드보다 파일이 훨씬 많아도 순서대로 모두 세고, 결과는 단일 스레드와 같다")
+    void testManyFilesMatchSingleThread(@TempDir Path tempDir) throws Exception {
+        for (int i = 0; i < 40; i++) {
+            Files.writeString(tempDir.resolve(String.format("f%02d.txt", i)), "x" + i + " y z x" + (i % 7) + " y");
+        }
+        List<Path> files = NgramTrainer.listCorpusFiles(tempDir, null);
+        WhitespaceTokenizer tokenizer = WhitespaceTokenizer.fromText(NgramTrainer.readCorpus(files));
+
+        TrainingSummary summary = new TrainingSummary();
+        NgramArtifact parallel = new NgramTrainer(3, tokenizer, 3).trainFromFiles(files, tokenizer, summary);
+        NgramArtifact sequential = new NgramTrainer(3, tokenizer, 1).trainFromFiles(files, tokenizer, null);
+
+        assertEquals(sequential.getCounts(), parallel.getCounts());
+        assertEquals(sequential.getLowerOrderCounts(), parallel.getLowerOrderCounts());
+        assertEquals(40, summary.getFileCount());
+        assertEquals(200, summary.getTotalTokens());
+    }
+
+    @Test
+    @DisplayName("glob으로 학습 대상 파일을 거른다")
+    void testGlobFilter(@TempDir Path tempDir) throws Exception {
+        Files.writeString(tempDir.resolve("A.java"), "class A { }");
+        Files.writeString(tempDir.resolve("notes.md"), "not code");
+        Files.createDirectories(tempDir.resolve("pkg"));
+        Files.writeString(tempDir.resolve("pkg/B.java"), "class B { }");
+
+        List<Path> javaFiles = NgramTrainer.listCorpusFiles(tempDir, "*.java");
+        assertEquals(2, javaFiles.size());
+        assertTrue(javaFiles.stream().allMatch(p -> p.toString().endsWith(".java")));
+
+        List<Path> pkgFiles = NgramTrainer.listCorpusFiles(tempDir, "pkg/*.java");
+        assertEquals(List.of(tempDir.resolve("pkg/B.java")), pkgFiles);
+    }
+
+    @Test
+    @DisplayName("단일 파일 학습은 텍스트 학습과 같은 카운트를 만든다")
+    void testSingleFileMatchesTextTraining(@TempDir Path tempDir) throws Exception {
+        String corpus = "the cat sat on the mat the cat ran";
+        Path file = tempDir.resolve("corpus.txt");
+        Files.writeString(file, corpus);
+
+        WhitespaceTokenizer tokenizer = WhitespaceTokenizer.fromText(corpus);
+        NgramTrainer trainer = new NgramTrainer(3, tokenizer);
+
+        NgramArtifact fromText = trainer.trainFromText(corpus, tokenizer);
+        NgramArtifact fromFiles = trainer.trainFromFiles(List.of(file), tokenizer, null);
+
+        assertEquals(fromText.getCounts(), fromFiles.getCounts());
+        assertEquals(fromText.getLowerOrderCounts(), fromFiles.getLowerOrderCounts());
+        assertEquals(fromText.getContinuationCounts(), fromFiles.getContinuationCounts());
+    }
+
+    @Test
+    @DisplayName("파일을 줄 단위로 읽어 만든 vocabulary는 코퍼스 전체로 만든 것과 같다")
+    void testStreamingVocabularyMatchesWholeCorpus(@TempDir Path tempDir) throws Exception {
+        Files.writeString(tempDir.resolve("A.java"), "class A {\n    int x = 1;\n}\n");
+        Files.writeString(tempDir.resolve("B.java"), "class B {\r\n\n    String s = \"a b\";\r\n}");
+        List<Path> files = NgramTrainer.listCorpusFiles(tempDir, null);
+        String corpus = NgramTrainer.readCorpus(files);
+
+        assertEquals(CodeTokenizer.fromCode(corpus).getVocabulary().keySet(),
+            ((CodeTokenizer) NgramTrainer.buildTokenizer("CodeTokenizer", files)).getVocabulary().keySet());
+        assertEquals(WhitespaceTokenizer.fromText(corpus).getVocabulary().keySet(),
+            ((WhitespaceTokenizer) NgramTrainer.buildTokenizer("WhitespaceTokenizer", files)).getVocabulary().keySet());
+    }
+
+    @Test
+    @DisplayName("큰 파일을 줄 경계 조각으로 나눠 세도 카운트가 같고, 파일 안에서도 진행을 보고한다")
+    void testChunkedCountingMatchesWholeFile(@TempDir Path tempDir) throws Exception {
+        StringBuilder code = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            code.append("class A").append(i % 7).append(" {\n\n    int x = ").append(i).append(";\n");
+            code.append(i % 5 == 0 ? "\n\n" : "").append("}\r\n");
+        }
+        Path file = tempDir.resolve("Big.java");
+        Files.writeString(file, code + "// 끝 é\n");
+        List<Path> files = List.of(file);
+        CodeTokenizer tokenizer = (CodeTokenizer) NgramTrainer.buildTokenizer("CodeTokenizer", files);
+
+        NgramArtifact whole = new NgramTrainer(4, tokenizer, 1).trainFromText(Files.readString(file), tokenizer);
+
+        NgramTrainer chunked = new NgramTrainer(4, tokenizer, 3);
+        chunked.setChunkChars(37);
+        List<long[]> progress = new ArrayList<>();
+        chunked.setListener(new TrainingListener() {
+            @Override
+            public void onProgress(long processedTokens, long processedBytes, long totalBytes,
+                                   int completedFiles, int totalFiles) {
+                progress.add(new long[] {processedTokens, processedBytes, totalBytes, completedFiles});
+            }
+        });
+        NgramArtifact artifact = chunked.trainFromFiles(files, tokenizer, null);
+
+        assertEquals(whole.getCounts(), artifact.getCounts());
+        assertEquals(whole.getLowerOrderCounts(), artifact.getLowerOrderCounts());
+        assertEquals(whole.getMetadata().getTotalTokens(), artifact.getMetadata().getTotalTokens());
+        assertEquals(whole.getMetadata().getTotalNgrams(), artifact.getMetadata().getTotalNgrams());
+
+        // 파일 하나지만 조각마다 보고, 마지막 보고에서 바이트가 파일 크기와 같음
+        assertTrue(progress.size() > 10, "progress calls: " + progress.size());
+        assertEquals(0, progress.get(progress.size() / 2)[3]);
+        long[] last = progress.get(progress.size() - 1);
+        assertEquals(Files.size(file), last[1]);
+        assertEquals(Files.size(file), last[2]);
+        assertEquals(1, last[3]);
+    }
+}
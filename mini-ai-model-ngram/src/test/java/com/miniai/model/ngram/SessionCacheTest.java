@@ -0,0 +1,165 @@
+package com.miniai.model.ngram;
+
+import com.miniai.core.types.GenerateRequest;
+import com.miniai.model.smoothing.KneserNey;
+import com.miniai.tokenizer.WhitespaceTokenizer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static com.miniai.model.ngram.NgramTestSupport.normalized;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 세션 캐시 언어 모델 테스트 (증분 갱신, 메모리 상한, 전역 모델과 interpolation)
+ */
+class SessionCacheTest {
+
+    private WhitespaceTokenizer tokenizer;
+    private NgramModel model;
+
+    @BeforeEach
+    void setUp() {
+        // 전역 코퍼스에서 "total"은 드물고 "x"가 흔함
+        StringBuilder corpus = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            corpus.append("int x = x + 1 ; ");
+        }
+        corpus.append("int total = 0 ; ");
+        tokenizer = WhitespaceTokenizer.fromText(corpus.toString());
+        NgramArtifact artifact = new NgramTrainer(3, tokenizer).trainFromText(corpus.toString(), tokenizer);
+        model = new NgramModel(artifact, tokenizer, new KneserNey());
+    }
+
+    @Test
+    @DisplayName("키 입력마다 오는 프롬프트에서 새로 완성된 토큰만 한 번씩 반영한다")
+    void testIncrementalPromptUpdates() {
+        SessionCache cache = new SessionCache();
+        List<Integer> file = tokenizer.encode("int total = 0 ; total = total + 1 ; int x = total ;");
+
+        for (int end = 1; end <= file.size(); end++) {
+            cache.observePrompt(file.subList(0, end));
+            cache.observePrompt(file.subList(0, end)); // 같은 프롬프트 재전송
+        }
+        // 마지막 토큰은 아직 입력 중일 수 있어서 보류
+        assertEquals(file.size() - 1, cache.getCommittedTokens());
+
+        // 파일 앞쪽으로 커서 이동: 끝부분 창만 다시 반영 (전체 재카운트 없음)
+        cache.observePrompt(file.subList(0, 4));
+        assertEquals(file.size() - 1 + 3, cache.getCommittedTokens());
+
+        // 수락된 완성(프롬프트 뒤 토큰만)은 보류한 토큰과 함께 반영되고, 다음 프롬프트는 뒤쪽만 셈
+        SessionCache accepted = new SessionCache();
+        accepted.observePrompt(file.subList(0, 6));
+        assertEquals(5, accepted.getCommittedTokens());
+        accepted.accept(file.subList(6, 9));
+        assertEquals(9, accepted.getCommittedTokens());
+        accepted.observePrompt(file.subList(0, 9)); // 수락 직후 같은 위치
+        assertEquals(9, accepted.getCommittedTokens());
+        accepted.observePrompt(file.subList(0, 11));
+        assertEquals(10, accepted.getCommittedTokens());
+    }
+
+    @Test
+    @DisplayName("완성을 수락한 뒤의 프롬프트도 anchor가 맞아 다시 세지 않는다")
+    void testAcceptKeepsAnchor() {
+        SessionCache cache = new SessionCache();
+        cache.observePrompt(List.of(1, 2, 3, 4, 5, 6));
+        cache.accept(List.of(7, 8));
+        cache.observePrompt(List.of(1, 2, 3, 4, 5, 6, 7, 8, 9));
+        assertEquals(8, cache.getCommittedTokens());
+    }
+
+    @Test
+    @DisplayName("오래 써도 문맥 표와 unigram, 세션 수가 상한을 넘지 않는다")
+    void testMemoryStaysBounded() {
+        SessionCache cache = new SessionCache(3, 500, 100);
+        Random random = new Random(1);
+        List<Integer> stream = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            stream.add(random.nextInt(1000));
+        }
+        cache.accept(stream);
+        assertTrue(cache.getEntryCount() <= 500, cache.toString());
+        assertTrue(cache.getUnigramCount() <= 100, cache.toString());
+
+        for (int i = 0; i < NgramModel.MAX_SESSIONS + 50; i++) {
+            model.generate(GenerateRequest.builder("int x =").maxTokens(1).seed(1L).sessionId("file-" + i).build());
+        }
+        assertEquals(NgramModel.MAX_SESSIONS, model.getSessionCount());
+        assertTrue(model.getSessionCache("file-0").isEmpty()); // 가장 오래된 세션부터 제거
+        assertTrue(model.endSession("file-" + (NgramModel.MAX_SESSIONS + 49)));
+    }
+
+    @Test
+    @DisplayName("unigram이 가득 찬 뒤에도 새 식별자를 배우고, 오래 안 쓴 토큰부터 밀려난다")
+    void testFullCacheLearnsNewIdentifiers() {
+        SessionCache cache = new SessionCache(3, 500, 100);
+        List<Integer> history = new ArrayList<>();
+        for (int round = 0; round < 50; round++) {
+            for (int token = 0; token < 100; token++) {
+                history.add(token);
+            }
+        }
+        cache.accept(history); // 0~99가 각각 50번씩 → 가득 참
+
+        cache.accept(List.of(1000, 1001, 1000));
+        ContextCursor empty = ContextCursor.of(3, List.of());
+        Map<Integer, Double> probs = cache.probabilities(empty);
+        assertTrue(probs.containsKey(1000), cache.toString());
+        assertTrue(probs.containsKey(1001), cache.toString());
+        assertFalse(probs.containsKey(0)); // 가장 오래 안 쓴 토큰이 밀려남
+        assertEquals(100, cache.getUnigramCount());
+        assertEquals(1.0, probs.values().stream().mapToDouble(Double::doubleValue).sum(), 1e-9);
+
+        // 새 토큰은 한 창(maxUnigrams-1개의 새 토큰) 동안 살아남음
+        List<Integer> fresh = new ArrayList<>();
+        for (int token = 2000; token < 2098; token++) {
+            fresh.add(token);
+        }
+        cache.accept(fresh);
+        assertTrue(cache.probabilities(empty).containsKey(1001));
+
+        // 문맥이 있으면 그 문맥 뒤에 본 토큰이 가장 유력
+        Map<Integer, Double> afterContext = cache.probabilities(ContextCursor.of(3, List.of(1000, 1001)));
+        assertEquals(1.0, afterContext.values().stream().mapToDouble(Double::doubleValue).sum(), 1e-9);
+        assertEquals(1000, afterContext.entrySet().stream().max(Map.Entry.comparingByValue()).orElseThrow().getKey());
+    }
+
+    @Test
+    @DisplayName("세션에서 자주 쓴 식별자의 확률이 올라가고, 세션이 없으면 전역 분포 그대로")
+    void testInterpolationBoostsSessionIdentifiers() {
+        String prompt = "int total = 0 ; total = total + 1 ; total = total + 1 ; total =";
+        List<Integer> tokens = tokenizer.encode(prompt);
+        ContextCursor cursor = ContextCursor.of(3, tokens);
+        int total = tokenizer.encode("total").get(0);
+
+        Map<Integer, Double> global = model.getNextTokenProbabilities(cursor);
+        assertEquals(global, model.getNextTokenProbabilities(cursor, null));
+        assertEquals(0, model.getSessionCount());
+
+        SessionCache cache = model.observeSession(
+            GenerateRequest.builder(prompt).sessionId("Counter.java").build(), tokens);
+        Map<Integer, Double> mixed = model.getNextTokenProbabilities(cursor, cache);
+
+        assertTrue(normalized(mixed, total) > normalized(global, total) * 2,
+            "global=" + normalized(global, total) + " mixed=" + normalized(mixed, total));
+        assertEquals(1.0, mixed.values().stream().mapToDouble(Double::doubleValue).sum(), 1e-9);
+
+        // 같은 세션으로 다시 생성해도 이미 본 프롬프트는 다시 세지 않음
+        long committed = cache.getCommittedTokens();
+        model.generate(GenerateRequest.builder(prompt).maxTokens(2).seed(3L).sessionId("Counter.java").build());
+        assertEquals(committed, cache.getCommittedTokens());
+        assertEquals(1, model.getSessionCount());
+
+        model.setSessionCacheWeight(0.0);
+        assertEquals(normalized(global, total), normalized(model.getNextTokenProbabilities(cursor, cache), total), 1e-9);
+        assertThrows(IllegalArgumentException.class, () -> model.setSessionCacheWeight(1.5));
+        assertThrows(IllegalArgumentException.class, () -> model.acceptCompletion("unknown", "x"));
+    }
+}
@@ -0,0 +1,203 @@
+package com.miniai.model.ngram;
+
+import com.codeai.tokenizer.CodeTokenizer;
+import com.miniai.core.types.GenerateRequest;
+import com.miniai.core.types.GenerateResponse;
+import com.miniai.model.smoothing.KneserNey;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Suffix array 완성 색인 + infini-gram 모델 테스트
+ */
+class SuffixArrayIndexTest {
+
+    @Test
+    @DisplayName("Prefix doubling 결과가 접미사를 직접 정렬한 것과 같다")
+    void testSuffixArrayMatchesNaiveSort() {
+        Random random = new Random(3);
+        List<List<Integer>> documents = new ArrayList<>();
+        for (int d = 0; d < 3; d++) {
+            List<Integer> document = new ArrayList<>();
+            for (int i = 0; i < 300; i++) {
+                // 작은 어휘 + 반복 구간 (긴 공통 접두사)
+                document.add(i % 50 < 20 ? i % 5 : random.nextInt(4));
+            }
+            documents.add(document);
+        }
+        SuffixArrayIndex index = SuffixArrayIndex.build(documents);
+
+        int[] text = corpus(documents);
+        Integer[] naive = new Integer[text.length];
+        for (int i = 0; i < naive.length; i++) {
+            naive[i] = i;
+        }
+        Arrays.sort(naive, (a, b) -> compareSuffixes(text, a, b));
+
+        assertEquals(text.length, index.size());
+        for (int i = 0; i < naive.length; i++) {
+            assertEquals(naive[i].intValue(), index.suffixAt(i), "rank " + i);
+        }
+    }
+
+    @Test
+    @DisplayName("가장 긴 일치 suffix와 다음 토큰 카운트가 직접 센 값과 같다")
+    void testLongestMatchMatchesBruteForce() {
+        Random random = new Random(11);
+        List<List<Integer>> documents = List.of(randomDocument(random, 2000), randomDocument(random, 500));
+        SuffixArrayIndex index = SuffixArrayIndex.build(documents);
+
+        for (int trial = 0; trial < 200; trial++) {
+            List<Integer> context = new ArrayList<>(documents.get(0).subList(0, random.nextInt(1500) + 1));
+            if (trial % 3 == 0) {
+                context.add(random.nextInt(6)); // 뒤에 임의 토큰을 붙여 일치를 짧게
+            }
+            SuffixArrayIndex.Match match = index.longestMatch(context, 40);
+
+            int expectedLength = 0;
+            Map<Integer, Integer> expectedCounts = bruteForceCounts(documents, List.of());
+            for (int length = 1; length <= Math.min(40, context.size()); length++) {
+                Map<Integer, Integer> counts = bruteForceCounts(documents,
+                    context.subList(context.size() - length, context.size()));
+                if (counts.isEmpty()) {
+                    break;
+                }
+                expectedLength = length;
+                expectedCounts = counts;
+            }
+
+            assertEquals(expectedLength, match.getLength(), "trial " + trial);
+            assertEquals(expectedCounts, match.getNextTokenCounts(), "trial " + trial);
+            assertEquals(expectedCounts.values().stream().mapToInt(Integer::intValue).sum(), match.getOccurrences());
+        }
+    }
+
+    @Test
+    @DisplayName("저장한 색인을 memory-mapped로 열어도 같은 결과를 준다")
+    void testSaveAndOpenMapped(@TempDir Path tempDir) throws Exception {
+        Random random = new Random(5);
+        List<List<Integer>> documents = List.of(randomDocument(random, 1000), randomDocument(random, 1000));
+        SuffixArrayIndex built = SuffixArrayIndex.build(documents);
+
+        Path path = tempDir.resolve("corpus.sa");
+        built.save(path);
+        assertEquals(8 + 8L * built.size(), Files.size(path));
+
+        SuffixArrayIndex opened = SuffixArrayIndex.open(path);
+        assertEquals(built.size(), opened.size());
+        for (int i = 0; i < built.size(); i++) {
+            assertEquals(built.suffixAt(i), opened.suffixAt(i));
+        }
+        List<Integer> context = documents.get(1).subList(0, 300);
+        assertEquals(built.longestMatch(context, 64).getNextTokenCounts(),
+            opened.longestMatch(context, 64).getNextTokenCounts());
+        assertEquals(built.count(context.subList(0, 3)), opened.count(context.subList(0, 3)));
+
+        // 작은 chunk 여러 개로 나눠 map해도 (chunk 경계를 넘는 조회 포함) 결과가 같음
+        SuffixArrayIndex chunked = SuffixArrayIndex.open(path, 7);
+        for (int i = 0; i < built.size(); i++) {
+            assertEquals(built.suffixAt(i), chunked.suffixAt(i));
+        }
+        assertEquals(built.longestMatch(context, 64).getNextTokenCounts(),
+            chunked.longestMatch(context, 64).getNextTokenCounts());
+
+        Files.writeString(tempDir.resolve("broken.sa"), "not an index");
+        assertThrows(IllegalArgumentException.class, () -> SuffixArrayIndex.open(tempDir.resolve("broken.sa")));
+    }
+
+    @Test
+    @DisplayName("N-gram 문맥보다 긴 일치가 있으면 코퍼스를 이어가고, 없으면 N-gram으로 backoff")
+    void testInfiniGramModel(@TempDir Path tempDir) throws Exception {
+        // trigram 문맥 "( ) {"만으로는 어느 메서드 본문인지 알 수 없음
+        String corpus = """
+            public String getName ( ) { return name ; }
+            public String getTitle ( ) { return title ; }
+            public int getCount ( ) { return count ; }
+            """;
+        Path file = Files.writeString(tempDir.resolve("User.java"), corpus);
+        CodeTokenizer tokenizer = CodeTokenizer.fromCode(corpus);
+        NgramArtifact artifact = new NgramTrainer(3, tokenizer).trainFromText(corpus, tokenizer);
+        NgramModel ngram = new NgramModel(artifact, tokenizer, new KneserNey());
+
+        SuffixArrayIndex index = SuffixArrayIndex.build(List.of(file), tokenizer);
+        InfiniGramModel model = new InfiniGramModel(index, ngram);
+
+        GenerateResponse response = model.generate(GenerateRequest.builder("public String getTitle ( ) {")
+            .maxTokens(4)
+            .temperature(0.1)
+            .seed(42L)
+            .build());
+        assertTrue(response.getGeneratedText().contains("return title"), response.getGeneratedText());
+        assertTrue(model.getIndexSteps() > 0);
+        String seen = "String getTitle ( ) { return";
+        assertEquals(tokenizer.encode(seen).size(), model.longestMatch(seen).getLength());
+
+        // 코퍼스에 없는 문맥은 N-gram 분포로 생성
+        long before = model.getBackoffSteps();
+        model.generate(GenerateRequest.builder("count title name").maxTokens(1).seed(1L).build());
+        assertEquals(before + 1, model.getBackoffSteps());
+        assertTrue(model.modelName().startsWith("infini+"));
+    }
+
+    private static List<Integer> randomDocument(Random random, int length) {
+        List<Integer> document = new ArrayList<>();
+        List<Integer> phrase = List.of(1, 2, 3, 4, 5, 1, 2);
+        while (document.size() < length) {
+            if (random.nextInt(3) == 0) {
+                document.addAll(phrase);
+            } else {
+                document.add(random.nextInt(6));
+            }
+        }
+        return document.subList(0, length);
+    }
+
+    private static int[] corpus(List<List<Integer>> documents) {
+        List<Integer> all = new ArrayList<>();
+        for (int d = 0; d < documents.size(); d++) {
+            if (d > 0) {
+                all.add(SuffixArrayIndex.SEPARATOR);
+            }
+            all.addAll(documents.get(d));
+        }
+        return all.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static int compareSuffixes(int[] text, int a, int b) {
+        while (a < text.length && b < text.length) {
+            if (text[a] != text[b]) {
+                return Integer.compare(text[a], text[b]);
+            }
+            a++;
+            b++;
+        }
+        return Integer.compare(text.length - a, text.length - b);
+    }
+
+    /**
+     * 문서마다 패턴 뒤에 오는 토큰을 직접 셈 (문서 경계는 넘지 않음)
+     */
+    private static Map<Integer, Integer> bruteForceCounts(List<List<Integer>> documents, List<Integer> pattern) {
+        Map<Integer, Integer> counts = new HashMap<>();
+        for (List<Integer> document : documents) {
+            for (int i = 0; i + pattern.size() < document.size(); i++) {
+                if (document.subList(i, i + pattern.size()).equals(pattern)) {
+                    counts.merge(document.get(i + pattern.size()), 1, Integer::sum);
+                }
+            }
+        }
+        return counts;
+    }
+}
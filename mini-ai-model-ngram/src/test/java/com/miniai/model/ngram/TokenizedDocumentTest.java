@@ -0,0 +1,93 @@
+package com.miniai.model.ngram;
+
+import com.codeai.tokenizer.CodeTokenizer;
+import com.miniai.core.tokenizer.Tokenizer;
+import com.miniai.tokenizer.WhitespaceTokenizer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 증분 토큰화 문서 테스트 (임의 편집 후에도 전체 토큰화와 같은 결과)
+ */
+class TokenizedDocumentTest {
+
+    private static final String CODE = """
+        public class Counter {
+            private int count = 0;
+
+            public void add(int value) {
+                count = count + value; // "sum"
+            }
+        }
+        """;
+
+    private static final String[] INSERTS = {
+        "", "a", " ", "\n", "\n\n", "count", "int x = 1;", "    ", "(", ");\n", "\"str\"", "}\n    {"
+    };
+
+    @Test
+    @DisplayName("임의 편집을 반복해도 encode(text)와 같은 토큰을 유지한다 (CodeTokenizer)")
+    void testRandomEditsMatchFullEncodeCode() {
+        assertRandomEditsMatch(CodeTokenizer.fromCode(CODE));
+    }
+
+    @Test
+    @DisplayName("임의 편집을 반복해도 encode(text)와 같은 토큰을 유지한다 (WhitespaceTokenizer)")
+    void testRandomEditsMatchFullEncodeWhitespace() {
+        assertRandomEditsMatch(WhitespaceTokenizer.fromText(CODE));
+    }
+
+    private void assertRandomEditsMatch(Tokenizer tokenizer) {
+        TokenizedDocument document = new TokenizedDocument(tokenizer);
+        document.setText(CODE);
+        StringBuilder expected = new StringBuilder(CODE);
+        Random random = new Random(42);
+
+        for (int i = 0; i < 500; i++) {
+            int offset = random.nextInt(expected.length() + 1);
+            int delete = random.nextInt(Math.min(8, expected.length() - offset) + 1);
+            String insert = INSERTS[random.nextInt(INSERTS.length)];
+            document.edit(offset, delete, insert);
+            expected.replace(offset, offset + delete, insert);
+
+            String text = expected.toString();
+            assertEquals(text, document.text());
+            assertEquals(tokenizer.encode(text), document.tokens(), "편집 " + i + " 후 전체 토큰");
+
+            int cursor = random.nextInt(text.length() + 1);
+            List<Integer> prefix = tokenizer.encode(text.substring(0, cursor));
+            List<Integer> tail = prefix.subList(Math.max(0, prefix.size() - 5), prefix.size());
+            assertEquals(tail, document.tokensBefore(cursor, 5), "편집 " + i + " 후 커서 " + cursor + " 앞 토큰");
+            assertEquals(text.substring(text.lastIndexOf('\n', cursor - 1) + 1, cursor), document.linePrefix(cursor));
+        }
+    }
+
+    @Test
+    @DisplayName("끝의 빈 줄은 encode처럼 무시한다")
+    void testTrailingEmptyLines() {
+        CodeTokenizer tokenizer = CodeTokenizer.fromCode(CODE);
+        TokenizedDocument document = new TokenizedDocument(tokenizer);
+        document.setText("int count\n\n\n");
+
+        assertEquals(tokenizer.encode("int count\n\n\n"), document.tokens());
+        assertEquals(tokenizer.encode("int count"), document.tokensBefore(document.length(), 10));
+        assertTrue(new TokenizedDocument(tokenizer).tokens().isEmpty());
+    }
+
+    @Test
+    @DisplayName("문서를 벗어난 편집과 offset은 거절한다")
+    void testRejectsOutOfRange() {
+        TokenizedDocument document = new TokenizedDocument(CodeTokenizer.fromCode(CODE));
+        document.setText("abc");
+
+        assertThrows(IllegalArgumentException.class, () -> document.edit(2, 2, "x"));
+        assertThrows(IllegalArgumentException.class, () -> document.edit(-1, 0, "x"));
+        assertThrows(IllegalArgumentException.class, () -> document.tokensBefore(4, 1));
+        assertEquals("abc", document.text());
+    }
+}
@@ -0,0 +1,94 @@
+package com.miniai.model.ngram;
+
+import com.codeai.tokenizer.CodeTokenizer;
+import com.miniai.core.types.GenerateRequest;
+import com.miniai.core.types.GenerateResponse;
+import com.miniai.model.smoothing.KneserNey;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Vocabulary 접두사 trie + 입력 중인 토큰 완성 테스트
+ */
+class VocabularyTrieTest {
+
+    @Test
+    @DisplayName("접두사 조회 결과가 vocabulary를 직접 거른 것과 같다")
+    void testCompleteMatchesBruteForce() {
+        Random random = new Random(9);
+        Map<String, Integer> vocabulary = new HashMap<>();
+        String alphabet = "abcAB_";
+        for (int id = 0; vocabulary.size() < 500; id++) {
+            StringBuilder word = new StringBuilder();
+            for (int i = 0; i <= random.nextInt(6); i++) {
+                word.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            vocabulary.putIfAbsent(word.toString(), vocabulary.size());
+        }
+        vocabulary.put("[UNK]", 500);
+        VocabularyTrie trie = VocabularyTrie.build(vocabulary, word -> !word.equals("[UNK]"));
+        assertEquals(500, trie.size());
+
+        for (int trial = 0; trial < 300; trial++) {
+            StringBuilder prefix = new StringBuilder();
+            for (int i = 0; i < random.nextInt(4); i++) {
+                prefix.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            int[] expected = vocabulary.entrySet().stream()
+                .filter(e -> !e.getKey().equals("[UNK]") && e.getKey().startsWith(prefix.toString()))
+                .mapToInt(Map.Entry::getValue).sorted().toArray();
+            int[] actual = trie.complete(prefix.toString());
+            Arrays.sort(actual);
+            assertArrayEquals(expected, actual, "prefix " + prefix);
+            assertEquals(expected.length, trie.count(prefix.toString()));
+        }
+        assertEquals(0, trie.complete("zzz").length);
+        assertTrue(trie.restrict(Map.of(), "zzz").isEmpty());
+    }
+
+    @Test
+    @DisplayName("식별자 중간에서 끝난 프롬프트는 그 조각을 잇는 토큰으로 시작한다")
+    void testPartialTokenCompletion() {
+        String corpus = """
+            public String getName ( ) { return name ; }
+            public String getTitle ( ) { return title ; }
+            public StringBuilder builder ( ) { return sb ; }
+            public User getUser ( ) { return user ; }
+            """;
+        CodeTokenizer tokenizer = CodeTokenizer.fromCode(corpus);
+        NgramArtifact artifact = new NgramTrainer(3, tokenizer).trainFromText(corpus, tokenizer);
+        NgramModel model = new NgramModel(artifact, tokenizer, new KneserNey());
+
+        // "public" 뒤에는 String이 StringBuilder보다 흔함
+        List<String> candidates = model.completePartialToken("public Strin", 5);
+        assertEquals(List.of("String", "StringBuilder"), candidates);
+        assertEquals(List.of(), model.completePartialToken("public String", 5)); // 이미 완성된 토큰
+        assertEquals(List.of(), model.completePartialToken("public Xyz", 5));    // 잇는 단어 없음
+
+        GenerateResponse response = model.generate(GenerateRequest.builder("public User getUs")
+            .maxTokens(3)
+            .temperature(0.1)
+            .seed(42L)
+            .build());
+        assertTrue(response.getGeneratedText().startsWith("public User getUser ("), response.getGeneratedText());
+        assertEquals(3, response.getUsage().getInputTokens()); // 조각([UNK]) 포함
+        assertEquals(3, response.getUsage().getOutputTokens());
+
+        // 첫 토큰이 stop sequence면 조각을 그대로 둠
+        GenerateResponse stopped = model.generate(GenerateRequest.builder("public User getUs")
+            .maxTokens(3)
+            .stopSequences(List.of("getUser"))
+            .seed(1L)
+            .build());
+        assertEquals(0, stopped.getUsage().getOutputTokens());
+        assertTrue(stopped.getGeneratedText().endsWith(CodeTokenizer.UNK_TOKEN));
+    }
+}
@@ -0,0 +1,205 @@
+package com.miniai.model.smoothing;
+
+import com.codeai.tokenizer.CodeTokenizer;
+import com.miniai.model.ngram.NgramArtifact;
+import com.miniai.model.ngram.NgramModel;
+import com.miniai.model.ngram.NgramTrainer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.miniai.model.ngram.NgramTestSupport.normalize;
+import static com.miniai.model.ngram.NgramTestSupport.parseKey;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 미리 계산된 backoff 가중치 + ARPA 읽기/쓰기 테스트
+ */
+class ArpaFormatTest {
+
+    private String heldOut;
+    private CodeTokenizer tokenizer;
+    private NgramArtifact artifact;
+
+    @BeforeEach
+    void setUp() {
+        String corpus = """
+            public class User {
+            private String name;
+            public String getName() {
+            return name;
+            }
+            public void setName(String name) {
+            this.name = name;
+            }
+            }
+            for (int i = 0; i < 10; i++) {
+            System.out.println("hello world");
+            }
+            if (value != null) {
+            return value;
+            }
+            """;
+        heldOut = """
+            public String getValue() {
+            return value;
+            }
+            for (int k = 0; k < 10; k++) {
+            System.out.println(k);
+            }
+            """;
+        tokenizer = CodeTokenizer.fromCode(corpus + heldOut);
+        artifact = new NgramTrainer(3, tokenizer).trainFromText(corpus, tokenizer);
+    }
+
+    @Test
+    @DisplayName("Kneser-Ney를 미리 계산한 backoff 모델은 원래 분포와 같다")
+    void testPrecomputeMatchesKneserNey() {
+        KneserNey kn = new KneserNey();
+        ArpaBackoff backoff = ArpaBackoff.precompute(artifact, kn);
+
+        for (String key : artifact.getCounts().keySet()) {
+            List<Integer> context = parseKey(key);
+            Map<Integer, Double> expected = normalize(kn.getSmoothedProbabilities(artifact, context));
+            Map<Integer, Double> actual = backoff.getSmoothedProbabilities(artifact, context);
+
+            assertEquals(expected.keySet(), actual.keySet());
+            for (Map.Entry<Integer, Double> e : expected.entrySet()) {
+                assertEquals(e.getValue(), actual.get(e.getKey()), 1e-9);
+                assertEquals(Math.log(e.getValue()), backoff.logProbability(context, e.getKey()), 1e-9);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("분포 view는 복사한 HashMap과 같고 (중복 키 없음) 수정할 수 없다")
+    void testDistributionViewBehavesLikeMap() {
+        ArpaBackoff backoff = ArpaBackoff.precompute(artifact, new KneserNey());
+        List<List<Integer>> contexts = new ArrayList<>();
+        for (String key : artifact.getCounts().keySet()) {
+            contexts.add(parseKey(key));
+        }
+        contexts.add(List.of(-5, -6)); // 본 적 없는 문맥 → unigram × 1
+        contexts.add(List.of());
+
+        for (List<Integer> context : contexts) {
+            Map<Integer, Double> view = backoff.getSmoothedProbabilities(artifact, context);
+            Map<Integer, Double> copy = new HashMap<>(view);
+            assertEquals(copy.size(), view.size(), "context " + context);
+            assertEquals(copy, view);
+            assertEquals(view, copy);
+            assertEquals(1.0, view.values().stream().mapToDouble(Double::doubleValue).sum(), 1e-9);
+            assertNull(view.get(-1));
+            assertThrows(UnsupportedOperationException.class, () -> view.put(0, 1.0));
+        }
+    }
+
+    @Test
+    @DisplayName("ARPA로 저장했다가 읽으면 같은 확률을 준다")
+    void testWriteReadRoundTrip(@TempDir Path tempDir) throws Exception {
+        ArpaBackoff original = ArpaBackoff.precompute(artifact, new SimpleBackoff());
+        Path path = tempDir.resolve("model.arpa");
+        ArpaFormat.write(original, path);
+
+        String text = Files.readString(path);
+        assertTrue(text.contains("\\data\\"));
+        assertTrue(text.contains("\\3-grams:"));
+        assertTrue(text.contains("# tokenizer: CodeTokenizer"));
+        assertTrue(text.contains("\"hello\\sworld\""));
+
+        ArpaBackoff loaded = ArpaFormat.read(path);
+        assertEquals(3, loaded.getN());
+        assertEquals("CodeTokenizer", loaded.getTokenizerType());
+        assertEquals(original.getVocabulary(), loaded.getVocabulary());
+
+        List<Integer> tokens = tokenizer.encode(heldOut);
+        for (int i = 2; i < tokens.size(); i++) {
+            List<Integer> context = tokens.subList(i - 2, i);
+            for (int token : tokenizer.getVocabulary().values()) {
+                double expected = original.logProbability(context, token);
+                double actual = loaded.logProbability(context, token);
+                if (Double.isInfinite(expected)) {
+                    assertTrue(actual < -200);
+                } else {
+                    assertEquals(expected, actual, 1e-4);
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("NgramModel은 ARPA 파일을 바로 로드하고 perplexity가 원래 모델과 같다")
+    void testModelFromArpa(@TempDir Path tempDir) throws Exception {
+        KneserNey kn = new KneserNey();
+        Path path = tempDir.resolve("model.arpa");
+        ArpaFormat.write(ArpaBackoff.precompute(artifact, kn), path);
+
+        NgramModel fromArpa = NgramModel.fromArtifact(path);
+        assertTrue(fromArpa.getSmoothing() instanceof ArpaBackoff);
+        assertTrue(fromArpa.getArtifact().getCounts().isEmpty());
+
+        double original = new NgramModel(artifact, tokenizer, kn).perplexity(heldOut);
+        double loaded = fromArpa.perplexity(heldOut);
+        System.out.printf("Perplexity: KneserNey %.4f, ARPA %.4f%n", original, loaded);
+        assertEquals(original, loaded, original * 1e-4);
+    }
+
+    @Test
+    @DisplayName("외부 도구가 만든 ARPA 파일의 backoff 체인을 따른다")
+    void testReadExternalArpa(@TempDir Path tempDir) throws Exception {
+        Path path = tempDir.resolve("external.arpa");
+        Files.writeString(path, """
+            \\data\\
+            ngram 1=3
+            ngram 2=1
+
+            \\1-grams:
+            -1.0\t<unk>
+            -0.30103\ta\t-0.5
+            -0.30103\tb
+
+            \\2-grams:
+            -0.1\ta b
+
+            \\end\\
+            """);
+
+        ArpaBackoff model = ArpaFormat.read(path);
+        int unk = model.getVocabulary().get("[UNK]");
+        int a = model.getVocabulary().get("a");
+        int b = model.getVocabulary().get("b");
+        assertEquals(0, unk);
+
+        double ln10 = Math.log(10);
+        // 관찰된 bigram: 저장된 값 그대로
+        assertEquals(-0.1 * ln10, model.logProbability(List.of(a), b), 1e-9);
+        // 관찰되지 않은 bigram: bow(a) × P(a)
+        assertEquals((-0.5 - 0.30103) * ln10, model.logProbability(List.of(a), a), 1e-9);
+        // bow가 없는 문맥: P(a)
+        assertEquals(-0.30103 * ln10, model.logProbability(List.of(b), a), 1e-9);
+    }
+
+    @Test
+    @DisplayName("개수가 선언과 다른 ARPA 파일은 거절한다")
+    void testRejectsCountMismatch(@TempDir Path tempDir) throws Exception {
+        Path path = tempDir.resolve("broken.arpa");
+        Files.writeString(path, "\\data\\\nngram 1=2\n\n\\1-grams:\n-0.3\ta\n\n\\end\\\n");
+        assertThrows(IllegalArgumentException.class, () -> ArpaFormat.read(path));
+    }
+
+    @Test
+    @DisplayName("공백이 들어간 토큰은 이스케이프해서 쓴다")
+    void testEscape() {
+        String word = "\"a b\\c\"";
+        assertEquals("\"a\\sb\\\\c\"", ArpaFormat.escape(word));
+        assertEquals(word, ArpaFormat.unescape(ArpaFormat.escape(word)));
+    }
+}
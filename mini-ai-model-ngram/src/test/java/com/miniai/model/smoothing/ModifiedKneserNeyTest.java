@@ -0,0 +1,134 @@
+package com.miniai.model.smoothing;
+
+import com.miniai.model.ngram.ContextCursor;
+import com.miniai.model.ngram.NgramArtifact;
+import com.miniai.model.ngram.NgramModel;
+import com.miniai.model.ngram.NgramTrainer;
+import com.miniai.tokenizer.WhitespaceTokenizer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static com.miniai.model.ngram.NgramTestSupport.normalized;
+import static com.miniai.model.ngram.NgramTestSupport.writeCorpus;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Modified Kneser-Ney 테스트 (재귀 interpolation + discount 3개)
+ */
+class ModifiedKneserNeyTest {
+
+    @Test
+    @DisplayName("Discount는 count-of-counts 공식으로 추정한다")
+    void testEstimateDiscounts() {
+        // n1=100, n2=40, n3=20, n4=10 → Y = 100/180
+        double[] d = ModifiedKneserNey.estimateDiscounts(new long[]{0, 100, 40, 20, 10});
+        double y = 100.0 / 180;
+        assertEquals(1 - 2 * y * 40 / 100, d[0], 1e-12);
+        assertEquals(2 - 3 * y * 20 / 40, d[1], 1e-12);
+        assertEquals(3 - 4 * y * 10 / 20, d[2], 1e-12);
+
+        // count-of-counts가 비면 기본값
+        assertArrayEquals(new double[]{0.5, 1.0, 1.5},
+            ModifiedKneserNey.estimateDiscounts(new long[]{0, 3, 0, 0, 0}));
+    }
+
+    @Test
+    @DisplayName("분포는 합이 1이고 토큰 하나 조회와 같은 값을 준다")
+    void testNormalizedAndMatchesPointLookup() {
+        WhitespaceTokenizer tokenizer = WhitespaceTokenizer.fromText("a b c d e");
+        NgramArtifact artifact = new NgramTrainer(4, tokenizer)
+            .trainFromText("a b c d a b c e a b d e b c d a c d e a", tokenizer);
+        ModifiedKneserNey mkn = new ModifiedKneserNey();
+
+        List<List<Integer>> contexts = List.of(
+            tokenizer.encode("a b c"),   // 관찰된 최고 order 문맥
+            tokenizer.encode("e e b"),   // 최고 order는 없고 하위 order만 있음
+            tokenizer.encode("d"),       // 짧은 문맥 (텍스트 시작)
+            List.of());
+
+        for (List<Integer> context : contexts) {
+            Map<Integer, Double> probs = mkn.getSmoothedProbabilities(artifact, context);
+            double total = probs.values().stream().mapToDouble(Double::doubleValue).sum();
+            assertEquals(1.0, total, 1e-9, "context " + context);
+            for (Map.Entry<Integer, Double> e : probs.entrySet()) {
+                assertEquals(e.getValue(), mkn.probability(artifact, context, e.getKey()), 1e-12);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("여러 Artifact를 번갈아 써도 Artifact마다 자기 표로 계산하고, 커서 경로도 같은 값을 준다")
+    void testAlternatingArtifactsAndCursor() {
+        WhitespaceTokenizer tokenizer = WhitespaceTokenizer.fromText("a b c d e");
+        NgramArtifact first = new NgramTrainer(3, tokenizer)
+            .trainFromText("a b c d a b c e a b d e", tokenizer);
+        NgramArtifact second = new NgramTrainer(3, tokenizer)
+            .trainFromText("e d c b a e d c a e d b", tokenizer);
+        ModifiedKneserNey shared = new ModifiedKneserNey();
+        List<Integer> text = tokenizer.encode("a b c d e a b");
+
+        ContextCursor cursor = new ContextCursor(3);
+        for (int i = 0; i < text.size(); i++) {
+            List<Integer> context = text.subList(0, i);
+            for (NgramArtifact artifact : List.of(first, second)) {
+                Map<Integer, Double> expected = new ModifiedKneserNey().getSmoothedProbabilities(artifact, context);
+                assertEquals(expected, shared.getSmoothedProbabilities(artifact, context), "context " + context);
+                assertEquals(expected, shared.getSmoothedProbabilities(artifact, cursor), "cursor " + cursor);
+            }
+            cursor.append(text.get(i));
+        }
+    }
+
+    @Test
+    @DisplayName("최고 order 문맥이 없으면 unigram이 아니라 중간 order로 내려간다")
+    void testUsesIntermediateOrders() {
+        WhitespaceTokenizer tokenizer = WhitespaceTokenizer.fromText("x y z q w");
+        NgramArtifact artifact = new NgramTrainer(3, tokenizer)
+            .trainFromText("x y z x y z q w x y z w q", tokenizer);
+        int q = tokenizer.getTokenId("q");
+        int y = tokenizer.getTokenId("y");
+        int z = tokenizer.getTokenId("z");
+
+        // "q y"는 본 적 없지만 "y → z"는 항상 관찰됨
+        List<Integer> context = List.of(q, y);
+        double kn = normalized(new KneserNey().getSmoothedProbabilities(artifact, context), z);
+        double mkn = new ModifiedKneserNey().probability(artifact, context, z);
+
+        System.out.printf("P(z | q y): KneserNey %.3f, ModifiedKneserNey %.3f%n", kn, mkn);
+        assertTrue(mkn > 0.5);
+        assertTrue(mkn > kn);
+    }
+
+    @Test
+    @DisplayName("같은 order에서 held-out perplexity가 KneserNey보다 낮다")
+    void testPerplexityBeatsKneserNey(@TempDir Path tempDir) throws Exception {
+        Path corpusDir = Files.createDirectories(tempDir.resolve("corpus"));
+        writeCorpus(corpusDir, 6, 400);
+        List<Path> all = NgramTrainer.listCorpusFiles(corpusDir, null);
+        String heldOut = Files.readString(all.get(all.size() - 1));
+        WhitespaceTokenizer tokenizer = WhitespaceTokenizer.fromText(NgramTrainer.readCorpus(all));
+        NgramArtifact artifact = new NgramTrainer(4, tokenizer, 2)
+            .trainFromFiles(all.subList(0, all.size() - 1), tokenizer, null);
+
+        NgramModel kn = new NgramModel(artifact, tokenizer, new KneserNey());
+        NgramModel mkn = new NgramModel(artifact, tokenizer, new ModifiedKneserNey());
+        mkn.perplexity(heldOut); // 미리 계산 (첫 호출)
+
+        long start = System.nanoTime();
+        double knPpl = kn.perplexity(heldOut);
+        long knNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        double mknPpl = mkn.perplexity(heldOut);
+        long mknNanos = System.nanoTime() - start;
+
+        System.out.printf("KneserNey: ppl %.3f (%dms), ModifiedKneserNey: ppl %.3f (%dms)%n",
+            knPpl, knNanos / 1_000_000, mknPpl, mknNanos / 1_000_000);
+        assertTrue(mknPpl < knPpl);
+    }
+}
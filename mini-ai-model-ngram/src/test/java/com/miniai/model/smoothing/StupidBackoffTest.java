@@ -0,0 +1,88 @@
+package com.miniai.model.smoothing;
+
+import com.miniai.model.ngram.NgramArtifact;
+import com.miniai.model.ngram.NgramTrainer;
+import com.miniai.tokenizer.WhitespaceTokenizer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Stupid Backoff 테스트 (정규화하지 않은 점수 + 빠른 채점 경로)
+ */
+class StupidBackoffTest {
+
+    private WhitespaceTokenizer tokenizer;
+    private NgramArtifact artifact;
+    private StupidBackoff stupid;
+
+    @BeforeEach
+    void setUp() {
+        tokenizer = WhitespaceTokenizer.fromText("a b c d");
+        // trigram "a b" → c 2회, d 1회 / bigram "b" → c 2회, d 1회, a 1회
+        artifact = new NgramTrainer(3, tokenizer).trainFromText("a b c a b d b a b c", tokenizer);
+        stupid = new StupidBackoff();
+    }
+
+    @Test
+    @DisplayName("관찰된 가장 긴 order의 상대 빈도를 쓰고, 없으면 α를 곱해 내려간다")
+    void testScores() {
+        int a = tokenizer.getTokenId("a");
+        int b = tokenizer.getTokenId("b");
+        int c = tokenizer.getTokenId("c");
+        int d = tokenizer.getTokenId("d");
+
+        // Trigram에서 바로 멈춤: c("a b c") / c("a b")
+        assertEquals(2.0 / 3, stupid.score(artifact, List.of(a, b), c), 1e-12);
+        // "c a"는 trigram 문맥에 있지만 d는 없음 → bigram "a"에도 d 없음 → α² × unigram
+        double unigramD = 1.0 / 10;
+        assertEquals(0.4 * 0.4 * unigramD, stupid.score(artifact, List.of(c, a), d), 1e-12);
+        // 본 적 없는 trigram 문맥 "d a" → α × bigram "a → b"
+        assertEquals(0.4 * 1.0, stupid.score(artifact, List.of(d, a), b), 1e-12);
+    }
+
+    @Test
+    @DisplayName("생성용 분포는 관찰된 가장 긴 문맥의 토큰만 담고 빠른 경로와 같은 점수를 준다")
+    void testDistributionMatchesScores() {
+        List<Integer> context = tokenizer.encode("d a");
+        Map<Integer, Double> scores = stupid.getSmoothedProbabilities(artifact, context);
+
+        // "d a"는 trigram 문맥에 없고 bigram "a" 뒤에는 b만 관찰됨
+        int b = tokenizer.getTokenId("b");
+        assertEquals(Set.of(b), scores.keySet());
+        assertEquals(0.4, scores.get(b), 1e-12);
+
+        int[] candidates = tokenizer.getVocabulary().values().stream().mapToInt(Integer::intValue).toArray();
+        double[] batch = new double[candidates.length];
+        stupid.scoreAll(artifact, context, candidates, batch);
+        for (int i = 0; i < candidates.length; i++) {
+            assertEquals(stupid.score(artifact, context, candidates[i]), batch[i], 1e-15);
+            if (scores.containsKey(candidates[i])) {
+                assertEquals(scores.get(candidates[i]), batch[i], 1e-15);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("채점 처리량이 SimpleBackoff 분포 조회보다 높다")
+    void testBenchmarkFasterThanSimpleBackoff() {
+        StringBuilder corpus = new StringBuilder();
+        Random random = new Random(42);
+        for (int i = 0; i < 20000; i++) {
+            corpus.append("w").append(random.nextInt(300)).append(' ');
+        }
+        WhitespaceTokenizer words = WhitespaceTokenizer.fromText(corpus.toString());
+        NgramArtifact large = new NgramTrainer(4, words).trainFromText(corpus.toString(), words);
+
+        List<ScoringBenchmark.Result> results = ScoringBenchmark.run(large, 2000, 100);
+        results.forEach(System.out::println);
+        assertTrue(results.get(1).getCandidatesPerSecond() > results.get(0).getCandidatesPerSecond());
+    }
+}
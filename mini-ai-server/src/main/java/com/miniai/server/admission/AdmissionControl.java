@@ -0,0 +1,77 @@
+package com.miniai.server.admission;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 요청 종류별 격벽 모음
+ *
+ * 학습 포인트:
+ * - generate는 CPU만 쓰는 짧은 요청 → 동시 실행을 CPU 수 근처로 제한해야 지연이 일정
+ *   (학습이나 폭주 트래픽이 몰려도 받아들인 요청은 제때 끝남, 넘치는 요청은 429)
+ * - 학습은 TrainingJobService의 전용 executor(스레드 수, 대기열)와 메모리 예산으로 따로 제한
+ * - 응답 캐시 적중은 격벽을 거치지 않음 (마이크로초 단위라 제한할 이유가 없음)
+ * - 코드 분석은 요청 하나가 수십~수백 ms (파싱) → generate와 따로 제한해서 서로 밀어내지 않게
+ *   (분석기 풀 크기 = 분석 격벽의 동시 실행 수)
+ *
+ * 설정 (generate max-concurrent가 0이면 CPU 수 × 2):
+ * - miniai.admission.generate.max-concurrent
+ * - miniai.admission.generate.max-queue: 기다릴 수 있는 요청 수 (기본 100)
+ * - miniai.admission.generate.max-wait-ms: 최대 대기 시간 (기본 1000)
+ *
+ * 설정 (analysis max-concurrent가 0이면 CPU 수):
+ * - miniai.admission.analysis.max-concurrent
+ * - miniai.admission.analysis.max-queue: 기본 50
+ * - miniai.admission.analysis.max-wait-ms: 기본 5000
+ */
+@Service
+public class AdmissionControl {
+
+    /**
+     * generate 거절 시 Retry-After (짧은 요청이라 곧 자리가 남)
+     */
+    static final long GENERATE_RETRY_AFTER_SECONDS = 1;
+
+    /**
+     * 분석 거절 시 Retry-After (요청 하나가 generate보다 길어서 조금 더 늦게)
+     */
+    static final long ANALYSIS_RETRY_AFTER_SECONDS = 2;
+
+    private final Bulkhead generate;
+    private final Bulkhead analysis;
+
+    public AdmissionControl(@Value("${miniai.admission.generate.max-concurrent:0}") int generateConcurrent,
+                            @Value("${miniai.admission.generate.max-queue:100}") int generateQueue,
+                            @Value("${miniai.admission.generate.max-wait-ms:1000}") long generateWaitMillis,
+                            @Value("${miniai.admission.analysis.max-concurrent:0}") int analysisConcurrent,
+                            @Value("${miniai.admission.analysis.max-queue:50}") int analysisQueue,
+                            @Value("${miniai.admission.analysis.max-wait-ms:5000}") long analysisWaitMillis) {
+        int cpus = Runtime.getRuntime().availableProcessors();
+        this.generate = new Bulkhead("generate", orDefault(generateConcurrent, cpus * 2), generateQueue,
+            generateWaitMillis, GENERATE_RETRY_AFTER_SECONDS);
+        this.analysis = new Bulkhead("analysis", orDefault(analysisConcurrent, cpus), analysisQueue,
+            analysisWaitMillis, ANALYSIS_RETRY_AFTER_SECONDS);
+    }
+
+    private static int orDefault(int maxConcurrent, int defaultValue) {
+        return maxConcurrent > 0 ? maxConcurrent : defaultValue;
+    }
+
+    public Bulkhead generate() {
+        return generate;
+    }
+
+    public Bulkhead analysis() {
+        return analysis;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put(generate.getName(), generate.stats());
+        stats.put(analysis.getName(), analysis.stats());
+        return stats;
+    }
+}
@@ -0,0 +1,121 @@
+package com.miniai.server.admission;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 엔드포인트별 격벽 (동시 실행 수 + 대기열 + 대기 시간 제한)
+ *
+ * 학습 포인트:
+ * - 제한이 없으면 폭주 시 요청 스레드가 모두 CPU를 나눠 쓰다가 전부 느려짐 (아무도 제때 못 끝남)
+ * - maxConcurrent개만 실행, maxQueue개까지만 기다리고 나머지는 즉시 거절
+ *   → 받아들인 요청의 지연은 일정하게 유지, 넘치는 부하는 429로 클라이언트에 되돌림
+ * - 기다리는 시간도 maxWaitMillis로 제한 (오래 기다린 응답은 어차피 쓸모없음)
+ * - 엔드포인트마다 따로 두므로 한쪽이 가득 차도 다른 쪽은 영향 없음 (배의 격벽처럼)
+ *
+ * 요청 스레드에서 Semaphore로 제한 (서블릿 요청은 동기 처리이므로 별도 executor 불필요)
+ */
+public final class Bulkhead {
+
+    private final String name;
+    private final int maxConcurrent;
+    private final int maxQueue;
+    private final long maxWaitMillis;
+    private final long retryAfterSeconds;
+
+    private final Semaphore permits;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public Bulkhead(String name, int maxConcurrent, int maxQueue, long maxWaitMillis, long retryAfterSeconds) {
+        if (maxConcurrent < 1 || maxQueue < 0 || maxWaitMillis < 0 || retryAfterSeconds < 0) {
+            throw new IllegalArgumentException(name + ": maxConcurrent는 1 이상, 나머지는 0 이상이어야 합니다");
+        }
+        this.name = name;
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueue = maxQueue;
+        this.maxWaitMillis = maxWaitMillis;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.permits = new Semaphore(maxConcurrent, true);
+    }
+
+    /**
+     * 실행 허가 받기 (반드시 close로 반납: try-with-resources)
+     *
+     * @throws OverloadedException 대기열이 가득 찼거나 maxWaitMillis 안에 차례가 오지 않은 경우
+     */
+    public Permit acquire() {
+        if (permits.tryAcquire()) {
+            admitted.increment();
+            return new Permit();
+        }
+        if (waiting.incrementAndGet() > maxQueue) {
+            waiting.decrementAndGet();
+            throw reject("대기열이 가득 찼습니다");
+        }
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        } finally {
+            waiting.decrementAndGet();
+        }
+        if (!acquired) {
+            throw reject(maxWaitMillis + "ms 안에 차례가 오지 않았습니다");
+        }
+        admitted.increment();
+        return new Permit();
+    }
+
+    private OverloadedException reject(String reason) {
+        rejected.increment();
+        return new OverloadedException(name, retryAfterSeconds,
+            name + " 요청이 많습니다 (" + reason + "). " + retryAfterSeconds + "초 후 다시 시도하세요.");
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("maxConcurrent", maxConcurrent);
+        stats.put("maxQueue", maxQueue);
+        stats.put("maxWaitMs", maxWaitMillis);
+        stats.put("active", maxConcurrent - permits.availablePermits());
+        stats.put("waiting", waiting.get());
+        stats.put("admitted", admitted.sum());
+        stats.put("rejected", rejected.sum());
+        return stats;
+    }
+
+    /**
+     * 실행 허가 (close하면 반납, 두 번 반납해도 한 번만 처리)
+     */
+    public final class Permit implements AutoCloseable {
+
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Permit() {
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                permits.release();
+            }
+        }
+    }
+}
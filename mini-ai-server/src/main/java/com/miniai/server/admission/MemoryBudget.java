@@ -0,0 +1,110 @@
+package com.miniai.server.admission;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 추정 메모리로 작업을 받는 예산 (학습 작업용)
+ *
+ * 학습 포인트:
+ * - 큰 코퍼스 학습 몇 개가 동시에 카운트 표를 만들면 힙이 넘쳐 서버 전체(생성 포함)가 죽음
+ * - 제출할 때 작업의 최대 메모리를 추정해서 예산에서 "예약", 끝나면 반납
+ *   → 대기 중인 작업도 예약에 포함 (대기열에 들어간 순간 실행이 약속된 것이므로)
+ * - 예산 = 최대 힙 × fraction (나머지는 서빙 중인 모델과 생성 요청 몫)
+ * - 혼자서도 예산을 넘는 작업은 기다려도 소용없음 → 거절 (IllegalArgumentException)
+ *   다른 작업의 예약 때문에 넘는 작업은 나중에 다시 (OverloadedException → 429)
+ */
+public final class MemoryBudget {
+
+    private final String name;
+    private final long budgetBytes;
+    private final long retryAfterSeconds;
+    private long reservedBytes;
+    private int reservations;
+
+    public MemoryBudget(String name, long budgetBytes, long retryAfterSeconds) {
+        if (budgetBytes < 1) {
+            throw new IllegalArgumentException(name + ": 메모리 예산은 1바이트 이상이어야 합니다");
+        }
+        this.name = name;
+        this.budgetBytes = budgetBytes;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * 최대 힙의 일부를 예산으로
+     *
+     * @param fraction 0 초과 1 이하 (예: 0.5)
+     */
+    public static MemoryBudget ofHeapFraction(String name, double fraction, long retryAfterSeconds) {
+        if (!(fraction > 0 && fraction <= 1)) {
+            throw new IllegalArgumentException(name + ": 메모리 비율은 0 초과 1 이하여야 합니다: " + fraction);
+        }
+        return new MemoryBudget(name, (long) (Runtime.getRuntime().maxMemory() * fraction), retryAfterSeconds);
+    }
+
+    /**
+     * 예약 (반드시 close로 반납)
+     *
+     * @throws IllegalArgumentException 혼자서도 예산을 넘는 경우
+     * @throws OverloadedException 다른 예약 때문에 지금은 넘는 경우
+     */
+    public synchronized Reservation reserve(long bytes) {
+        long amount = Math.max(0, bytes);
+        if (amount > budgetBytes) {
+            throw new IllegalArgumentException(String.format(
+                "%s 예상 메모리 %,dMB가 예산 %,dMB를 넘습니다 (코퍼스를 나누거나 가지치기를 사용하세요)",
+                name, amount >> 20, budgetBytes >> 20));
+        }
+        if (reservedBytes + amount > budgetBytes) {
+            throw new OverloadedException(name, retryAfterSeconds, String.format(
+                "%s 메모리 예산이 부족합니다 (예상 %,dMB, 사용 중 %,dMB / %,dMB). %d초 후 다시 시도하세요.",
+                name, amount >> 20, reservedBytes >> 20, budgetBytes >> 20, retryAfterSeconds));
+        }
+        reservedBytes += amount;
+        reservations++;
+        return new Reservation(amount);
+    }
+
+    private synchronized void release(long bytes) {
+        reservedBytes -= bytes;
+        reservations--;
+    }
+
+    public synchronized long getReservedBytes() {
+        return reservedBytes;
+    }
+
+    public synchronized Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("budgetBytes", budgetBytes);
+        stats.put("reservedBytes", reservedBytes);
+        stats.put("reservations", reservations);
+        return stats;
+    }
+
+    /**
+     * 예약 하나 (close하면 반납, 두 번 반납해도 한 번만 처리)
+     */
+    public final class Reservation implements AutoCloseable {
+
+        private final long bytes;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Reservation(long bytes) {
+            this.bytes = bytes;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                release(bytes);
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.miniai.server.admission;
+
+/**
+ * 자원(동시 실행 수, 대기열, 메모리 예산)이 가득 차서 요청을 받지 않음
+ *
+ * 컨트롤러가 429 Too Many Requests + Retry-After로 변환
+ */
+public class OverloadedException extends RuntimeException {
+
+    private final String resource;
+    private final long retryAfterSeconds;
+
+    public OverloadedException(String resource, long retryAfterSeconds, String message) {
+        super(message);
+        this.resource = resource;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * 가득 찬 자원 이름 (예: generate, training)
+     */
+    public String getResource() {
+        return resource;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
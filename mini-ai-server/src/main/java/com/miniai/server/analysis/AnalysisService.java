@@ -0,0 +1,280 @@
+package com.miniai.server.analysis;
+
+import com.codeai.analyzer.CodeAnalyzer;
+import com.codeai.analyzer.ast.ASTAnalyzer;
+import com.codeai.analyzer.ast.ParseCache;
+import com.codeai.analyzer.project.ProjectAnalyzer;
+import com.codeai.analyzer.type.TypeResolver;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.miniai.server.admission.AdmissionControl;
+import com.miniai.server.admission.Bulkhead;
+import com.miniai.server.metrics.LatencyHistogram;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 코드 분석 서비스 (/v1/analyze, /v1/analyze/project)
+ *
+ * 학습 포인트:
+ * - CLI는 명령마다 JVM 시작 + JavaParser 클래스 로딩 + JIT 워밍업을 다시 함 (분석보다 오래 걸림)
+ * - 서버는 한 번 데워 둔 분석기를 풀로 재사용 → 반복 분석은 파싱 + 분석 시간만
+ * - 파싱 결과 캐시를 분석기끼리 공유 (같은 파일을 다시 분석하면 파싱도 생략)
+ *   TypeResolver는 Symbol Solver가 AST에 데이터를 붙이므로 캐시를 쓰지 않음 (인스턴스의 타입 캐시만 재사용)
+ * - 분석 격벽(AdmissionControl.analysis)으로 동시 분석 수 제한, 풀 크기도 같게
+ * - 프로젝트 분석은 서버 디스크를 읽으므로 project-root 아래만 허용
+ *   (심볼릭 링크와 ..를 따라간 실제 경로로 비교, 설정하지 않으면 비활성화)
+ *
+ * 분석기 종류: review(정규식), ast(JavaParser AST), types(Symbol Solver, JDK 타입만 해석)
+ *
+ * 설정:
+ * - miniai.analysis.parse-cache-chars: 파싱 캐시에 둘 소스 글자 수 합 (기본 16M)
+ * - miniai.analysis.warmup-rounds: 시작할 때 분석기 종류별 샘플 분석 횟수 (기본 20, 0이면 생략)
+ * - miniai.analysis.project-root: /v1/analyze/project가 읽을 수 있는 디렉토리 (기본 비어 있음 = 비활성화)
+ */
+@Service
+public class AnalysisService {
+
+    public static final List<String> ANALYZERS = List.of("review", "ast", "types");
+
+    /**
+     * 워밍업용 샘플 (분석기가 검사하는 구문이 고루 들어 있도록)
+     */
+    private static final String WARMUP_SOURCE = """
+        package warmup;
+
+        import java.util.*;
+
+        public class Warmup {
+            private static final int LIMIT = 10;
+            private final Map<String, List<Integer>> values = new HashMap<>();
+            public String name;
+
+            public int sum(List<Integer> items) {
+                int total = 0;
+                for (int i = 0; i < items.size(); i++) {
+                    if (items.get(i) != null && items.get(i) > LIMIT) {
+                        total += items.get(i);
+                    } else if (items.get(i) == null) {
+                        continue;
+                    }
+                }
+                for (Integer item : items) {
+                    while (item > 0) {
+                        item--;
+                    }
+                }
+                return total;
+            }
+
+            public void load(String query) {
+                try {
+                    String sql = "SELECT * FROM t WHERE name = '" + query + "'";
+                    System.out.println(sql);
+                } catch (Exception e) {
+                }
+                values.computeIfAbsent(query, key -> new ArrayList<>()).add(query.length());
+            }
+        }
+        """;
+
+    private final Bulkhead bulkhead;
+    private final ObjectMapper mapper;
+    private final ParseCache parseCache;
+    private final AnalyzerPool<CodeAnalyzer> review;
+    private final AnalyzerPool<ASTAnalyzer> ast;
+    private final AnalyzerPool<TypeResolver> types;
+    private final AnalyzerPool<ProjectAnalyzer> project;
+
+    private final LatencyHistogram fileLatency = new LatencyHistogram();
+    private final LatencyHistogram projectLatency = new LatencyHistogram();
+    private final long warmupMillis;
+
+    /**
+     * 프로젝트 분석을 허용할 디렉토리 (실제 경로, null이면 비활성화)
+     */
+    private final Path projectRoot;
+
+    public AnalysisService(AdmissionControl admission, ObjectMapper mapper,
+                           @Value("${miniai.analysis.parse-cache-chars:16777216}") long parseCacheChars,
+                           @Value("${miniai.analysis.warmup-rounds:20}") int warmupRounds,
+                           @Value("${miniai.analysis.project-root:}") String projectRoot) {
+        this.projectRoot = resolveProjectRoot(projectRoot);
+        this.bulkhead = admission.analysis();
+        this.mapper = mapper;
+        this.parseCache = new ParseCache(parseCacheChars);
+
+        int size = bulkhead.getMaxConcurrent();
+        this.review = new AnalyzerPool<>("review", size, CodeAnalyzer::new);
+        this.ast = new AnalyzerPool<>("ast", size, () -> new ASTAnalyzer(parseCache));
+        this.types = new AnalyzerPool<>("types", size, TypeResolver::new);
+        this.project = new AnalyzerPool<>("project", size, () -> new ProjectAnalyzer(parseCache));
+
+        long start = System.nanoTime();
+        warmUp(warmupRounds);
+        this.warmupMillis = (System.nanoTime() - start) / 1_000_000;
+    }
+
+    /**
+     * @throws IllegalArgumentException 설정한 project-root가 디렉토리가 아닌 경우
+     */
+    private static Path resolveProjectRoot(String projectRoot) {
+        if (projectRoot == null || projectRoot.isBlank()) {
+            return null;
+        }
+        Path root = Path.of(projectRoot.trim());
+        try {
+            if (Files.isDirectory(root)) {
+                return root.toRealPath();
+            }
+        } catch (IOException e) {
+            // 아래에서 거절
+        }
+        throw new IllegalArgumentException("miniai.analysis.project-root가 디렉토리가 아닙니다: " + projectRoot);
+    }
+
+    /**
+     * 분석기 종류마다 샘플을 돌려 클래스 로딩 + JIT + Symbol Solver 캐시를 데움
+     *
+     * 풀은 FIFO라 rounds번(최소 풀 크기만큼) 빌리면 모든 인스턴스를 한 번 이상 사용
+     * 샘플마다 주석을 바꿔 파싱도 매번 하게 하고, 끝나면 파싱 캐시를 비움
+     * (ProjectAnalyzer는 내부의 ASTAnalyzer와 같은 코드라 ast 워밍업으로 충분)
+     */
+    private void warmUp(int rounds) {
+        if (rounds <= 0) {
+            return;
+        }
+        int iterations = Math.max(rounds, ast.size());
+        for (int i = 0; i < iterations; i++) {
+            String code = WARMUP_SOURCE + "// warm-up " + i + "\n";
+            review.with(analyzer -> analyzer.analyze(code));
+            ast.with(analyzer -> analyzer.analyze(code));
+            types.with(analyzer -> analyzer.analyze(code));
+        }
+        parseCache.clear();
+    }
+
+    /**
+     * 파일 하나 분석
+     *
+     * @param analyzers review/ast/types 중 (비어 있으면 ast)
+     * @return 분석기 이름 → 결과 (분석기 결과 클래스와 같은 필드 이름)
+     * @throws IllegalArgumentException 알 수 없는 분석기
+     */
+    public Map<String, Object> analyze(String code, List<String> analyzers) {
+        List<String> selected = analyzers == null || analyzers.isEmpty() ? List.of("ast") : analyzers;
+        for (String name : selected) {
+            if (!ANALYZERS.contains(name)) {
+                throw new IllegalArgumentException("알 수 없는 분석기입니다: " + name + " (사용 가능: " + ANALYZERS + ")");
+            }
+        }
+
+        long start = System.nanoTime();
+        Map<String, Object> result = new LinkedHashMap<>();
+        try (Bulkhead.Permit permit = bulkhead.acquire()) {
+            for (String name : selected) {
+                // 결과가 분석기 필드를 가리키므로 반납 전에 Map으로 복사
+                result.put(name, switch (name) {
+                    case "review" -> review.with(analyzer -> toMap(analyzer.analyze(code)));
+                    case "ast" -> ast.with(analyzer -> toMap(analyzer.analyze(code)));
+                    default -> types.with(analyzer -> typesToMap(analyzer.analyze(code)));
+                });
+            }
+        }
+        long nanos = System.nanoTime() - start;
+        fileLatency.record(nanos);
+        result.put("latencyMs", nanos / 1e6);
+        return result;
+    }
+
+    /**
+     * 프로젝트 디렉토리 분석 (서버의 project-root 아래 경로만)
+     *
+     * @throws IllegalArgumentException 프로젝트 분석이 꺼져 있거나, 디렉토리가 아니거나, project-root 밖인 경우
+     * @throws UncheckedIOException 파일 목록을 읽지 못한 경우
+     */
+    public Map<String, Object> analyzeProject(Path path) {
+        if (projectRoot == null) {
+            throw new IllegalArgumentException("프로젝트 분석이 꺼져 있습니다 (miniai.analysis.project-root 설정 필요)");
+        }
+        if (!Files.isDirectory(path)) {
+            throw new IllegalArgumentException("디렉토리가 아닙니다: " + path);
+        }
+        Path realPath;
+        try {
+            realPath = path.toRealPath();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (!realPath.startsWith(projectRoot)) {
+            throw new IllegalArgumentException("project-root 밖의 경로입니다: " + path + " (허용: " + projectRoot + ")");
+        }
+        long start = System.nanoTime();
+        Map<String, Object> result;
+        try (Bulkhead.Permit permit = bulkhead.acquire()) {
+            result = project.with(analyzer -> {
+                try {
+                    return projectToMap(analyzer.analyze(path));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+        long nanos = System.nanoTime() - start;
+        projectLatency.record(nanos);
+        result.put("latencyMs", nanos / 1e6);
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> toMap(Object analyzerResult) {
+        return mapper.convertValue(analyzerResult, Map.class);
+    }
+
+    /**
+     * 타입 분석 결과 (AST는 빼고: 크고 부모 참조가 순환)
+     */
+    private Map<String, Object> typesToMap(TypeResolver.TypeAnalysisResult result) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("issues", mapper.convertValue(result.issues, List.class));
+        map.put("metrics", toMap(result.metrics));
+        map.put("parseSuccess", result.parseSuccess);
+        return map;
+    }
+
+    /**
+     * 프로젝트 결과 (경로는 문자열로)
+     */
+    private Map<String, Object> projectToMap(ProjectAnalyzer.ProjectAnalysisResult result) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("projectPath", result.projectPath.toString());
+        map.put("fileAnalyses", mapper.convertValue(result.fileAnalyses, List.class));
+        map.put("projectIssues", mapper.convertValue(result.projectIssues, List.class));
+        map.put("metrics", toMap(result.metrics));
+        return map;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> pools = new LinkedHashMap<>();
+        pools.put("review", review.stats());
+        pools.put("ast", ast.stats());
+        pools.put("types", types.stats());
+        pools.put("project", project.stats());
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("warmupMs", warmupMillis);
+        stats.put("projectRoot", projectRoot != null ? projectRoot.toString() : null);
+        stats.put("files", fileLatency.toSummary());
+        stats.put("projects", projectLatency.toSummary());
+        stats.put("parseCache", parseCache.stats());
+        stats.put("pools", pools);
+        return stats;
+    }
+}
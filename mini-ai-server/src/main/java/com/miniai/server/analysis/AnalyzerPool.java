@@ -0,0 +1,72 @@
+package com.miniai.server.analysis;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 미리 만들어 데워 둔 분석기 풀
+ *
+ * 학습 포인트:
+ * - 분석기(ASTAnalyzer, TypeResolver 등)는 결과 목록을 필드에 들고 있어서 스레드 안전하지 않음
+ *   → 요청마다 새로 만들면 파서/Symbol Solver 캐시를 매번 버림, 공유하면 결과가 섞임
+ * - 크기 고정 풀에서 빌려 쓰고 돌려줌 (FIFO라 돌아가며 사용 → 모든 인스턴스가 데워진 상태 유지)
+ * - 풀 크기 = 분석 격벽의 동시 실행 수 → 격벽을 통과한 요청은 풀에서 기다리지 않음
+ * - 결과는 분석기의 필드를 가리킬 수 있으므로 돌려주기 전에 변환 (work 안에서 Map으로)
+ */
+public final class AnalyzerPool<T> {
+
+    private final String name;
+    private final int size;
+    private final BlockingQueue<T> idle;
+    private final LongAdder borrows = new LongAdder();
+
+    public AnalyzerPool(String name, int size, Supplier<T> factory) {
+        if (size < 1) {
+            throw new IllegalArgumentException(name + ": 풀 크기는 1 이상이어야 합니다: " + size);
+        }
+        this.name = name;
+        this.size = size;
+        this.idle = new ArrayBlockingQueue<>(size);
+        for (int i = 0; i < size; i++) {
+            idle.add(factory.get());
+        }
+    }
+
+    /**
+     * 분석기 하나를 빌려서 work 실행 (끝나면 반납)
+     *
+     * @throws IllegalStateException 기다리는 동안 인터럽트된 경우
+     */
+    public <R> R with(Function<T, R> work) {
+        T analyzer;
+        try {
+            analyzer = idle.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(name + " 분석기를 기다리는 중 중단되었습니다", e);
+        }
+        borrows.increment();
+        try {
+            return work.apply(analyzer);
+        } finally {
+            idle.add(analyzer);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", size);
+        stats.put("idle", idle.size());
+        stats.put("borrows", borrows.sum());
+        return stats;
+    }
+}
@@ -0,0 +1,239 @@
+package com.miniai.server.batch;
+
+import com.miniai.core.model.LanguageModel;
+import com.miniai.core.types.GenerateRequest;
+import com.miniai.core.types.GenerateResponse;
+import com.miniai.server.config.VirtualThreads;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 생성 요청 micro-batching (짧은 시간 창 안에 온 요청을 모아 한 번에 생성)
+ *
+ * 학습 포인트:
+ * - 폭주 부하에서는 같은 프롬프트/같은 코드 패턴 요청이 동시에 많이 옴
+ *   → 요청마다 생성 루프를 따로 돌리면 같은 문맥의 smoothing 계산을 반복
+ * - 같은 모델(같은 버전 객체)로 가는 요청을 windowMicros 동안 또는 maxSize개까지 모아서
+ *   LanguageModel.generateBatch 한 번으로 처리 (N-gram은 배치 안에서 문맥 조회를 공유)
+ * - 대가: 배치의 첫 요청은 최대 windowMicros만큼 더 기다림 → 창이 클수록 처리량↑, 지연↑
+ * - 배치는 작업 스레드(기본 CPU 수)에서 실행, 호출자는 future가 끝날 때까지 대기
+ * - 한 요청의 오류가 배치 전체를 실패시키지 않도록 실패하면 하나씩 다시 생성
+ *
+ * 설정:
+ * - miniai.batch.enabled: 사용 여부 (기본 false, 꺼져 있으면 호출 스레드에서 바로 generate)
+ * - miniai.batch.window-micros: 모으는 시간 (기본 2000µs)
+ * - miniai.batch.max-size: 배치 최대 요청 수 (기본 32, 차면 창을 기다리지 않고 바로 실행)
+ * - miniai.batch.threads: 배치 실행 스레드 수 (0이면 CPU 수)
+ */
+@Service
+public class GenerateCoalescer {
+
+    private final boolean enabled;
+    private final long windowMicros;
+    private final int maxSize;
+
+    /**
+     * 모델 객체 → 모으는 중인 배치 (모델 교체 시 새 객체 = 새 배치), 자기 자신으로 동기화
+     */
+    private final Map<LanguageModel, Batch> open = new IdentityHashMap<>();
+
+    private final ScheduledExecutorService timer;
+    private final ExecutorService workers;
+
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchedRequests = new LongAdder();
+    private final LongAdder fullBatches = new LongAdder();
+    private final LongAccumulator largestBatch = new LongAccumulator(Math::max, 0);
+
+    public GenerateCoalescer(@Value("${miniai.batch.enabled:false}") boolean enabled,
+                             @Value("${miniai.batch.window-micros:2000}") long windowMicros,
+                             @Value("${miniai.batch.max-size:32}") int maxSize,
+                             @Value("${miniai.batch.threads:0}") int threads) {
+        if (windowMicros < 0 || maxSize < 1 || threads < 0) {
+            throw new IllegalArgumentException("window-micros와 threads는 0 이상, max-size는 1 이상이어야 합니다");
+        }
+        this.enabled = enabled;
+        this.windowMicros = windowMicros;
+        this.maxSize = maxSize;
+        if (enabled) {
+            int workerThreads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+            this.timer = Executors.newSingleThreadScheduledExecutor(VirtualThreads.factory("batch-timer-", false));
+            this.workers = Executors.newFixedThreadPool(workerThreads, VirtualThreads.factory("batch-", false));
+        } else {
+            this.timer = null;
+            this.workers = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 생성 (꺼져 있으면 바로 generate, 켜져 있으면 배치에 넣고 끝날 때까지 대기)
+     *
+     * 호출자는 끝날 때까지 model을 빌려 두어야 함 (ModelRegistry.Lease)
+     */
+    public GenerateResponse generate(LanguageModel model, GenerateRequest request) {
+        if (!enabled) {
+            return model.generate(request);
+        }
+        try {
+            return submit(model, request).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 배치에 요청 추가
+     *
+     * @return 배치가 실행되면 끝나는 future
+     */
+    public CompletableFuture<GenerateResponse> submit(LanguageModel model, GenerateRequest request) {
+        if (!enabled) {
+            throw new IllegalStateException("micro-batching이 꺼져 있습니다 (miniai.batch.enabled)");
+        }
+        Pending pending = new Pending(request);
+        Batch full = null;
+        synchronized (open) {
+            Batch batch = open.get(model);
+            if (batch == null) {
+                batch = new Batch(model);
+                open.put(model, batch);
+                Batch scheduled = batch;
+                timer.schedule(() -> flush(scheduled), windowMicros, TimeUnit.MICROSECONDS);
+            }
+            batch.items.add(pending);
+            if (batch.items.size() >= maxSize) {
+                open.remove(model);
+                full = batch;
+            }
+        }
+        if (full != null) {
+            fullBatches.increment();
+            dispatch(full);
+        }
+        return pending.future;
+    }
+
+    /**
+     * 창이 끝난 배치 실행 (그 사이 maxSize로 이미 실행됐으면 무시)
+     */
+    private void flush(Batch batch) {
+        synchronized (open) {
+            if (open.get(batch.model) != batch) {
+                return;
+            }
+            open.remove(batch.model);
+        }
+        dispatch(batch);
+    }
+
+    private void dispatch(Batch batch) {
+        try {
+            workers.execute(() -> run(batch));
+        } catch (RuntimeException e) {
+            for (Pending pending : batch.items) {
+                pending.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    private void run(Batch batch) {
+        List<Pending> items = batch.items;
+        batches.increment();
+        batchedRequests.add(items.size());
+        largestBatch.accumulate(items.size());
+
+        List<GenerateRequest> requests = new ArrayList<>(items.size());
+        for (Pending pending : items) {
+            requests.add(pending.request);
+        }
+        try {
+            List<GenerateResponse> responses = batch.model.generateBatch(requests);
+            for (int i = 0; i < items.size(); i++) {
+                items.get(i).future.complete(responses.get(i));
+            }
+        } catch (RuntimeException e) {
+            // 어느 요청이 실패했는지 모름 → 하나씩 다시 생성해서 실패한 요청만 오류로
+            for (Pending pending : items) {
+                try {
+                    pending.future.complete(batch.model.generate(pending.request));
+                } catch (RuntimeException single) {
+                    pending.future.completeExceptionally(single);
+                }
+            }
+        }
+    }
+
+    /**
+     * 배치 통계 (/v1/metrics용)
+     */
+    public Map<String, Object> stats() {
+        long batchCount = batches.sum();
+        long requestCount = batchedRequests.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("windowMicros", windowMicros);
+        stats.put("maxSize", maxSize);
+        stats.put("batches", batchCount);
+        stats.put("requests", requestCount);
+        stats.put("fullBatches", fullBatches.sum());
+        stats.put("meanBatchSize", batchCount == 0 ? 0.0 : (double) requestCount / batchCount);
+        stats.put("largestBatch", largestBatch.get());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (timer == null) {
+            return;
+        }
+        timer.shutdownNow();
+        // 창을 기다리던 배치도 실행해서 대기 중인 호출자를 풀어 줌
+        List<Batch> remaining;
+        synchronized (open) {
+            remaining = new ArrayList<>(open.values());
+            open.clear();
+        }
+        remaining.forEach(this::dispatch);
+        workers.shutdown();
+    }
+
+    private static final class Pending {
+        final GenerateRequest request;
+        final CompletableFuture<GenerateResponse> future = new CompletableFuture<>();
+
+        Pending(GenerateRequest request) {
+            this.request = request;
+        }
+    }
+
+    private static final class Batch {
+        final LanguageModel model;
+        final List<Pending> items = new ArrayList<>();
+
+        Batch(LanguageModel model) {
+            this.model = model;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.miniai.server.bench;
+
+import com.miniai.core.model.LanguageModel;
+import com.miniai.core.types.GenerateRequest;
+import com.miniai.model.ngram.EnsembleModel;
+import com.miniai.server.batch.GenerateCoalescer;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * micro-batching 창 크기별 처리량/지연 비교
+ *
+ * 학습 포인트:
+ * - 요청자 concurrency개가 각자 응답을 받으면 바로 다음 요청 (closed loop, 폭주 부하)
+ * - 창 0 = 배치 없이 요청 스레드에서 바로 generate (기준)
+ * - 창이 커질수록 배치가 커져 문맥 조회 공유가 늘어남 (처리량↑)
+ *   대신 배치 첫 요청은 창만큼 기다림 (p50↑), 배치 전체가 끝나야 하므로 p99도 늘어날 수 있음
+ * - 프롬프트는 IDE 요청처럼 몇 가지 코드 패턴에 몰림, seed는 요청마다 다름 (응답 캐시로는 못 줄임)
+ * - temperature가 낮을수록 같은 프롬프트의 요청들이 오래 같은 문맥을 지나감 → 공유 이득↑
+ *
+ * 사용법: BatchingBenchmark <artifact.json> [concurrency=64] [requests=20000] [windows=0,250,1000,2000,5000] [maxSize=32] [temperature=1.0]
+ */
+public final class BatchingBenchmark {
+
+    private static final String[] PROMPTS = {
+        "public", "for ( int i = 0 ;", "if ( x == null )", "return", "private static final", "import java ."
+    };
+
+    private BatchingBenchmark() {
+    }
+
+    /**
+     * 측정 결과
+     */
+    public static final class Result {
+        private final long windowMicros;
+        private final int requests;
+        private final long nanos;
+        private final long[] latencies;
+        private final double meanBatchSize;
+
+        Result(long windowMicros, int requests, long nanos, long[] latencies, double meanBatchSize) {
+            this.windowMicros = windowMicros;
+            this.requests = requests;
+            this.nanos = nanos;
+            this.latencies = latencies;
+            this.meanBatchSize = meanBatchSize;
+            Arrays.sort(this.latencies);
+        }
+
+        public double getRequestsPerSecond() {
+            return requests / (nanos / 1e9);
+        }
+
+        /**
+         * 지연 백분위 (ms)
+         */
+        public double percentile(double p) {
+            int index = (int) Math.ceil(p * latencies.length) - 1;
+            return latencies[Math.max(0, Math.min(latencies.length - 1, index))] / 1e6;
+        }
+
+        @Override
+        public String toString() {
+            String mode = windowMicros == 0 ? "direct" : windowMicros + "µs";
+            return String.format("%-8s %,8.0f req/s | p50 %7.2fms p99 %7.2fms | 평균 배치 %5.1f",
+                mode, getRequestsPerSecond(), percentile(0.50), percentile(0.99), meanBatchSize);
+        }
+    }
+
+    /**
+     * 창 크기마다 같은 부하 실행 (창마다 워밍업 1회 후 측정)
+     */
+    public static List<Result> run(LanguageModel model, int concurrency, int requests,
+                                   long[] windows, int maxSize, double temperature) throws InterruptedException {
+        List<Result> results = new ArrayList<>();
+        for (long window : windows) {
+            runOnce(model, concurrency, Math.min(requests, 2000), window, maxSize, temperature); // 워밍업
+            results.add(runOnce(model, concurrency, requests, window, maxSize, temperature));
+        }
+        return results;
+    }
+
+    private static Result runOnce(LanguageModel model, int concurrency, int requests,
+                                  long windowMicros, int maxSize, double temperature) throws InterruptedException {
+        GenerateCoalescer coalescer = new GenerateCoalescer(windowMicros > 0, windowMicros, maxSize, 0);
+        ExecutorService callers = Executors.newFixedThreadPool(concurrency);
+        AtomicInteger next = new AtomicInteger();
+        long[] latencies = new long[requests];
+        CountDownLatch done = new CountDownLatch(concurrency);
+
+        long start = System.nanoTime();
+        for (int c = 0; c < concurrency; c++) {
+            callers.execute(() -> {
+                try {
+                    for (int i = next.getAndIncrement(); i < requests; i = next.getAndIncrement()) {
+                        GenerateRequest request = GenerateRequest.builder(PROMPTS[i % PROMPTS.length])
+                            .maxTokens(20)
+                            .temperature(temperature)
+                            .seed((long) i)
+                            .build();
+                        long submitted = System.nanoTime();
+                        coalescer.generate(model, request);
+                        latencies[i] = System.nanoTime() - submitted;
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        long nanos = System.nanoTime() - start;
+        callers.shutdown();
+        callers.awaitTermination(10, TimeUnit.SECONDS);
+
+        Map<String, Object> stats = coalescer.stats();
+        coalescer.shutdown();
+        double meanBatchSize = windowMicros > 0 ? (double) stats.get("meanBatchSize") : 1.0;
+        return new Result(windowMicros, requests, nanos, latencies, meanBatchSize);
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1) {
+            System.err.println("사용법: BatchingBenchmark <artifact.json> [concurrency] [requests] [windows] [maxSize] [temperature]");
+            System.exit(1);
+        }
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        int requests = args.length > 2 ? Integer.parseInt(args[2]) : 20000;
+        long[] windows = Arrays.stream((args.length > 3 ? args[3] : "0,250,1000,2000,5000").split(","))
+            .mapToLong(Long::parseLong)
+            .toArray();
+        int maxSize = args.length > 4 ? Integer.parseInt(args[4]) : 32;
+        double temperature = args.length > 5 ? Double.parseDouble(args[5]) : 1.0;
+
+        LanguageModel model = EnsembleModel.loadArtifact(Paths.get(args[0]), "kneser-ney");
+        System.out.printf("📊 %s: 요청자 %d, 요청 %,d, maxSize %d, temperature %.1f, CPU %d%n",
+            model.modelName(), concurrency, requests, maxSize, temperature, Runtime.getRuntime().availableProcessors());
+        for (Result result : run(model, concurrency, requests, windows, maxSize, temperature)) {
+            System.out.println("   " + result);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.miniai.server.bench;
+
+import com.miniai.core.model.LanguageModel;
+import com.miniai.core.types.GenerateRequest;
+import com.miniai.model.ngram.EnsembleModel;
+import com.miniai.server.config.VirtualThreads;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 요청 처리 스레드 비교: 플랫폼 스레드 풀(Tomcat 기본 200) vs 가상 스레드
+ *
+ * 학습 포인트:
+ * - 서버 부하 = 빠른 generate + 파일 I/O에서 오래 기다리는 train/분석 요청
+ * - 플랫폼 풀: 느린 요청이 스레드를 잡고 있으면 빠른 요청도 대기열에서 기다림 → p99 급증
+ * - 가상 스레드: 기다리는 동안 OS 스레드를 반납 → 빠른 요청은 CPU만 있으면 바로 처리
+ * - 동시 요청 수(concurrency)만큼 항상 처리 중이도록 유지 (지연 = 제출 ~ 완료, 대기열 시간 포함)
+ *
+ * 느린 요청의 blocking I/O는 Thread.sleep으로 모사 (디스크 캐시 영향 없이 재현 가능)
+ *
+ * 사용법: ThreadingBenchmark <artifact.json> [concurrency=1000] [requests=20000] [slowRatio=0.1] [slowMillis=50]
+ */
+public final class ThreadingBenchmark {
+
+    /**
+     * Tomcat 기본 최대 스레드 수 (server.tomcat.threads.max)
+     */
+    private static final int PLATFORM_THREADS = 200;
+
+    private static final String[] PROMPTS = {
+        "public", "for ( int i = 0 ;", "if ( x == null )", "return", "private static final", "import java ."
+    };
+
+    private ThreadingBenchmark() {
+    }
+
+    /**
+     * 측정 결과
+     */
+    public static final class Result {
+        private final String mode;
+        private final int requests;
+        private final long nanos;
+        private final long[] fastNanos;
+        private final long[] slowNanos;
+
+        Result(String mode, int requests, long nanos, long[] fastNanos, long[] slowNanos) {
+            this.mode = mode;
+            this.requests = requests;
+            this.nanos = nanos;
+            this.fastNanos = fastNanos;
+            this.slowNanos = slowNanos;
+            Arrays.sort(this.fastNanos);
+            Arrays.sort(this.slowNanos);
+        }
+
+        public String getMode() {
+            return mode;
+        }
+
+        public double getRequestsPerSecond() {
+            return requests / (nanos / 1e9);
+        }
+
+        /**
+         * generate 요청의 지연 백분위 (ms)
+         */
+        public double fastPercentile(double p) {
+            return percentile(fastNanos, p);
+        }
+
+        public double slowPercentile(double p) {
+            return percentile(slowNanos, p);
+        }
+
+        private static double percentile(long[] sorted, double p) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(p * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1e6;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-9s %,9.0f req/s | generate p50 %7.1fms p99 %7.1fms | slow p99 %7.1fms",
+                mode, getRequestsPerSecond(), fastPercentile(0.50), fastPercentile(0.99), slowPercentile(0.99));
+        }
+    }
+
+    /**
+     * 두 모드로 같은 요청 순서를 실행 (모드마다 워밍업 1회 후 측정)
+     *
+     * @return [platform, virtual] (가상 스레드를 쓸 수 없으면 platform만)
+     */
+    public static List<Result> run(LanguageModel model, int concurrency, int requests,
+                                   double slowRatio, long slowMillis) throws InterruptedException {
+        boolean[] slow = new boolean[requests];
+        Random random = new Random(42);
+        for (int i = 0; i < requests; i++) {
+            slow[i] = random.nextDouble() < slowRatio;
+        }
+
+        List<Result> results = new ArrayList<>();
+        for (boolean virtual : new boolean[]{false, true}) {
+            if (virtual && !VirtualThreads.isAvailable()) {
+                System.err.println("⚠️  가상 스레드를 쓸 수 없는 JDK입니다 (" + Runtime.version() + "): platform만 측정");
+                break;
+            }
+            String mode = virtual ? "virtual" : "platform";
+            runOnce(mode, virtual, model, concurrency, Math.min(requests, 2000), slow, slowMillis); // 워밍업
+            results.add(runOnce(mode, virtual, model, concurrency, requests, slow, slowMillis));
+        }
+        return results;
+    }
+
+    private static Result runOnce(String mode, boolean virtual, LanguageModel model, int concurrency,
+                                  int requests, boolean[] slow, long slowMillis) throws InterruptedException {
+        ExecutorService executor = VirtualThreads.perTaskExecutor("bench-" + mode + "-", virtual, PLATFORM_THREADS);
+        Semaphore inFlight = new Semaphore(concurrency);
+        CountDownLatch done = new CountDownLatch(requests);
+        long[] latencies = new long[requests];
+
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            inFlight.acquire();
+            int index = i;
+            long submitted = System.nanoTime();
+            executor.execute(() -> {
+                try {
+                    if (slow[index]) {
+                        Thread.sleep(slowMillis); // 파일 I/O 대기
+                    } else {
+                        model.generate(GenerateRequest.builder(PROMPTS[index % PROMPTS.length])
+                            .maxTokens(20)
+                            .seed((long) index)
+                            .build());
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    latencies[index] = System.nanoTime() - submitted;
+                    inFlight.release();
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        long nanos = System.nanoTime() - start;
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        int slowCount = 0;
+        for (int i = 0; i < requests; i++) {
+            slowCount += slow[i] ? 1 : 0;
+        }
+        long[] fastNanos = new long[requests - slowCount];
+        long[] slowNanos = new long[slowCount];
+        int f = 0;
+        int s = 0;
+        for (int i = 0; i < requests; i++) {
+            if (slow[i]) {
+                slowNanos[s++] = latencies[i];
+            } else {
+                fastNanos[f++] = latencies[i];
+            }
+        }
+        return new Result(mode, requests, nanos, fastNanos, slowNanos);
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1) {
+            System.err.println("사용법: ThreadingBenchmark <artifact.json> [concurrency] [requests] [slowRatio] [slowMillis]");
+            System.exit(1);
+        }
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int requests = args.length > 2 ? Integer.parseInt(args[2]) : 20000;
+        double slowRatio = args.length > 3 ? Double.parseDouble(args[3]) : 0.1;
+        long slowMillis = args.length > 4 ? Long.parseLong(args[4]) : 50;
+
+        LanguageModel model = EnsembleModel.loadArtifact(Paths.get(args[0]), "kneser-ney");
+        System.out.printf("📊 %s: 동시 %d, 요청 %,d (느린 요청 %.0f%% × %dms), 플랫폼 풀 %d%n",
+            model.modelName(), concurrency, requests, slowRatio * 100, slowMillis, PLATFORM_THREADS);
+        List<Result> results = run(model, concurrency, requests, slowRatio, slowMillis);
+        for (Result result : results) {
+            System.out.println("   " + result);
+        }
+        if (results.size() == 2) {
+            System.out.printf("   Throughput: %.1fx, generate p99: %.1fx%n",
+                results.get(1).getRequestsPerSecond() / results.get(0).getRequestsPerSecond(),
+                results.get(0).fastPercentile(0.99) / results.get(1).fastPercentile(0.99));
+        }
+    }
+}
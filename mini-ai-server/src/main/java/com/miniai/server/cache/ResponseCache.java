@@ -0,0 +1,257 @@
+package com.miniai.server.cache;
+
+import com.miniai.core.types.GenerateRequest;
+import com.miniai.core.types.GenerateResponse;
+import com.miniai.server.registry.ModelRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * seed가 있는 생성 요청의 응답 캐시
+ *
+ * 학습 포인트:
+ * - seed가 같으면 Sampler의 난수열도 같음 → 출력은 (모델, 요청)의 순수 함수
+ *   (CI 봇, IDE 재요청처럼 같은 요청이 반복되면 생성 루프를 건너뜀)
+ * - 캐시하지 않는 요청:
+ *   - seed 없음: 매번 시각으로 seed를 정함 (결과가 달라야 함)
+ *   - sessionId 있음: 세션 캐시가 요청마다 갱신됨 (같은 요청도 결과가 달라짐)
+ * - 키 = 모델 이름 + 버전 + 기본값이 채워진 GenerateRequest 필드
+ *   → 모델이 교체되면 버전이 바뀌어 옛 응답은 절대 적중하지 않음
+ *   → 교체 알림(ModelRegistry.onChange)으로 옛 항목의 메모리도 바로 반납
+ * - 크기 제한은 항목 수가 아니라 추정 바이트 (긴 프롬프트 하나가 짧은 응답 수백 개와 같음)
+ *   → 접근 순서 LinkedHashMap으로 LRU, 예산을 넘으면 오래된 것부터 제거
+ * - 조회 = 해시 한 번 + 짧은 synchronized 구간 → 마이크로초 단위
+ *
+ * 설정:
+ * - miniai.cache.enabled: 사용 여부 (기본 true)
+ * - miniai.cache.max-bytes: 전체 예산 (기본 32MB)
+ */
+@Service
+public class ResponseCache {
+
+    /**
+     * 항목 하나의 고정 비용 추정 (Key, 응답 객체, Usage, LinkedHashMap 엔트리, 문자열 헤더)
+     */
+    static final long ENTRY_OVERHEAD_BYTES = 256;
+
+    private final boolean enabled;
+    private final long maxBytes;
+
+    /**
+     * 키 → 응답 (접근 순서 = LRU), this로 동기화
+     */
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long bytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder bypassed = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public ResponseCache(ModelRegistry registry,
+                         @Value("${miniai.cache.enabled:true}") boolean enabled,
+                         @Value("${miniai.cache.max-bytes:33554432}") long maxBytes) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("miniai.cache.max-bytes는 0 이상이어야 합니다: " + maxBytes);
+        }
+        this.enabled = enabled && maxBytes > 0;
+        this.maxBytes = maxBytes;
+        registry.onChange(this::invalidate);
+    }
+
+    /**
+     * 캐시할 수 있는 요청인지 (seed 있음, 세션 없음)
+     */
+    public boolean isCacheable(GenerateRequest request) {
+        return enabled && request.getSeed().isPresent() && request.getSessionId().isEmpty();
+    }
+
+    /**
+     * 캐시 조회 (캐시할 수 없는 요청은 bypassed로만 셈)
+     *
+     * @param name 레지스트리 모델 이름
+     * @param version 빌린 모델의 버전 (Lease.version())
+     */
+    public Optional<GenerateResponse> get(String name, long version, GenerateRequest request) {
+        if (!isCacheable(request)) {
+            bypassed.increment();
+            return Optional.empty();
+        }
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(new Key(name, version, request));
+        }
+        if (entry == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        return Optional.of(entry.response);
+    }
+
+    /**
+     * 생성 결과 저장 (캐시할 수 없는 요청이나 예산보다 큰 응답은 무시)
+     */
+    public void put(String name, long version, GenerateRequest request, GenerateResponse response) {
+        if (!isCacheable(request)) {
+            return;
+        }
+        Key key = new Key(name, version, request);
+        long size = estimateBytes(key, response);
+        if (size > maxBytes) {
+            return;
+        }
+        synchronized (this) {
+            Entry previous = entries.put(key, new Entry(response, size));
+            bytes += size - (previous != null ? previous.bytes : 0);
+            Iterator<Entry> eldest = entries.values().iterator();
+            while (bytes > maxBytes && eldest.hasNext()) {
+                bytes -= eldest.next().bytes;
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    /**
+     * 모델 이름의 항목 모두 제거 (교체/내리기 알림에서 호출)
+     *
+     * @return 제거한 항목 수
+     */
+    public synchronized int invalidate(String name) {
+        int removed = 0;
+        Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Key, Entry> next = it.next();
+            if (next.getKey().model.equals(name)) {
+                bytes -= next.getValue().bytes;
+                it.remove();
+                removed++;
+            }
+        }
+        invalidations.add(removed);
+        return removed;
+    }
+
+    public synchronized void clear() {
+        invalidations.add(entries.size());
+        entries.clear();
+        bytes = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * 적중률과 크기 (/v1/metrics용)
+     */
+    public Map<String, Object> stats() {
+        long hitCount = hits.sum();
+        long lookups = hitCount + misses.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("hits", hitCount);
+        stats.put("lookups", lookups);
+        stats.put("hitRate", lookups == 0 ? 0.0 : (double) hitCount / lookups);
+        stats.put("bypassed", bypassed.sum());
+        stats.put("evictions", evictions.sum());
+        stats.put("invalidations", invalidations.sum());
+        synchronized (this) {
+            stats.put("entries", entries.size());
+            stats.put("bytes", bytes);
+        }
+        stats.put("maxBytes", maxBytes);
+        return stats;
+    }
+
+    /**
+     * 항목 크기 추정 (문자는 2바이트로 계산)
+     */
+    static long estimateBytes(Key key, GenerateResponse response) {
+        long chars = key.model.length() + length(key.prompt) + length(response.getGeneratedText())
+            + length(response.getModel());
+        for (String stop : key.stopSequences) {
+            chars += stop.length() + 16;
+        }
+        return ENTRY_OVERHEAD_BYTES + 2 * chars;
+    }
+
+    private static int length(String value) {
+        return value != null ? value.length() : 0;
+    }
+
+    private static final class Entry {
+        final GenerateResponse response;
+        final long bytes;
+
+        Entry(GenerateResponse response, long bytes) {
+            this.response = response;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * 정규화된 요청 키 (Builder 기본값이 채워진 필드만 사용, sessionId는 항상 없음)
+     */
+    static final class Key {
+        final String model;
+        final long version;
+        final String prompt;
+        final int maxTokens;
+        final double temperature;
+        final int topK;
+        final long seed;
+        final List<String> stopSequences;
+        private final int hash;
+
+        Key(String model, long version, GenerateRequest request) {
+            this.model = model;
+            this.version = version;
+            this.prompt = request.getPrompt();
+            this.maxTokens = request.getMaxTokens();
+            this.temperature = request.getTemperature();
+            this.topK = request.getTopK();
+            this.seed = request.getSeed().orElse(0L);
+            this.stopSequences = List.copyOf(request.getStopSequences());
+            this.hash = Objects.hash(model, version, prompt, maxTokens, temperature, topK, seed, stopSequences);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key other)) {
+                return false;
+            }
+            return hash == other.hash
+                && version == other.version
+                && maxTokens == other.maxTokens
+                && Double.compare(temperature, other.temperature) == 0
+                && topK == other.topK
+                && seed == other.seed
+                && model.equals(other.model)
+                && Objects.equals(prompt, other.prompt)
+                && stopSequences.equals(other.stopSequences);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.miniai.server.completion;
+
+import com.miniai.model.ngram.NgramModel;
+import com.miniai.model.ngram.TokenizedDocument;
+
+/**
+ * WebSocket 연결 하나의 완성 상태 (열린 파일 하나)
+ *
+ * 학습 포인트:
+ * - 문서는 모델의 토크나이저로 토큰화해 둠 → 모델이 교체되면 (버전이 바뀌면) 새 토크나이저로 한 번 다시 토큰화
+ * - 모델 객체는 잡아 두지 않고 버전만 기억 (교체된 옛 모델이 세션 때문에 메모리에 남지 않도록)
+ * - 세션 캐시 id는 연결마다 하나 (연결이 끊기면 제거)
+ *
+ * 같은 연결의 메시지는 차례로 처리되므로 동기화하지 않음
+ */
+final class CompletionSession {
+
+    private final String sessionId;
+    private String modelName;
+    private long version;
+    private TokenizedDocument document;
+
+    CompletionSession(String sessionId) {
+        this.sessionId = sessionId;
+    }
+
+    /**
+     * 파일 열기 (또는 어긋난 문서를 전체 텍스트로 다시 맞추기)
+     */
+    void open(String modelName, long version, NgramModel model, String text) {
+        this.modelName = modelName;
+        this.version = version;
+        this.document = new TokenizedDocument(model.getTokenizer());
+        document.setText(text);
+    }
+
+    /**
+     * 빌린 모델에 문서를 맞춤 (모델이 교체됐으면 새 토크나이저로 다시 토큰화)
+     *
+     * @return 다시 토큰화했으면 true
+     */
+    boolean bind(long currentVersion, NgramModel model) {
+        if (currentVersion == version) {
+            return false;
+        }
+        open(modelName, currentVersion, model, document.text());
+        return true;
+    }
+
+    boolean isOpen() {
+        return document != null;
+    }
+
+    /**
+     * 열린 문서 (열기 전이면 IllegalArgumentException)
+     */
+    TokenizedDocument document() {
+        if (document == null) {
+            throw new IllegalArgumentException("먼저 open 메시지로 파일을 여세요");
+        }
+        return document;
+    }
+
+    String sessionId() {
+        return sessionId;
+    }
+
+    String modelName() {
+        return modelName;
+    }
+
+    long version() {
+        return version;
+    }
+}
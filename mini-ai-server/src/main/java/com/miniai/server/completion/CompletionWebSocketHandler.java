@@ -0,0 +1,284 @@
+package com.miniai.server.completion;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.miniai.core.model.LanguageModel;
+import com.miniai.core.types.GenerateRequest;
+import com.miniai.core.types.GenerateResponse;
+import com.miniai.model.ngram.NgramModel;
+import com.miniai.model.ngram.TokenizedDocument;
+import com.miniai.server.admission.AdmissionControl;
+import com.miniai.server.admission.Bulkhead;
+import com.miniai.server.admission.OverloadedException;
+import com.miniai.server.metrics.GenerationMetrics;
+import com.miniai.server.registry.ModelRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * WebSocket 완성 세션 (/v1/completions/ws)
+ *
+ * 학습 포인트:
+ * - /v1/generate는 키 입력마다 파일 앞부분 전체를 보내고 서버가 전부 다시 토큰화함 (파일 크기에 비례)
+ * - 연결을 유지하면 서버가 문서를 들고 있을 수 있음 → 클라이언트는 편집(delta)만 보냄
+ *   → 편집한 줄만 다시 토큰화 (TokenizedDocument), 완성은 커서 앞 토큰 몇 개로 (NgramModel.complete)
+ * - 세션 캐시도 연결 동안 유지 (연결 id가 sessionId), 끊기면 제거
+ * - 완성은 /v1/generate와 같은 generate 격벽과 지연 지표를 사용
+ *
+ * 메시지 (JSON 텍스트 프레임, id를 넣으면 응답에 그대로 돌려줌):
+ * - {"type":"open","model":"default","text":"파일 내용"} → {"type":"opened","length":..,"lines":..}
+ * - {"type":"edit","offset":10,"deleteLength":0,"text":"a"} → 응답 없음 (오류일 때만)
+ * - {"type":"complete","offset":11,"maxTokens":8,"temperature":0.2,"topK":5,"seed":1,"stopSequences":["\n"]}
+ *   → {"type":"completion","text":"커서에 삽입할 텍스트",...} (offset이 없으면 문서 끝)
+ * - {"type":"accept","text":"수락한 완성"} → {"type":"accepted"} (세션 캐시에 반영)
+ *
+ * 오류는 {"type":"error","message":..} (편집/완성 위치가 문서를 벗어나면 "resync":true → 클라이언트가 open을 다시 보냄)
+ * 격벽이 가득 차면 {"type":"overloaded","retryAfterSeconds":..}
+ * 예상하지 못한 예외도 error 프레임으로 돌려줌 (연결은 유지, 서버 로그에 남김)
+ *
+ * 모델은 항상 registry.acquire로 빌려서 사용 (accept/연결 종료 포함)
+ * → 처리 중에 모델이 교체되어도 빌린 모델은 반납할 때까지 해제되지 않음
+ */
+@Component
+public class CompletionWebSocketHandler extends TextWebSocketHandler {
+
+    private final ModelRegistry registry;
+    private final AdmissionControl admission;
+    private final GenerationMetrics metrics;
+    private final ObjectMapper mapper;
+
+    private final Map<String, CompletionSession> sessions = new ConcurrentHashMap<>();
+    private final LongAdder edits = new LongAdder();
+    private final LongAdder completions = new LongAdder();
+    private final LongAdder resyncs = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    public CompletionWebSocketHandler(ModelRegistry registry, AdmissionControl admission,
+                                      GenerationMetrics metrics, ObjectMapper mapper) {
+        this.registry = registry;
+        this.admission = admission;
+        this.metrics = metrics;
+        this.mapper = mapper;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        sessions.put(session.getId(), new CompletionSession("ws-" + session.getId()));
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
+        CompletionSession state = sessions.get(session.getId());
+        if (state == null) {
+            return; // 이미 닫힌 연결
+        }
+
+        Map<String, Object> reply;
+        Object id = null;
+        try {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> request = mapper.readValue(message.getPayload(), Map.class);
+            id = request.get("id");
+            reply = dispatch(state, request);
+        } catch (JsonProcessingException e) {
+            reply = error("JSON 메시지가 아닙니다: " + e.getOriginalMessage());
+        } catch (OverloadedException e) {
+            reply = new LinkedHashMap<>();
+            reply.put("type", "overloaded");
+            reply.put("resource", e.getResource());
+            reply.put("message", e.getMessage());
+            reply.put("retryAfterSeconds", e.getRetryAfterSeconds());
+        } catch (IllegalArgumentException e) {
+            reply = error(e.getMessage());
+        } catch (RuntimeException e) {
+            System.err.println("⚠️  WebSocket 메시지 처리 실패: " + session.getId() + " (" + e + ")");
+            reply = error("메시지를 처리하지 못했습니다: " + e.getClass().getSimpleName()
+                + (e.getMessage() != null ? " (" + e.getMessage() + ")" : ""));
+        }
+        if (reply == null) {
+            return;
+        }
+        if (id != null) {
+            reply.put("id", id);
+        }
+        session.sendMessage(new TextMessage(mapper.writeValueAsString(reply)));
+    }
+
+    private Map<String, Object> dispatch(CompletionSession state, Map<String, Object> request) {
+        String type = string(request, "type", "");
+        return switch (type) {
+            case "open" -> open(state, request);
+            case "edit" -> edit(state, request);
+            case "complete" -> complete(state, request);
+            case "accept" -> accept(state, request);
+            default -> error("알 수 없는 메시지 type입니다: " + type);
+        };
+    }
+
+    private Map<String, Object> open(CompletionSession state, Map<String, Object> request) {
+        String name = ModelRegistry.nameOrDefault(string(request, "model", null));
+        if (state.isOpen()) {
+            resyncs.increment();
+        }
+        try (ModelRegistry.Lease lease = registry.acquire(name)) {
+            state.open(name, lease.version(), completionModel(name, lease.model()), string(request, "text", ""));
+        }
+        TokenizedDocument document = state.document();
+        Map<String, Object> reply = new LinkedHashMap<>();
+        reply.put("type", "opened");
+        reply.put("model", name);
+        reply.put("version", state.version());
+        reply.put("length", document.length());
+        reply.put("lines", document.lineCount());
+        return reply;
+    }
+
+    private Map<String, Object> edit(CompletionSession state, Map<String, Object> request) {
+        TokenizedDocument document = state.document();
+        try {
+            document.edit(integer(request, "offset", -1), integer(request, "deleteLength", 0),
+                string(request, "text", ""));
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> reply = error(e.getMessage());
+            reply.put("resync", true);
+            reply.put("length", document.length());
+            return reply;
+        }
+        edits.increment();
+        return null;
+    }
+
+    private Map<String, Object> complete(CompletionSession state, Map<String, Object> request) {
+        TokenizedDocument document = state.document();
+        GenerateRequest.Builder builder = GenerateRequest.builder("")
+            .maxTokens(integer(request, "maxTokens", 8))
+            .temperature(number(request, "temperature", 1.0))
+            .topK(integer(request, "topK", 50))
+            .sessionId(state.sessionId());
+        if (request.get("seed") instanceof Number seed) {
+            builder.seed(seed.longValue());
+        }
+        if (request.get("stopSequences") instanceof List<?> stops) {
+            builder.stopSequences(stops.stream().map(String::valueOf).toList());
+        }
+        GenerateRequest options = builder.build();
+
+        String name = state.modelName();
+        long startNanos = System.nanoTime();
+        GenerateResponse response;
+        long version;
+        try (ModelRegistry.Lease lease = registry.acquire(name)) {
+            NgramModel model = completionModel(name, lease.model());
+            if (state.bind(lease.version(), model)) {
+                resyncs.increment(); // 모델이 교체됨 → 새 토크나이저로 다시 토큰화
+                document = state.document();
+            }
+            version = lease.version();
+            int offset = integer(request, "offset", document.length());
+            if (offset < 0 || offset > document.length()) {
+                Map<String, Object> reply = error("offset이 문서를 벗어납니다: " + offset
+                    + " (길이 " + document.length() + ")");
+                reply.put("resync", true);
+                reply.put("length", document.length());
+                return reply;
+            }
+            try (Bulkhead.Permit permit = admission.generate().acquire()) {
+                response = model.complete(document, offset, options);
+            }
+        }
+        long totalNanos = System.nanoTime() - startNanos;
+        metrics.record(name, response, totalNanos);
+        completions.increment();
+
+        Map<String, Object> usage = new LinkedHashMap<>();
+        usage.put("inputTokens", response.getUsage().getInputTokens());
+        usage.put("outputTokens", response.getUsage().getOutputTokens());
+
+        Map<String, Object> reply = new LinkedHashMap<>();
+        reply.put("type", "completion");
+        reply.put("text", response.getGeneratedText());
+        reply.put("usage", usage);
+        reply.put("latencyMs", totalNanos / 1e6);
+        reply.put("model", name);
+        reply.put("version", version);
+        return reply;
+    }
+
+    private Map<String, Object> accept(CompletionSession state, Map<String, Object> request) {
+        state.document(); // 열기 전이면 오류
+        String name = state.modelName();
+        try (ModelRegistry.Lease lease = registry.acquire(name)) {
+            completionModel(name, lease.model()).acceptCompletion(state.sessionId(), string(request, "text", ""));
+        }
+        Map<String, Object> reply = new LinkedHashMap<>();
+        reply.put("type", "accepted");
+        return reply;
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        CompletionSession state = sessions.remove(session.getId());
+        if (state != null && state.isOpen()) {
+            try (ModelRegistry.Lease lease = registry.acquire(state.modelName())) {
+                if (lease.model() instanceof NgramModel model) {
+                    model.endSession(state.sessionId());
+                }
+            } catch (IllegalArgumentException e) {
+                // 그사이 모델이 내려감 → 정리할 세션 캐시도 없음
+            }
+        }
+    }
+
+    /**
+     * 문서 완성을 지원하는 모델 (증분 토큰화된 문서에서 바로 생성할 수 있는 N-gram 모델만)
+     */
+    private static NgramModel completionModel(String name, LanguageModel model) {
+        if (model instanceof NgramModel ngram) {
+            return ngram;
+        }
+        throw new IllegalArgumentException("WebSocket 완성을 지원하지 않는 모델입니다: " + name
+            + " (" + model.modelName() + ", /v1/generate를 사용하세요)");
+    }
+
+    private Map<String, Object> error(String message) {
+        errors.increment();
+        Map<String, Object> reply = new LinkedHashMap<>();
+        reply.put("type", "error");
+        reply.put("message", message);
+        return reply;
+    }
+
+    private static String string(Map<String, Object> request, String key, String defaultValue) {
+        Object value = request.get(key);
+        return value != null ? value.toString() : defaultValue;
+    }
+
+    private static int integer(Map<String, Object> request, String key, int defaultValue) {
+        Object value = request.get(key);
+        return value instanceof Number number ? number.intValue() : defaultValue;
+    }
+
+    private static double number(Map<String, Object> request, String key, double defaultValue) {
+        Object value = request.get(key);
+        return value instanceof Number number ? number.doubleValue() : defaultValue;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("open", sessions.size());
+        stats.put("edits", edits.sum());
+        stats.put("completions", completions.sum());
+        stats.put("resyncs", resyncs.sum());
+        stats.put("errors", errors.sum());
+        return stats;
+    }
+}
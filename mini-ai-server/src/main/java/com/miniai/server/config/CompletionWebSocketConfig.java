@@ -0,0 +1,52 @@
+package com.miniai.server.config;
+
+import com.miniai.server.completion.CompletionWebSocketHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+import org.springframework.web.socket.server.standard.ServletServerContainerFactoryBean;
+
+/**
+ * WebSocket 완성 세션 등록 (/v1/completions/ws)
+ *
+ * 학습 포인트:
+ * - 기본 텍스트 메시지 버퍼(8KB)로는 큰 파일의 open 메시지를 받을 수 없음 → 설정으로 늘림
+ *   (편집 메시지는 작으므로 open 한 번만 큰 버퍼가 필요)
+ * - 오래 입력이 없는 연결은 idle timeout으로 닫음 (문서와 세션 캐시 메모리 회수)
+ *
+ * 설정:
+ * - miniai.completions.max-message-bytes: open 메시지 최대 크기 (기본 4MB)
+ * - miniai.completions.idle-timeout-ms: 연결 유지 시간 (기본 30분)
+ */
+@Configuration
+@EnableWebSocket
+public class CompletionWebSocketConfig implements WebSocketConfigurer {
+
+    private final CompletionWebSocketHandler handler;
+    private final int maxMessageBytes;
+    private final long idleTimeoutMillis;
+
+    public CompletionWebSocketConfig(CompletionWebSocketHandler handler,
+                                     @Value("${miniai.completions.max-message-bytes:4194304}") int maxMessageBytes,
+                                     @Value("${miniai.completions.idle-timeout-ms:1800000}") long idleTimeoutMillis) {
+        this.handler = handler;
+        this.maxMessageBytes = maxMessageBytes;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+    }
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(handler, "/v1/completions/ws");
+    }
+
+    @Bean
+    public ServletServerContainerFactoryBean webSocketContainer() {
+        ServletServerContainerFactoryBean container = new ServletServerContainerFactoryBean();
+        container.setMaxTextMessageBufferSize(maxMessageBytes);
+        container.setMaxSessionIdleTimeout(idleTimeoutMillis);
+        return container;
+    }
+}
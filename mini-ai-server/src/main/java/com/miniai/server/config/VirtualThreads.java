@@ -0,0 +1,109 @@
+package com.miniai.server.config;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 가상 스레드(JDK 21+) / 플랫폼 스레드 선택
+ *
+ * 학습 포인트:
+ * - 가상 스레드는 blocking I/O에서 OS 스레드를 내려놓음
+ *   → 파일을 읽는 느린 요청이 많아도 빠른 요청이 스레드 풀 대기열에 갇히지 않음
+ * - CPU만 쓰는 작업(N-gram 조회)은 가상 스레드로 바꿔도 빨라지지 않음
+ * - JDK 17로 빌드해도 컴파일되도록 API는 MethodHandle로 찾음
+ *   → JDK 21 미만이면 플랫폼 스레드로 대체 (경고 출력)
+ */
+public final class VirtualThreads {
+
+    /**
+     * Thread.ofVirtual().name(prefix, 1).factory() (JDK 21 미만이면 null)
+     */
+    private static final MethodHandle OF_VIRTUAL = findOfVirtual();
+
+    /**
+     * Executors.newThreadPerTaskExecutor(factory) (JDK 21 미만이면 null)
+     */
+    private static final MethodHandle PER_TASK = findPerTask();
+
+    private VirtualThreads() {
+    }
+
+    private static MethodHandle findOfVirtual() {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            Class<?> builder = Class.forName("java.lang.Thread$Builder$OfVirtual");
+            MethodHandle ofVirtual = lookup.findStatic(Thread.class, "ofVirtual", MethodType.methodType(builder));
+            MethodHandle name = lookup.findVirtual(builder, "name",
+                MethodType.methodType(builder, String.class, long.class));
+            MethodHandle factory = lookup.findVirtual(builder, "factory", MethodType.methodType(ThreadFactory.class));
+            // (prefix, start) -> Thread.ofVirtual().name(prefix, start).factory()
+            MethodHandle named = MethodHandles.collectArguments(name, 0, ofVirtual);
+            return MethodHandles.filterReturnValue(named, factory);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static MethodHandle findPerTask() {
+        try {
+            return MethodHandles.publicLookup().findStatic(Executors.class, "newThreadPerTaskExecutor",
+                MethodType.methodType(ExecutorService.class, ThreadFactory.class));
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 이 JVM에서 가상 스레드를 쓸 수 있는지
+     */
+    public static boolean isAvailable() {
+        return OF_VIRTUAL != null && PER_TASK != null;
+    }
+
+    /**
+     * 이름 붙은 스레드 팩토리
+     *
+     * @param prefix 스레드 이름 접두사 (뒤에 번호)
+     * @param virtual true면 가상 스레드 (쓸 수 없으면 플랫폼 daemon 스레드)
+     */
+    public static ThreadFactory factory(String prefix, boolean virtual) {
+        if (virtual && isAvailable()) {
+            try {
+                return (ThreadFactory) OF_VIRTUAL.invoke(prefix, 1L);
+            } catch (Throwable e) {
+                throw new IllegalStateException("가상 스레드 팩토리 생성 실패", e);
+            }
+        }
+        if (virtual) {
+            System.err.println("⚠️  가상 스레드는 JDK 21 이상에서만 지원됩니다 (현재 "
+                + Runtime.version().feature() + "). 플랫폼 스레드로 실행: " + prefix);
+        }
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * 작업마다 스레드 하나 (virtual=false면 크기 고정 플랫폼 풀)
+     *
+     * @param platformThreads 플랫폼 모드의 스레드 수 (Tomcat 기본 200과 같은 역할)
+     */
+    public static ExecutorService perTaskExecutor(String prefix, boolean virtual, int platformThreads) {
+        if (virtual && isAvailable()) {
+            try {
+                return (ExecutorService) PER_TASK.invoke(factory(prefix, true));
+            } catch (Throwable e) {
+                throw new IllegalStateException("가상 스레드 executor 생성 실패", e);
+            }
+        }
+        return Executors.newFixedThreadPool(platformThreads, factory(prefix, virtual));
+    }
+}
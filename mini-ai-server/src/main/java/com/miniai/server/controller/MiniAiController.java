@@ -1,29 +1,37 @@
 package com.miniai.server.controller;
 
-import com.codeai.tokenizer.CodeTokenizer;
 import com.miniai.core.model.LanguageModel;
-import com.miniai.core.tokenizer.Tokenizer;
 import com.miniai.core.types.GenerateRequest;
 import com.miniai.core.types.GenerateResponse;
-import com.miniai.model.BigramModel;
-import com.miniai.model.BigramTrainer;
-import com.miniai.model.TrigramModel;
-import com.miniai.model.TrigramTrainer;
+import com.miniai.model.ngram.InfiniGramModel;
 import com.miniai.model.ngram.NgramModel;
-import com.miniai.model.ngram.NgramTrainer;
-import com.miniai.model.smoothing.KneserNey;
-import com.miniai.model.smoothing.SimpleBackoff;
-import com.miniai.model.smoothing.SmoothingStrategy;
+import com.miniai.server.admission.AdmissionControl;
+import com.miniai.server.admission.Bulkhead;
+import com.miniai.server.admission.OverloadedException;
+import com.miniai.server.analysis.AnalysisService;
+import com.miniai.server.batch.GenerateCoalescer;
+import com.miniai.server.cache.ResponseCache;
+import com.miniai.server.completion.CompletionWebSocketHandler;
 import com.miniai.server.dto.GenerateRequestDto;
 import com.miniai.server.dto.GenerateResponseDto;
 import com.miniai.server.dto.TrainRequest;
-import com.miniai.tokenizer.WhitespaceTokenizer;
+import com.miniai.server.job.TrainingJob;
+import com.miniai.server.job.TrainingJobService;
+import com.miniai.server.metrics.GenerationMetrics;
+import com.miniai.server.registry.ArtifactWatcher;
+import com.miniai.server.registry.ModelRegistry;
+import com.miniai.server.startup.StartupWarmup;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.nio.file.Files;
-import java.nio.file.Path;
+import java.io.UncheckedIOException;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -36,121 +44,183 @@ import java.util.Map;
 @RequestMapping("/v1")
 public class MiniAiController {
 
-    private LanguageModel model;
-    private final String defaultArtifactPath = "data/sample-bigram.json";
+    /**
+     * 서빙 중인 모델들 (이름별, 학습 작업이 끝나면 해당 이름만 교체)
+     */
+    private final ModelRegistry registry;
+    private final TrainingJobService trainingJobService;
+    private final GenerationMetrics metrics;
+    private final ResponseCache responseCache;
+    private final GenerateCoalescer coalescer;
+    private final AdmissionControl admission;
+    private final CompletionWebSocketHandler completionSessions;
+    private final AnalysisService analysisService;
+    private final StartupWarmup startup;
+    private final ArtifactWatcher artifactWatcher;
 
-    public MiniAiController() {
-        // 기본 모델 로드 시도
-        try {
-            Path artifactPath = Paths.get(defaultArtifactPath);
-            if (Files.exists(artifactPath)) {
-                this.model = BigramModel.fromArtifact(artifactPath);
-                System.out.println("✅ 기본 모델 로드: " + defaultArtifactPath);
-            } else {
-                System.out.println("⚠️  기본 모델 없음. /v1/train으로 학습 필요");
-            }
-        } catch (Exception e) {
-            System.err.println("⚠️  모델 로드 실패: " + e.getMessage());
-        }
+    public MiniAiController(ModelRegistry registry, TrainingJobService trainingJobService,
+                            GenerationMetrics metrics, ResponseCache responseCache,
+                            GenerateCoalescer coalescer, AdmissionControl admission,
+                            CompletionWebSocketHandler completionSessions, AnalysisService analysisService,
+                            StartupWarmup startup, ArtifactWatcher artifactWatcher) {
+        this.registry = registry;
+        this.trainingJobService = trainingJobService;
+        this.metrics = metrics;
+        this.responseCache = responseCache;
+        this.coalescer = coalescer;
+        this.admission = admission;
+        this.completionSessions = completionSessions;
+        this.analysisService = analysisService;
+        this.startup = startup;
+        this.artifactWatcher = artifactWatcher;
     }
 
     /**
      * POST /v1/train
-     * 모델 학습
+     * 모델 학습 작업 제출 (corpusPath는 파일 또는 디렉토리)
+     *
+     * 학습은 전용 executor에서 실행되고, 즉시 jobId를 반환
+     * 진행 상황은 GET /v1/jobs/{jobId}로 조회
+     * 끝나면 modelName(기본 default)으로 게시
+     * 대기열이나 학습 메모리 예산이 가득 차면 429 + Retry-After
      */
     @PostMapping("/train")
     public Map<String, Object> train(@RequestBody TrainRequest request) {
         try {
-            Path corpusPath = Paths.get(request.getCorpusPath());
-            Path outputPath = Paths.get(request.getOutputPath());
-
-            // Corpus 읽기
-            String corpus = Files.readString(corpusPath);
-
-            // 토크나이저 선택
-            Tokenizer tokenizer;
-            String tokenizerName;
-            if (request.useCodeTokenizer()) {
-                tokenizer = CodeTokenizer.fromCode(corpus);
-                tokenizerName = "CodeTokenizer";
-                System.out.println("🔧 Using CodeTokenizer (code-aware)");
-            } else {
-                tokenizer = WhitespaceTokenizer.fromText(corpus);
-                tokenizerName = "WhitespaceTokenizer";
-                System.out.println("📝 Using WhitespaceTokenizer (default)");
-            }
+            TrainingJob job = trainingJobService.submit(request,
+                trained -> registry.publish(request.getModelName(), trained));
 
-            // 학습 (Bigram, Trigram, or N-gram)
-            long startTime = System.currentTimeMillis();
-            String modelTypeName;
-            String smoothingName = "none";
-
-            if (request.useNgram()) {
-                // N-gram with configurable smoothing
-                int n = request.getN();
-                NgramTrainer trainer = new NgramTrainer(n, tokenizer);
-                trainer.train(corpusPath, outputPath);
-
-                // Smoothing 전략 선택
-                SmoothingStrategy smoothing;
-                if (request.useKneserNey()) {
-                    smoothing = new KneserNey();
-                    smoothingName = "kneser-ney";
-                    System.out.println("🎯 Using Kneser-Ney smoothing");
-                } else {
-                    smoothing = new SimpleBackoff();
-                    smoothingName = "simple-backoff";
-                    System.out.println("📊 Using Simple Backoff smoothing");
-                }
+            Map<String, Object> response = new HashMap<>();
+            response.put("status", "accepted");
+            response.put("message", "학습 작업 대기열에 추가됨");
+            response.put("jobId", job.getId());
+            response.put("statusUrl", "/v1/jobs/" + job.getId());
+            return response;
 
-                this.model = NgramModel.fromArtifact(outputPath, smoothing);
-                modelTypeName = n + "-gram";
-                System.out.println("📊 Using " + n + "-gram model (" + (n-1) + "-token context)");
+        } catch (OverloadedException e) {
+            throw e; // 대기열/메모리 예산 초과 → 429 (overloaded)
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("status", "error");
+            response.put("message", e.getMessage());
+            return response;
+        }
+    }
 
-            } else if (request.useTrigram()) {
-                TrigramTrainer trainer = new TrigramTrainer(tokenizer);
-                trainer.train(corpusPath, outputPath);
-                this.model = TrigramModel.fromArtifact(outputPath);
-                modelTypeName = "trigram";
-                System.out.println("📊 Using Trigram model (2-token context)");
-            } else {
-                BigramTrainer trainer = new BigramTrainer(tokenizer);
-                trainer.train(corpusPath, outputPath);
-                this.model = BigramModel.fromArtifact(outputPath);
-                modelTypeName = "bigram";
-                System.out.println("📈 Using Bigram model (1-token context)");
-            }
+    /**
+     * GET /v1/jobs
+     * 학습 작업 목록
+     */
+    @GetMapping("/jobs")
+    public List<Map<String, Object>> jobs() {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (TrainingJob job : trainingJobService.list()) {
+            result.add(job.toStatus());
+        }
+        return result;
+    }
 
-            long latency = System.currentTimeMillis() - startTime;
+    /**
+     * GET /v1/jobs/{jobId}
+     * 학습 작업 상태 (phase, 처리량, ETA)
+     */
+    @GetMapping("/jobs/{jobId}")
+    public Map<String, Object> job(@PathVariable String jobId) {
+        return trainingJobService.find(jobId)
+            .map(TrainingJob::toStatus)
+            .orElseGet(() -> jobNotFound(jobId));
+    }
 
-            Map<String, Object> response = new HashMap<>();
-            response.put("status", "success");
-            response.put("message", "학습 완료");
-            response.put("artifactPath", outputPath.toString());
-            response.put("vocabSize", tokenizer.vocabSize());
-            response.put("tokenizer", tokenizerName);
-            response.put("modelType", modelTypeName);
-            response.put("smoothing", smoothingName);
-            response.put("latencyMs", latency);
+    /**
+     * DELETE /v1/jobs/{jobId}
+     * 학습 작업 취소
+     */
+    @DeleteMapping("/jobs/{jobId}")
+    public Map<String, Object> cancelJob(@PathVariable String jobId) {
+        if (trainingJobService.find(jobId).isEmpty()) {
+            return jobNotFound(jobId);
+        }
 
-            return response;
+        Map<String, Object> response = new HashMap<>();
+        if (trainingJobService.cancel(jobId)) {
+            response.put("status", "cancelled");
+            response.put("jobId", jobId);
+        } else {
+            response.put("status", "error");
+            response.put("message", "이미 끝난 작업입니다: " + jobId);
+        }
+        return response;
+    }
 
+    private Map<String, Object> jobNotFound(String jobId) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "error");
+        response.put("message", "작업을 찾을 수 없습니다: " + jobId);
+        return response;
+    }
+
+    /**
+     * GET /v1/models
+     * 게시된 모델 목록 (버전, 처리 중인 요청 수)
+     */
+    @GetMapping("/models")
+    public List<Map<String, Object>> models() {
+        return registry.list();
+    }
+
+    /**
+     * PUT /v1/models/{name}
+     * Artifact를 읽어서 이름으로 게시 (요청 본문: {"artifactPath": "...", "smoothingType": "kneser-ney"})
+     *
+     * 같은 이름의 모델은 로드가 끝난 뒤 교체되고, 처리 중인 요청은 옛 모델로 끝까지 생성
+     */
+    @PutMapping("/models/{name}")
+    public Map<String, Object> loadModel(@PathVariable String name, @RequestBody Map<String, String> body) {
+        Map<String, Object> response = new HashMap<>();
+        String artifactPath = body.get("artifactPath");
+        if (artifactPath == null || artifactPath.isBlank()) {
+            response.put("status", "error");
+            response.put("message", "artifactPath가 필요합니다");
+            return response;
+        }
+        try {
+            long version = registry.load(name, Paths.get(artifactPath), body.get("smoothingType"));
+            response.put("status", "loaded");
+            response.put("name", name);
+            response.put("version", version);
         } catch (Exception e) {
-            Map<String, Object> response = new HashMap<>();
             response.put("status", "error");
             response.put("message", e.getMessage());
-            return response;
         }
+        return response;
+    }
+
+    /**
+     * DELETE /v1/models/{name}
+     * 모델 내리기 (처리 중인 요청은 끝까지 진행)
+     */
+    @DeleteMapping("/models/{name}")
+    public Map<String, Object> unloadModel(@PathVariable String name) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", registry.unload(name) ? "unloaded" : "not_found");
+        response.put("name", name);
+        return response;
     }
 
     /**
      * POST /v1/generate
-     * 텍스트 생성
+     * 텍스트 생성 (model로 레지스트리 모델 선택, 없으면 default)
+     *
+     * seed가 있고 sessionId가 없는 요청은 응답 캐시에서 먼저 찾음 (같은 모델 버전일 때만 적중)
+     * micro-batching이 켜져 있으면 짧은 창 동안 모인 요청과 함께 생성
+     * 캐시에 없는 요청은 generate 격벽을 거침 (가득 차면 429 + Retry-After)
+     * 시작 워밍업이 끝나기 전에도 429 + Retry-After (GET /v1/health/ready가 200이 된 뒤에 보낼 것)
      */
     @PostMapping("/generate")
     public GenerateResponseDto generate(@RequestBody GenerateRequestDto request) {
-        if (model == null) {
-            throw new IllegalStateException("모델이 로드되지 않았습니다. /v1/train을 먼저 호출하세요.");
+        if (!startup.isReady()) {
+            throw new OverloadedException("startup", StartupWarmup.RETRY_AFTER_SECONDS,
+                "서버 워밍업 중입니다 (" + startup.getPhase().name().toLowerCase() + ")");
         }
 
         // DTO → Core Request 변환
@@ -167,10 +237,36 @@ public class MiniAiController {
             builder.stopSequences(request.getStopSequences());
         }
 
+        if (request.getSessionId() != null) {
+            builder.sessionId(request.getSessionId());
+        }
+
         GenerateRequest coreRequest = builder.build();
 
-        // 생성
-        GenerateResponse coreResponse = model.generate(coreRequest);
+        // 생성 (끝날 때까지 모델을 빌려 둠: 도중에 교체되어도 이 요청은 같은 모델로 완료)
+        String name = ModelRegistry.nameOrDefault(request.getModel());
+        long startNanos = System.nanoTime();
+        GenerateResponse coreResponse;
+        boolean cached;
+        try (ModelRegistry.Lease lease = registry.acquire(name)) {
+            GenerateResponse hit = responseCache.get(name, lease.version(), coreRequest).orElse(null);
+            cached = hit != null;
+            if (cached) {
+                coreResponse = hit;
+            } else {
+                try (Bulkhead.Permit permit = admission.generate().acquire()) {
+                    coreResponse = coalescer.generate(lease.model(), coreRequest);
+                }
+                responseCache.put(name, lease.version(), coreRequest, coreResponse);
+            }
+        }
+        long totalNanos = System.nanoTime() - startNanos;
+        startup.recordRequest(totalNanos);
+        if (cached) {
+            metrics.recordCached(name, coreResponse, totalNanos);
+        } else {
+            metrics.record(name, coreResponse, totalNanos);
+        }
 
         // Core Response → DTO 변환
         GenerateResponseDto.UsageDto usageDto = new GenerateResponseDto.UsageDto(
@@ -179,12 +275,221 @@ public class MiniAiController {
             coreResponse.getUsage().getTotalTokens()
         );
 
-        return new GenerateResponseDto(
+        GenerateResponseDto response = new GenerateResponseDto(
             coreResponse.getGeneratedText(),
             usageDto,
-            coreResponse.getLatencyMs(),
+            cached ? totalNanos / 1_000_000 : coreResponse.getLatencyMs(),
             coreResponse.getModel()
         );
+        response.setCached(cached);
+        if (Boolean.TRUE.equals(request.getIncludeStages()) && !cached) {
+            Map<String, Double> stageMs = new LinkedHashMap<>();
+            coreResponse.getStageNanos().forEach((stage, nanos) -> stageMs.put(stage, nanos / 1e6));
+            response.setStageMs(stageMs);
+        }
+        return response;
+    }
+
+    /**
+     * POST /v1/analyze
+     * 파일 하나 코드 분석 (요청 본문: {"code": "...", "analyzers": ["review", "ast", "types"]})
+     *
+     * analyzers가 없으면 ast, 결과는 분석기 이름별 (CLI --server가 분석기 결과 클래스로 되돌림)
+     * 분석 격벽이 가득 차면 429 + Retry-After
+     */
+    @PostMapping("/analyze")
+    public Map<String, Object> analyze(@RequestBody Map<String, Object> body) {
+        Object code = body.get("code");
+        if (!(code instanceof String source)) {
+            return analysisError("code가 필요합니다");
+        }
+        try {
+            @SuppressWarnings("unchecked")
+            List<String> analyzers = body.get("analyzers") instanceof List<?> list ? (List<String>) list : null;
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("status", "ok");
+            response.putAll(analysisService.analyze(source, analyzers));
+            return response;
+        } catch (IllegalArgumentException e) {
+            return analysisError(e.getMessage());
+        }
+    }
+
+    /**
+     * POST /v1/analyze/project
+     * 프로젝트 디렉토리 분석 (요청 본문: {"path": "..."}, 서버의 miniai.analysis.project-root 아래 경로만)
+     */
+    @PostMapping("/analyze/project")
+    public Map<String, Object> analyzeProject(@RequestBody Map<String, String> body) {
+        String path = body.get("path");
+        if (path == null || path.isBlank()) {
+            return analysisError("path가 필요합니다");
+        }
+        try {
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("status", "ok");
+            response.putAll(analysisService.analyzeProject(Paths.get(path)));
+            return response;
+        } catch (IllegalArgumentException | UncheckedIOException e) {
+            return analysisError(e.getMessage());
+        }
+    }
+
+    private Map<String, Object> analysisError(String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "error");
+        response.put("message", message);
+        return response;
+    }
+
+    /**
+     * GET /v1/metrics
+     * 모델별 단계 지연(p50/p95/p99, 단계: tokenize, distribution, session, sampling, decode, total), 캐시 적중률, 모델 메모리, 응답 캐시, 배치, 격벽, 완성 세션, 코드 분석,
+     * Artifact 재로드, JVM 힙
+     */
+    @GetMapping("/metrics")
+    public Map<String, Object> metrics() {
+        Map<String, Object> models = new LinkedHashMap<>();
+        for (Map<String, Object> status : registry.list()) {
+            String name = (String) status.get("name");
+            Map<String, Object> entry = new LinkedHashMap<>(status);
+            registry.peek(name).ifPresent(model -> {
+                entry.put("memoryBytes", GenerationMetrics.memoryBytes(model));
+                entry.put("caches", GenerationMetrics.cacheStats(model));
+            });
+            Map<String, Object> summary = metrics.summary(name);
+            if (summary != null) {
+                entry.putAll(summary);
+            }
+            models.put(name, entry);
+        }
+
+        Runtime runtime = Runtime.getRuntime();
+        Map<String, Object> jvm = new LinkedHashMap<>();
+        jvm.put("heapUsedBytes", runtime.totalMemory() - runtime.freeMemory());
+        jvm.put("heapMaxBytes", runtime.maxMemory());
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("models", models);
+        response.put("responseCache", responseCache.stats());
+        response.put("batching", coalescer.stats());
+        Map<String, Object> admissionStats = admission.stats();
+        admissionStats.put("training", trainingJobService.admissionStats());
+        response.put("admission", admissionStats);
+        response.put("completionSessions", completionSessions.stats());
+        response.put("analysis", analysisService.stats());
+        response.put("artifactWatcher", artifactWatcher.stats());
+        response.put("jvm", jvm);
+        return response;
+    }
+
+    /**
+     * POST /v1/sessions/{sessionId}/accept
+     * 사용자가 수락한 완성을 세션 캐시에 반영 (요청 본문: {"text": "..."})
+     *
+     * 세션 캐시는 모델 인스턴스에 속함 → 모델이 교체되면 (PUT /v1/models, 학습 완료, Artifact 재로드)
+     * 모든 세션이 비워짐 (토큰 ID가 새 vocabulary와 맞지 않을 수 있어서 옮기지 않음)
+     * → 그 뒤 accept는 "세션을 찾을 수 없습니다" + "resync": true, 다음 생성 요청(sessionId 포함)이 세션을 다시 만듦
+     */
+    @PostMapping("/sessions/{sessionId}/accept")
+    public Map<String, Object> acceptCompletion(@PathVariable String sessionId,
+                                                @RequestParam(required = false) String model,
+                                                @RequestBody Map<String, String> body) {
+        Map<String, Object> response = new HashMap<>();
+        try (ModelRegistry.Lease lease = registry.acquire(model)) {
+            NgramModel ngram = sessionModel(lease.model());
+            if (ngram == null) {
+                response.put("status", "error");
+                response.put("message", "세션 캐시를 지원하지 않는 모델입니다");
+                return response;
+            }
+            if (ngram.getSessionCache(sessionId).isEmpty()) {
+                response.put("resync", true); // 모델 교체 등으로 세션이 비워짐
+            }
+            ngram.acceptCompletion(sessionId, body.getOrDefault("text", ""));
+            response.put("status", "ok");
+            response.put("sessionId", sessionId);
+            response.put("version", lease.version());
+            ngram.getSessionCache(sessionId).ifPresent(cache -> response.put("cache", cache.toString()));
+        } catch (IllegalArgumentException e) {
+            response.put("status", "error");
+            response.put("message", e.getMessage());
+        }
+        return response;
+    }
+
+    /**
+     * DELETE /v1/sessions/{sessionId}
+     * 세션 캐시 제거 (파일을 닫았을 때, 모델이 교체된 뒤면 이미 비워져 not_found)
+     */
+    @DeleteMapping("/sessions/{sessionId}")
+    public Map<String, Object> endSession(@PathVariable String sessionId,
+                                          @RequestParam(required = false) String model) {
+        boolean ended = false;
+        try (ModelRegistry.Lease lease = registry.acquire(model)) {
+            NgramModel ngram = sessionModel(lease.model());
+            ended = ngram != null && ngram.endSession(sessionId);
+        } catch (IllegalArgumentException e) {
+            // 모델이 없음 → 세션 캐시도 없음
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", ended ? "ended" : "not_found");
+        response.put("sessionId", sessionId);
+        return response;
+    }
+
+    /**
+     * 세션 캐시를 가진 N-gram 모델 (infini-gram이면 backoff 모델)
+     *
+     * 빌린 모델(Lease)에서만 호출 → 반납할 때까지 교체되어도 해제되지 않음
+     */
+    private static NgramModel sessionModel(LanguageModel model) {
+        if (model instanceof InfiniGramModel infini) {
+            return infini.getBackoff();
+        }
+        return model instanceof NgramModel ngram ? ngram : null;
+    }
+
+    /**
+     * 자원이 가득 차서 거절한 요청 → 429 Too Many Requests + Retry-After
+     */
+    @ExceptionHandler(OverloadedException.class)
+    public ResponseEntity<Map<String, Object>> overloaded(OverloadedException e) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "overloaded");
+        response.put("resource", e.getResource());
+        response.put("message", e.getMessage());
+        response.put("retryAfterSeconds", e.getRetryAfterSeconds());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+            .body(response);
+    }
+
+    /**
+     * GET /v1/health/live
+     * Liveness: 프로세스가 요청에 응답하는지 (워밍업 중에도 200)
+     */
+    @GetMapping("/health/live")
+    public Map<String, Object> live() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "alive");
+        response.put("phase", startup.getPhase().name().toLowerCase());
+        return response;
+    }
+
+    /**
+     * GET /v1/health/ready
+     * Readiness: 모델 로드와 워밍업이 끝났으면 200, 아니면 503 (로드 밸런서는 200일 때만 트래픽)
+     *
+     * 본문은 시작 측정값 (JVM 시작부터 준비까지, 모델별 로드/워밍업 시간, 준비 후 첫 요청 지연)
+     */
+    @GetMapping("/health/ready")
+    public ResponseEntity<Map<String, Object>> ready() {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("status", startup.isReady() ? "ready" : "warming");
+        response.putAll(startup.status());
+        return ResponseEntity.status(startup.isReady() ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE)
+            .body(response);
     }
 
     /**
@@ -193,12 +498,15 @@ public class MiniAiController {
      */
     @GetMapping("/health")
     public Map<String, Object> health() {
+        LanguageModel model = registry.peek(ModelRegistry.DEFAULT_MODEL).orElse(null);
         Map<String, Object> response = new HashMap<>();
         response.put("status", "ok");
         response.put("modelLoaded", model != null);
         if (model != null) {
             response.put("model", model.toString());
         }
+        response.put("models", registry.size());
+        response.put("ready", startup.isReady());
         return response;
     }
 }
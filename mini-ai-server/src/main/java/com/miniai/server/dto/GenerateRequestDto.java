@@ -12,6 +12,9 @@ public class GenerateRequestDto {
     private Integer topK = 50;
     private Long seed;
     private List<String> stopSequences;
+    private String sessionId;
+    private String model; // 레지스트리 모델 이름 (없으면 default)
+    private Boolean includeStages; // true면 응답에 단계별 시간(stageMs)
 
     public GenerateRequestDto() {
     }
@@ -63,4 +66,28 @@ public class GenerateRequestDto {
     public void setStopSequences(List<String> stopSequences) {
         this.stopSequences = stopSequences;
     }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public void setSessionId(String sessionId) {
+        this.sessionId = sessionId;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    public void setModel(String model) {
+        this.model = model;
+    }
+
+    public Boolean getIncludeStages() {
+        return includeStages;
+    }
+
+    public void setIncludeStages(Boolean includeStages) {
+        this.includeStages = includeStages;
+    }
 }
@@ -1,5 +1,7 @@
 package com.miniai.server.dto;
 
+import java.util.Map;
+
 /**
  * /v1/generate 응답 DTO
  */
@@ -8,6 +10,8 @@ public class GenerateResponseDto {
     private UsageDto usage;
     private Long latencyMs;
     private String model;
+    private Map<String, Double> stageMs; // 요청한 경우만 (tokenize, distribution, session, sampling, decode)
+    private boolean cached; // 응답 캐시에서 가져온 경우 true (stageMs 없음)
 
     public GenerateResponseDto() {
     }
@@ -51,6 +55,22 @@ public class GenerateResponseDto {
         this.model = model;
     }
 
+    public Map<String, Double> getStageMs() {
+        return stageMs;
+    }
+
+    public void setStageMs(Map<String, Double> stageMs) {
+        this.stageMs = stageMs;
+    }
+
+    public boolean isCached() {
+        return cached;
+    }
+
+    public void setCached(boolean cached) {
+        this.cached = cached;
+    }
+
     public static class UsageDto {
         private int inputTokens;
         private int outputTokens;
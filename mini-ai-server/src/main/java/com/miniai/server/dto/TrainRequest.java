@@ -1,21 +1,48 @@
 package com.miniai.server.dto;
 
+import java.util.List;
+
 /**
  * /v1/train 요청 DTO
  *
  * 지원 옵션:
- * - modelType: "bigram", "trigram", "ngram" (기본: bigram)
+ * - modelType: "bigram", "trigram", "ngram", "ensemble" (기본: bigram)
  * - n: N-gram 크기 (modelType=ngram일 때, 기본: 5)
  * - tokenizerType: "whitespace", "code" (기본: whitespace)
- * - smoothingType: "simple", "kneser-ney" (기본: simple)
+ * - smoothingType: "simple", "kneser-ney", "modified-kneser-ney", "stupid-backoff" (기본: simple)
+ * - glob: corpusPath가 디렉토리일 때 파일 필터 (예: "*.java", 기본: 전체)
+ * - baseArtifactPath: 지정하면 증분 학습 (기존 Artifact에 새 코퍼스 카운트 병합, ngram 전용)
+ * - pruneMinCount: 최고 order N-gram의 최소 카운트 (저장 전 가지치기, ngram 전용)
+ * - pruneMaxNgrams: 가지치기 크기 예산 (남길 N-gram 수)
+ * - pruneMaxPerplexityIncrease: 가지치기 perplexity 예산 (예: 0.05 = 5%)
+ * - quantizeBits: 8 또는 16이면 양자화된 서빙 모델로 컴파일해서 게시 (ngram 전용)
+ * - approximate: true면 메모리 제한 근사 학습 (heavy 문맥은 정확히, 나머지는 Count-Min Sketch, ngram 전용)
+ * - approxHeavyContexts: 근사 학습에서 order마다 정확히 셀 문맥 수 (기본: 100000)
+ * - approxSketchBytes: 근사 학습의 sketch 메모리 예산 (기본: 64MB)
+ * - suffixIndex: true면 코퍼스 suffix array를 만들어 infini-gram 모델로 게시 (ngram 전용, 증분 학습 불가)
+ * - members: 앙상블 멤버 Artifact 경로 (ensemble 전용, corpusPath는 가중치 EM용 held-out 텍스트,
+ *   outputPath에는 멤버 경로와 가중치를 담은 앙상블 설정을 저장)
+ * - modelName: 학습이 끝난 모델을 게시할 레지스트리 이름 (기본: default, 같은 이름이면 교체)
  */
 public class TrainRequest {
     private String corpusPath;
     private String outputPath;
     private String tokenizerType = "whitespace"; // "whitespace" or "code"
-    private String modelType = "bigram"; // "bigram", "trigram", or "ngram"
+    private String modelType = "bigram"; // "bigram", "trigram", "ngram", or "ensemble"
     private int n = 5; // N-gram size (for modelType=ngram)
-    private String smoothingType = "simple"; // "simple" or "kneser-ney"
+    private String smoothingType = "simple"; // "simple", "kneser-ney", "modified-kneser-ney", or "stupid-backoff"
+    private String glob; // 디렉토리 학습 시 파일 필터 (예: "*.java")
+    private String baseArtifactPath; // 증분 학습 시 기존 Artifact
+    private Integer pruneMinCount; // 최고 order count cutoff
+    private Long pruneMaxNgrams; // 가지치기 크기 예산
+    private Double pruneMaxPerplexityIncrease; // 가지치기 perplexity 예산
+    private Integer quantizeBits; // 서빙 모델 양자화 비트 (8 또는 16)
+    private Boolean approximate; // 메모리 제한 근사 학습
+    private Integer approxHeavyContexts; // order마다 정확히 셀 문맥 수
+    private Long approxSketchBytes; // sketch 메모리 예산
+    private Boolean suffixIndex; // 코퍼스 suffix array (infini-gram)
+    private List<String> members; // 앙상블 멤버 Artifact 경로
+    private String modelName; // 게시할 레지스트리 이름
 
     public TrainRequest() {
     }
@@ -75,6 +102,10 @@ public class TrainRequest {
         return "ngram".equalsIgnoreCase(modelType);
     }
 
+    public boolean useEnsemble() {
+        return "ensemble".equalsIgnoreCase(modelType);
+    }
+
     public int getN() {
         return n;
     }
@@ -91,7 +122,131 @@ public class TrainRequest {
         this.smoothingType = smoothingType;
     }
 
+    public String getGlob() {
+        return glob;
+    }
+
+    public void setGlob(String glob) {
+        this.glob = glob;
+    }
+
+    public String getBaseArtifactPath() {
+        return baseArtifactPath;
+    }
+
+    public void setBaseArtifactPath(String baseArtifactPath) {
+        this.baseArtifactPath = baseArtifactPath;
+    }
+
+    public boolean isIncremental() {
+        return baseArtifactPath != null && !baseArtifactPath.isBlank();
+    }
+
+    public Integer getPruneMinCount() {
+        return pruneMinCount;
+    }
+
+    public void setPruneMinCount(Integer pruneMinCount) {
+        this.pruneMinCount = pruneMinCount;
+    }
+
+    public Long getPruneMaxNgrams() {
+        return pruneMaxNgrams;
+    }
+
+    public void setPruneMaxNgrams(Long pruneMaxNgrams) {
+        this.pruneMaxNgrams = pruneMaxNgrams;
+    }
+
+    public Double getPruneMaxPerplexityIncrease() {
+        return pruneMaxPerplexityIncrease;
+    }
+
+    public void setPruneMaxPerplexityIncrease(Double pruneMaxPerplexityIncrease) {
+        this.pruneMaxPerplexityIncrease = pruneMaxPerplexityIncrease;
+    }
+
+    public boolean usePruning() {
+        return pruneMinCount != null || pruneMaxNgrams != null || pruneMaxPerplexityIncrease != null;
+    }
+
+    public Integer getQuantizeBits() {
+        return quantizeBits;
+    }
+
+    public void setQuantizeBits(Integer quantizeBits) {
+        this.quantizeBits = quantizeBits;
+    }
+
+    public boolean useQuantization() {
+        return quantizeBits != null;
+    }
+
+    public Boolean getApproximate() {
+        return approximate;
+    }
+
+    public void setApproximate(Boolean approximate) {
+        this.approximate = approximate;
+    }
+
+    public boolean useApproximate() {
+        return Boolean.TRUE.equals(approximate);
+    }
+
+    public Integer getApproxHeavyContexts() {
+        return approxHeavyContexts;
+    }
+
+    public void setApproxHeavyContexts(Integer approxHeavyContexts) {
+        this.approxHeavyContexts = approxHeavyContexts;
+    }
+
+    public Long getApproxSketchBytes() {
+        return approxSketchBytes;
+    }
+
+    public void setApproxSketchBytes(Long approxSketchBytes) {
+        this.approxSketchBytes = approxSketchBytes;
+    }
+
+    public Boolean getSuffixIndex() {
+        return suffixIndex;
+    }
+
+    public void setSuffixIndex(Boolean suffixIndex) {
+        this.suffixIndex = suffixIndex;
+    }
+
+    public boolean useSuffixIndex() {
+        return Boolean.TRUE.equals(suffixIndex);
+    }
+
+    public List<String> getMembers() {
+        return members;
+    }
+
+    public void setMembers(List<String> members) {
+        this.members = members;
+    }
+
+    public String getModelName() {
+        return modelName;
+    }
+
+    public void setModelName(String modelName) {
+        this.modelName = modelName;
+    }
+
     public boolean useKneserNey() {
         return "kneser-ney".equalsIgnoreCase(smoothingType);
     }
+
+    public boolean useModifiedKneserNey() {
+        return "modified-kneser-ney".equalsIgnoreCase(smoothingType);
+    }
+
+    public boolean useStupidBackoff() {
+        return "stupid-backoff".equalsIgnoreCase(smoothingType);
+    }
 }
@@ -0,0 +1,219 @@
+package com.miniai.server.job;
+
+import com.miniai.model.ngram.TrainingListener;
+import com.miniai.server.admission.MemoryBudget;
+import com.miniai.server.dto.TrainRequest;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Future;
+
+/**
+ * 비동기 학습 작업 하나의 상태
+ *
+ * 학습 포인트:
+ * - 학습 스레드가 진행 상황을 쓰고, HTTP 스레드가 읽음 → volatile 필드
+ * - 상태 전이(완료/취소)는 synchronized로 묶어서
+ *   "취소된 작업의 모델이 게시되는" 경쟁 조건을 막음
+ */
+public class TrainingJob implements TrainingListener {
+
+    public enum State {
+        QUEUED, RUNNING, SUCCEEDED, FAILED, CANCELLED;
+
+        public boolean isTerminal() {
+            return this == SUCCEEDED || this == FAILED || this == CANCELLED;
+        }
+    }
+
+    private final String id;
+    private final TrainRequest request;
+    private final long createdAt = System.currentTimeMillis();
+
+    private State state = State.QUEUED;
+    private volatile String phase = "queued";
+    private volatile long startedNanos;
+    private volatile long countingStartedNanos;
+    private volatile long countingFinishedNanos;
+    private volatile long finishedNanos;
+    private volatile long processedTokens;
+    private volatile long processedBytes;
+    private volatile long totalBytes;
+    private volatile int completedFiles;
+    private volatile int totalFiles;
+    private volatile Map<String, Object> result;
+    private volatile String error;
+    private volatile Future<?> future;
+    private volatile MemoryBudget.Reservation reservation;
+
+    public TrainingJob(String id, TrainRequest request) {
+        this.id = id;
+        this.request = request;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public TrainRequest getRequest() {
+        return request;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    void setFuture(Future<?> future) {
+        this.future = future;
+    }
+
+    void setReservation(MemoryBudget.Reservation reservation) {
+        this.reservation = reservation;
+    }
+
+    /**
+     * 메모리 예약 반납 (여러 번 호출해도 한 번만 반납)
+     */
+    void releaseMemory() {
+        MemoryBudget.Reservation r = reservation;
+        if (r != null) {
+            r.close();
+        }
+    }
+
+    /**
+     * 실행을 시작한 적이 있는지 (대기 중에 취소되었으면 false)
+     */
+    boolean hasStarted() {
+        return startedNanos > 0;
+    }
+
+    /**
+     * 실행 시작 (이미 취소되었으면 false)
+     */
+    synchronized boolean start() {
+        if (state != State.QUEUED) {
+            return false;
+        }
+        state = State.RUNNING;
+        startedNanos = System.nanoTime();
+        return true;
+    }
+
+    /**
+     * 성공 처리: 실행 중일 때만 모델을 게시하고 SUCCEEDED로 전이
+     *
+     * @param publish 모델 게시 동작 (락 안에서 실행되므로 cancel과 겹치지 않음)
+     * @return 게시했으면 true, 이미 취소되었으면 false
+     */
+    synchronized boolean succeed(Runnable publish, Map<String, Object> result) {
+        if (state != State.RUNNING) {
+            return false;
+        }
+        publish.run();
+        this.result = result;
+        this.phase = "done";
+        this.state = State.SUCCEEDED;
+        this.finishedNanos = System.nanoTime();
+        return true;
+    }
+
+    synchronized void fail(String error) {
+        if (state.isTerminal()) {
+            return;
+        }
+        this.error = error;
+        this.phase = "failed";
+        this.state = State.FAILED;
+        this.finishedNanos = System.nanoTime();
+    }
+
+    /**
+     * 작업 취소 (대기 중이면 실행되지 않고, 실행 중이면 학습 스레드를 interrupt)
+     *
+     * @return 취소했으면 true, 이미 끝난 작업이면 false
+     */
+    public synchronized boolean cancel() {
+        if (state.isTerminal()) {
+            return false;
+        }
+        state = State.CANCELLED;
+        phase = "cancelled";
+        finishedNanos = System.nanoTime();
+        Future<?> f = future;
+        if (f != null) {
+            f.cancel(true);
+        }
+        return true;
+    }
+
+    @Override
+    public void onPhase(String phase) {
+        if (phase.equals("counting")) {
+            countingStartedNanos = System.nanoTime();
+        } else if (this.phase.equals("counting")) {
+            countingFinishedNanos = System.nanoTime();
+        }
+        this.phase = phase;
+    }
+
+    @Override
+    public void onProgress(long processedTokens, long processedBytes, long totalBytes,
+                           int completedFiles, int totalFiles) {
+        this.processedTokens = processedTokens;
+        this.processedBytes = processedBytes;
+        this.totalBytes = totalBytes;
+        this.completedFiles = completedFiles;
+        this.totalFiles = totalFiles;
+    }
+
+    /**
+     * /v1/jobs/{id} 응답용 상태 스냅샷
+     */
+    public Map<String, Object> toStatus() {
+        State currentState = getState();
+        long now = currentState.isTerminal() && finishedNanos > 0 ? finishedNanos : System.nanoTime();
+
+        Map<String, Object> status = new HashMap<>();
+        status.put("jobId", id);
+        status.put("state", currentState.name());
+        status.put("phase", phase);
+        status.put("modelType", request.getModelType());
+        status.put("corpusPath", request.getCorpusPath());
+        status.put("createdAt", createdAt);
+        status.put("elapsedMs", startedNanos > 0 ? (now - startedNanos) / 1_000_000 : 0);
+        status.put("tokensProcessed", processedTokens);
+        status.put("filesCompleted", completedFiles);
+        status.put("filesTotal", totalFiles);
+        status.put("bytesProcessed", processedBytes);
+        status.put("bytesTotal", totalBytes);
+        MemoryBudget.Reservation r = reservation;
+        if (r != null) {
+            status.put("estimatedMemoryBytes", r.getBytes());
+        }
+
+        long countingEnd = countingFinishedNanos > 0 ? countingFinishedNanos : now;
+        long countingNanos = countingStartedNanos > 0 ? countingEnd - countingStartedNanos : 0;
+        if (countingNanos > 0) {
+            status.put("tokensPerSecond", Math.round(processedTokens * 1e9 / countingNanos));
+        }
+        // ETA: 지금까지 바이트당 평균 시간 × 남은 바이트 (파일 크기가 제각각이어도, 파일 하나짜리 코퍼스도)
+        long done = processedBytes;
+        if (!currentState.isTerminal() && done > 0 && totalBytes > 0) {
+            long remainingBytes = Math.max(0, totalBytes - done);
+            status.put("etaMs", (long) ((double) countingNanos / done * remainingBytes / 1_000_000));
+        }
+
+        if (result != null) {
+            status.put("result", result);
+        }
+        if (error != null) {
+            status.put("error", error);
+        }
+        return status;
+    }
+}
@@ -0,0 +1,662 @@
+package com.miniai.server.job;
+
+import com.miniai.core.model.LanguageModel;
+import com.miniai.core.tokenizer.Tokenizer;
+import com.miniai.model.BigramModel;
+import com.miniai.model.BigramTrainer;
+import com.miniai.model.TrigramModel;
+import com.miniai.model.TrigramTrainer;
+import com.miniai.model.ngram.ArtifactPruner;
+import com.miniai.model.ngram.CompiledNgramArtifact;
+import com.miniai.model.ngram.EnsembleModel;
+import com.miniai.model.ngram.InfiniGramModel;
+import com.miniai.model.ngram.NgramCompiler;
+import com.miniai.model.ngram.NgramModel;
+import com.miniai.model.ngram.NgramTrainer;
+import com.miniai.model.ngram.SuffixArrayIndex;
+import com.miniai.model.ngram.TrainingSummary;
+import com.miniai.model.smoothing.KneserNey;
+import com.miniai.model.smoothing.ModifiedKneserNey;
+import com.miniai.model.smoothing.SimpleBackoff;
+import com.miniai.model.smoothing.SmoothingStrategy;
+import com.miniai.model.smoothing.StupidBackoff;
+import com.miniai.server.admission.MemoryBudget;
+import com.miniai.server.admission.OverloadedException;
+import com.miniai.server.config.VirtualThreads;
+import com.miniai.server.dto.TrainRequest;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 비동기 학습 작업 관리
+ *
+ * 학습 포인트:
+ * - 학습(토큰화 + 카운트 + JSON 저장)은 HTTP 요청 스레드가 아닌 전용 스레드에서 실행
+ * - 전용 executor는 스레드 수와 대기열 크기가 모두 제한됨 (가득 차면 즉시 거절)
+ * - 완성된 모델만 한 번에 게시 (학습 중에도 기존 모델로 계속 생성 가능)
+ * - 출력 파일(Artifact, 컴파일 모델, 색인)은 작업별 staging 경로에 쓰고, 성공 처리(succeed) 안에서만 제자리로 이동
+ *   → 취소/실패한 작업은 outputPath를 건드리지 않음 (ArtifactWatcher가 반쯤 된 결과를 다시 읽는 일도 없음)
+ * - 제출할 때 코퍼스 크기로 최대 메모리를 추정해서 예산에서 예약 (대기 중인 작업 포함)
+ *   → 큰 학습 여러 개가 힙을 넘겨 서버 전체가 죽는 일을 막음
+ * - 대기열이나 메모리 예산이 가득 차면 OverloadedException (컨트롤러가 429 + Retry-After)
+ *
+ * 설정:
+ * - miniai.training.threads: 동시에 실행할 학습 수 (기본 1)
+ * - miniai.training.queue-capacity: 대기할 수 있는 학습 수 (기본 4)
+ * - miniai.training.memory-fraction: 학습에 쓸 수 있는 최대 힙 비율 (기본 0.5, 나머지는 서빙 몫)
+ * - miniai.threads.virtual: true면 학습 스레드를 가상 스레드로 (JDK 21+, 코퍼스 파일 읽기 동안 OS 스레드 반납)
+ */
+@Service
+public class TrainingJobService {
+
+    /**
+     * 끝난 작업은 이 개수까지만 보관 (오래된 것부터 삭제)
+     */
+    private static final int MAX_FINISHED_JOBS = 100;
+
+    /**
+     * 거절할 때 다시 시도하라고 알려 줄 시간 (학습은 분 단위로 걸림)
+     */
+    static final long RETRY_AFTER_SECONDS = 30;
+
+    /**
+     * 메모리 추정: 코드 토큰 하나의 평균 바이트 수
+     */
+    static final int BYTES_PER_TOKEN = 4;
+
+    /**
+     * 메모리 추정: 학습 중 (문맥, 토큰) 카운트 항목 하나 (boxed Map 엔트리 + 문맥 키 몫)
+     */
+    static final int BYTES_PER_NGRAM = 96;
+
+    /**
+     * 메모리 추정: JSON Artifact를 읽었을 때 파일 크기 대비 힙 크기
+     */
+    static final int ARTIFACT_EXPANSION = 4;
+
+    /**
+     * 메모리 추정: 근사 학습에서 heavy 문맥 하나가 가진 다음 토큰 수 (평균)
+     */
+    static final int APPROX_NEXT_TOKENS_PER_CONTEXT = 16;
+
+    private final ThreadPoolExecutor executor;
+    private final MemoryBudget memoryBudget;
+    private final Map<String, TrainingJob> jobs = new ConcurrentHashMap<>();
+
+    public TrainingJobService(@Value("${miniai.training.threads:1}") int threads,
+                              @Value("${miniai.training.queue-capacity:4}") int queueCapacity,
+                              @Value("${miniai.training.memory-fraction:0.5}") double memoryFraction,
+                              @Value("${miniai.threads.virtual:false}") boolean virtualThreads) {
+        // 가상 스레드여도 동시 학습 수와 대기열 크기는 그대로 제한 (메모리를 많이 씀)
+        this.executor = new ThreadPoolExecutor(
+            threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            VirtualThreads.factory("train-job-", virtualThreads));
+        this.memoryBudget = MemoryBudget.ofHeapFraction("training", memoryFraction, RETRY_AFTER_SECONDS);
+    }
+
+    /**
+     * 학습 작업 제출
+     *
+     * @param request 학습 요청 (제출 전에 검증됨)
+     * @param publisher 학습이 끝난 모델을 게시하는 동작
+     * @return 대기열에 들어간 작업
+     * @throws IllegalArgumentException 요청이 잘못되었거나 혼자서도 메모리 예산을 넘는 경우
+     * @throws OverloadedException 대기열이나 메모리 예산이 가득 찬 경우
+     */
+    public TrainingJob submit(TrainRequest request, Consumer<LanguageModel> publisher) {
+        validate(request);
+        pruneFinishedJobs();
+
+        MemoryBudget.Reservation reservation = memoryBudget.reserve(estimateMemoryBytes(request));
+        TrainingJob job = new TrainingJob(UUID.randomUUID().toString(), request);
+        job.setReservation(reservation);
+        jobs.put(job.getId(), job);
+        try {
+            job.setFuture(executor.submit(() -> {
+                try {
+                    run(job, publisher);
+                } finally {
+                    job.releaseMemory();
+                }
+            }));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            job.releaseMemory();
+            throw new OverloadedException("training", RETRY_AFTER_SECONDS,
+                "학습 대기열이 가득 찼습니다. " + RETRY_AFTER_SECONDS + "초 후 다시 시도하세요.");
+        } catch (RuntimeException e) {
+            jobs.remove(job.getId());
+            job.releaseMemory();
+            throw e;
+        }
+        return job;
+    }
+
+    /**
+     * 학습 작업의 최대 힙 사용량 추정 (대략적인 상한)
+     *
+     * - 코퍼스 문자열: 문자당 2바이트 (bigram/trigram은 코퍼스 전체를 한 문자열로 읽음)
+     *   → N-gram 학습은 제외 (vocabulary는 줄 단위 스트리밍, 카운트는 1M 문자 조각 몇 개만 메모리에)
+     * - 카운트 표: 토큰마다 order별로 새 (문맥, 토큰) 항목이 생길 수 있음 → 토큰 수 × N × 항목 크기
+     *   (근사 학습은 heavy 문맥 수로 상한 + sketch 예산)
+     * - 색인: suffix array + 토큰 배열 (토큰당 8바이트)
+     * - 증분 학습/앙상블: 읽어 들일 Artifact 파일 크기 × ARTIFACT_EXPANSION
+     */
+    static long estimateMemoryBytes(TrainRequest request) {
+        try {
+            long corpusBytes = 0;
+            for (Path file : NgramTrainer.listCorpusFiles(Paths.get(request.getCorpusPath()), request.getGlob())) {
+                corpusBytes += Files.size(file);
+            }
+            long tokens = corpusBytes / BYTES_PER_TOKEN;
+
+            if (request.useEnsemble()) {
+                long memberBytes = 0;
+                for (String member : request.getMembers()) {
+                    memberBytes += Files.size(Paths.get(member));
+                }
+                return 2 * corpusBytes + memberBytes * ARTIFACT_EXPANSION;
+            }
+
+            int order = request.useNgram() ? request.getN() : request.useTrigram() ? 3 : 2;
+            long ngrams = tokens * order;
+            long bytes = request.useNgram() ? 0 : 2 * corpusBytes;
+            if (request.useApproximate()) {
+                ngrams = Math.min(ngrams, (long) approxHeavyContexts(request) * (order - 1) * APPROX_NEXT_TOKENS_PER_CONTEXT);
+                bytes += approxSketchBytes(request);
+            }
+            bytes += ngrams * BYTES_PER_NGRAM;
+            if (request.useSuffixIndex()) {
+                bytes += tokens * 8;
+            }
+            if (request.isIncremental() && request.getBaseArtifactPath() != null) {
+                Path base = Paths.get(request.getBaseArtifactPath());
+                if (Files.exists(base)) {
+                    bytes += Files.size(base) * ARTIFACT_EXPANSION;
+                }
+            }
+            return bytes;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("코퍼스 크기를 읽을 수 없습니다: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 대기열과 메모리 예산 상태 (/v1/metrics용)
+     */
+    public Map<String, Object> admissionStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("threads", executor.getMaximumPoolSize());
+        stats.put("running", executor.getActiveCount());
+        stats.put("queued", executor.getQueue().size());
+        stats.put("queueCapacity", executor.getQueue().size() + executor.getQueue().remainingCapacity());
+        stats.put("memory", memoryBudget.stats());
+        return stats;
+    }
+
+    public Optional<TrainingJob> find(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    public Collection<TrainingJob> list() {
+        List<TrainingJob> result = new ArrayList<>(jobs.values());
+        result.sort(Comparator.comparingLong(TrainingJob::getCreatedAt));
+        return result;
+    }
+
+    /**
+     * 작업 취소
+     *
+     * @return 취소했으면 true, 없는 작업이거나 이미 끝났으면 false
+     */
+    public boolean cancel(String jobId) {
+        TrainingJob job = jobs.get(jobId);
+        if (job == null || !job.cancel()) {
+            return false;
+        }
+        executor.purge(); // 대기열에서 취소된 작업 제거
+        if (!job.hasStarted()) {
+            job.releaseMemory(); // 실행되지 않으므로 예약을 바로 반납 (실행 중이면 스레드가 끝날 때)
+        }
+        return true;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void validate(TrainRequest request) {
+        if (request.getCorpusPath() == null || request.getOutputPath() == null) {
+            throw new IllegalArgumentException("corpusPath와 outputPath가 필요합니다");
+        }
+        Path corpusPath = Paths.get(request.getCorpusPath());
+        if (!Files.exists(corpusPath)) {
+            throw new IllegalArgumentException("Corpus가 없습니다: " + corpusPath);
+        }
+        if (Files.isDirectory(corpusPath) && !request.useNgram() && !request.useEnsemble()) {
+            throw new IllegalArgumentException("디렉토리 학습은 ngram 모델에서만 지원합니다");
+        }
+        if (request.useEnsemble()) {
+            if (request.getMembers() == null || request.getMembers().size() < 2) {
+                throw new IllegalArgumentException("앙상블에는 멤버 Artifact가 2개 이상 필요합니다");
+            }
+            for (String member : request.getMembers()) {
+                if (!Files.exists(Paths.get(member))) {
+                    throw new IllegalArgumentException("멤버 Artifact가 없습니다: " + member);
+                }
+            }
+        }
+        if (request.isIncremental() && !request.useNgram()) {
+            throw new IllegalArgumentException("증분 학습은 ngram 모델에서만 지원합니다");
+        }
+        if (request.usePruning()) {
+            if (!request.useNgram()) {
+                throw new IllegalArgumentException("가지치기는 ngram 모델에서만 지원합니다");
+            }
+            pruner(request); // 잘못된 예산 값은 제출 시점에 거절
+        }
+        if (request.useQuantization()) {
+            if (!request.useNgram()) {
+                throw new IllegalArgumentException("양자화는 ngram 모델에서만 지원합니다");
+            }
+            if (request.getQuantizeBits() != 8 && request.getQuantizeBits() != 16) {
+                throw new IllegalArgumentException("quantizeBits는 8 또는 16이어야 합니다");
+            }
+        }
+        if (request.useApproximate()) {
+            if (!request.useNgram()) {
+                throw new IllegalArgumentException("근사 학습은 ngram 모델에서만 지원합니다");
+            }
+            if (request.isIncremental() || request.usePruning() || request.useQuantization()) {
+                // 병합/가지치기/컴파일은 정확한 카운트 표만 다룸 (sketch가 빠짐)
+                throw new IllegalArgumentException("근사 학습은 증분 학습, 가지치기, 양자화와 함께 쓸 수 없습니다");
+            }
+            if (approxHeavyContexts(request) < 1 || approxSketchBytes(request) < 1) {
+                throw new IllegalArgumentException("approxHeavyContexts와 approxSketchBytes는 1 이상이어야 합니다");
+            }
+        }
+        if (request.useSuffixIndex()) {
+            if (!request.useNgram()) {
+                throw new IllegalArgumentException("Suffix array 색인은 ngram 모델에서만 지원합니다");
+            }
+            if (request.isIncremental()) {
+                // 색인은 코퍼스 전체가 필요 (새 corpus만으로는 기존 Artifact와 맞지 않음)
+                throw new IllegalArgumentException("Suffix array 색인은 증분 학습과 함께 쓸 수 없습니다");
+            }
+        }
+    }
+
+    private static int approxHeavyContexts(TrainRequest request) {
+        return request.getApproxHeavyContexts() != null
+            ? request.getApproxHeavyContexts() : NgramTrainer.DEFAULT_HEAVY_CONTEXTS;
+    }
+
+    private static long approxSketchBytes(TrainRequest request) {
+        return request.getApproxSketchBytes() != null
+            ? request.getApproxSketchBytes() : NgramTrainer.DEFAULT_SKETCH_BYTES;
+    }
+
+    private ArtifactPruner pruner(TrainRequest request) {
+        ArtifactPruner pruner = new ArtifactPruner();
+        if (request.getPruneMinCount() != null) {
+            pruner.minCount(request.getN(), request.getPruneMinCount());
+        }
+        if (request.getPruneMaxNgrams() != null) {
+            pruner.maxNgrams(request.getPruneMaxNgrams());
+        }
+        if (request.getPruneMaxPerplexityIncrease() != null) {
+            pruner.maxPerplexityIncrease(request.getPruneMaxPerplexityIncrease());
+        }
+        return pruner;
+    }
+
+    /**
+     * Suffix array 색인 경로 (예: model.json → model.sa)
+     */
+    private static Path suffixIndexPath(Path outputPath) {
+        String name = outputPath.getFileName().toString();
+        String base = name.endsWith(".json") ? name.substring(0, name.length() - ".json".length()) : name;
+        return outputPath.resolveSibling(base + ".sa");
+    }
+
+    /**
+     * 컴파일된 모델 경로 (예: model.json → model.q8.json)
+     */
+    private static Path compiledPath(Path outputPath, int bits) {
+        String name = outputPath.getFileName().toString();
+        String base = name.endsWith(".json") ? name.substring(0, name.length() - ".json".length()) : name;
+        return outputPath.resolveSibling(base + ".q" + bits + ".json");
+    }
+
+    private void pruneFinishedJobs() {
+        List<TrainingJob> finished = new ArrayList<>();
+        for (TrainingJob job : jobs.values()) {
+            if (job.getState().isTerminal()) {
+                finished.add(job);
+            }
+        }
+        if (finished.size() < MAX_FINISHED_JOBS) {
+            return;
+        }
+        finished.sort(Comparator.comparingLong(TrainingJob::getCreatedAt));
+        for (int i = 0; i <= finished.size() - MAX_FINISHED_JOBS; i++) {
+            jobs.remove(finished.get(i).getId());
+        }
+    }
+
+    /**
+     * 학습 실행 (학습 스레드)
+     */
+    private void run(TrainingJob job, Consumer<LanguageModel> publisher) {
+        if (!job.start()) {
+            return; // 대기 중에 취소됨
+        }
+
+        TrainRequest request = job.getRequest();
+        Staging staging = new Staging(job.getId());
+        try {
+            Path corpusPath = Paths.get(request.getCorpusPath());
+            Path outputPath = Paths.get(request.getOutputPath());
+
+            if (request.useEnsemble()) {
+                runEnsemble(job, corpusPath, outputPath, staging, publisher);
+                return;
+            }
+
+            // 토크나이저 선택 (vocabulary는 파일을 줄 단위로 읽으며 생성, 코퍼스 전체를 메모리에 두지 않음)
+            // 증분 학습은 기존 Artifact의 토크나이저를 따르므로 건너뜀 (trainIncremental이 새 파일로 확장)
+            String tokenizerName = null;
+            Tokenizer tokenizer = null;
+            if (!request.isIncremental()) {
+                job.onPhase("building-vocabulary");
+                tokenizerName = request.useCodeTokenizer() ? "CodeTokenizer" : "WhitespaceTokenizer";
+                tokenizer = NgramTrainer.buildTokenizer(tokenizerName,
+                    NgramTrainer.listCorpusFiles(corpusPath, request.getGlob()));
+                System.out.println(request.useCodeTokenizer()
+                    ? "🔧 Using CodeTokenizer (code-aware)" : "📝 Using WhitespaceTokenizer (default)");
+            }
+
+            // 학습 (Bigram, Trigram, or N-gram)
+            long startTime = System.currentTimeMillis();
+            LanguageModel model;
+            String modelTypeName;
+            String smoothingName = "none";
+            int vocabSize = tokenizer != null ? tokenizer.vocabSize() : 0;
+            TrainingSummary summary = null;
+            String compiledArtifactPath = null;
+            Path suffixIndexPath = null;
+            int suffixIndexTokens = 0;
+
+            if (request.useNgram()) {
+                // N-gram with configurable smoothing
+                int n = request.getN();
+                NgramTrainer trainer = new NgramTrainer(n, tokenizer);
+                trainer.setListener(job);
+                if (request.usePruning()) {
+                    trainer.setPruner(pruner(request));
+                }
+                if (request.isIncremental()) {
+                    // 기존 Artifact + 새 코퍼스 카운트 병합
+                    Path baseArtifactPath = Paths.get(request.getBaseArtifactPath());
+                    summary = trainer.trainIncremental(baseArtifactPath, corpusPath, request.getGlob(),
+                        staging.stage(outputPath));
+                    System.out.println("➕ Incremental update of " + baseArtifactPath);
+                } else if (request.useApproximate()) {
+                    // heavy 문맥만 정확히, 나머지는 sketch (메모리 = 예산 고정)
+                    summary = trainer.trainApproximateAndSave(corpusPath, request.getGlob(),
+                        staging.stage(outputPath), approxHeavyContexts(request), approxSketchBytes(request));
+                } else {
+                    summary = trainer.trainAndSave(corpusPath, request.getGlob(), staging.stage(outputPath));
+                }
+
+                // Smoothing 전략 선택
+                SmoothingStrategy smoothing;
+                if (request.useModifiedKneserNey()) {
+                    smoothing = new ModifiedKneserNey();
+                    smoothingName = "modified-kneser-ney";
+                    System.out.println("🎯 Using Modified Kneser-Ney smoothing");
+                } else if (request.useStupidBackoff()) {
+                    smoothing = new StupidBackoff();
+                    smoothingName = "stupid-backoff";
+                    System.out.println("⚡ Using Stupid Backoff scoring");
+                } else if (request.useKneserNey()) {
+                    smoothing = new KneserNey();
+                    smoothingName = "kneser-ney";
+                    System.out.println("🎯 Using Kneser-Ney smoothing");
+                } else {
+                    smoothing = new SimpleBackoff();
+                    smoothingName = "simple-backoff";
+                    System.out.println("📊 Using Simple Backoff smoothing");
+                }
+
+                job.onPhase("loading-model");
+                NgramModel ngramModel = NgramModel.fromArtifact(staging.stage(outputPath), smoothing);
+                if (request.isIncremental()) {
+                    // 실제로 저장된 (병합된) Artifact의 토크나이저를 보고
+                    tokenizerName = ngramModel.getTokenizer().getClass().getSimpleName();
+                }
+                if (request.useQuantization()) {
+                    // 서빙용으로 컴파일 (카운트 Artifact는 증분 학습/가지치기용으로 그대로 둠)
+                    job.onPhase("compiling");
+                    CompiledNgramArtifact compiled = NgramCompiler.compile(
+                        ngramModel.getArtifact(), smoothing, request.getQuantizeBits());
+                    Path compiledPath = compiledPath(outputPath, request.getQuantizeBits());
+                    NgramCompiler.save(compiled, staging.stage(compiledPath));
+                    ngramModel = NgramModel.fromCompiled(compiled);
+                    compiledArtifactPath = compiledPath.toString();
+                    System.out.println("🗜️ Compiled " + compiled);
+                }
+                vocabSize = ngramModel.getVocabulary().size();
+                model = ngramModel;
+                if (request.useSuffixIndex()) {
+                    // 코퍼스 suffix array (N-gram 문맥보다 긴 일치에 사용, N-gram은 backoff)
+                    job.onPhase("indexing");
+                    SuffixArrayIndex index = SuffixArrayIndex.build(
+                        NgramTrainer.listCorpusFiles(corpusPath, request.getGlob()), ngramModel.getTokenizer());
+                    suffixIndexPath = suffixIndexPath(outputPath);
+                    index.save(staging.stage(suffixIndexPath));
+                    InfiniGramModel infini = InfiniGramModel.open(staging.stage(suffixIndexPath), ngramModel);
+                    System.out.println("🔎 " + infini.getIndex());
+                    model = infini;
+                    suffixIndexTokens = index.size();
+                }
+                modelTypeName = n + "-gram";
+                System.out.println("📊 Using " + n + "-gram model (" + (n-1) + "-token context)");
+
+            } else if (request.useTrigram()) {
+                job.onPhase("counting");
+                TrigramTrainer trainer = new TrigramTrainer(tokenizer);
+                trainer.setListener(job);
+                trainer.train(corpusPath, staging.stage(outputPath));
+                job.onPhase("loading-model");
+                model = TrigramModel.fromArtifact(staging.stage(outputPath));
+                modelTypeName = "trigram";
+                System.out.println("📊 Using Trigram model (2-token context)");
+            } else {
+                job.onPhase("counting");
+                BigramTrainer trainer = new BigramTrainer(tokenizer);
+                trainer.setListener(job);
+                trainer.train(corpusPath, staging.stage(outputPath));
+                job.onPhase("loading-model");
+                model = BigramModel.fromArtifact(staging.stage(outputPath));
+                modelTypeName = "bigram";
+                System.out.println("📈 Using Bigram model (1-token context)");
+            }
+
+            long latency = System.currentTimeMillis() - startTime;
+
+            Map<String, Object> result = new HashMap<>();
+            result.put("artifactPath", outputPath.toString());
+            result.put("vocabSize", vocabSize);
+            result.put("tokenizer", tokenizerName);
+            result.put("modelType", modelTypeName);
+            result.put("smoothing", smoothingName);
+            result.put("incremental", request.isIncremental());
+            result.put("pruned", request.usePruning());
+            result.put("approximate", request.useApproximate());
+            if (compiledArtifactPath != null) {
+                result.put("compiledArtifactPath", compiledArtifactPath);
+                result.put("quantizeBits", request.getQuantizeBits());
+            }
+            if (suffixIndexPath != null) {
+                result.put("suffixIndexPath", suffixIndexPath.toString());
+                result.put("suffixIndexTokens", suffixIndexTokens);
+            }
+            result.put("latencyMs", latency);
+            if (summary != null) {
+                result.put("files", summary.getFileCount());
+                result.put("totalTokens", summary.getTotalTokens());
+                result.put("tokensPerSecond", Math.round(summary.getTokensPerSecond()));
+            }
+
+            // 출력 파일을 제자리로 옮기고 완성된 모델을 한 번에 게시 (취소된 작업이면 둘 다 하지 않음)
+            LanguageModel trained = model;
+            if (job.succeed(() -> {
+                staging.promote();
+                publisher.accept(trained);
+            }, result)) {
+                System.out.println("✅ 학습 작업 완료: " + job.getId());
+            }
+
+        } catch (Exception e) {
+            if (job.getState() == TrainingJob.State.CANCELLED) {
+                System.out.println("🛑 학습 작업 취소: " + job.getId());
+            } else {
+                System.err.println("❌ 학습 작업 실패: " + job.getId() + " - " + e.getMessage());
+                job.fail(e.getMessage());
+            }
+        } finally {
+            staging.discard(); // 옮기지 않은 (취소/실패) 출력 삭제
+        }
+    }
+
+    /**
+     * 앙상블 구성 (학습 스레드)
+     *
+     * 멤버 Artifact를 읽고 corpus(held-out)로 가중치를 EM 학습한 뒤 설정을 저장하고 게시
+     */
+    private void runEnsemble(TrainingJob job, Path heldOutPath, Path outputPath, Staging staging,
+                             Consumer<LanguageModel> publisher) throws Exception {
+        TrainRequest request = job.getRequest();
+        long startTime = System.currentTimeMillis();
+
+        job.onPhase("reading-corpus");
+        String heldOut = Files.isDirectory(heldOutPath)
+            ? NgramTrainer.readCorpus(NgramTrainer.listCorpusFiles(heldOutPath, request.getGlob()))
+            : Files.readString(heldOutPath);
+
+        job.onPhase("loading-members");
+        List<Path> memberPaths = new ArrayList<>();
+        for (String member : request.getMembers()) {
+            memberPaths.add(Paths.get(member));
+        }
+        EnsembleModel ensemble = EnsembleModel.fromArtifacts(memberPaths, request.getSmoothingType());
+
+        job.onPhase("tuning-weights");
+        double[] weights = ensemble.tuneWeights(heldOut, 100);
+        EnsembleModel.save(ensemble, request.getSmoothingType(), staging.stage(outputPath));
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("artifactPath", outputPath.toString());
+        result.put("modelType", "ensemble");
+        result.put("model", ensemble.modelName());
+        result.put("members", request.getMembers());
+        result.put("weights", weights);
+        result.put("smoothing", request.getSmoothingType());
+        result.put("vocabSize", ensemble.getTokenizer().vocabSize());
+        result.put("heldOutPerplexity", ensemble.perplexity(heldOut));
+        result.put("latencyMs", System.currentTimeMillis() - startTime);
+
+        if (job.succeed(() -> {
+            staging.promote();
+            publisher.accept(ensemble);
+        }, result)) {
+            System.out.println("✅ 앙상블 작업 완료: " + job.getId() + " " + ensemble);
+        }
+    }
+
+    /**
+     * 작업 하나의 출력 파일 staging (최종 경로 옆의 작업별 임시 이름)
+     *
+     * - 같은 디렉토리라 promote의 이동은 rename 한 번 (파일 시스템이 지원하면 atomic)
+     * - ArtifactWatcher는 모델을 읽은 경로만 다시 읽으므로 staging 파일은 무시함
+     */
+    private static final class Staging {
+        private final String jobId;
+        private final Map<Path, Path> staged = new LinkedHashMap<>();
+
+        Staging(String jobId) {
+            this.jobId = jobId;
+        }
+
+        /**
+         * target 대신 쓸 경로 (같은 target이면 같은 경로)
+         */
+        Path stage(Path target) {
+            return staged.computeIfAbsent(target.toAbsolutePath().normalize(),
+                t -> t.resolveSibling(t.getFileName() + "." + jobId + ".staging"));
+        }
+
+        /**
+         * staging 파일을 최종 경로로 이동 (TrainingJob.succeed 안에서만 호출)
+         *
+         * @throws UncheckedIOException 이동 실패 (작업은 실패 처리)
+         */
+        void promote() {
+            try {
+                for (Map.Entry<Path, Path> entry : staged.entrySet()) {
+                    if (!Files.exists(entry.getValue())) {
+                        continue; // 쓰지 않은 출력 (예: 컴파일 실패 전)
+                    }
+                    try {
+                        Files.move(entry.getValue(), entry.getKey(),
+                            StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    } catch (AtomicMoveNotSupportedException e) {
+                        Files.move(entry.getValue(), entry.getKey(), StandardCopyOption.REPLACE_EXISTING);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("학습 결과를 제자리로 옮기지 못했습니다: " + e.getMessage(), e);
+            }
+        }
+
+        /**
+         * 남은 staging 파일 삭제 (promote 뒤에는 남은 것이 없음)
+         */
+        void discard() {
+            for (Path path : staged.values()) {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException e) {
+                    System.err.println("⚠️  staging 파일 삭제 실패: " + path + " (" + e.getMessage() + ")");
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.miniai.server.metrics;
+
+import com.miniai.core.model.LanguageModel;
+import com.miniai.core.types.GenerateResponse;
+import com.miniai.model.NextTokenPredictor;
+import com.miniai.model.ngram.InfiniGramModel;
+import com.miniai.model.ngram.NgramModel;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 생성 요청 지표 (모델 이름별, 단계별 지연 히스토그램)
+ *
+ * 학습 포인트:
+ * - 모델이 응답에 담아 준 단계별 시간을 모아 부하 중에 "어느 단계가 느려졌는지" 확인
+ *   - tokenize, distribution (다음 토큰 분포: 문맥 조회 + smoothing), session (세션 캐시 보정),
+ *     sampling, decode
+ * - total은 컨트롤러에서 잰 요청 전체 시간 (모델 밖 변환 비용 포함)
+ * - 응답 캐시 적중은 total에만 기록 (단계 히스토그램은 실제 생성만)
+ * - 기록은 잠금 없음 (ConcurrentHashMap + LatencyHistogram)
+ */
+@Service
+public class GenerationMetrics {
+
+    public static final String TOTAL = "total";
+
+    private final Map<String, ModelMetrics> models = new ConcurrentHashMap<>();
+
+    /**
+     * 요청 하나 기록
+     *
+     * @param name 레지스트리 모델 이름
+     * @param totalNanos 요청 전체 시간
+     */
+    public void record(String name, GenerateResponse response, long totalNanos) {
+        ModelMetrics metrics = models.computeIfAbsent(name, key -> new ModelMetrics());
+        metrics.requests.increment();
+        metrics.outputTokens.add(response.getUsage().getOutputTokens());
+        metrics.stage(TOTAL).record(totalNanos);
+        for (Map.Entry<String, Long> stage : response.getStageNanos().entrySet()) {
+            metrics.stage(stage.getKey()).record(stage.getValue());
+        }
+    }
+
+    /**
+     * 응답 캐시에서 처리한 요청 하나 기록 (생성 단계가 없으므로 total만)
+     */
+    public void recordCached(String name, GenerateResponse response, long totalNanos) {
+        ModelMetrics metrics = models.computeIfAbsent(name, key -> new ModelMetrics());
+        metrics.requests.increment();
+        metrics.cachedRequests.increment();
+        metrics.outputTokens.add(response.getUsage().getOutputTokens());
+        metrics.stage(TOTAL).record(totalNanos);
+    }
+
+    /**
+     * 모델 하나의 요약 (기록이 없으면 null)
+     */
+    public Map<String, Object> summary(String name) {
+        ModelMetrics metrics = models.get(name);
+        if (metrics == null) {
+            return null;
+        }
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("requests", metrics.requests.sum());
+        summary.put("cachedRequests", metrics.cachedRequests.sum());
+        summary.put("outputTokens", metrics.outputTokens.sum());
+        Map<String, Object> stages = new LinkedHashMap<>();
+        stages.put(TOTAL, metrics.stages.get(TOTAL).toSummary());
+        for (Map.Entry<String, LatencyHistogram> stage : new TreeMap<>(metrics.stages).entrySet()) {
+            if (!stage.getKey().equals(TOTAL)) {
+                stages.put(stage.getKey(), stage.getValue().toSummary());
+            }
+        }
+        summary.put("stages", stages);
+        return summary;
+    }
+
+    /**
+     * 모델이 가진 캐시 적중률 (없으면 빈 Map)
+     *
+     * - sessionCache: 세션 캐시가 분포에 반영된 생성 단계 비율
+     * - suffixIndex: infini-gram이 코퍼스 일치로 생성한 단계 비율 (나머지는 N-gram backoff)
+     */
+    public static Map<String, Object> cacheStats(LanguageModel model) {
+        Map<String, Object> caches = new LinkedHashMap<>();
+        NgramModel ngram = model instanceof InfiniGramModel infini ? infini.getBackoff()
+            : model instanceof NgramModel direct ? direct : null;
+        if (model instanceof InfiniGramModel infini) {
+            caches.put("suffixIndex", hitRate(infini.getIndexSteps(), infini.getIndexSteps() + infini.getBackoffSteps()));
+        }
+        if (ngram != null) {
+            Map<String, Object> session = hitRate(ngram.getSessionCacheHits(), ngram.getSessionCacheLookups());
+            session.put("sessions", ngram.getSessionCount());
+            caches.put("sessionCache", session);
+        }
+        return caches;
+    }
+
+    /**
+     * 모델 데이터 메모리 (바이트, 추정할 수 없으면 -1)
+     *
+     * infini-gram의 suffix array는 memory-mapped라 힙 밖이지만 함께 더함
+     */
+    public static long memoryBytes(LanguageModel model) {
+        if (model instanceof InfiniGramModel infini) {
+            return infini.getBackoff().memoryBytes() + infini.getIndex().sizeBytes();
+        }
+        return model instanceof NextTokenPredictor predictor ? predictor.memoryBytes() : -1;
+    }
+
+    static Map<String, Object> hitRate(long hits, long lookups) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hits", hits);
+        stats.put("lookups", lookups);
+        stats.put("hitRate", lookups == 0 ? 0.0 : (double) hits / lookups);
+        return stats;
+    }
+
+    private static final class ModelMetrics {
+        final LongAdder requests = new LongAdder();
+        final LongAdder cachedRequests = new LongAdder();
+        final LongAdder outputTokens = new LongAdder();
+        final Map<String, LatencyHistogram> stages = new ConcurrentHashMap<>();
+
+        LatencyHistogram stage(String name) {
+            return stages.computeIfAbsent(name, key -> new LatencyHistogram());
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.miniai.server.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 잠금 없는 지연 시간 히스토그램 (나노초, log-linear 버킷)
+ *
+ * 학습 포인트:
+ * - 모든 값을 저장하면 메모리가 요청 수에 비례 → 버킷 카운트만 저장 (크기 고정)
+ * - 2의 거듭제곱 구간마다 8칸 → 상대 오차 12.5% 이내로 p50/p95/p99 추정
+ *   (1µs든 1s든 같은 상대 정밀도, HdrHistogram과 같은 아이디어)
+ * - 기록 = 버킷 번호 계산(비트 연산) + AtomicLongArray 증가 → 여러 요청 스레드가 잠금 없이 기록
+ * - 조회는 버킷을 한 번 훑는 스냅샷 (기록과 동시에 읽어도 안전, 약간의 오차 허용)
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = 64 * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * 값 하나 기록 (음수는 0으로)
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        buckets.incrementAndGet(bucketOf(value));
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * 버킷 번호: 최상위 비트 위치(구간) × 8 + 그 아래 3비트(칸)
+     */
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int highestBit = 63 - Long.numberOfLeadingZeros(value);
+        int shift = highestBit - SUB_BUCKET_BITS;
+        int sub = (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+        return (shift + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * 버킷 하한 (bucketOf의 역)
+     */
+    static long lowerBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        int sub = bucket % SUB_BUCKETS;
+        return (long) (SUB_BUCKETS + sub) << shift;
+    }
+
+    private static long width(int bucket) {
+        return bucket < SUB_BUCKETS ? 1 : 1L << (bucket / SUB_BUCKETS - 1);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * 백분위 값 (나노초, 버킷 중간값)
+     *
+     * @param p 0 ~ 1 (예: 0.99)
+     */
+    public long percentile(double p) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = buckets.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(p * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(lowerBound(i) + width(i) / 2, max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * 요약 (밀리초)
+     */
+    public Map<String, Object> toSummary() {
+        long n = count.sum();
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", n);
+        summary.put("meanMs", n == 0 ? 0.0 : toMillis(sum.sum() / n));
+        summary.put("p50Ms", toMillis(percentile(0.50)));
+        summary.put("p95Ms", toMillis(percentile(0.95)));
+        summary.put("p99Ms", toMillis(percentile(0.99)));
+        summary.put("maxMs", toMillis(max.get()));
+        return summary;
+    }
+
+    private static double toMillis(long nanos) {
+        return Math.round(nanos / 1_000.0) / 1_000.0; // µs 단위로 반올림
+    }
+}
@@ -0,0 +1,57 @@
+package com.miniai.server.registry;
+
+import com.miniai.core.model.LanguageModel;
+import com.miniai.model.BigramModel;
+import com.miniai.model.ngram.EnsembleModel;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 모델을 읽은 Artifact 파일과 읽는 방법 (파일이 바뀌면 같은 방법으로 다시 읽기 위해)
+ *
+ * - bigramOnly: 기본 모델처럼 metadata 없는 옛 bigram 형식 (BigramModel.fromArtifact)
+ * - 나머지는 EnsembleModel.loadArtifact가 metadata로 종류를 판단 (smoothingType은 N-gram일 때만 사용)
+ */
+final class ArtifactSource {
+
+    private final Path path;
+    private final String smoothingType;
+    private final boolean bigramOnly;
+
+    private ArtifactSource(Path path, String smoothingType, boolean bigramOnly) {
+        this.path = path.toAbsolutePath().normalize();
+        this.smoothingType = smoothingType;
+        this.bigramOnly = bigramOnly;
+    }
+
+    static ArtifactSource of(Path path, String smoothingType) {
+        return new ArtifactSource(path, smoothingType != null ? smoothingType : "simple", false);
+    }
+
+    static ArtifactSource bigram(Path path) {
+        return new ArtifactSource(path, null, true);
+    }
+
+    /**
+     * 파일을 읽어서 모델 생성 (게시하지 않음)
+     *
+     * @throws IllegalArgumentException 파일이 없는 경우
+     */
+    LanguageModel read() throws IOException {
+        if (!Files.isRegularFile(path)) {
+            throw new IllegalArgumentException("Artifact 파일이 없습니다: " + path);
+        }
+        return bigramOnly ? BigramModel.fromArtifact(path) : EnsembleModel.loadArtifact(path, smoothingType);
+    }
+
+    Path path() {
+        return path;
+    }
+
+    @Override
+    public String toString() {
+        return path.toString();
+    }
+}
@@ -0,0 +1,276 @@
+package com.miniai.server.registry;
+
+import com.miniai.core.model.LanguageModel;
+import com.miniai.core.types.GenerateRequest;
+import com.miniai.core.types.GenerateResponse;
+import com.miniai.model.NextTokenPredictor;
+import com.miniai.server.config.VirtualThreads;
+import com.miniai.server.startup.ModelWarmup;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Artifact 파일 감시 → 바뀐 모델을 다시 읽어서 무중단 교체
+ *
+ * 학습 포인트:
+ * - 정기 학습 결과를 data/에 복사하면 서버가 알아서 새 모델로 바꿈 (/v1/train이나 PUT /v1/models 없이)
+ * - WatchService로 파일에서 읽은 모델들(ArtifactSource)의 디렉토리를 감시 (새로 게시된 모델의 디렉토리도 계속 추가)
+ * - 복사 중인 파일을 읽지 않도록 마지막 이벤트 뒤 settle-ms 동안 조용해야 다시 읽음
+ *   (임시 이름으로 복사한 뒤 mv로 바꾸는 것이 가장 안전, 반쯤 쓰인 파일은 검증에서 걸러지고 다음 이벤트에 다시 시도)
+ * - 읽기 → 검증(어휘가 비어 있지 않음 + smoke generate) → 워밍업은 전용 스레드 하나에서
+ *   → 요청 스레드는 기다리지 않고, 그동안 옛 모델이 계속 서빙
+ * - 교체는 레지스트리의 버전 비교 교체(replace) 한 번: 처리 중인 요청은 옛 모델로 끝까지, 다음 요청부터 새 모델
+ *   (그사이 PUT /v1/models나 학습이 같은 이름을 게시했으면 덮지 않음)
+ * - 실패는 로그와 stats()의 last(모델별 마지막 재로드 결과)로 알림 (옛 모델은 그대로)
+ * - Linux는 inotify라 즉시 감지, macOS JDK는 폴링이라 10초 정도 늦을 수 있음
+ *
+ * 설정:
+ * - miniai.watch.enabled: 감시 여부 (기본 true)
+ * - miniai.watch.settle-ms: 마지막 변경 뒤 기다릴 시간 (기본 1000)
+ * - miniai.watch.poll-ms: 이벤트 대기 간격 (새 모델 디렉토리 등록, settle 확인 주기, 기본 250)
+ * - miniai.watch.warmup-rounds: 교체 전 워밍업 횟수 (기본 200, 0이면 smoke generate만)
+ */
+@Component
+public class ArtifactWatcher {
+
+    private static final String SMOKE_PROMPT = "public class Main {\n    public static void main(String[] args) {\n        ";
+
+    private final ModelRegistry registry;
+    private final boolean enabled;
+    private final long settleMillis;
+    private final long pollMillis;
+    private final ModelWarmup warmup;
+
+    private WatchService watchService;
+    private Thread watchThread;
+    private final ExecutorService reloader = Executors.newSingleThreadExecutor(
+        VirtualThreads.factory("artifact-reload-", false));
+
+    /**
+     * 감시 중인 디렉토리 (watch 스레드만 접근)
+     */
+    private final Map<Path, WatchKey> directories = new HashMap<>();
+    /**
+     * 변경된 파일 → 마지막 이벤트 시각 (nanoTime, watch 스레드만 접근)
+     */
+    private final Map<Path, Long> pending = new HashMap<>();
+
+    /**
+     * 다시 읽기를 기다리는 모델 이름 (같은 모델은 한 번만 예약)
+     */
+    private final Set<String> queued = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder reloads = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final Map<String, Map<String, Object>> lastResults = new ConcurrentHashMap<>();
+
+    public ArtifactWatcher(ModelRegistry registry,
+                           @Value("${miniai.watch.enabled:true}") boolean enabled,
+                           @Value("${miniai.watch.settle-ms:1000}") long settleMillis,
+                           @Value("${miniai.watch.poll-ms:250}") long pollMillis,
+                           @Value("${miniai.watch.warmup-rounds:200}") int warmupRounds) {
+        if (settleMillis < 0 || pollMillis < 1) {
+            throw new IllegalArgumentException("settle-ms는 0 이상, poll-ms는 1 이상이어야 합니다: "
+                + settleMillis + ", " + pollMillis);
+        }
+        this.registry = registry;
+        this.enabled = enabled;
+        this.settleMillis = settleMillis;
+        this.pollMillis = pollMillis;
+        this.warmup = new ModelWarmup(warmupRounds, warmupRounds, 100, 16, 10_000);
+    }
+
+    @PostConstruct
+    void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        watchService = FileSystems.getDefault().newWatchService();
+        watchThread = VirtualThreads.factory("artifact-watch-", false).newThread(this::watchLoop);
+        watchThread.start();
+    }
+
+    @PreDestroy
+    void stop() throws IOException {
+        if (watchService != null) {
+            watchService.close(); // watch 스레드는 ClosedWatchServiceException으로 종료
+        }
+        reloader.shutdownNow();
+    }
+
+    private void watchLoop() {
+        try {
+            while (true) {
+                registerDirectories();
+                WatchKey key = watchService.poll(pollMillis, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    collect(key);
+                }
+                submitSettled();
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            // 종료
+        }
+    }
+
+    /**
+     * 파일에서 읽은 모델들의 디렉토리를 감시 목록에 추가 (이미 있으면 건너뜀)
+     */
+    private void registerDirectories() {
+        for (ModelHandle handle : registry.fileBacked().values()) {
+            Path directory = handle.getSource().path().getParent();
+            if (directory == null || directories.containsKey(directory)) {
+                continue;
+            }
+            try {
+                directories.put(directory, directory.register(watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY));
+                System.out.println("👀 Artifact 감시: " + directory);
+            } catch (IOException e) {
+                directories.put(directory, null); // 다시 시도하지 않음
+                System.err.println("⚠️  디렉토리 감시 실패: " + directory + " (" + e.getMessage() + ")");
+            }
+        }
+    }
+
+    private void collect(WatchKey key) {
+        Path directory = (Path) key.watchable();
+        long now = System.nanoTime();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                // 이벤트를 놓침 → 이 디렉토리의 모델 파일을 모두 바뀐 것으로
+                for (ModelHandle handle : registry.fileBacked().values()) {
+                    if (directory.equals(handle.getSource().path().getParent())) {
+                        pending.put(handle.getSource().path(), now);
+                    }
+                }
+            } else if (event.context() instanceof Path file) {
+                pending.put(directory.resolve(file), now);
+            }
+        }
+        key.reset();
+    }
+
+    /**
+     * settle-ms 동안 조용했던 파일을 읽은 모델마다 다시 읽기 예약
+     */
+    private void submitSettled() {
+        long now = System.nanoTime();
+        pending.entrySet().removeIf(entry -> {
+            if (now - entry.getValue() < settleMillis * 1_000_000L) {
+                return false;
+            }
+            registry.fileBacked().forEach((name, handle) -> {
+                if (handle.getSource().path().equals(entry.getKey()) && queued.add(name)) {
+                    reloader.submit(() -> reload(name));
+                }
+            });
+            return true;
+        });
+    }
+
+    /**
+     * 다시 읽기 → 검증 → 워밍업 → 교체 (reload 스레드)
+     */
+    private void reload(String name) {
+        queued.remove(name); // 읽는 동안 파일이 또 바뀌면 다시 예약됨
+        ModelHandle current = registry.fileBacked().get(name);
+        if (current == null) {
+            return; // 그사이 내려감
+        }
+        long expectedVersion = current.getVersion();
+        ArtifactSource source = current.getSource();
+        long start = System.nanoTime();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("artifact", source.toString());
+        result.put("at", System.currentTimeMillis());
+        LanguageModel model = null;
+        try {
+            model = source.read();
+            validate(model);
+            if (warmup.isEnabled()) {
+                result.put("warmup", warmup.run(model));
+            }
+            long version = registry.replace(name, expectedVersion, model, source);
+            if (version < 0) {
+                result.put("status", "skipped");
+                result.put("message", "다시 읽는 동안 다른 버전이 게시됨");
+                close(model);
+            } else {
+                result.put("status", "reloaded");
+                result.put("version", version);
+                reloads.increment();
+            }
+        } catch (Exception | LinkageError e) {
+            failures.increment();
+            result.put("status", "failed");
+            result.put("message", String.valueOf(e.getMessage()));
+            System.err.println("⚠️  Artifact 재로드 실패: " + name + " (" + source + "): " + e.getMessage()
+                + " → 기존 v" + expectedVersion + " 계속 서빙");
+            close(model);
+        }
+        result.put("millis", (System.nanoTime() - start) / 1_000_000);
+        lastResults.put(name, result);
+    }
+
+    /**
+     * 교체 전 검증: 어휘가 있고, 짧은 생성이 예외 없이 끝나야 함
+     *
+     * @throws IllegalStateException 검증 실패
+     */
+    private static void validate(LanguageModel model) {
+        if (model instanceof NextTokenPredictor predictor && predictor.getVocabulary().isEmpty()) {
+            throw new IllegalStateException("어휘가 비어 있습니다");
+        }
+        GenerateResponse response = model.generate(GenerateRequest.builder(SMOKE_PROMPT)
+            .maxTokens(8)
+            .seed(0L)
+            .build());
+        if (response == null || response.getGeneratedText() == null) {
+            throw new IllegalStateException("smoke generate가 응답을 만들지 못했습니다");
+        }
+    }
+
+    private static void close(LanguageModel model) {
+        if (model instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                System.err.println("⚠️  모델 해제 실패: " + e.getMessage());
+            }
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("files", registry.fileBacked().values().stream()
+            .map(handle -> handle.getSource().toString())
+            .sorted()
+            .toList());
+        stats.put("reloads", reloads.sum());
+        stats.put("failures", failures.sum());
+        stats.put("last", new LinkedHashMap<>(lastResults));
+        return stats;
+    }
+}
@@ -0,0 +1,113 @@
+package com.miniai.server.registry;
+
+import com.miniai.core.model.LanguageModel;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 레지스트리에 게시된 모델 하나 (참조 카운트)
+ *
+ * 학습 포인트:
+ * - 레지스트리가 1개, 처리 중인 요청이 1개씩 참조를 가짐
+ * - 교체되면 레지스트리 참조만 내려놓음 → 마지막 요청이 끝날 때 해제
+ * - 0이 된 뒤에는 다시 잡을 수 없음 (CAS로 "0이 아닐 때만 증가")
+ */
+final class ModelHandle {
+
+    private final String name;
+    private final LanguageModel model;
+    private final long version;
+    private final long loadedAt = System.currentTimeMillis();
+    /**
+     * 읽은 Artifact (학습 결과처럼 파일이 없으면 null)
+     */
+    private final ArtifactSource source;
+
+    /**
+     * 레지스트리 참조(1) + 처리 중인 요청 수
+     */
+    private final AtomicInteger references = new AtomicInteger(1);
+
+    ModelHandle(String name, LanguageModel model, long version, ArtifactSource source) {
+        this.name = name;
+        this.model = model;
+        this.version = version;
+        this.source = source;
+    }
+
+    /**
+     * 참조 획득 (이미 해제되었으면 false → 호출자는 최신 handle로 다시 시도)
+     */
+    boolean retain() {
+        while (true) {
+            int current = references.get();
+            if (current == 0) {
+                return false;
+            }
+            if (references.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 참조 반납 (마지막 참조면 모델 해제)
+     */
+    void release() {
+        int remaining = references.decrementAndGet();
+        if (remaining == 0) {
+            dispose();
+        } else if (remaining < 0) {
+            throw new IllegalStateException("이미 해제된 모델입니다: " + name + " v" + version);
+        }
+    }
+
+    private void dispose() {
+        if (model instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                System.err.println("⚠️  모델 해제 실패: " + name + " v" + version + " - " + e.getMessage());
+            }
+        }
+        System.out.println("🗑️  모델 해제: " + name + " v" + version + " (" + model.modelName() + ")");
+    }
+
+    String getName() {
+        return name;
+    }
+
+    LanguageModel getModel() {
+        return model;
+    }
+
+    long getVersion() {
+        return version;
+    }
+
+    ArtifactSource getSource() {
+        return source;
+    }
+
+    /**
+     * 처리 중인 요청 수 (레지스트리 참조 제외)
+     */
+    int getInFlight() {
+        return Math.max(0, references.get() - 1);
+    }
+
+    Map<String, Object> toStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("name", name);
+        status.put("model", model.modelName());
+        status.put("version", version);
+        status.put("loadedAt", loadedAt);
+        status.put("inFlight", getInFlight());
+        if (source != null) {
+            status.put("source", source.toString());
+        }
+        return status;
+    }
+}
@@ -0,0 +1,240 @@
+package com.miniai.server.registry;
+
+import com.miniai.core.model.LanguageModel;
+import com.miniai.model.BigramModel;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 이름으로 구분하는 서빙 모델 레지스트리
+ *
+ * 학습 포인트:
+ * - 이름 → handle을 ConcurrentHashMap에 두고 put 한 번으로 교체 (원자적 게시)
+ * - 요청은 handle을 "빌려서" 쓰고 반납 (Lease, try-with-resources)
+ *   → 교체 중에도 처리 중인 요청은 옛 모델로 끝까지 생성
+ * - 옛 모델은 마지막 요청이 반납할 때 해제 (참조 카운트)
+ * - 큰 모델(5-gram) 로드는 게시 전에 끝남 → 생성 요청은 잠금 없이 기다리지 않음
+ * - 교체/내리기는 onChange 리스너에 모델 이름으로 알림 (응답 캐시 무효화 등)
+ * - 모델 인스턴스에 붙은 상태(NgramModel 세션 캐시)는 옮기지 않음 → 교체 후 세션은 빈 상태로 다시 시작
+ *   (새 모델의 vocabulary가 달라 토큰 ID가 맞지 않을 수 있음, 세션 요청은 Lease로 빌린 모델에만 반영)
+ * - 파일에서 읽은 모델은 읽은 방법(ArtifactSource)을 기억 → ArtifactWatcher가 파일이 바뀌면 다시 읽어 교체
+ * - 시작할 때 로드할 모델은 StartupWarmup이 병렬로 로드해서 게시 (생성자에서 읽지 않음)
+ */
+@Service
+public class ModelRegistry {
+
+    /**
+     * 요청에 모델 이름이 없을 때 쓰는 이름
+     */
+    public static final String DEFAULT_MODEL = "default";
+
+    private final Map<String, ModelHandle> models = new ConcurrentHashMap<>();
+    private final AtomicLong versions = new AtomicLong();
+    private final List<Consumer<String>> changeListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * 모델 게시 (같은 이름이 있으면 교체, 옛 모델은 처리 중인 요청이 끝나면 해제)
+     *
+     * @return 새 버전 번호
+     */
+    public long publish(String name, LanguageModel model) {
+        return publish(name, model, null);
+    }
+
+    private long publish(String name, LanguageModel model, ArtifactSource source) {
+        String key = nameOrDefault(name);
+        ModelHandle handle = new ModelHandle(key, model, versions.incrementAndGet(), source);
+        ModelHandle previous = models.put(key, handle);
+        if (previous != null) {
+            retire(previous, handle);
+        } else {
+            System.out.println("📦 모델 게시: " + key + " v" + handle.getVersion() + " (" + model.modelName() + ")");
+        }
+        return handle.getVersion();
+    }
+
+    /**
+     * 지금 게시된 버전이 expectedVersion일 때만 교체 (파일 재로드용)
+     *
+     * 다시 읽는 동안 PUT /v1/models나 학습이 먼저 게시했다면 그쪽을 덮지 않음
+     *
+     * @return 새 버전 번호 (교체하지 않았으면 -1)
+     */
+    long replace(String name, long expectedVersion, LanguageModel model, ArtifactSource source) {
+        String key = nameOrDefault(name);
+        ModelHandle current = models.get(key);
+        if (current == null || current.getVersion() != expectedVersion) {
+            return -1;
+        }
+        ModelHandle handle = new ModelHandle(key, model, versions.incrementAndGet(), source);
+        if (!models.replace(key, current, handle)) {
+            return -1;
+        }
+        retire(current, handle);
+        return handle.getVersion();
+    }
+
+    private void retire(ModelHandle previous, ModelHandle handle) {
+        previous.release();
+        notifyChange(handle.getName());
+        System.out.println("🔄 모델 교체: " + handle.getName() + " v" + previous.getVersion() + " → v" + handle.getVersion()
+            + " (" + handle.getModel().modelName() + ", 처리 중 " + previous.getInFlight() + "건은 옛 모델로 완료)");
+    }
+
+    /**
+     * Artifact를 읽어서 게시 (bigram / trigram / N-gram / 앙상블 설정, metadata로 구분)
+     *
+     * 로드는 호출 스레드에서 끝까지 한 뒤 게시하므로 그동안 기존 모델이 계속 서빙됨
+     */
+    public long load(String name, Path artifactPath, String smoothingType) throws IOException {
+        ArtifactSource source = ArtifactSource.of(artifactPath, smoothingType);
+        return publish(name, source.read(), source);
+    }
+
+    /**
+     * 기본 모델 Artifact(bigram, metadata 없음)를 읽어서 "default"로 게시
+     */
+    public long loadDefault(Path artifactPath) {
+        ArtifactSource source = ArtifactSource.bigram(artifactPath);
+        return publish(DEFAULT_MODEL, BigramModel.fromArtifact(source.path()), source);
+    }
+
+    /**
+     * 모델 내리기 (처리 중인 요청은 끝까지 진행)
+     *
+     * @return 모델이 있었으면 true
+     */
+    public boolean unload(String name) {
+        String key = nameOrDefault(name);
+        ModelHandle removed = models.remove(key);
+        if (removed == null) {
+            return false;
+        }
+        removed.release();
+        notifyChange(key);
+        return true;
+    }
+
+    /**
+     * 모델이 교체되거나 내려갈 때 이름을 받을 리스너 등록
+     *
+     * 게시 직후(새 버전이 보인 뒤) 호출 스레드에서 실행되므로 가볍게 유지
+     */
+    public void onChange(Consumer<String> listener) {
+        changeListeners.add(listener);
+    }
+
+    private void notifyChange(String name) {
+        for (Consumer<String> listener : changeListeners) {
+            try {
+                listener.accept(name);
+            } catch (RuntimeException e) {
+                System.err.println("⚠️  모델 변경 알림 실패: " + name + " (" + e.getMessage() + ")");
+            }
+        }
+    }
+
+    /**
+     * 모델 빌리기 (반드시 close로 반납: try-with-resources)
+     *
+     * @param name 모델 이름 (null이면 default)
+     * @throws IllegalArgumentException 모델이 없는 경우
+     */
+    public Lease acquire(String name) {
+        String key = nameOrDefault(name);
+        while (true) {
+            ModelHandle handle = models.get(key);
+            if (handle == null) {
+                throw new IllegalArgumentException(DEFAULT_MODEL.equals(key)
+                    ? "모델이 로드되지 않았습니다. /v1/train을 먼저 호출하세요."
+                    : "모델을 찾을 수 없습니다: " + key);
+            }
+            if (handle.retain()) {
+                return new Lease(handle);
+            }
+            // 조회와 획득 사이에 교체되어 해제됨 → 새 handle로 다시 시도
+        }
+    }
+
+    /**
+     * 현재 게시된 모델 (참조를 잡지 않음: 상태 조회용)
+     */
+    public Optional<LanguageModel> peek(String name) {
+        return Optional.ofNullable(models.get(nameOrDefault(name))).map(ModelHandle::getModel);
+    }
+
+    public List<Map<String, Object>> list() {
+        List<ModelHandle> handles = new ArrayList<>(models.values());
+        handles.sort(Comparator.comparingLong(ModelHandle::getVersion));
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (ModelHandle handle : handles) {
+            result.add(handle.toStatus());
+        }
+        return result;
+    }
+
+    /**
+     * 파일에서 읽은 모델들: 이름 → 게시된 handle (ArtifactWatcher용)
+     */
+    Map<String, ModelHandle> fileBacked() {
+        Map<String, ModelHandle> result = new HashMap<>();
+        models.forEach((name, handle) -> {
+            if (handle.getSource() != null) {
+                result.put(name, handle);
+            }
+        });
+        return result;
+    }
+
+    public int size() {
+        return models.size();
+    }
+
+    /**
+     * 요청의 모델 이름 (비어 있으면 default)
+     */
+    public static String nameOrDefault(String name) {
+        return name == null || name.isBlank() ? DEFAULT_MODEL : name;
+    }
+
+    /**
+     * 빌린 모델 (close하면 반납, 두 번 반납해도 한 번만 처리)
+     */
+    public static final class Lease implements AutoCloseable {
+
+        private final ModelHandle handle;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Lease(ModelHandle handle) {
+            this.handle = handle;
+        }
+
+        public LanguageModel model() {
+            return handle.getModel();
+        }
+
+        public long version() {
+            return handle.getVersion();
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                handle.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.miniai.server.startup;
+
+import com.miniai.core.model.LanguageModel;
+import com.miniai.core.types.GenerateRequest;
+import com.miniai.model.NextTokenPredictor;
+import com.miniai.model.ngram.EnsembleModel;
+import com.miniai.model.ngram.NgramModel;
+
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 모델 하나 워밍업 (JIT이 생성/점수 계산 경로를 컴파일할 때까지 반복)
+ *
+ * 학습 포인트:
+ * - 막 시작한 JVM은 인터프리터로 실행 → 첫 요청들은 JIT 컴파일이 끝난 뒤보다 몇 배~수십 배 느림
+ * - 트래픽을 받기 전에 실제 요청과 같은 경로(generate, 점수 계산)를 충분히 돌려 둠
+ * - "충분히"는 JIT 컴파일 시간(CompilationMXBean)으로 판단
+ *   → 한 묶음(batchSize번) 동안 컴파일 시간이 묶음 시간의 2% 미만으로 늘면 hot path가 컴파일된 것으로 보고 종료
+ *   (minRounds 이상, maxRounds / maxMillis 이하, 컴파일 시간을 잴 수 없는 JVM이면 maxRounds까지)
+ * - 프롬프트는 샘플 코드를 여러 위치에서 자른 접두사 → 문맥이 매번 달라 여러 분기가 고루 실행됨
+ * - 모델을 직접 호출 (응답 캐시, 지연 지표, 세션 캐시에 워밍업 요청이 섞이지 않도록)
+ */
+public final class ModelWarmup {
+
+    /**
+     * 프롬프트를 자를 샘플 (코드 모델이 자주 보는 구문 위주)
+     */
+    static final String SAMPLE_SOURCE = """
+        import java.util.ArrayList;
+        import java.util.List;
+        import java.util.Map;
+
+        public class OrderService {
+            private final Map<String, List<Order>> ordersByUser;
+
+            public OrderService(Map<String, List<Order>> ordersByUser) {
+                this.ordersByUser = ordersByUser;
+            }
+
+            public List<Order> findOrders(String userId) {
+                if (userId == null || userId.isEmpty()) {
+                    throw new IllegalArgumentException("userId is required");
+                }
+                List<Order> result = new ArrayList<>();
+                for (Order order : ordersByUser.getOrDefault(userId, List.of())) {
+                    if (order.getTotal() > 0) {
+                        result.add(order);
+                    }
+                }
+                return result;
+            }
+
+            public int countOrders(String userId) {
+                return findOrders(userId).size();
+            }
+
+            @Override
+            public String toString() {
+                return "OrderService{" + ordersByUser.size() + " users}";
+            }
+        }
+        """;
+
+    /**
+     * 한 묶음 동안 늘어난 컴파일 시간이 묶음 시간의 이 비율 미만이면 수렴
+     */
+    private static final double QUIET_COMPILE_FRACTION = 0.02;
+
+    /**
+     * 점수 계산은 몇 번에 한 번 (generate보다 비싸고 서빙에서도 덜 불림)
+     */
+    private static final int SCORE_EVERY = 4;
+
+    private final int minRounds;
+    private final int maxRounds;
+    private final int batchSize;
+    private final int maxTokens;
+    private final long maxMillis;
+    private final List<String> prompts;
+
+    public ModelWarmup(int minRounds, int maxRounds, int batchSize, int maxTokens, long maxMillis) {
+        if (minRounds < 0 || maxRounds < minRounds) {
+            throw new IllegalArgumentException("0 <= minRounds <= maxRounds여야 합니다: " + minRounds + ", " + maxRounds);
+        }
+        if (batchSize < 1 || maxTokens < 1) {
+            throw new IllegalArgumentException("batchSize와 maxTokens는 1 이상이어야 합니다: " + batchSize + ", " + maxTokens);
+        }
+        this.minRounds = minRounds;
+        this.maxRounds = maxRounds;
+        this.batchSize = batchSize;
+        this.maxTokens = maxTokens;
+        this.maxMillis = maxMillis;
+        this.prompts = prompts(SAMPLE_SOURCE);
+    }
+
+    /**
+     * 샘플의 각 줄 끝과 줄 중간(첫 공백 뒤)에서 자른 접두사 (문맥이 짧은 것부터 긴 것까지)
+     */
+    private static List<String> prompts(String source) {
+        List<String> result = new ArrayList<>();
+        for (int lineEnd = source.indexOf('\n'); lineEnd >= 0; lineEnd = source.indexOf('\n', lineEnd + 1)) {
+            int lineStart = source.lastIndexOf('\n', lineEnd - 1) + 1;
+            String line = source.substring(lineStart, lineEnd);
+            int indent = line.length() - line.stripLeading().length();
+            int space = line.indexOf(' ', indent);
+            if (space > indent) {
+                result.add(source.substring(0, lineStart + space + 1));
+            }
+            result.add(source.substring(0, lineEnd + 1));
+        }
+        return result;
+    }
+
+    /**
+     * 워밍업 실행
+     *
+     * @return rounds, millis, firstRoundMs(첫 요청 = 콜드), warmRoundMs(마지막 묶음 평균), compileMs, converged
+     */
+    public Map<String, Object> run(LanguageModel model) {
+        CompilationMXBean compiler = ManagementFactory.getCompilationMXBean();
+        boolean canMeasureCompile = compiler != null && compiler.isCompilationTimeMonitoringSupported();
+        long compileStart = canMeasureCompile ? compiler.getTotalCompilationTime() : 0;
+
+        long start = System.nanoTime();
+        long deadline = start + maxMillis * 1_000_000L;
+        int rounds = 0;
+        double firstRoundMs = Double.NaN;
+        double warmRoundMs = Double.NaN;
+        boolean converged = false;
+
+        while (rounds < maxRounds && System.nanoTime() < deadline) {
+            long batchStart = System.nanoTime();
+            long batchCompileStart = canMeasureCompile ? compiler.getTotalCompilationTime() : 0;
+            int batchRounds = 0;
+            for (; batchRounds < batchSize && rounds < maxRounds; batchRounds++, rounds++) {
+                long roundStart = System.nanoTime();
+                runRound(model, rounds);
+                if (rounds == 0) {
+                    firstRoundMs = (System.nanoTime() - roundStart) / 1e6;
+                }
+            }
+            long batchNanos = System.nanoTime() - batchStart;
+            warmRoundMs = batchNanos / 1e6 / batchRounds;
+
+            if (canMeasureCompile && rounds >= minRounds) {
+                long compiledMillis = compiler.getTotalCompilationTime() - batchCompileStart;
+                if (compiledMillis < QUIET_COMPILE_FRACTION * batchNanos / 1e6) {
+                    converged = true;
+                    break;
+                }
+            }
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("rounds", rounds);
+        result.put("millis", (System.nanoTime() - start) / 1_000_000);
+        result.put("firstRoundMs", firstRoundMs);
+        result.put("warmRoundMs", warmRoundMs);
+        result.put("compileMs", canMeasureCompile ? compiler.getTotalCompilationTime() - compileStart : -1);
+        result.put("converged", converged);
+        return result;
+    }
+
+    /**
+     * 한 번: 접두사 하나로 generate, SCORE_EVERY번에 한 번은 점수 계산(perplexity)도
+     */
+    private void runRound(LanguageModel model, int round) {
+        String prompt = prompts.get(round % prompts.size());
+        model.generate(GenerateRequest.builder(prompt)
+            .maxTokens(maxTokens)
+            .temperature(0.8)
+            .topK(40)
+            .seed((long) round)
+            .build());
+        if (round % SCORE_EVERY == 0) {
+            score(model, prompt);
+        }
+    }
+
+    private static void score(LanguageModel model, String text) {
+        if (model instanceof NgramModel ngram) {
+            ngram.perplexity(text);
+        } else if (model instanceof EnsembleModel ensemble) {
+            ensemble.perplexity(text);
+        } else if (model instanceof NextTokenPredictor predictor) {
+            // perplexity가 없는 모델(bigram/trigram)은 같은 분포 조회 경로만
+            List<Integer> tokens = predictor.getTokenizer().encode(text);
+            for (int i = 1; i < tokens.size(); i++) {
+                predictor.nextTokenProbabilities(tokens.subList(0, i));
+            }
+        }
+    }
+
+    /**
+     * maxRounds가 0이면 워밍업 생략
+     */
+    public boolean isEnabled() {
+        return maxRounds > 0;
+    }
+}
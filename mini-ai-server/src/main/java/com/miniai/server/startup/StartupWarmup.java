@@ -0,0 +1,259 @@
+package com.miniai.server.startup;
+
+import com.miniai.server.config.VirtualThreads;
+import com.miniai.server.registry.ModelRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * 서버 시작: 모델 병렬 로드 → 워밍업 → 준비 완료 (readiness)
+ *
+ * 학습 포인트:
+ * - 모델 로드(JSON 파싱)는 Artifact마다 독립 → 병렬로 읽으면 시작 시간 = 가장 큰 Artifact 시간
+ * - 로드 직후의 모델은 JIT 전이라 첫 요청들이 느림 → ModelWarmup으로 생성/점수 경로를 데운 뒤 트래픽을 받음
+ * - 살아 있음(liveness)과 준비됨(readiness)을 나눔
+ *   → 워밍업 중에도 /v1/health/live는 200 (재시작 대상 아님), /v1/health/ready는 끝날 때까지 503 (트래픽 보내지 않음)
+ * - ApplicationRunner는 내장 Tomcat이 뜬 뒤, Spring의 ReadinessState.ACCEPTING_TRAFFIC 전에 실행됨
+ *   → 워밍업 동안 probe에는 응답하고, Spring 자체 readiness도 워밍업이 끝나야 바뀜
+ * - 준비 전의 /v1/generate는 429 + Retry-After (resource "startup")
+ * - 시작 시간(JVM 시작부터 준비까지), 모델별 로드/워밍업 시간, 워밍업 첫 요청 vs 데운 뒤 지연, 준비 후 첫 실제 요청 지연을 기록
+ *
+ * 설정:
+ * - miniai.models.default-artifact: "default"로 로드할 bigram Artifact (기본 data/sample-bigram.json, 없으면 건너뜀)
+ * - miniai.startup.artifacts: 함께 로드할 모델 (이름=경로, 쉼표로 구분, 예: code=data/code-5gram-kn.json)
+ * - miniai.startup.smoothing-type: 위 모델의 smoothing (기본 simple, PUT /v1/models의 smoothingType과 같음)
+ * - miniai.startup.load-threads: 병렬 로드/워밍업 스레드 수 (기본 0 = min(모델 수, CPU 수))
+ * - miniai.startup.warmup.min-rounds / max-rounds: 모델마다 워밍업 횟수 범위 (기본 200 / 5000, max-rounds=0이면 워밍업 생략)
+ * - miniai.startup.warmup.batch-size: JIT 수렴을 확인하는 간격 (기본 100번)
+ * - miniai.startup.warmup.max-tokens: 워밍업 generate의 maxTokens (기본 16)
+ * - miniai.startup.warmup.max-ms: 모델마다 워밍업 시간 상한 (기본 30초)
+ */
+@Component
+public class StartupWarmup implements ApplicationRunner {
+
+    /**
+     * 준비 전 요청에 다시 시도하라고 알려 줄 시간
+     */
+    public static final long RETRY_AFTER_SECONDS = 1;
+
+    public enum Phase { STARTING, LOADING, WARMING, READY }
+
+    private final ModelRegistry registry;
+    private final Map<String, String> artifacts;
+    /**
+     * default-artifact에서 온 이름 (옛 bigram 형식이라 loadDefault로 읽음, startup.artifacts가 덮으면 null)
+     */
+    private final String legacyDefault;
+    private final String smoothingType;
+    private final int loadThreads;
+    private final ModelWarmup warmup;
+
+    private volatile Phase phase = Phase.STARTING;
+    private final Map<String, Map<String, Object>> models = new ConcurrentHashMap<>();
+    private volatile long runnerStartMillis = -1;
+    private volatile long loadMillis = -1;
+    private volatile long warmupMillis = -1;
+    private volatile long readyAtMillis = -1;
+    private final AtomicLong firstRequestNanos = new AtomicLong(-1);
+
+    public StartupWarmup(ModelRegistry registry,
+                         @Value("${miniai.models.default-artifact:data/sample-bigram.json}") String defaultArtifact,
+                         @Value("${miniai.startup.artifacts:}") String[] artifacts,
+                         @Value("${miniai.startup.smoothing-type:simple}") String smoothingType,
+                         @Value("${miniai.startup.load-threads:0}") int loadThreads,
+                         @Value("${miniai.startup.warmup.min-rounds:200}") int minRounds,
+                         @Value("${miniai.startup.warmup.max-rounds:5000}") int maxRounds,
+                         @Value("${miniai.startup.warmup.batch-size:100}") int batchSize,
+                         @Value("${miniai.startup.warmup.max-tokens:16}") int maxTokens,
+                         @Value("${miniai.startup.warmup.max-ms:30000}") long maxMillis) {
+        this.registry = registry;
+        this.artifacts = parseArtifacts(defaultArtifact, artifacts);
+        boolean defaultOverridden = defaultArtifact == null
+            || !defaultArtifact.trim().equals(this.artifacts.get(ModelRegistry.DEFAULT_MODEL));
+        this.legacyDefault = defaultOverridden ? null : ModelRegistry.DEFAULT_MODEL;
+        this.smoothingType = smoothingType;
+        this.loadThreads = loadThreads;
+        this.warmup = new ModelWarmup(Math.min(minRounds, maxRounds), maxRounds, batchSize, maxTokens, maxMillis);
+    }
+
+    /**
+     * 이름 → 경로 (default-artifact가 먼저, artifacts에 default가 있으면 그쪽이 우선)
+     *
+     * @throws IllegalArgumentException "이름=경로" 형식이 아닌 항목
+     */
+    private static Map<String, String> parseArtifacts(String defaultArtifact, String[] entries) {
+        Map<String, String> result = new LinkedHashMap<>();
+        if (defaultArtifact != null && !defaultArtifact.isBlank()) {
+            result.put(ModelRegistry.DEFAULT_MODEL, defaultArtifact.trim());
+        }
+        for (String entry : entries) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            int eq = entry.indexOf('=');
+            if (eq <= 0 || eq == entry.length() - 1) {
+                throw new IllegalArgumentException("miniai.startup.artifacts 항목은 이름=경로 형식이어야 합니다: " + entry);
+            }
+            result.put(entry.substring(0, eq).trim(), entry.substring(eq + 1).trim());
+        }
+        return result;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws InterruptedException {
+        runnerStartMillis = uptimeMillis();
+        int threads = loadThreads > 0 ? loadThreads
+            : Math.max(1, Math.min(artifacts.size(), Runtime.getRuntime().availableProcessors()));
+        ExecutorService executor = Executors.newFixedThreadPool(threads, VirtualThreads.factory("model-startup-", false));
+        try {
+            phase = Phase.LOADING;
+            long start = System.nanoTime();
+            List<String> loaded = runAll(executor, artifacts.keySet(), "로드", this::load);
+            loadMillis = (System.nanoTime() - start) / 1_000_000;
+
+            phase = Phase.WARMING;
+            start = System.nanoTime();
+            if (warmup.isEnabled()) {
+                runAll(executor, loaded, "워밍업", this::warmUp);
+            }
+            warmupMillis = (System.nanoTime() - start) / 1_000_000;
+        } finally {
+            executor.shutdownNow();
+        }
+
+        readyAtMillis = uptimeMillis();
+        phase = Phase.READY;
+        System.out.println("🚀 준비 완료: 모델 " + registry.size() + "개, 로드 " + loadMillis + "ms, 워밍업 "
+            + warmupMillis + "ms (JVM 시작부터 " + readyAtMillis + "ms)");
+    }
+
+    /**
+     * 이름마다 task를 병렬 실행하고 성공한 이름만 (실패는 task가 상태에 기록)
+     */
+    private List<String> runAll(ExecutorService executor, Iterable<String> names, String stage,
+                                Predicate<String> task)
+            throws InterruptedException {
+        Map<String, Future<Boolean>> futures = new LinkedHashMap<>();
+        for (String name : names) {
+            futures.put(name, executor.submit(() -> task.test(name)));
+        }
+        List<String> succeeded = new ArrayList<>();
+        for (Map.Entry<String, Future<Boolean>> entry : futures.entrySet()) {
+            try {
+                if (entry.getValue().get()) {
+                    succeeded.add(entry.getKey());
+                }
+            } catch (ExecutionException e) {
+                fail(entry.getKey(), stage, e.getCause());
+            }
+        }
+        return succeeded;
+    }
+
+    private boolean load(String name) {
+        Path path = Paths.get(artifacts.get(name));
+        Map<String, Object> status = status(name);
+        status.put("artifact", path.toString());
+        if (!Files.isRegularFile(path)) {
+            status.put("state", "missing");
+            System.out.println(ModelRegistry.DEFAULT_MODEL.equals(name)
+                ? "⚠️  기본 모델 없음. /v1/train으로 학습 필요"
+                : "⚠️  Artifact 파일이 없습니다: " + name + " (" + path + ")");
+            return false;
+        }
+        try {
+            long start = System.nanoTime();
+            long version = name.equals(legacyDefault)
+                ? registry.loadDefault(path)
+                : registry.load(name, path, smoothingType);
+            status.put("state", "loaded");
+            status.put("version", version);
+            status.put("loadMs", (System.nanoTime() - start) / 1_000_000);
+            return true;
+        } catch (Exception e) {
+            fail(name, "로드", e);
+            return false;
+        }
+    }
+
+    private boolean warmUp(String name) {
+        Map<String, Object> status = status(name);
+        status.put("state", "warming");
+        try (ModelRegistry.Lease lease = registry.acquire(name)) {
+            status.put("warmup", warmup.run(lease.model()));
+        }
+        status.put("state", "ready");
+        return true;
+    }
+
+    private void fail(String name, String stage, Throwable e) {
+        Map<String, Object> status = status(name);
+        status.put("state", "failed");
+        status.put("error", String.valueOf(e.getMessage()));
+        System.err.println("⚠️  모델 " + stage + " 실패: " + name + " (" + e.getMessage() + ")");
+    }
+
+    private Map<String, Object> status(String name) {
+        return models.computeIfAbsent(name, key -> new ConcurrentHashMap<>());
+    }
+
+    private static long uptimeMillis() {
+        return ManagementFactory.getRuntimeMXBean().getUptime();
+    }
+
+    public boolean isReady() {
+        return phase == Phase.READY;
+    }
+
+    public Phase getPhase() {
+        return phase;
+    }
+
+    /**
+     * 준비 후 처리한 요청의 지연 (첫 요청만 기록: 워밍업 효과 확인용)
+     */
+    public void recordRequest(long nanos) {
+        if (firstRequestNanos.get() < 0) {
+            firstRequestNanos.compareAndSet(-1, nanos);
+        }
+    }
+
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("phase", phase.name().toLowerCase());
+        status.put("ready", isReady());
+        status.put("uptimeMs", uptimeMillis());
+        status.put("contextStartedMs", runnerStartMillis);
+        status.put("loadMs", loadMillis);
+        status.put("warmupMs", warmupMillis);
+        status.put("readyAtMs", readyAtMillis);
+        long first = firstRequestNanos.get();
+        status.put("firstRequestMs", first >= 0 ? first / 1e6 : null);
+
+        Map<String, Object> byName = new LinkedHashMap<>();
+        for (String name : artifacts.keySet()) {
+            Map<String, Object> model = models.get(name);
+            byName.put(name, model != null ? new LinkedHashMap<>(model) : Map.of("state", "pending"));
+        }
+        status.put("models", byName);
+        return status;
+    }
+}